@@ -21,6 +21,10 @@ import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.data.schema.Schema.LogicalType;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -30,9 +34,11 @@ import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -41,23 +47,31 @@ import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
- * Instance of a record structured by a {@link Schema}. Fields are accessible by name.
+ * Instance of a record structured by a {@link Schema}. Fields are accessible by name, or by their position in the
+ * fields of the schema.
  */
 @Beta
 public class StructuredRecord implements Serializable {
   private static final SimpleDateFormat DEFAULT_FORMAT = new SimpleDateFormat("YYYY-MM-DD'T'HH:mm:ss z");
-  private final Schema schema;
-  private final Map<String, Object> fields;
+  private Schema schema;
+  // field values in the order of the schema fields
+  private Object[] values;
 
   private static final long serialVersionUID = -6547770456592865613L;
 
+  // Serialized as a map from field name to value, to stay compatible with records serialized by older versions
+  private static final ObjectStreamField[] serialPersistentFields = {
+    new ObjectStreamField("schema", Schema.class),
+    new ObjectStreamField("fields", Map.class)
+  };
+
   {
     DEFAULT_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
   }
 
-  private StructuredRecord(Schema schema, Map<String, Object> fields) {
+  private StructuredRecord(Schema schema, Object[] values) {
     this.schema = schema;
-    this.fields = fields;
+    this.values = values;
   }
 
   /**
@@ -79,7 +93,22 @@ public class StructuredRecord implements Serializable {
   @SuppressWarnings("unchecked")
   @Nullable
   public <T> T get(String fieldName) {
-    return (T) fields.get(fieldName);
+    int index = schema.getFieldIndex(fieldName);
+    return index < 0 ? null : (T) values[index];
+  }
+
+  /**
+   * Get the value of a field in the record by its position. This avoids looking up the field by name.
+   *
+   * @param fieldIndex position of the field to get in the fields of the schema.
+   * @param <T> type of object of the field value.
+   * @return value of the field.
+   * @throws IndexOutOfBoundsException if there is no field at the given position.
+   */
+  @SuppressWarnings("unchecked")
+  @Nullable
+  public <T> T get(int fieldIndex) {
+    return (T) values[fieldIndex];
   }
 
   /**
@@ -92,7 +121,7 @@ public class StructuredRecord implements Serializable {
   @Nullable
   public LocalDate getDate(String fieldName) {
     LogicalType logicalType = validateAndGetLogicalType(schema.getField(fieldName), EnumSet.of(LogicalType.DATE));
-    Integer value = (Integer) fields.get(fieldName);
+    Integer value = get(fieldName);
     return (value == null || logicalType == null) ? null : LocalDate.ofEpochDay(value.longValue());
   }
 
@@ -109,7 +138,7 @@ public class StructuredRecord implements Serializable {
   public LocalTime getTime(String fieldName) {
     LogicalType logicalType = validateAndGetLogicalType(schema.getField(fieldName),
                                                         EnumSet.of(LogicalType.TIME_MILLIS, LogicalType.TIME_MICROS));
-    Object value = fields.get(fieldName);
+    Object value = get(fieldName);
     if (value == null || logicalType == null) {
       return null;
     }
@@ -152,7 +181,7 @@ public class StructuredRecord implements Serializable {
     LogicalType logicalType = validateAndGetLogicalType(schema.getField(fieldName),
                                                         EnumSet.of(LogicalType.TIMESTAMP_MILLIS,
                                                                    LogicalType.TIMESTAMP_MICROS));
-    Object value = fields.get(fieldName);
+    Object value = get(fieldName);
     if (value == null || logicalType == null) {
       return null;
     }
@@ -259,11 +288,15 @@ public class StructuredRecord implements Serializable {
    */
   public static class Builder {
     private final Schema schema;
-    private Map<String, Object> fields;
+    private final List<Schema.Field> schemaFields;
+    private final Object[] values;
+    private final boolean[] isSet;
 
     private Builder(Schema schema) {
       this.schema = schema;
-      this.fields = new HashMap<>();
+      this.schemaFields = schema.getFields();
+      this.values = new Object[schemaFields.size()];
+      this.isSet = new boolean[schemaFields.size()];
     }
 
     /**
@@ -276,8 +309,26 @@ public class StructuredRecord implements Serializable {
      *                                   value is given
      */
     public Builder set(String fieldName, @Nullable Object value) {
-      validateAndGetField(fieldName, value);
-      fields.put(fieldName, value);
+      setValue(validateAndGetIndex(fieldName, value), value);
+      return this;
+    }
+
+    /**
+     * Set the field at the given position in the fields of the schema to the given value.
+     * This avoids looking up the field by name.
+     *
+     * @param fieldIndex position of the field to set
+     * @param value value for the field
+     * @return this builder
+     * @throws UnexpectedFormatException if there is no field at the given position, or the field is not nullable
+     *                                   but a null value is given
+     */
+    public Builder set(int fieldIndex, @Nullable Object value) {
+      if (fieldIndex < 0 || fieldIndex >= values.length) {
+        throw new UnexpectedFormatException("field index " + fieldIndex + " is not in the schema.");
+      }
+      validateNullable(schemaFields.get(fieldIndex), value);
+      setValue(fieldIndex, value);
       return this;
     }
 
@@ -291,13 +342,14 @@ public class StructuredRecord implements Serializable {
      *                                   value is given or if the provided date is an invalid date
      */
     public Builder setDate(String fieldName, @Nullable LocalDate localDate) {
-      validateAndGetLogicalType(validateAndGetField(fieldName, localDate), EnumSet.of(LogicalType.DATE));
+      int index = validateAndGetIndex(fieldName, localDate);
+      validateAndGetLogicalType(schemaFields.get(index), EnumSet.of(LogicalType.DATE));
       if (localDate == null) {
-        fields.put(fieldName, null);
+        setValue(index, null);
         return this;
       }
       try {
-        fields.put(fieldName, Math.toIntExact(localDate.toEpochDay()));
+        setValue(index, Math.toIntExact(localDate.toEpochDay()));
       } catch (ArithmeticException e) {
         // Highest integer is 2,147,483,647 which is Jan 1 2038.
         throw new UnexpectedFormatException(String.format("Field %s was set to a date that is too large." +
@@ -316,11 +368,12 @@ public class StructuredRecord implements Serializable {
      *                                   value is given
      */
     public Builder setTime(String fieldName, @Nullable LocalTime localTime) {
-      LogicalType logicalType = validateAndGetLogicalType(validateAndGetField(fieldName, localTime),
+      int index = validateAndGetIndex(fieldName, localTime);
+      LogicalType logicalType = validateAndGetLogicalType(schemaFields.get(index),
                                                           EnumSet.of(LogicalType.TIME_MILLIS, LogicalType.TIME_MICROS));
 
       if (localTime == null) {
-        fields.put(fieldName, null);
+        setValue(index, null);
         return this;
       }
 
@@ -329,7 +382,7 @@ public class StructuredRecord implements Serializable {
       if (logicalType == LogicalType.TIME_MILLIS) {
         try {
           int millis = Math.toIntExact(TimeUnit.NANOSECONDS.toMillis(nanos));
-          fields.put(fieldName, millis);
+          setValue(index, millis);
         } catch (ArithmeticException e) {
           throw new UnexpectedFormatException(String.format("Field %s was set to a time that is too large.",
                                                             fieldName));
@@ -338,7 +391,7 @@ public class StructuredRecord implements Serializable {
       }
 
       long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
-      fields.put(fieldName, micros);
+      setValue(index, micros);
       return this;
     }
 
@@ -353,12 +406,13 @@ public class StructuredRecord implements Serializable {
      *                                   value is given or if the provided date is an invalid timestamp
      */
     public Builder setTimestamp(String fieldName, @Nullable ZonedDateTime zonedDateTime) {
-      LogicalType logicalType = validateAndGetLogicalType(validateAndGetField(fieldName, zonedDateTime),
+      int index = validateAndGetIndex(fieldName, zonedDateTime);
+      LogicalType logicalType = validateAndGetLogicalType(schemaFields.get(index),
                                                           EnumSet.of(LogicalType.TIMESTAMP_MILLIS,
                                                                      LogicalType.TIMESTAMP_MICROS));
 
       if (zonedDateTime == null) {
-        fields.put(fieldName, null);
+        setValue(index, null);
         return this;
       }
 
@@ -367,13 +421,13 @@ public class StructuredRecord implements Serializable {
         if (logicalType == LogicalType.TIMESTAMP_MILLIS) {
           long millis = TimeUnit.SECONDS.toMillis(instant.getEpochSecond());
           long tsMillis = Math.addExact(millis, TimeUnit.NANOSECONDS.toMillis(instant.getNano()));
-          fields.put(fieldName, tsMillis);
+          setValue(index, tsMillis);
           return this;
         }
 
         long micros = TimeUnit.SECONDS.toMicros(instant.getEpochSecond());
         long tsMicros = Math.addExact(micros, TimeUnit.NANOSECONDS.toMicros(instant.getNano()));
-        fields.put(fieldName, tsMicros);
+        setValue(index, tsMicros);
         return this;
       } catch (ArithmeticException e) {
         throw new UnexpectedFormatException(String.format("Field %s was set to a timestamp that is too large.",
@@ -417,19 +471,20 @@ public class StructuredRecord implements Serializable {
     @Deprecated
     public Builder convertAndSet(String fieldName, @Nullable Date date,
                                  @Nullable DateFormat dateFormat) throws UnexpectedFormatException {
-      Schema.Field field = validateAndGetField(fieldName, date);
+      int index = validateAndGetIndex(fieldName, date);
+      Schema.Field field = schemaFields.get(index);
       boolean isNullable = field.getSchema().isNullable();
       if (isNullable && date == null) {
-        fields.put(fieldName, null);
+        setValue(index, null);
         return this;
       }
 
       Schema.Type fieldType = isNullable ? field.getSchema().getNonNullable().getType() : field.getSchema().getType();
       if (fieldType == Schema.Type.LONG) {
-        fields.put(fieldName, date.getTime());
+        setValue(index, date.getTime());
       } else if (fieldType == Schema.Type.STRING) {
         DateFormat format = dateFormat == null ? DEFAULT_FORMAT : dateFormat;
-        fields.put(fieldName, format.format(date));
+        setValue(index, format.format(date));
       } else {
         throw new UnexpectedFormatException("Date must be either a long or a string, not a " + fieldType);
       }
@@ -447,8 +502,8 @@ public class StructuredRecord implements Serializable {
      *                                   value is given, or the string cannot be converted to the type for the field
      */
     public Builder convertAndSet(String fieldName, @Nullable String strVal) throws UnexpectedFormatException {
-      Schema.Field field = validateAndGetField(fieldName, strVal);
-      fields.put(fieldName, convertString(field.getSchema(), strVal));
+      int index = validateAndGetIndex(fieldName, strVal);
+      setValue(index, convertString(schemaFields.get(index).getSchema(), strVal));
       return this;
     }
 
@@ -460,19 +515,14 @@ public class StructuredRecord implements Serializable {
      */
     public StructuredRecord build() throws UnexpectedFormatException {
       // check that all non-nullable fields have a value.
-      for (Schema.Field field : schema.getFields()) {
-        String fieldName = field.getName();
-        if (!fields.containsKey(fieldName)) {
-          // if the field is not nullable and there is no value set for the field, this is invalid.
-          if (!field.getSchema().isNullable()) {
-            throw new UnexpectedFormatException("Field " + fieldName + " must contain a value.");
-          } else {
-            // otherwise, set the value for the field to null
-            fields.put(fieldName, null);
-          }
+      for (int i = 0; i < values.length; i++) {
+        // if the field is not nullable and there is no value set for the field, this is invalid.
+        // otherwise, the value for the field is null
+        if (!isSet[i] && !schemaFields.get(i).getSchema().isNullable()) {
+          throw new UnexpectedFormatException("Field " + schemaFields.get(i).getName() + " must contain a value.");
         }
       }
-      return new StructuredRecord(schema, fields);
+      return new StructuredRecord(schema, values);
     }
 
     private Object convertString(Schema schema, String strVal) throws UnexpectedFormatException {
@@ -514,27 +564,40 @@ public class StructuredRecord implements Serializable {
       }
     }
 
-    private Schema.Field validateAndGetField(String fieldName, Object val) {
-      Schema.Field field = schema.getField(fieldName);
-      if (field == null) {
+    private void setValue(int index, @Nullable Object value) {
+      values[index] = value;
+      isSet[index] = true;
+    }
+
+    /**
+     * Returns the position of the field of the given name, after validating that it can be set to the given value.
+     */
+    private int validateAndGetIndex(String fieldName, Object val) {
+      int index = schema.getFieldIndex(fieldName);
+      if (index < 0) {
         throw new UnexpectedFormatException("field " + fieldName + " is not in the schema.");
       }
+      validateNullable(schemaFields.get(index), val);
+      return index;
+    }
+
+    private void validateNullable(Schema.Field field, Object val) {
+      if (val != null) {
+        return;
+      }
       Schema fieldSchema = field.getSchema();
-      if (val == null) {
-        if (fieldSchema.getType() == Schema.Type.NULL) {
-          return field;
-        }
-        if (fieldSchema.getType() != Schema.Type.UNION) {
-          throw new UnexpectedFormatException("field " + fieldName + " cannot be set to a null value.");
-        }
-        for (Schema unionSchema : fieldSchema.getUnionSchemas()) {
-          if (unionSchema.getType() == Schema.Type.NULL) {
-            return field;
-          }
+      if (fieldSchema.getType() == Schema.Type.NULL) {
+        return;
+      }
+      if (fieldSchema.getType() != Schema.Type.UNION) {
+        throw new UnexpectedFormatException("field " + field.getName() + " cannot be set to a null value.");
+      }
+      for (Schema unionSchema : fieldSchema.getUnionSchemas()) {
+        if (unionSchema.getType() == Schema.Type.NULL) {
+          return;
         }
-        throw new UnexpectedFormatException("field " + fieldName + " cannot be set to a null value.");
       }
-      return field;
+      throw new UnexpectedFormatException("field " + field.getName() + " cannot be set to a null value.");
     }
   }
 
@@ -549,12 +612,42 @@ public class StructuredRecord implements Serializable {
 
     StructuredRecord that = (StructuredRecord) o;
 
-    return Objects.equals(schema, that.schema) && Objects.equals(fields, that.fields);
+    return Objects.equals(schema, that.schema) && Arrays.equals(values, that.values);
 
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(schema, fields);
+    // same as the hash code of a map from field name to value, so that hash codes don't change with the layout
+    int fieldsHash = 0;
+    List<Schema.Field> schemaFields = schema.getFields();
+    for (int i = 0; i < values.length; i++) {
+      fieldsHash += schemaFields.get(i).getName().hashCode() ^ Objects.hashCode(values[i]);
+    }
+    return Objects.hash(schema, fieldsHash);
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    Map<String, Object> fields = new HashMap<>();
+    List<Schema.Field> schemaFields = schema.getFields();
+    for (int i = 0; i < values.length; i++) {
+      fields.put(schemaFields.get(i).getName(), values[i]);
+    }
+    ObjectOutputStream.PutField putField = out.putFields();
+    putField.put("schema", schema);
+    putField.put("fields", fields);
+    out.writeFields();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField getField = in.readFields();
+    schema = (Schema) getField.get("schema", null);
+    Map<String, Object> fields = (Map<String, Object>) getField.get("fields", null);
+    List<Schema.Field> schemaFields = schema.getFields();
+    values = new Object[schemaFields.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = fields.get(schemaFields.get(i).getName());
+    }
   }
 }
@@ -472,6 +472,9 @@ public final class Schema implements Serializable {
   // This is a on demand cache for case insensitive field lookup. No need to serialize.
   private transient Map<String, Field> ignoreCaseFieldMap;
 
+  // This is a on demand cache for the position of each field. No need to serialize.
+  private transient Map<String, Integer> fieldIndexes;
+
   private Schema(Type type,
                  @Nullable LogicalType logicalType,                                   // Not null for logical type
                  @Nullable Set<String> enumValues,                                    // Not null for enum type
@@ -630,6 +633,31 @@ public final class Schema implements Serializable {
     return ignoreCaseFieldMap.get(name.toLowerCase());
   }
 
+  /**
+   * Returns the position of the record {@link Field} of the given name in the list returned by {@link #getFields()}.
+   *
+   * @param name Name of the field
+   * @return The position of the field or {@code -1} if there is no such field in this record
+   *         or this is not a {@link Type#RECORD RECORD} schema.
+   */
+  public int getFieldIndex(String name) {
+    if (fields == null) {
+      return -1;
+    }
+
+    // Build the field index map on demand.
+    Map<String, Integer> indexes = fieldIndexes;
+    if (indexes == null) {
+      indexes = new HashMap<>();
+      for (int i = 0; i < fields.size(); i++) {
+        indexes.put(fields.get(i).getName(), i);
+      }
+      fieldIndexes = indexes;
+    }
+    Integer index = indexes.get(name);
+    return index == null ? -1 : index;
+  }
+
   /**
    * @return An immutable {@link List} of schemas inside this union
    *         or {@code null} if this is not a {@link Type#UNION UNION} schema.
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.api.data.batch;
+
+import co.cask.cdap.api.annotation.Beta;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A comparison of a record field with a constant value, which can be pushed down to a
+ * {@link FilterableRecordScannable}.
+ */
+@Beta
+public final class FieldFilter implements Serializable {
+
+  private static final long serialVersionUID = 6094612617329137531L;
+
+  /**
+   * The comparison operator of a {@link FieldFilter}.
+   */
+  public enum Operator {
+    EQUAL,
+    LESS_THAN,
+    LESS_THAN_OR_EQUAL,
+    GREATER_THAN,
+    GREATER_THAN_OR_EQUAL
+  }
+
+  private final String fieldName;
+  private final Operator operator;
+  private final Object value;
+
+  /**
+   * Creates a filter that compares the given field to the given value.
+   *
+   * @param fieldName the name of the record field
+   * @param operator the comparison operator
+   * @param value the value to compare to. It must be of the Java type of the field, e.g. {@link String}
+   *              for a string field or {@code byte[]} for a bytes field
+   */
+  public FieldFilter(String fieldName, Operator operator, Object value) {
+    if (fieldName == null || operator == null || value == null) {
+      throw new IllegalArgumentException("Field name, operator and value must not be null.");
+    }
+    this.fieldName = fieldName;
+    this.operator = operator;
+    this.value = value;
+  }
+
+  /**
+   * @return the name of the record field
+   */
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  /**
+   * @return the comparison operator
+   */
+  public Operator getOperator() {
+    return operator;
+  }
+
+  /**
+   * @return the value to compare to
+   */
+  public Object getValue() {
+    return value;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    FieldFilter that = (FieldFilter) o;
+    return fieldName.equals(that.fieldName) && operator == that.operator && Objects.deepEquals(value, that.value);
+  }
+
+  @Override
+  public int hashCode() {
+    int valueHash = value instanceof byte[] ? Arrays.hashCode((byte[]) value) : value.hashCode();
+    return Objects.hash(fieldName, operator, valueHash);
+  }
+
+  @Override
+  public String toString() {
+    return "FieldFilter{" +
+      "fieldName='" + fieldName + '\'' +
+      ", operator=" + operator +
+      ", value=" + value +
+      '}';
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.api.data.batch;
+
+import co.cask.cdap.api.annotation.Beta;
+import co.cask.cdap.api.data.format.StructuredRecord;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link RecordScannable} of {@link StructuredRecord} that can use filters and a projection of fields
+ * pushed down by a query engine, so that only the records and fields needed by a query are read.
+ */
+@Beta
+public interface FilterableRecordScannable extends RecordScannable<StructuredRecord> {
+
+  /**
+   * Returns whether the given filter is fully applied by {@link #getSplits(Collection)}, which means that
+   * the splits only contain records that satisfy the filter and the filter doesn't need to be evaluated again.
+   *
+   * @param filter the filter to check
+   * @return {@code true} if the filter is fully applied by the dataset
+   */
+  boolean isFilterHandled(FieldFilter filter);
+
+  /**
+   * Returns the splits of the dataset for the given filters. The splits must contain all records that satisfy
+   * all of the filters. They may also contain records that don't satisfy filters that are not handled
+   * as determined by {@link #isFilterHandled(FieldFilter)}.
+   *
+   * @param filters the filters on the records
+   * @return A list of {@link Split}s.
+   */
+  List<Split> getSplits(Collection<FieldFilter> filters);
+
+  /**
+   * Creates a reader for the split of a dataset that only reads the given fields.
+   *
+   * @param split The split to create a reader for.
+   * @param fields the fields to read, or {@code null} to read all fields. The records returned by the
+   *               {@link RecordScanner} only need to contain these fields
+   * @return The instance of a {@link RecordScanner}.
+   */
+  RecordScanner<StructuredRecord> createSplitRecordScanner(Split split, @Nullable Set<String> fields);
+}
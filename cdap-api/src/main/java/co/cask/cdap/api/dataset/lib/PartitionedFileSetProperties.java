@@ -19,7 +19,10 @@ package co.cask.cdap.api.dataset.lib;
 import co.cask.cdap.api.annotation.Beta;
 import co.cask.cdap.api.dataset.table.TableProperties;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nullable;
 
 /**
@@ -38,6 +41,15 @@ public class PartitionedFileSetProperties extends FileSetProperties {
    */
   public static final String PARTITIONING_FIELD_PREFIX = "partitioning.field.";
 
+  /**
+   * The property name for the list of partitioning field names to be indexed. Filters with a condition
+   * on an indexed field can be served from the index instead of scanning all partitions.
+   * Indexed fields can only be removed but not added when the dataset is updated, as existing partitions
+   * would not be indexed.
+   */
+  @Beta
+  public static final String PARTITIONING_INDEXED_FIELDS = "partitioning.indexed.fields";
+
   /**
    * Read the partitioning for a PartitionedFileSet from its properties.
    *
@@ -71,6 +83,27 @@ public class PartitionedFileSetProperties extends FileSetProperties {
     return builder.build();
   }
 
+  /**
+   * Read the partitioning field names to be indexed from the dataset properties.
+   *
+   * @param properties the dataset properties
+   * @return the set of indexed field names, which is empty if no field is indexed
+   */
+  @Beta
+  public static Set<String> getIndexedFields(Map<String, String> properties) {
+    String fieldList = properties.get(PARTITIONING_INDEXED_FIELDS);
+    if (fieldList == null) {
+      return Collections.emptySet();
+    }
+    Set<String> fields = new LinkedHashSet<>();
+    for (String field : fieldList.split(",")) {
+      if (!field.trim().isEmpty()) {
+        fields.add(field.trim());
+      }
+    }
+    return fields;
+  }
+
   /**
    * @return a properties builder
    */
@@ -105,6 +138,21 @@ public class PartitionedFileSetProperties extends FileSetProperties {
       return this;
     }
 
+    /**
+     * Sets the partitioning fields to be indexed.
+     */
+    @Beta
+    public Builder setIndexedFields(String... fields) {
+      StringBuilder builder = new StringBuilder();
+      String sep = "";
+      for (String field : fields) {
+        builder.append(sep).append(field);
+        sep = ",";
+      }
+      add(PARTITIONING_INDEXED_FIELDS, builder.toString());
+      return this;
+    }
+
     /**
      * Set the table permissions as a map from user name to a permission string.
      */
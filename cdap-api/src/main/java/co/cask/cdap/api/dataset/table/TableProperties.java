@@ -47,6 +47,14 @@ public class TableProperties {
   @Beta
   public static final String PROPERTY_TABLE_PERMISSIONS = "dataset.table.permissions.grants";
 
+  /**
+   * Maximum number of rows to cache in memory for repeated reads within a transaction. Since reads are
+   * isolated to the transaction snapshot, rows read from the persistent store can be served from memory
+   * until the transaction ends. A zero or negative value disables the cache, which is the default.
+   */
+  @Beta
+  public static final String PROPERTY_READ_CACHE_ROWS = "dataset.table.read.cache.rows";
+
   /**
    * Set a conflict detection level in dataset properties.
    */
@@ -105,6 +113,41 @@ public class TableProperties {
     return "true".equalsIgnoreCase(props.get(Table.PROPERTY_READLESS_INCREMENT));
   }
 
+  /**
+   * Set the maximum number of rows to cache for repeated reads within a transaction.
+   * A zero or negative value disables the cache.
+   */
+  @Beta
+  public static void setReadCacheRows(DatasetProperties.Builder builder, int rows) {
+    builder.add(PROPERTY_READ_CACHE_ROWS, rows);
+  }
+
+  /**
+   * @return the maximum number of rows to cache for repeated reads within a transaction. Defaults to 0,
+   *         which means the cache is disabled.
+   *
+   * @throws NumberFormatException if the value is not a valid integer.
+   */
+  @Beta
+  public static int getReadCacheRows(DatasetProperties props) {
+    return getReadCacheRows(props.getProperties());
+  }
+
+  /**
+   * @return the maximum number of rows to cache for repeated reads within a transaction. Defaults to 0,
+   *         which means the cache is disabled.
+   *
+   * @throws NumberFormatException if the value is not a valid integer.
+   */
+  @Beta
+  public static int getReadCacheRows(Map<String, String> props) {
+    String stringValue = props.get(PROPERTY_READ_CACHE_ROWS);
+    if (stringValue == null) {
+      return 0;
+    }
+    return Math.max(0, Integer.parseInt(stringValue));
+  }
+
   /**
    * Set the table TTL, in seconds, in dataset properties. A zero or negative value means no TTL.
    */
@@ -320,6 +363,16 @@ public class TableProperties {
       return (B) this;
     }
 
+    /**
+     * Set the maximum number of rows to cache for repeated reads within a transaction.
+     */
+    @SuppressWarnings("unchecked")
+    @Beta
+    public B setReadCacheRows(int rows) {
+      TableProperties.setReadCacheRows(this, rows);
+      return (B) this;
+    }
+
     /**
      * Set the schema of a table.
      */
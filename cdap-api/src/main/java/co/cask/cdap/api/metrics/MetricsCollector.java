@@ -37,4 +37,15 @@ public interface MetricsCollector {
    * @param value value of the metric.
    */
   void gauge(String metricName, long value);
+
+  /**
+   * Records a value in the distribution of a metric at the current time, for example, the latency of an operation.
+   * Percentiles of the recorded values can be queried with the metric name followed by the percentile, such as
+   * {@code latency.p50} and {@code latency.p99}. The default implementation ignores the value.
+   * @param metricName Name of the metric.
+   * @param value value to record.
+   */
+  default void distribution(String metricName, long value) {
+    // no-op
+  }
 }
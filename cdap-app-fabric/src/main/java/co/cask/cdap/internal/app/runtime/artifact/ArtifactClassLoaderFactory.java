@@ -21,12 +21,10 @@ import co.cask.cdap.app.runtime.ProgramClassLoaderProvider;
 import co.cask.cdap.app.runtime.ProgramRunner;
 import co.cask.cdap.app.runtime.ProgramRunnerFactory;
 import co.cask.cdap.common.conf.CConfiguration;
-import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.lang.DirectoryClassLoader;
 import co.cask.cdap.common.lang.FilterClassLoader;
-import co.cask.cdap.common.lang.jar.BundleJarUtil;
-import co.cask.cdap.common.utils.DirUtils;
 import co.cask.cdap.internal.app.runtime.ProgramClassLoader;
+import co.cask.cdap.internal.app.runtime.artifact.UnpackedArtifactCache.UnpackedArtifact;
 import co.cask.cdap.proto.ProgramType;
 import co.cask.cdap.security.impersonation.EntityImpersonator;
 import com.google.common.base.Throwables;
@@ -39,24 +37,30 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
-import java.util.concurrent.Callable;
 
 /**
- * Given an artifact, creates a {@link CloseableClassLoader} from it. Takes care of unpacking the artifact and
- * cleaning up the directory when the classloader is closed.
+ * Given an artifact, creates a {@link CloseableClassLoader} from it. Takes care of unpacking the artifact through the
+ * {@link UnpackedArtifactCache} and releasing the unpacked directory when the classloader is closed.
  */
 final class ArtifactClassLoaderFactory {
   private static final Logger LOG = LoggerFactory.getLogger(ArtifactClassLoaderFactory.class);
 
   private final CConfiguration cConf;
   private final ProgramRunnerFactory programRunnerFactory;
-  private final File tmpDir;
+  private final UnpackedArtifactCache unpackedArtifactCache;
 
-  ArtifactClassLoaderFactory(CConfiguration cConf, ProgramRunnerFactory programRunnerFactory) {
+  ArtifactClassLoaderFactory(CConfiguration cConf, ProgramRunnerFactory programRunnerFactory,
+                             UnpackedArtifactCache unpackedArtifactCache) {
     this.cConf = cConf;
     this.programRunnerFactory = programRunnerFactory;
-    this.tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
-                           cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
+    this.unpackedArtifactCache = unpackedArtifactCache;
+  }
+
+  /**
+   * Returns the {@link UnpackedArtifactCache} used for unpacking artifacts.
+   */
+  UnpackedArtifactCache getUnpackedArtifactCache() {
+    return unpackedArtifactCache;
   }
 
   /**
@@ -106,7 +110,7 @@ final class ArtifactClassLoaderFactory {
   }
 
   /**
-   * Unpack the given {@code artifactLocation} to a temporary directory and call
+   * Unpack the given {@code artifactLocation} through the {@link UnpackedArtifactCache} and call
    * {@link #createClassLoader(File)} to create the {@link ClassLoader}.
    *
    * @param artifactLocation the location of the artifact to create the classloader from
@@ -117,29 +121,23 @@ final class ArtifactClassLoaderFactory {
    */
   private CloseableClassLoader createClassLoader(final Location artifactLocation,
                                                  EntityImpersonator entityImpersonator) throws IOException {
+    UnpackedArtifact unpacked = null;
     try {
-      final File unpackDir = entityImpersonator.impersonate(new Callable<File>() {
-        @Override
-        public File call() throws IOException {
-          return BundleJarUtil.unJar(artifactLocation, DirUtils.createTempDir(tmpDir));
-        }
-      });
+      unpacked = entityImpersonator.impersonate(() -> unpackedArtifactCache.unpack(artifactLocation));
 
-      final CloseableClassLoader classLoader = createClassLoader(unpackDir);
+      final CloseableClassLoader classLoader = createClassLoader(unpacked.getDir());
+      final UnpackedArtifact finalUnpacked = unpacked;
       return new CloseableClassLoader(classLoader, new Closeable() {
         @Override
-        public void close() throws IOException {
-          try {
-            Closeables.closeQuietly(classLoader);
-            if (unpackDir.exists()) {
-              DirUtils.deleteDirectoryContents(unpackDir);
-            }
-          } catch (IOException e) {
-            LOG.warn("Failed to delete directory {}", unpackDir, e);
-          }
+        public void close() {
+          Closeables.closeQuietly(classLoader);
+          finalUnpacked.close();
         }
       });
     } catch (Exception e) {
+      if (unpacked != null) {
+        unpacked.close();
+      }
       throw Throwables.propagate(e);
     }
   }
@@ -165,29 +163,24 @@ final class ArtifactClassLoaderFactory {
       return createClassLoader(artifactLocation, entityImpersonator);
     }
 
+    UnpackedArtifact unpacked = null;
     try {
-      final File unpackDir = entityImpersonator.impersonate(new Callable<File>() {
-        @Override
-        public File call() throws IOException {
-          return BundleJarUtil.unJar(artifactLocation, DirUtils.createTempDir(tmpDir));
-        }
-      });
+      unpacked = entityImpersonator.impersonate(() -> unpackedArtifactCache.unpack(artifactLocation));
 
       final CloseableClassLoader parentClassLoader = createClassLoader(artifactLocations, entityImpersonator);
-      return new CloseableClassLoader(new DirectoryClassLoader(unpackDir, parentClassLoader, "lib"), new Closeable() {
+      final UnpackedArtifact finalUnpacked = unpacked;
+      return new CloseableClassLoader(new DirectoryClassLoader(unpacked.getDir(), parentClassLoader, "lib"),
+                                      new Closeable() {
         @Override
-        public void close() throws IOException {
-          try {
-            Closeables.closeQuietly(parentClassLoader);
-            if (unpackDir.exists()) {
-              DirUtils.deleteDirectoryContents(unpackDir);
-            }
-          } catch (IOException e) {
-            LOG.warn("Failed to delete directory {}", unpackDir, e);
-          }
+        public void close() {
+          Closeables.closeQuietly(parentClassLoader);
+          finalUnpacked.close();
         }
       });
     } catch (Exception e) {
+      if (unpacked != null) {
+        unpacked.close();
+      }
       throw Throwables.propagate(e);
     }
   }
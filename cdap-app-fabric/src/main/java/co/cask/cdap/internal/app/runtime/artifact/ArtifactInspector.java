@@ -41,6 +41,7 @@ import co.cask.cdap.common.id.Id;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.lang.jar.BundleJarUtil;
 import co.cask.cdap.common.utils.DirUtils;
+import co.cask.cdap.internal.app.runtime.artifact.UnpackedArtifactCache.UnpackedArtifact;
 import co.cask.cdap.internal.app.runtime.plugin.PluginInstantiator;
 import co.cask.cdap.internal.io.ReflectionSchemaGenerator;
 import com.google.common.annotations.VisibleForTesting;
@@ -128,21 +129,20 @@ final class ArtifactInspector {
     Location artifactLocation = Locations.toLocation(artifactFile);
 
     Path stageDir = Files.createTempDirectory(tmpDir, artifactFile.getName());
-    try {
-      File unpackedDir = BundleJarUtil.unJar(artifactLocation,
-                                             Files.createTempDirectory(stageDir, "unpacked-").toFile());
-      try (
-        CloseableClassLoader artifactClassLoader = artifactClassLoaderFactory.createClassLoader(unpackedDir);
-        PluginInstantiator pluginInstantiator =
-          new PluginInstantiator(cConf, parentClassLoader == null ? artifactClassLoader : parentClassLoader,
-                                 Files.createTempDirectory(stageDir, "plugins-").toFile(),
-                                 false)
-      ) {
-        pluginInstantiator.addArtifact(artifactLocation, artifactId.toArtifactId());
-        ArtifactClasses.Builder builder = inspectApplications(artifactId, ArtifactClasses.builder(),
-                                                              artifactLocation, artifactClassLoader);
-        return inspectPlugins(builder, artifactFile, artifactId.toArtifactId(), pluginInstantiator).build();
-      }
+    UnpackedArtifactCache unpackedArtifactCache = artifactClassLoaderFactory.getUnpackedArtifactCache();
+    try (
+      UnpackedArtifact unpackedArtifact = unpackedArtifactCache.unpack(artifactLocation);
+      CloseableClassLoader artifactClassLoader =
+        artifactClassLoaderFactory.createClassLoader(unpackedArtifact.getDir());
+      PluginInstantiator pluginInstantiator =
+        new PluginInstantiator(cConf, parentClassLoader == null ? artifactClassLoader : parentClassLoader,
+                               Files.createTempDirectory(stageDir, "plugins-").toFile(),
+                               false, unpackedArtifactCache)
+    ) {
+      pluginInstantiator.addArtifact(artifactLocation, artifactId.toArtifactId());
+      ArtifactClasses.Builder builder = inspectApplications(artifactId, ArtifactClasses.builder(),
+                                                            artifactLocation, artifactClassLoader);
+      return inspectPlugins(builder, artifactFile, artifactId.toArtifactId(), pluginInstantiator).build();
     } catch (EOFException | ZipException e) {
       throw new InvalidArtifactException("Artifact " + artifactId + " is not a valid zip file.", e);
     } finally {
@@ -90,14 +90,16 @@ public class DefaultArtifactRepository implements ArtifactRepository {
   private final ArtifactConfigReader configReader;
   private final MetadataStore metadataStore;
   private final Impersonator impersonator;
+  private final UnpackedArtifactCache unpackedArtifactCache;
 
-  @VisibleForTesting
   @Inject
   public DefaultArtifactRepository(CConfiguration cConf, ArtifactStore artifactStore, MetadataStore metadataStore,
                                    ProgramRunnerFactory programRunnerFactory,
-                                   Impersonator impersonator) {
+                                   Impersonator impersonator, UnpackedArtifactCache unpackedArtifactCache) {
     this.artifactStore = artifactStore;
-    this.artifactClassLoaderFactory = new ArtifactClassLoaderFactory(cConf, programRunnerFactory);
+    this.unpackedArtifactCache = unpackedArtifactCache;
+    this.artifactClassLoaderFactory = new ArtifactClassLoaderFactory(cConf, programRunnerFactory,
+                                                                     unpackedArtifactCache);
     this.artifactInspector = new ArtifactInspector(cConf, artifactClassLoaderFactory);
     this.systemArtifactDirs = new HashSet<>();
     String systemArtifactsDir = cConf.get(Constants.AppFabric.SYSTEM_ARTIFACTS_DIR);
@@ -330,6 +332,11 @@ public class DefaultArtifactRepository implements ArtifactRepository {
 
   @Override
   public void addSystemArtifacts() throws Exception {
+    long startTime = System.currentTimeMillis();
+    long startHits = unpackedArtifactCache.getHitCount();
+    long startMisses = unpackedArtifactCache.getMissCount();
+    long startUnpackTime = unpackedArtifactCache.getUnpackTimeMillis();
+
     // scan the directory for artifact .jar files and config files for those artifacts
     Map<Id.Artifact, SystemArtifactInfo> systemArtifacts = new HashMap<>();
     for (File systemArtifactDir : systemArtifactDirs) {
@@ -407,6 +414,11 @@ public class DefaultArtifactRepository implements ArtifactRepository {
     if (!remainingArtifacts.isEmpty()) {
       LOG.warn("Unable to add system artifacts {} due to cyclic dependencies", Joiner.on(",").join(remainingArtifacts));
     }
+
+    LOG.info("Added {} system artifacts in {} ms. Unpacked artifact cache hits: {}, misses: {}, unpack time: {} ms",
+             systemArtifacts.size() - remainingArtifacts.size(), System.currentTimeMillis() - startTime,
+             unpackedArtifactCache.getHitCount() - startHits, unpackedArtifactCache.getMissCount() - startMisses,
+             unpackedArtifactCache.getUnpackTimeMillis() - startUnpackTime);
   }
 
   @Override
@@ -0,0 +1,452 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.runtime.artifact;
+
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.lang.jar.BundleJarUtil;
+import co.cask.cdap.common.utils.DirUtils;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.BaseEncoding;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.twill.filesystem.Location;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * A cache of unpacked artifact jars, shared by the classloaders created for artifact inspection, plugins and
+ * programs. Artifacts are unpacked to a directory named by the SHA-256 checksum of the artifact jar, so the same jar
+ * is only unpacked once, even if it is read from different locations, such as the artifact store and a copy in a
+ * plugin directory.
+ *
+ * Each instance keeps the unpacked directories in its own subdirectory of the cache directory, and holds a file lock
+ * for it while the process is alive, so that instances never remove directories used by other instances or processes.
+ * Unpacked directories of instances whose process is gone are taken over, so that they are reused across restarts.
+ *
+ * Each {@link UnpackedArtifact} returned by {@link #unpack(Location)} holds a reference to the unpacked directory
+ * until it is closed. Directories that are not referenced are evicted in least recently used order when the total
+ * size exceeds the configured limit. Unpacked directories are shared and must not be modified.
+ */
+@Singleton
+public final class UnpackedArtifactCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(UnpackedArtifactCache.class);
+  private static final String TMP_SUFFIX = ".tmp";
+  private static final String LOCK_SUFFIX = ".lock";
+  private static final int MAX_CHECKSUMS = 10000;
+
+  private final File baseDir;
+  private final File tmpDir;
+  private final long maxBytes;
+  // from the location fingerprint to the checksum of the artifact, so that an artifact is only read once
+  private final Map<String, String> checksums = new LinkedHashMap<String, String>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+      return size() > MAX_CHECKSUMS;
+    }
+  };
+  // from checksum to cache entry in access order, guarded by this
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong unpackNanos = new AtomicLong();
+  private long totalBytes;
+  // the directory of this instance and the channel holding the lock for it, guarded by this
+  private File cacheDir;
+  private FileChannel lockChannel;
+
+  @Inject
+  public UnpackedArtifactCache(CConfiguration cConf) {
+    this.baseDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
+                             cConf.get(Constants.AppFabric.ARTIFACT_UNPACK_CACHE_DIR)).getAbsoluteFile();
+    this.tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
+                           cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
+    this.maxBytes = cConf.getLong(Constants.AppFabric.ARTIFACT_UNPACK_CACHE_SIZE_MB) * 1024 * 1024;
+  }
+
+  /**
+   * Returns the unpacked directory of the given artifact jar, unpacking it if it is not in the cache.
+   *
+   * @param artifactLocation the location of the artifact jar
+   * @return an {@link UnpackedArtifact} that must be closed when the directory is no longer used
+   * @throws IOException if failed to read or unpack the artifact
+   */
+  public UnpackedArtifact unpack(Location artifactLocation) throws IOException {
+    if (maxBytes <= 0) {
+      // Caching is disabled, unpack to a directory that is deleted on close
+      File unpackedDir = unJar(artifactLocation, DirUtils.createTempDir(tmpDir));
+      return new UnpackedArtifact(unpackedDir, () -> deleteDirectory(unpackedDir));
+    }
+
+    String checksum = getChecksum(artifactLocation);
+    Entry entry;
+    synchronized (this) {
+      initialize();
+      entry = entries.get(checksum);
+      if (entry == null) {
+        entry = new Entry(new File(cacheDir, checksum));
+        entries.put(checksum, entry);
+      }
+      entry.refCount++;
+    }
+
+    try {
+      if (entry.unpack(artifactLocation)) {
+        misses.incrementAndGet();
+        synchronized (this) {
+          totalBytes += entry.size;
+          evict();
+        }
+      } else {
+        hits.incrementAndGet();
+        LOG.debug("Reusing unpacked artifact {} from {}", artifactLocation, entry.dir);
+      }
+    } catch (IOException | RuntimeException e) {
+      release(checksum, entry);
+      throw e;
+    }
+    Entry finalEntry = entry;
+    return new UnpackedArtifact(entry.dir, () -> release(checksum, finalEntry));
+  }
+
+  /**
+   * Releases the directory of this instance, such that another instance can take over the unpacked artifacts.
+   * It must only be called when no {@link UnpackedArtifact} of this instance is in use anymore.
+   */
+  @VisibleForTesting
+  synchronized void close() throws IOException {
+    if (lockChannel != null) {
+      lockChannel.close();
+      lockChannel = null;
+      cacheDir = null;
+      entries.clear();
+      totalBytes = 0;
+    }
+  }
+
+  /**
+   * Returns the number of times an artifact was found unpacked in the cache.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of times an artifact had to be unpacked.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the total time spent on unpacking artifacts in milliseconds.
+   */
+  public long getUnpackTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(unpackNanos.get());
+  }
+
+  private File unJar(Location artifactLocation, File targetDir) throws IOException {
+    long startTime = System.nanoTime();
+    File unpackedDir = BundleJarUtil.unJar(artifactLocation, targetDir);
+    long elapsed = System.nanoTime() - startTime;
+    unpackNanos.addAndGet(elapsed);
+    LOG.debug("Unpacked artifact {} to {} in {} ms",
+              artifactLocation, targetDir, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    return unpackedDir;
+  }
+
+  /**
+   * Returns the checksum of the given artifact. The checksum is remembered for the location, size and
+   * last modified time of the artifact, so that it doesn't need to be computed again if the artifact didn't change.
+   */
+  private String getChecksum(Location artifactLocation) throws IOException {
+    String fingerprint = artifactLocation.toURI() + ":" + artifactLocation.length() + ":"
+      + artifactLocation.lastModified();
+    synchronized (checksums) {
+      String checksum = checksums.get(fingerprint);
+      if (checksum != null) {
+        return checksum;
+      }
+    }
+
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-256 is guaranteed to be supported by the JVM
+      throw new IllegalStateException(e);
+    }
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream is = artifactLocation.getInputStream()) {
+      int len = is.read(buffer);
+      while (len >= 0) {
+        digest.update(buffer, 0, len);
+        len = is.read(buffer);
+      }
+    }
+    String checksum = BaseEncoding.base16().lowerCase().encode(digest.digest());
+    synchronized (checksums) {
+      checksums.put(fingerprint, checksum);
+    }
+    return checksum;
+  }
+
+  /**
+   * Creates the directory of this instance, and takes over the unpacked directories of instances whose process
+   * is gone. Must be called while holding the lock of this object.
+   */
+  private void initialize() throws IOException {
+    if (cacheDir != null) {
+      return;
+    }
+    DirUtils.mkdirs(baseDir);
+    String instanceId = UUID.randomUUID().toString();
+    // The lock file is locked before the directory is created and deleted after the directory is deleted,
+    // so that a directory without a locked lock file is never in use
+    File lockFile = new File(baseDir, instanceId + LOCK_SUFFIX);
+    FileChannel channel = tryLock(lockFile);
+    if (channel == null) {
+      throw new IOException("Failed to lock the unpacked artifact cache file " + lockFile);
+    }
+    File dir = new File(baseDir, instanceId);
+    if (!DirUtils.mkdirs(dir)) {
+      channel.close();
+      throw new IOException("Failed to create the unpacked artifact cache directory " + dir);
+    }
+    lockChannel = channel;
+    cacheDir = dir;
+
+    File[] files = baseDir.listFiles();
+    for (File file : files == null ? new File[0] : files) {
+      String name = file.getName();
+      if (name.endsWith(LOCK_SUFFIX) && !file.equals(lockFile)) {
+        takeOver(new File(baseDir, name.substring(0, name.length() - LOCK_SUFFIX.length())), file);
+      }
+    }
+
+    files = cacheDir.listFiles();
+    for (File file : files == null ? new File[0] : files) {
+      Entry entry = new Entry(file);
+      entry.size = getSize(file.toPath());
+      entries.put(file.getName(), entry);
+      totalBytes += entry.size;
+    }
+    LOG.debug("Found {} unpacked artifacts with total size {} bytes in {}", entries.size(), totalBytes, cacheDir);
+    evict();
+  }
+
+  /**
+   * Moves the complete unpacked directories of the given instance directory to the directory of this instance and
+   * removes the rest, if the lock file of the instance is not locked by a live instance.
+   */
+  private void takeOver(File instanceDir, File lockFile) throws IOException {
+    FileChannel channel = tryLock(lockFile);
+    if (channel == null) {
+      return;
+    }
+    try {
+      File[] files = instanceDir.listFiles();
+      for (File file : files == null ? new File[0] : files) {
+        File targetDir = new File(cacheDir, file.getName());
+        if (file.getName().endsWith(TMP_SUFFIX) || !file.isDirectory() || targetDir.exists()) {
+          continue;
+        }
+        try {
+          Files.move(file.toPath(), targetDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+          LOG.debug("Failed to move unpacked artifact directory {} to {}", file, targetDir, e);
+        }
+      }
+      if (instanceDir.exists()) {
+        deleteDirectory(instanceDir);
+      }
+      Files.deleteIfExists(lockFile.toPath());
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Locks the given file, creating it if it doesn't exist.
+   *
+   * @return the channel holding the lock, or {@code null} if the file is locked by another instance
+   */
+  @Nullable
+  private static FileChannel tryLock(File file) throws IOException {
+    FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    try {
+      if (channel.tryLock() != null) {
+        return channel;
+      }
+    } catch (OverlappingFileLockException e) {
+      // Locked by another instance in this process
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    channel.close();
+    return null;
+  }
+
+  /**
+   * Releases a reference to the given entry. Must not be called while holding the lock of the entry.
+   */
+  private synchronized void release(String checksum, Entry entry) {
+    entry.refCount--;
+    if (entry.size < 0 && entry.refCount == 0 && entries.get(checksum) == entry) {
+      // The artifact failed to unpack
+      entries.remove(checksum);
+    }
+    evict();
+  }
+
+  /**
+   * Evicts unreferenced directories in least recently used order until the total size is within the limit.
+   * Must be called while holding the lock of this object.
+   */
+  private void evict() {
+    List<File> evicted = new ArrayList<>();
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (totalBytes > maxBytes && iterator.hasNext()) {
+      Entry entry = iterator.next();
+      if (entry.refCount > 0 || entry.size < 0) {
+        continue;
+      }
+      iterator.remove();
+      totalBytes -= entry.size;
+      // Rename before deleting, so that the artifact can be unpacked again to the same directory right away
+      File evictedDir = new File(entry.dir.getParentFile(), entry.dir.getName() + "-" + UUID.randomUUID() + TMP_SUFFIX);
+      if (entry.dir.renameTo(evictedDir)) {
+        evicted.add(evictedDir);
+      } else {
+        LOG.warn("Failed to evict unpacked artifact directory {}", entry.dir);
+      }
+    }
+    for (File dir : evicted) {
+      LOG.debug("Evicting unpacked artifact directory {}", dir);
+      deleteDirectory(dir);
+    }
+  }
+
+  private static long getSize(Path dir) throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      return paths.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+    }
+  }
+
+  private static void deleteDirectory(File dir) {
+    try {
+      if (dir.isDirectory()) {
+        DirUtils.deleteDirectoryContents(dir);
+      } else {
+        Files.deleteIfExists(dir.toPath());
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to delete {}", dir, e);
+    }
+  }
+
+  /**
+   * An entry in the cache.
+   */
+  private final class Entry {
+    private final File dir;
+    // guarded by the lock of the cache
+    private int refCount;
+    // the size of the unpacked directory, or -1 if it is not yet unpacked. Only set while holding the entry lock.
+    private volatile long size = -1;
+
+    Entry(File dir) {
+      this.dir = dir;
+    }
+
+    /**
+     * Unpacks the artifact to the entry directory if it is not unpacked yet.
+     *
+     * @return {@code true} if the artifact was unpacked by this call
+     */
+    synchronized boolean unpack(Location artifactLocation) throws IOException {
+      if (size >= 0) {
+        return false;
+      }
+      // Unpack to a temporary directory and move it, so that a partially unpacked directory is never used
+      File unpackDir = new File(dir.getParentFile(), dir.getName() + "-" + UUID.randomUUID() + TMP_SUFFIX);
+      try {
+        unJar(artifactLocation, unpackDir);
+        Files.move(unpackDir.toPath(), dir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException | RuntimeException e) {
+        deleteDirectory(unpackDir);
+        throw e;
+      }
+      size = getSize(dir.toPath());
+      return true;
+    }
+  }
+
+  /**
+   * A reference to an unpacked artifact directory, which is released on {@link #close()}.
+   */
+  public static final class UnpackedArtifact implements Closeable {
+    private final File dir;
+    private final Runnable releaser;
+    private boolean closed;
+
+    private UnpackedArtifact(File dir, Runnable releaser) {
+      this.dir = dir;
+      this.releaser = releaser;
+    }
+
+    /**
+     * Returns the directory that the artifact is unpacked to.
+     */
+    public File getDir() {
+      return dir;
+    }
+
+    @Override
+    public synchronized void close() {
+      if (!closed) {
+        closed = true;
+        releaser.run();
+      }
+    }
+  }
+}
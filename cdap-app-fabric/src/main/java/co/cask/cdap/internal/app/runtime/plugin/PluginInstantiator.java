@@ -34,6 +34,8 @@ import co.cask.cdap.common.lang.InstantiatorFactory;
 import co.cask.cdap.common.lang.jar.BundleJarUtil;
 import co.cask.cdap.common.utils.DirUtils;
 import co.cask.cdap.internal.app.runtime.artifact.Artifacts;
+import co.cask.cdap.internal.app.runtime.artifact.UnpackedArtifactCache;
+import co.cask.cdap.internal.app.runtime.artifact.UnpackedArtifactCache.UnpackedArtifact;
 import co.cask.cdap.internal.lang.FieldVisitor;
 import co.cask.cdap.internal.lang.Fields;
 import co.cask.cdap.internal.lang.Reflections;
@@ -101,6 +103,9 @@ public class PluginInstantiator implements Closeable {
   private final File pluginDir;
   private final ClassLoader parentClassLoader;
   private final boolean ownedParentClassLoader;
+  @Nullable
+  private final UnpackedArtifactCache unpackedArtifactCache;
+  private final List<UnpackedArtifact> unpackedArtifacts;
 
   public PluginInstantiator(CConfiguration cConf, ClassLoader parentClassLoader, File pluginDir) {
     this(cConf, parentClassLoader, pluginDir, true);
@@ -108,6 +113,16 @@ public class PluginInstantiator implements Closeable {
 
   public PluginInstantiator(CConfiguration cConf, ClassLoader parentClassLoader, File pluginDir,
                             boolean filterClassloader) {
+    this(cConf, parentClassLoader, pluginDir, filterClassloader, null);
+  }
+
+  /**
+   * Creates an instance that expands plugin jars through the given {@link UnpackedArtifactCache}, so that the same
+   * plugin jar is only expanded once for all instances sharing the cache. If the cache is {@code null}, plugin jars
+   * are expanded to a temporary directory owned by this instance.
+   */
+  public PluginInstantiator(CConfiguration cConf, ClassLoader parentClassLoader, File pluginDir,
+                            boolean filterClassloader, @Nullable UnpackedArtifactCache unpackedArtifactCache) {
     this.instantiatorFactory = new InstantiatorFactory(false);
     File tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
                            cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
@@ -119,6 +134,8 @@ public class PluginInstantiator implements Closeable {
       .build(new ClassLoaderCacheLoader());
     this.parentClassLoader = filterClassloader ? PluginClassLoader.createParent(parentClassLoader) : parentClassLoader;
     this.ownedParentClassLoader = filterClassloader;
+    this.unpackedArtifactCache = unpackedArtifactCache;
+    this.unpackedArtifacts = Collections.synchronizedList(new ArrayList<UnpackedArtifact>());
   }
 
   /**
@@ -385,6 +402,12 @@ public class PluginInstantiator implements Closeable {
   public void close() throws IOException {
     // Cleanup the ClassLoader cache and the temporary directory for the expanded plugin jar.
     classLoaders.invalidateAll();
+    synchronized (unpackedArtifacts) {
+      for (UnpackedArtifact unpackedArtifact : unpackedArtifacts) {
+        unpackedArtifact.close();
+      }
+      unpackedArtifacts.clear();
+    }
     if (ownedParentClassLoader) {
       Closeables.closeQuietly((Closeable) parentClassLoader);
     }
@@ -439,9 +462,17 @@ public class PluginInstantiator implements Closeable {
 
     @Override
     public PluginClassLoader load(ClassLoaderKey key) throws Exception {
-      File unpackedDir = DirUtils.createTempDir(tmpDir);
       File artifact = new File(pluginDir, Artifacts.getFileName(key.artifact));
-      BundleJarUtil.unJar(Locations.toLocation(artifact), unpackedDir);
+      File unpackedDir;
+      if (unpackedArtifactCache == null) {
+        unpackedDir = DirUtils.createTempDir(tmpDir);
+        BundleJarUtil.unJar(Locations.toLocation(artifact), unpackedDir);
+      } else {
+        // The unpacked directory is shared, hence it is only released when this instance is closed
+        UnpackedArtifact unpackedArtifact = unpackedArtifactCache.unpack(Locations.toLocation(artifact));
+        unpackedArtifacts.add(unpackedArtifact);
+        unpackedDir = unpackedArtifact.getDir();
+      }
 
       Iterator<ArtifactId> parentIter = key.parents.iterator();
       if (!parentIter.hasNext()) {
@@ -34,6 +34,7 @@ import co.cask.cdap.internal.app.runtime.DefaultEndpointPluginContext;
 import co.cask.cdap.internal.app.runtime.artifact.ArtifactDescriptor;
 import co.cask.cdap.internal.app.runtime.artifact.ArtifactDetail;
 import co.cask.cdap.internal.app.runtime.artifact.ArtifactRepository;
+import co.cask.cdap.internal.app.runtime.artifact.UnpackedArtifactCache;
 import co.cask.cdap.proto.artifact.ArtifactSortOrder;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.security.impersonation.EntityImpersonator;
@@ -79,13 +80,15 @@ public class PluginService extends AbstractIdleService {
   private final CConfiguration cConf;
   private final LoadingCache<ArtifactDescriptor, Instantiators> instantiators;
   private final Impersonator impersonator;
+  private final UnpackedArtifactCache unpackedArtifactCache;
 
   private File stageDir;
 
   @Inject
   public PluginService(ArtifactRepository artifactRepository, CConfiguration cConf, Impersonator impersonator,
                        @Named(AppFabricServiceRuntimeModule.NOAUTH_ARTIFACT_REPO)
-                         ArtifactRepository noAuthArtifactRepository) {
+                         ArtifactRepository noAuthArtifactRepository,
+                       UnpackedArtifactCache unpackedArtifactCache) {
     this.authArtifactRepository = artifactRepository;
     this.noAuthArtifactRepository = noAuthArtifactRepository;
     this.tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
@@ -103,6 +106,7 @@ public class PluginService extends AbstractIdleService {
       .expireAfterAccess(1, TimeUnit.HOURS)
       .build(new InstantiatorsCacheLoader());
     this.impersonator = impersonator;
+    this.unpackedArtifactCache = unpackedArtifactCache;
   }
 
   /**
@@ -201,7 +205,8 @@ public class PluginService extends AbstractIdleService {
 
     private void addInstantiatorAndAddArtifact(ArtifactDetail artifactDetail,
                                                ArtifactId artifactId) throws IOException {
-      PluginInstantiator instantiator = new PluginInstantiator(cConf, parentClassLoader, pluginDir);
+      PluginInstantiator instantiator = new PluginInstantiator(cConf, parentClassLoader, pluginDir, true,
+                                                               unpackedArtifactCache);
       instantiatorInfoMap.put(artifactDetail.getDescriptor(),
                               new InstantiatorInfo(artifactDetail.getDescriptor().getLocation(), instantiator));
       instantiator.addArtifact(artifactDetail.getDescriptor().getLocation(), artifactId);
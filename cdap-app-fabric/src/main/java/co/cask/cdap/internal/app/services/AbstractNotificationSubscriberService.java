@@ -49,6 +49,8 @@ public abstract class AbstractNotificationSubscriberService extends AbstractMess
   private final String name;
   private final Transactional transactional;
   private final MultiThreadMessagingContext messagingContext;
+  private final boolean prefetchEnabled;
+  private final long pollTimeoutMillis;
 
   @Inject
   protected AbstractNotificationSubscriberService(String name, CConfiguration cConf, String topicName,
@@ -69,6 +71,8 @@ public abstract class AbstractNotificationSubscriberService extends AbstractMess
             Constants.Metrics.Tag.CONSUMER, name
           )));
     this.name = name;
+    this.prefetchEnabled = cConf.getBoolean(Constants.MessagingSystem.SUBSCRIBER_PREFETCH_ENABLED, false);
+    this.pollTimeoutMillis = cConf.getLong(Constants.MessagingSystem.SUBSCRIBER_POLL_TIMEOUT_MS, 0L);
     this.messagingContext = new MultiThreadMessagingContext(messagingService);
     this.transactional = Transactions.createTransactionalWithRetry(
       Transactions.createTransactional(new MultiThreadDatasetCache(
@@ -93,6 +97,16 @@ public abstract class AbstractNotificationSubscriberService extends AbstractMess
     return transactional;
   }
 
+  @Override
+  protected boolean isPrefetchEnabled() {
+    return prefetchEnabled;
+  }
+
+  @Override
+  protected long getPollTimeoutMillis() {
+    return pollTimeoutMillis;
+  }
+
   @Override
   protected Notification decodeMessage(Message message) throws Exception {
     return GSON.fromJson(message.getPayloadAsString(), Notification.class);
@@ -92,6 +92,8 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
   private final MetadataAdmin metadataAdmin; // TODO: Refactor metadataStore to run within existing transaction
   private final Transactional transactional;
   private final MultiThreadMessagingContext messagingContext;
+  private final boolean prefetchEnabled;
+  private final long pollTimeoutMillis;
 
   private DatasetId lineageDatasetId = LineageDataset.LINEAGE_DATASET_ID;
   private DatasetId fieldLineageDatasetId = FieldLineageDataset.FIELD_LINEAGE_DATASET_ID;
@@ -122,6 +124,8 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
     this.messagingContext = new MultiThreadMessagingContext(messagingService);
     this.datasetFramework = datasetFramework;
     this.metadataAdmin = metadataAdmin;
+    this.prefetchEnabled = cConf.getBoolean(Constants.MessagingSystem.SUBSCRIBER_PREFETCH_ENABLED, false);
+    this.pollTimeoutMillis = cConf.getLong(Constants.MessagingSystem.SUBSCRIBER_POLL_TIMEOUT_MS, 0L);
     this.transactional = Transactions.createTransactionalWithRetry(
       Transactions.createTransactional(new MultiThreadDatasetCache(
         new SystemDatasetInstantiator(datasetFramework), new TransactionSystemClientAdapter(txClient),
@@ -167,6 +171,16 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
     return transactional;
   }
 
+  @Override
+  protected boolean isPrefetchEnabled() {
+    return prefetchEnabled;
+  }
+
+  @Override
+  protected long getPollTimeoutMillis() {
+    return pollTimeoutMillis;
+  }
+
   @Override
   protected MetadataMessage decodeMessage(Message message) {
     return GSON.fromJson(message.getPayloadAsString(), MetadataMessage.class);
@@ -32,6 +32,7 @@ import co.cask.cdap.internal.app.ApplicationSpecificationAdapter;
 import co.cask.cdap.internal.app.runtime.artifact.ArtifactRepository;
 import co.cask.cdap.internal.app.runtime.artifact.AuthorizationArtifactRepository;
 import co.cask.cdap.internal.app.runtime.artifact.DefaultArtifactRepository;
+import co.cask.cdap.internal.app.runtime.artifact.UnpackedArtifactCache;
 import co.cask.cdap.internal.app.runtime.schedule.trigger.ProgramStatusTrigger;
 import co.cask.cdap.internal.io.ReflectionSchemaGenerator;
 import co.cask.cdap.security.auth.context.AuthenticationContextModules;
@@ -97,7 +98,8 @@ public class ConfiguratorTest {
     CConfiguration cConf = CConfiguration.create();
     ArtifactRepository baseArtifactRepo = new DefaultArtifactRepository(conf, null, null,
                                                                         new DummyProgramRunnerFactory(),
-                                                                        new DefaultImpersonator(cConf, null));
+                                                                        new DefaultImpersonator(cConf, null),
+                                                                        new UnpackedArtifactCache(conf));
     ArtifactRepository artifactRepo = new AuthorizationArtifactRepository(baseArtifactRepo,
                                                                           authEnforcer, authenticationContext);
 
@@ -132,7 +134,8 @@ public class ConfiguratorTest {
     CConfiguration cConf = CConfiguration.create();
     ArtifactRepository baseArtifactRepo = new DefaultArtifactRepository(conf, null, null,
                                                                         new DummyProgramRunnerFactory(),
-                                                                        new DefaultImpersonator(cConf, null));
+                                                                        new DefaultImpersonator(cConf, null),
+                                                                        new UnpackedArtifactCache(conf));
     ArtifactRepository artifactRepo = new AuthorizationArtifactRepository(baseArtifactRepo,
                                                                           authEnforcer, authenticationContext);
 
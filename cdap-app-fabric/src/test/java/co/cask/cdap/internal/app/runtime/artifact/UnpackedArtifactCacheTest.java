@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.runtime.artifact;
+
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.io.Locations;
+import co.cask.cdap.internal.app.runtime.artifact.UnpackedArtifactCache.UnpackedArtifact;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Unit tests for {@link UnpackedArtifactCache}.
+ */
+public class UnpackedArtifactCacheTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static final int ENTRY_SIZE = 600 * 1024;
+
+  @Test
+  public void testReuse() throws IOException {
+    File dataDir = TMP_FOLDER.newFolder();
+    UnpackedArtifactCache cache = new UnpackedArtifactCache(createCConf(dataDir, 10));
+    Location jar1 = createJar(1);
+    File jar1Copy = new File(TMP_FOLDER.newFolder(), "copy.jar");
+    Files.copy(new File(jar1.toURI()).toPath(), jar1Copy.toPath());
+
+    try (
+      UnpackedArtifact unpacked = cache.unpack(jar1);
+      UnpackedArtifact unpackedAgain = cache.unpack(jar1);
+      UnpackedArtifact unpackedCopy = cache.unpack(Locations.toLocation(jar1Copy))
+    ) {
+      // The same content is only unpacked once, regardless of the location
+      Assert.assertEquals(unpacked.getDir(), unpackedAgain.getDir());
+      Assert.assertEquals(unpacked.getDir(), unpackedCopy.getDir());
+      Assert.assertEquals(ENTRY_SIZE, new File(unpacked.getDir(), "data").length());
+      Assert.assertEquals(1, cache.getMissCount());
+      Assert.assertEquals(2, cache.getHitCount());
+    }
+
+    // A new cache over the same directory reuses the unpacked directory once the old cache is released
+    cache.close();
+    cache = new UnpackedArtifactCache(createCConf(dataDir, 10));
+    try (UnpackedArtifact unpacked = cache.unpack(jar1)) {
+      Assert.assertTrue(unpacked.getDir().isDirectory());
+      Assert.assertEquals(0, cache.getMissCount());
+      Assert.assertEquals(1, cache.getHitCount());
+    }
+    cache.close();
+  }
+
+  @Test
+  public void testConcurrentInstances() throws IOException {
+    File dataDir = TMP_FOLDER.newFolder();
+    UnpackedArtifactCache cache1 = new UnpackedArtifactCache(createCConf(dataDir, 1));
+    UnpackedArtifactCache cache2 = new UnpackedArtifactCache(createCConf(dataDir, 1));
+    Location jar1 = createJar(1);
+    Location jar2 = createJar(2);
+
+    try (UnpackedArtifact unpacked1 = cache1.unpack(jar1)) {
+      // An incomplete unpack of the first cache
+      File tmpDir = new File(unpacked1.getDir().getParentFile(), "incomplete.tmp");
+      Assert.assertTrue(tmpDir.mkdir());
+
+      // The second cache doesn't take over or remove directories of the first cache, which is still alive
+      try (UnpackedArtifact unpacked2 = cache2.unpack(jar1)) {
+        Assert.assertNotEquals(unpacked1.getDir(), unpacked2.getDir());
+        Assert.assertEquals(1, cache2.getMissCount());
+      }
+      Assert.assertTrue(tmpDir.isDirectory());
+
+      // Evicting from the second cache doesn't remove the directory in use by the first cache
+      cache2.unpack(jar2).close();
+      Assert.assertTrue(unpacked1.getDir().isDirectory());
+      Assert.assertEquals(ENTRY_SIZE, new File(unpacked1.getDir(), "data").length());
+    }
+    cache1.close();
+    cache2.close();
+
+    // A new cache takes over the directories of both released caches
+    UnpackedArtifactCache cache = new UnpackedArtifactCache(createCConf(dataDir, 10));
+    try (
+      UnpackedArtifact unpacked1 = cache.unpack(jar1);
+      UnpackedArtifact unpacked2 = cache.unpack(jar2)
+    ) {
+      Assert.assertEquals(0, cache.getMissCount());
+      Assert.assertEquals(2, cache.getHitCount());
+      Assert.assertEquals(unpacked1.getDir().getParentFile(), unpacked2.getDir().getParentFile());
+    }
+    // Only the directory of the new cache and its lock file are left
+    Assert.assertEquals(2, new File(dataDir, CConfiguration.create().get(
+      Constants.AppFabric.ARTIFACT_UNPACK_CACHE_DIR)).list().length);
+    cache.close();
+  }
+
+  @Test
+  public void testEviction() throws IOException {
+    // Limit of 1MB, which only fits one unpacked jar
+    UnpackedArtifactCache cache = new UnpackedArtifactCache(createCConf(TMP_FOLDER.newFolder(), 1));
+    Location jar1 = createJar(1);
+    Location jar2 = createJar(2);
+
+    UnpackedArtifact unpacked1 = cache.unpack(jar1);
+    try (UnpackedArtifact unpacked2 = cache.unpack(jar2)) {
+      // Referenced directories are never evicted
+      Assert.assertTrue(unpacked1.getDir().isDirectory());
+      Assert.assertTrue(unpacked2.getDir().isDirectory());
+
+      unpacked1.close();
+      // Releasing the first jar brings it over the limit
+      Assert.assertFalse(unpacked1.getDir().exists());
+      Assert.assertTrue(unpacked2.getDir().isDirectory());
+    }
+
+    // The first jar is unpacked again
+    try (UnpackedArtifact unpacked = cache.unpack(jar1)) {
+      Assert.assertEquals(ENTRY_SIZE, new File(unpacked.getDir(), "data").length());
+      Assert.assertEquals(3, cache.getMissCount());
+    }
+  }
+
+  @Test
+  public void testDisabled() throws IOException {
+    UnpackedArtifactCache cache = new UnpackedArtifactCache(createCConf(TMP_FOLDER.newFolder(), 0));
+    Location jar = createJar(1);
+
+    File dir;
+    try (
+      UnpackedArtifact unpacked1 = cache.unpack(jar);
+      UnpackedArtifact unpacked2 = cache.unpack(jar)
+    ) {
+      dir = unpacked1.getDir();
+      Assert.assertNotEquals(dir, unpacked2.getDir());
+    }
+    Assert.assertFalse(dir.exists());
+  }
+
+  private CConfiguration createCConf(File dataDir, long sizeMB) {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, dataDir.getAbsolutePath());
+    cConf.setLong(Constants.AppFabric.ARTIFACT_UNPACK_CACHE_SIZE_MB, sizeMB);
+    return cConf;
+  }
+
+  private Location createJar(long seed) throws IOException {
+    byte[] data = new byte[ENTRY_SIZE];
+    new Random(seed).nextBytes(data);
+    File file = TMP_FOLDER.newFile();
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(file))) {
+      output.putNextEntry(new JarEntry("data"));
+      output.write(data);
+      output.closeEntry();
+    }
+    return Locations.toLocation(file);
+  }
+}
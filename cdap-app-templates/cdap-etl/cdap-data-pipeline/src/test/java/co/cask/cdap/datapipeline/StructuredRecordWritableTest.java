@@ -19,6 +19,9 @@ package co.cask.cdap.datapipeline;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.etl.batch.StructuredRecordWritable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.util.ReflectionUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -29,6 +32,9 @@ import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  */
@@ -52,4 +58,103 @@ public class StructuredRecordWritableTest {
 
     Assert.assertEquals(writableIn.get(), record);
   }
+
+  @Test
+  public void testBinaryFormat() throws IOException {
+    Schema inner = Schema.recordOf("inner", Schema.Field.of("y", Schema.nullableOf(Schema.of(Schema.Type.LONG))));
+    Schema schema = Schema.recordOf("binary",
+                                    Schema.Field.of("x", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("i", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("r", inner));
+    StructuredRecord record = StructuredRecord.builder(schema)
+      .set("x", "идыло")
+      .set("i", 5)
+      .set("r", StructuredRecord.builder(inner).set("y", 10L).build())
+      .build();
+
+    Configuration conf = new Configuration();
+    conf.setBoolean(StructuredRecordWritable.BINARY_ENABLED, true);
+    byte[] unregistered = serialize(record, conf);
+    Assert.assertEquals(record, deserialize(unregistered, conf).get());
+
+    StructuredRecordWritable.setRegisteredSchemas(conf, Collections.singleton(schema));
+    byte[] registered = serialize(record, conf);
+    Assert.assertTrue(registered.length < unregistered.length);
+    Assert.assertEquals(record, deserialize(registered, conf).get());
+
+    // raw comparison must not depend on whether the schema was written with the record
+    WritableComparator comparator = ReflectionUtils.newInstance(StructuredRecordWritable.Comparator.class, conf);
+    Assert.assertEquals(0, comparator.compare(unregistered, 0, unregistered.length,
+                                              registered, 0, registered.length));
+
+    StructuredRecord other = StructuredRecord.builder(schema)
+      .set("x", "идыло")
+      .set("i", 6)
+      .set("r", StructuredRecord.builder(inner).build())
+      .build();
+    byte[] otherBytes = serialize(other, conf);
+    int cmp = comparator.compare(registered, 0, registered.length, otherBytes, 0, otherBytes.length);
+    Assert.assertNotEquals(0, cmp);
+    Assert.assertEquals(-cmp, comparator.compare(otherBytes, 0, otherBytes.length, registered, 0, registered.length));
+    // the raw order must be the same as the order of the deserialized records
+    Assert.assertEquals(Integer.signum(cmp), Integer.signum(deserialize(registered, conf).compareTo(
+      deserialize(otherBytes, conf))));
+  }
+
+  @Test
+  public void testMapAndDoubleComparison() throws IOException {
+    Schema schema = Schema.recordOf("fallback",
+                                    Schema.Field.of("m", Schema.mapOf(Schema.of(Schema.Type.STRING),
+                                                                      Schema.of(Schema.Type.INT))),
+                                    Schema.Field.of("d", Schema.of(Schema.Type.DOUBLE)));
+    Map<String, Integer> map = new LinkedHashMap<>();
+    map.put("a", 1);
+    map.put("b", 2);
+    Map<String, Integer> reversed = new LinkedHashMap<>();
+    reversed.put("b", 2);
+    reversed.put("a", 1);
+
+    Configuration conf = new Configuration();
+    conf.setBoolean(StructuredRecordWritable.BINARY_ENABLED, true);
+    StructuredRecordWritable.setRegisteredSchemas(conf, Collections.singleton(schema));
+    WritableComparator comparator = ReflectionUtils.newInstance(StructuredRecordWritable.Comparator.class, conf);
+
+    // equal maps are encoded in iteration order, but must still compare as equal
+    byte[] bytes1 = serialize(StructuredRecord.builder(schema).set("m", map).set("d", 1.0d).build(), conf);
+    byte[] bytes2 = serialize(StructuredRecord.builder(schema).set("m", reversed).set("d", 1.0d).build(), conf);
+    Assert.assertFalse(WritableComparator.compareBytes(bytes1, 0, bytes1.length, bytes2, 0, bytes2.length) == 0);
+    Assert.assertEquals(0, comparator.compare(bytes1, 0, bytes1.length, bytes2, 0, bytes2.length));
+    Assert.assertEquals(0, deserialize(bytes1, conf).compareTo(deserialize(bytes2, conf)));
+
+    // records that are not equal must not compare as equal, and the order must be the same as for compareTo
+    byte[] bytes3 = serialize(StructuredRecord.builder(schema).set("m", map).set("d", -1.0d).build(), conf);
+    int cmp = comparator.compare(bytes1, 0, bytes1.length, bytes3, 0, bytes3.length);
+    Assert.assertNotEquals(0, cmp);
+    Assert.assertEquals(-cmp, comparator.compare(bytes3, 0, bytes3.length, bytes1, 0, bytes1.length));
+    Assert.assertEquals(Integer.signum(cmp), Integer.signum(deserialize(bytes1, conf).compareTo(
+      deserialize(bytes3, conf))));
+  }
+
+  @Test
+  public void testReadLegacyFormat() throws IOException {
+    Schema schema = Schema.recordOf("legacy", Schema.Field.of("x", Schema.of(Schema.Type.STRING)));
+    StructuredRecord record = StructuredRecord.builder(schema).set("x", "abc").build();
+
+    Configuration conf = new Configuration();
+    byte[] legacy = serialize(record, conf);
+    conf.setBoolean(StructuredRecordWritable.BINARY_ENABLED, true);
+    Assert.assertEquals(record, deserialize(legacy, conf).get());
+  }
+
+  private byte[] serialize(StructuredRecord record, Configuration conf) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new StructuredRecordWritable(record, StructuredRecordWritable.Settings.of(conf)).write(new DataOutputStream(os));
+    return os.toByteArray();
+  }
+
+  private StructuredRecordWritable deserialize(byte[] bytes, Configuration conf) throws IOException {
+    StructuredRecordWritable writable = ReflectionUtils.newInstance(StructuredRecordWritable.class, conf);
+    writable.readFields(new DataInputStream(new ByteArrayInputStream(bytes)));
+    return writable;
+  }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.spark;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link SparkPipelineRunner}.
+ */
+public class SparkPipelineRunnerTest {
+
+  @Test
+  public void testBroadcastJoinStreamedInput() {
+    List<String> inputs = ImmutableList.of("a", "b", "c");
+    Set<String> required = ImmutableSet.of("a", "b");
+
+    // The only input that can't be broadcast is not broadcast
+    Assert.assertEquals("b", SparkPipelineRunner.getBroadcastJoinStreamedInput(inputs, required,
+                                                                               input -> !input.equals("b")));
+
+    // If all inputs can be broadcast, the first required input is not broadcast
+    Assert.assertEquals("a", SparkPipelineRunner.getBroadcastJoinStreamedInput(inputs, required, input -> true));
+    Assert.assertEquals("b", SparkPipelineRunner.getBroadcastJoinStreamedInput(ImmutableList.of("c", "b"),
+                                                                               ImmutableSet.of("b"), input -> true));
+
+    // No broadcast if the input that can't be broadcast is optional
+    Assert.assertNull(SparkPipelineRunner.getBroadcastJoinStreamedInput(inputs, required,
+                                                                        input -> !input.equals("c")));
+
+    // No broadcast if more than one input can't be broadcast
+    Assert.assertNull(SparkPipelineRunner.getBroadcastJoinStreamedInput(inputs, required, input -> input.equals("c")));
+
+    // No broadcast if there is no required input
+    Assert.assertNull(SparkPipelineRunner.getBroadcastJoinStreamedInput(inputs, Collections.<String>emptySet(),
+                                                                        input -> true));
+  }
+}
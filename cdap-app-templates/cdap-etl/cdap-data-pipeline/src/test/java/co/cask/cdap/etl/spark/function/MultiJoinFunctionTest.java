@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.spark.function;
+
+import co.cask.cdap.etl.api.JoinElement;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link MultiJoinFunction}.
+ */
+public class MultiJoinFunctionTest {
+
+  private static final List<String> INPUTS = ImmutableList.of("a", "b", "c");
+
+  @Test
+  public void testInnerJoin() {
+    Set<String> required = ImmutableSet.of("a", "b", "c");
+    Map<String, List<JoinElement<String>>> elements = ImmutableMap.of(
+      "a", elements("a", "a1", "a2"), "b", elements("b", "b1"), "c", elements("c", "c1", "c2"));
+    Assert.assertEquals(Arrays.asList(Arrays.asList("a1", "b1", "c1"), Arrays.asList("a1", "b1", "c2"),
+                                      Arrays.asList("a2", "b1", "c1"), Arrays.asList("a2", "b1", "c2")),
+                        toRecords("k", MultiJoinFunction.join("k", INPUTS, required, elements)));
+  }
+
+  @Test
+  public void testLeftOuterJoin() {
+    Set<String> required = ImmutableSet.of("a");
+    // Optional inputs without records are skipped
+    Map<String, List<JoinElement<String>>> elements = ImmutableMap.of(
+      "a", elements("a", "a1", "a2"), "c", elements("c", "c1"));
+    Assert.assertEquals(Arrays.asList(Arrays.asList("a1", "c1"), Arrays.asList("a2", "c1")),
+                        toRecords("k", MultiJoinFunction.join("k", INPUTS, required, elements)));
+
+    // No output without records of the required input
+    elements = ImmutableMap.of("b", elements("b", "b1"), "c", elements("c", "c1"));
+    Assert.assertTrue(MultiJoinFunction.join("k", INPUTS, required, elements).isEmpty());
+  }
+
+  @Test
+  public void testFullOuterJoin() {
+    Set<String> required = Collections.emptySet();
+    Map<String, List<JoinElement<String>>> elements = ImmutableMap.of("b", elements("b", "b1", "b2"));
+    Assert.assertEquals(Arrays.asList(Collections.singletonList("b1"), Collections.singletonList("b2")),
+                        toRecords("k", MultiJoinFunction.join("k", INPUTS, required, elements)));
+
+    // No output if no input has records
+    Assert.assertTrue(MultiJoinFunction.join("k", INPUTS, required,
+                                             Collections.<String, List<JoinElement<String>>>emptyMap()).isEmpty());
+  }
+
+  @Test
+  public void testRequiredInputWithoutRecords() {
+    Set<String> required = ImmutableSet.of("a", "b");
+    Map<String, List<JoinElement<String>>> elements = ImmutableMap.of(
+      "a", elements("a", "a1"), "b", Collections.<JoinElement<String>>emptyList(), "c", elements("c", "c1"));
+    Assert.assertTrue(MultiJoinFunction.join("k", INPUTS, required, elements).isEmpty());
+  }
+
+  @Test
+  public void testNullKey() {
+    // Records grouped under the null key are joined like any other key
+    MultiJoinFunction<String, String> function = new MultiJoinFunction<>(INPUTS, ImmutableSet.of("a"));
+    Iterable<List<JoinElement<String>>> grouped = ImmutableList.of(elements("b", "b1"), elements("a", "a1"),
+                                                                   elements("b", "b2"));
+    List<Tuple2<String, List<JoinElement<String>>>> output = new ArrayList<>();
+    for (Tuple2<String, List<JoinElement<String>>> result : function.call(new Tuple2<>(null, grouped))) {
+      output.add(result);
+    }
+    Assert.assertEquals(Arrays.asList(Arrays.asList("a1", "b1"), Arrays.asList("a1", "b2")),
+                        toRecords(null, output));
+  }
+
+  private static List<JoinElement<String>> elements(String stageName, String... records) {
+    List<JoinElement<String>> elements = new ArrayList<>();
+    for (String record : records) {
+      elements.add(new JoinElement<>(stageName, record));
+    }
+    return elements;
+  }
+
+  /**
+   * Returns the records of the given join results, after validating that the results have the given key and
+   * that each record comes from the stage named by its first letter.
+   */
+  private static List<List<String>> toRecords(String key, List<Tuple2<String, List<JoinElement<String>>>> results) {
+    List<List<String>> records = new ArrayList<>();
+    for (Tuple2<String, List<JoinElement<String>>> result : results) {
+      Assert.assertEquals(key, result._1());
+      List<String> joined = new ArrayList<>();
+      for (JoinElement<String> element : result._2()) {
+        Assert.assertEquals(element.getInputRecord().substring(0, 1), element.getStageName());
+        joined.add(element.getInputRecord());
+      }
+      records.add(joined);
+    }
+    return records;
+  }
+}
@@ -29,4 +29,19 @@ public interface LookupProvider {
    * @return a {@link Lookup} instance
    */
   <T> Lookup<T> provide(String table, Map<String, String> arguments);
+
+  /**
+   * Provides a {@link Lookup} that reads the table as specified by the given config. Depending on the config,
+   * lookups are read from the table every time, read through a cache, or read from memory after loading the
+   * whole table when the {@link Lookup} is created. By default, lookups are read from the table every time,
+   * using the dataset properties of the config as arguments.
+   *
+   * @param table the name of the {@link Lookup} table
+   * @param config the config of the {@link Lookup} table
+   * @param <T> the type of value returned by the {@link Lookup}
+   * @return a {@link Lookup} instance
+   */
+  default <T> Lookup<T> provide(String table, LookupTableConfig config) {
+    return provide(table, config.getDatasetProperties());
+  }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.api;
+
+import co.cask.cdap.api.annotation.Beta;
+
+/**
+ * An {@link Aggregator} whose aggregation can be computed incrementally, one value at a time, and whose partial
+ * aggregations can be merged together. This allows the execution engine to aggregate values before they are
+ * shuffled, so that only one partial aggregation value per group and partition is shuffled, instead of every value
+ * in the group.
+ *
+ * For each group, the execution engine calls {@link #initializeAggregationValue(Object)} with the first value of
+ * the group in a partition, {@link #mergeValues(Object, Object)} for every other value of the group in that
+ * partition, and {@link #mergePartitions(Object, Object)} to combine the aggregation values of different partitions.
+ * Finally, {@link #finalize(Object, Object, Emitter)} is called once per group with the merged aggregation value.
+ * The order in which values and partitions are merged is not defined.
+ *
+ * Engines that cannot aggregate incrementally still use {@link #aggregate(Object, java.util.Iterator, Emitter)},
+ * which must produce the same output.
+ *
+ * @param <GROUP_KEY> Type of group key
+ * @param <GROUP_VALUE> Type of values to group
+ * @param <AGG_VALUE> Type of the partial aggregation value
+ * @param <OUT> Type of output object
+ */
+@Beta
+public interface ReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT>
+  extends Aggregator<GROUP_KEY, GROUP_VALUE, OUT> {
+
+  /**
+   * Create the aggregation value of a group from the first value of the group.
+   *
+   * @param groupValue the first value of the group
+   * @return the aggregation value
+   * @throws Exception if there is some error creating the aggregation value
+   */
+  AGG_VALUE initializeAggregationValue(GROUP_VALUE groupValue) throws Exception;
+
+  /**
+   * Merge a value of the group into an aggregation value. The given aggregation value may be modified and
+   * returned, in order to avoid object allocation.
+   *
+   * @param aggValue the aggregation value to merge into
+   * @param groupValue the value to merge
+   * @return the merged aggregation value
+   * @throws Exception if there is some error merging the value
+   */
+  AGG_VALUE mergeValues(AGG_VALUE aggValue, GROUP_VALUE groupValue) throws Exception;
+
+  /**
+   * Merge two aggregation values of the same group computed on different partitions. The first aggregation value
+   * may be modified and returned, in order to avoid object allocation.
+   *
+   * @param value1 the aggregation value to merge into
+   * @param value2 the aggregation value to merge
+   * @return the merged aggregation value
+   * @throws Exception if there is some error merging the values
+   */
+  AGG_VALUE mergePartitions(AGG_VALUE value1, AGG_VALUE value2) throws Exception;
+
+  /**
+   * Emit zero or more output objects for a group from its final aggregation value.
+   *
+   * @param groupKey the key for the group
+   * @param aggValue the aggregation value of all values in the group
+   * @param emitter the emitter to emit aggregate values for the group
+   * @throws Exception if there is some error emitting the output
+   */
+  void finalize(GROUP_KEY groupKey, AGG_VALUE aggValue, Emitter<OUT> emitter) throws Exception;
+}
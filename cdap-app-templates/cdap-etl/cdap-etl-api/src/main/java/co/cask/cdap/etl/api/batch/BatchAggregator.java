@@ -37,6 +37,10 @@ import java.util.Iterator;
  * If the aggregator is being used in spark, both the group key and value must implement the
  * {@link java.io.Serializable} interface.
  *
+ * A BatchAggregator can also implement {@link co.cask.cdap.etl.api.ReducibleAggregator}, in which case values are
+ * partially aggregated before they are shuffled. The aggregation value class has the same requirements as the
+ * group value class.
+ *
  * @param <GROUP_KEY> group key type. Must be a supported type
  * @param <GROUP_VALUE> group value type. Must be a supported type
  * @param <OUT> output object type
@@ -51,4 +51,13 @@ public interface BatchAggregatorContext extends BatchContext {
    */
   void setGroupValueClass(Class<?> groupValueClass);
 
+  /**
+   * Set the aggregation value class of an aggregator that implements
+   * {@link co.cask.cdap.etl.api.ReducibleAggregator}. This is not required if the aggregator is parameterized
+   * with a concrete class for the aggregation value.
+   *
+   * @param aggregationValueClass the aggregation value class
+   */
+  void setAggregationValueClass(Class<?> aggregationValueClass);
+
 }
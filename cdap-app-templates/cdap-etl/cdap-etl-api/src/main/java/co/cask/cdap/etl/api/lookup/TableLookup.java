@@ -17,12 +17,15 @@
 package co.cask.cdap.etl.api.lookup;
 
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.table.Get;
 import co.cask.cdap.api.dataset.table.Row;
 import co.cask.cdap.api.dataset.table.Table;
 import co.cask.cdap.etl.api.Lookup;
 import com.google.common.collect.ImmutableSet;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -49,9 +52,16 @@ public class TableLookup implements Lookup<Row> {
 
   @Override
   public Map<String, Row> lookup(Set<String> keys) {
+    List<String> keyList = new ArrayList<>(keys);
+    List<Get> gets = new ArrayList<>(keyList.size());
+    for (String key : keyList) {
+      gets.add(new Get(key));
+    }
+    // read all rows with a single multi-get, which returns the rows in the same order as the gets
+    List<Row> rows = table.get(gets);
     Map<String, Row> results = new HashMap<>();
-    for (String key : keys) {
-      results.put(key, lookup(key));
+    for (int i = 0; i < keyList.size(); i++) {
+      results.put(keyList.get(i), rows.get(i));
     }
     return results;
   }
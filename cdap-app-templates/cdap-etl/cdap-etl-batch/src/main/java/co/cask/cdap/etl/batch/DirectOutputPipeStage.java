@@ -21,6 +21,7 @@ import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.Transformation;
 import co.cask.cdap.etl.common.Destroyables;
 import co.cask.cdap.etl.common.RecordInfo;
+import co.cask.cdap.etl.common.TrackedTransform;
 
 
 /**
@@ -45,6 +46,13 @@ public class DirectOutputPipeStage<T> extends PipeStage<RecordInfo<T>> {
     transform.transform(input, emitter);
   }
 
+  @Override
+  public void flushMetrics() {
+    if (transform instanceof TrackedTransform) {
+      ((TrackedTransform) transform).flushMetrics();
+    }
+  }
+
   @Override
   public void destroy() {
     if (transform instanceof Destroyable) {
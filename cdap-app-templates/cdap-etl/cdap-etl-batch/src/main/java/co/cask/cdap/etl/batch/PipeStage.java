@@ -22,7 +22,8 @@ import com.google.common.base.Throwables;
 
 /**
  * A stage in the PipeTransformExecutor. Pipe transforms should send each output record immediately to all output stages
- * without buffering anything in memory.
+ * without buffering anything in memory. The only exception are ending stages, which may buffer output until
+ * {@link #finish()} is called.
  *
  * @param <T> type of input record
  */
@@ -42,17 +43,42 @@ public abstract class PipeStage<T> implements Destroyable {
   public void consume(T input) {
     try {
       consumeInput(input);
-    } catch (StageFailureException e) {
-      // Another stage has already failed, just throw the exception as-is
-      throw e;
     } catch (Exception e) {
-      Throwable rootCause = Throwables.getRootCause(e);
-      // Create StageFailureException to save the Stage information
-      throw new StageFailureException(
-        String.format("Failed to execute pipeline stage '%s' with the error: %s. Please review your pipeline " +
-                        "configuration and check the system logs for more details.", stageName, rootCause.getMessage()),
-        rootCause);
+      throw wrapException(e);
+    }
+  }
+
+  /**
+   * Called after all input records have been consumed, to send out anything buffered by the stage.
+   *
+   * @throws StageFailureException if there was an exception sending out buffered output
+   */
+  public void finish() {
+    try {
+      finishInput();
+    } catch (Exception e) {
+      throw wrapException(e);
+    }
+  }
+
+  /**
+   * Called after all stages have finished, to send out the metrics that the stage counted locally.
+   */
+  public void flushMetrics() {
+    // no-op by default, since stages do not count metrics locally
+  }
+
+  private StageFailureException wrapException(Exception e) {
+    if (e instanceof StageFailureException) {
+      // Another stage has already failed, just throw the exception as-is
+      return (StageFailureException) e;
     }
+    Throwable rootCause = Throwables.getRootCause(e);
+    // Create StageFailureException to save the Stage information
+    return new StageFailureException(
+      String.format("Failed to execute pipeline stage '%s' with the error: %s. Please review your pipeline " +
+                      "configuration and check the system logs for more details.", stageName, rootCause.getMessage()),
+      rootCause);
   }
 
   /**
@@ -62,4 +88,13 @@ public abstract class PipeStage<T> implements Destroyable {
    * @throws Exception if there was a failure processing the input
    */
   protected abstract void consumeInput(T input) throws Exception;
+
+  /**
+   * Send out anything buffered by the stage, throwing an exception if there is a failure
+   *
+   * @throws Exception if there was a failure sending out buffered output
+   */
+  protected void finishInput() throws Exception {
+    // no-op by default, since stages do not buffer
+  }
 }
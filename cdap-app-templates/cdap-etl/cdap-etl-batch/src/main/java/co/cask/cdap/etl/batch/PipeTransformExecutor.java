@@ -44,6 +44,19 @@ public class PipeTransformExecutor<IN> implements Destroyable {
     }
   }
 
+  /**
+   * Finish all stages after the last iteration, so that stages that buffer output send it out. Metrics are flushed
+   * once all stages have finished, since finishing a stage may send records to other stages.
+   */
+  public void finish() {
+    for (PipeStage stage : pipeStages.values()) {
+      stage.finish();
+    }
+    for (PipeStage stage : pipeStages.values()) {
+      stage.flushMetrics();
+    }
+  }
+
   @Override
   public void destroy() {
     for (PipeStage stage : pipeStages.values()) {
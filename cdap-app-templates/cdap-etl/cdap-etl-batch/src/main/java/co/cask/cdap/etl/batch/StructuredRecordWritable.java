@@ -19,24 +19,103 @@ package co.cask.cdap.etl.batch;
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.common.io.Encoder;
 import co.cask.cdap.format.StructuredRecordStringConverter;
+import co.cask.cdap.format.io.StructuredRecordDatumReader;
+import co.cask.cdap.format.io.StructuredRecordDatumWriter;
+import co.cask.cdap.internal.io.SchemaTypeAdapter;
+import com.google.common.reflect.TypeToken;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Wrapper around a {@link StructuredRecord} so that it can be used as the output key and/or value of a mapper.
- * This is not very performant and must be improved soon (CDAP-5347).
+ *
+ * Records are serialized in one of two formats. The legacy format writes the full schema json followed by the
+ * record as json. The binary format, enabled through {@link #BINARY_ENABLED} in the job {@link Configuration},
+ * writes:
+ *
+ * <pre>
+ *   [marker (1 byte)][schema fingerprint (16 bytes)][schema length (vint)][schema json][record length (vint)][record]
+ * </pre>
+ *
+ * where the schema json is omitted (length 0) if the schema is one of the {@link #REGISTERED_SCHEMAS} of the job,
+ * and the record is encoded with the {@link StructuredRecordDatumWriter}. Writables get the job configuration
+ * through {@link #setConf(Configuration)} when Hadoop creates them, or through {@link Settings} when they are
+ * created to be written.
+ *
+ * Records are ordered by schema fingerprint and then by their encoded bytes, with map entries sorted so that
+ * the order does not depend on the iteration order of the map. Binary serialized keys of schemas without map, float
+ * and double fields are compared by the {@link Comparator} without deserialization.
  */
-public class StructuredRecordWritable implements WritableComparable<StructuredRecordWritable> {
+public class StructuredRecordWritable implements WritableComparable<StructuredRecordWritable>, Configurable {
+
+  /**
+   * Whether records are written in the binary format. Records are always readable regardless of this setting.
+   * Can be set through the pipeline properties.
+   */
+  public static final String BINARY_ENABLED = "cdap.etl.shuffle.binary.enabled";
+
+  /**
+   * Json array of the schemas that are known to every task of the job. Records of those schemas are written
+   * with only the schema fingerprint in the binary format.
+   */
+  public static final String REGISTERED_SCHEMAS = "cdap.etl.shuffle.registered.schemas";
+
+  // Marker for the binary format. The legacy format starts with a non-negative int, hence never has the high bit set.
+  private static final byte BINARY_MARKER = (byte) 0x81;
+  private static final int FINGERPRINT_LENGTH = 16;
+  private static final Gson GSON = new GsonBuilder()
+    .registerTypeAdapter(Schema.class, new SchemaTypeAdapter())
+    .create();
+  private static final Type SCHEMAS_TYPE = new TypeToken<List<Schema>>() { }.getType();
+
   // schema cache so that we do not parse schema string for each incoming record
-  private static final Map<byte[], Schema> schemaCache = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+  private static final ConcurrentMap<ByteBuffer, Schema> schemaCache = new ConcurrentHashMap<>();
+
   private StructuredRecord record;
+  private Settings settings = Settings.DEFAULT;
+  private Configuration conf;
+  // encoded record used for ordering, computed on the first comparison
+  private byte[] sortKey;
+
+  /**
+   * Sets the {@link #REGISTERED_SCHEMAS} of a job.
+   */
+  public static void setRegisteredSchemas(Configuration conf, Collection<Schema> schemas) {
+    conf.set(REGISTERED_SCHEMAS, GSON.toJson(new ArrayList<>(schemas), SCHEMAS_TYPE));
+  }
 
   // required by Hadoop
   @SuppressWarnings("unused")
@@ -47,17 +126,39 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
     this.record = record;
   }
 
+  public StructuredRecordWritable(StructuredRecord record, Settings settings) {
+    this.record = record;
+    this.settings = settings;
+  }
+
   public void set(StructuredRecord record) {
     this.record = record;
+    this.sortKey = null;
   }
 
   public StructuredRecord get() {
     return record;
   }
 
+  @Override
+  public void setConf(Configuration conf) {
+    this.conf = conf;
+    this.settings = Settings.of(conf);
+  }
+
+  @Override
+  public Configuration getConf() {
+    return conf;
+  }
+
   @SuppressWarnings("ConstantConditions")
   @Override
   public void write(DataOutput out) throws IOException {
+    if (settings.binaryEnabled) {
+      writeBinary(out);
+      return;
+    }
+
     byte[] schemaBytes = Bytes.toBytes(record.getSchema().toString());
     out.writeInt(schemaBytes.length);
     out.write(schemaBytes);
@@ -69,17 +170,24 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
 
   @Override
   public void readFields(DataInput in) throws IOException {
-    int schemaLen = in.readInt();
+    sortKey = null;
+    byte firstByte = in.readByte();
+    if (firstByte == BINARY_MARKER) {
+      readBinary(in);
+      return;
+    }
+
+    // legacy format, the first byte is the most significant byte of the schema length
+    int schemaLen = ((firstByte & 0xff) << 24) | (in.readUnsignedByte() << 16)
+      | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
     byte[] schemaBytes = new byte[schemaLen];
     in.readFully(schemaBytes, 0, schemaLen);
 
-    Schema schema;
-    if (schemaCache.containsKey(schemaBytes)) {
-      schema = schemaCache.get(schemaBytes);
-    } else {
-      String schemaStr = Bytes.toString(schemaBytes);
-      schema = Schema.parseJson(schemaStr);
-      schemaCache.put(schemaBytes, schema);
+    ByteBuffer schemaKey = ByteBuffer.wrap(schemaBytes);
+    Schema schema = schemaCache.get(schemaKey);
+    if (schema == null) {
+      schema = Schema.parseJson(Bytes.toString(schemaBytes));
+      schemaCache.putIfAbsent(schemaKey, schema);
     }
 
     int recordLen = in.readInt();
@@ -89,9 +197,121 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
     this.record = StructuredRecordStringConverter.fromJsonString(recordStr, schema);
   }
 
+  private void writeBinary(DataOutput out) throws IOException {
+    Schema schema = record.getSchema();
+    byte[] fingerprint = schema.getSchemaHash().toByteArray();
+
+    out.writeByte(BINARY_MARKER);
+    out.write(fingerprint);
+    if (settings.registeredSchemas.containsKey(ByteBuffer.wrap(fingerprint))) {
+      WritableUtils.writeVInt(out, 0);
+    } else {
+      byte[] schemaBytes = Bytes.toBytes(schema.toString());
+      WritableUtils.writeVInt(out, schemaBytes.length);
+      out.write(schemaBytes);
+    }
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new StructuredRecordDatumWriter().encode(record, new BinaryEncoder(os));
+    WritableUtils.writeVInt(out, os.size());
+    os.writeTo(new DataOutputStreamAdapter(out));
+  }
+
+  private void readBinary(DataInput in) throws IOException {
+    byte[] fingerprint = new byte[FINGERPRINT_LENGTH];
+    in.readFully(fingerprint);
+
+    int schemaLen = WritableUtils.readVInt(in);
+    Schema schema;
+    if (schemaLen == 0) {
+      schema = settings.registeredSchemas.get(ByteBuffer.wrap(fingerprint));
+      if (schema == null) {
+        throw new IOException("Schema with fingerprint " + Bytes.toHexString(fingerprint) + " is not registered.");
+      }
+    } else {
+      byte[] schemaBytes = new byte[schemaLen];
+      in.readFully(schemaBytes);
+      schema = getSchema(fingerprint, 0, schemaBytes, 0, schemaLen);
+    }
+
+    byte[] recordBytes = new byte[WritableUtils.readVInt(in)];
+    in.readFully(recordBytes);
+    this.record = new StructuredRecordDatumReader().read(new BinaryDecoder(new ByteArrayInputStream(recordBytes)),
+                                                         schema);
+  }
+
+  /**
+   * Returns the {@link Schema} of the given fingerprint, parsing the given schema json if it is not cached yet.
+   */
+  private static Schema getSchema(byte[] fingerprint, int fingerprintOffset,
+                                  byte[] schemaBytes, int schemaOffset, int schemaLen) throws IOException {
+    Schema schema = schemaCache.get(ByteBuffer.wrap(fingerprint, fingerprintOffset, FINGERPRINT_LENGTH));
+    if (schema == null) {
+      schema = Schema.parseJson(Bytes.toString(schemaBytes, schemaOffset, schemaLen));
+      byte[] key = Arrays.copyOfRange(fingerprint, fingerprintOffset, fingerprintOffset + FINGERPRINT_LENGTH);
+      schemaCache.putIfAbsent(ByteBuffer.wrap(key), schema);
+    }
+    return schema;
+  }
+
+  /**
+   * Returns whether records of the given schema can be ordered by their encoded bytes. This is not the case for
+   * maps, whose encoding depends on the iteration order, nor for floats and doubles, whose encoding does not
+   * follow their numeric order.
+   */
+  private static boolean isRawComparable(Schema schema, Set<String> seenRecords) {
+    switch (schema.getType()) {
+      case MAP:
+      case FLOAT:
+      case DOUBLE:
+        return false;
+      case ARRAY:
+        return isRawComparable(schema.getComponentSchema(), seenRecords);
+      case UNION:
+        for (Schema unionSchema : schema.getUnionSchemas()) {
+          if (!isRawComparable(unionSchema, seenRecords)) {
+            return false;
+          }
+        }
+        return true;
+      case RECORD:
+        // recursive records are only checked once
+        if (!seenRecords.add(schema.getRecordName())) {
+          return true;
+        }
+        for (Schema.Field field : schema.getFields()) {
+          if (!isRawComparable(field.getSchema(), seenRecords)) {
+            return false;
+          }
+        }
+        return true;
+      default:
+        return true;
+    }
+  }
+
   @Override
   public int compareTo(StructuredRecordWritable o) {
-    return Integer.compare(hashCode(), o.hashCode());
+    int cmp = Bytes.compareTo(record.getSchema().getSchemaHash().toByteArray(),
+                              o.record.getSchema().getSchemaHash().toByteArray());
+    return cmp != 0 ? cmp : Bytes.compareTo(getSortKey(), o.getSortKey());
+  }
+
+  /**
+   * Returns the record encoded in the same way as in the binary format, except that map entries are sorted by
+   * their encoded bytes.
+   */
+  private byte[] getSortKey() {
+    if (sortKey == null) {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      try {
+        new SortKeyDatumWriter().encode(record, new BinaryEncoder(os));
+      } catch (IOException e) {
+        throw new IllegalArgumentException("Failed to encode record for comparison", e);
+      }
+      sortKey = os.toByteArray();
+    }
+    return sortKey;
   }
 
   @Override
@@ -112,4 +332,198 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
   public int hashCode() {
     return record != null ? record.hashCode() : 0;
   }
+
+  /**
+   * Serialization settings of {@link StructuredRecordWritable} that are read from the job {@link Configuration}.
+   * They are read once and shared by all writables that are created to be written, so that the configuration
+   * is not parsed for each record.
+   */
+  public static final class Settings {
+
+    private static final Settings DEFAULT = new Settings(false, Collections.<ByteBuffer, Schema>emptyMap());
+
+    private final boolean binaryEnabled;
+    private final Map<ByteBuffer, Schema> registeredSchemas;
+
+    /**
+     * Reads the settings from the given {@link Configuration}.
+     */
+    public static Settings of(Configuration conf) {
+      Map<ByteBuffer, Schema> registeredSchemas = new HashMap<>();
+      String schemas = conf.get(REGISTERED_SCHEMAS);
+      if (schemas != null) {
+        for (Schema schema : GSON.<List<Schema>>fromJson(schemas, SCHEMAS_TYPE)) {
+          registeredSchemas.put(ByteBuffer.wrap(schema.getSchemaHash().toByteArray()), schema);
+        }
+      }
+      return new Settings(conf.getBoolean(BINARY_ENABLED, false), registeredSchemas);
+    }
+
+    private Settings(boolean binaryEnabled, Map<ByteBuffer, Schema> registeredSchemas) {
+      this.binaryEnabled = binaryEnabled;
+      this.registeredSchemas = registeredSchemas;
+    }
+  }
+
+  /**
+   * A {@link WritableComparator} that compares binary serialized records by their schema fingerprint and encoded
+   * bytes, without deserializing them. The optional schema json is skipped, so that it does not matter whether
+   * a record was written with or without its schema. Records of schemas with map, float or double fields and
+   * records in the legacy format are deserialized and compared with
+   * {@link StructuredRecordWritable#compareTo(StructuredRecordWritable)}.
+   *
+   * The comparator reads the registered schemas from the job {@link Configuration}, hence has to be set as the
+   * sort comparator of the job rather than looked up through {@link WritableComparator#get(Class)}.
+   */
+  public static final class Comparator extends WritableComparator implements Configurable {
+
+    // fingerprint -> whether records of the schema can be compared by their encoded bytes
+    private final ConcurrentMap<ByteBuffer, Boolean> rawComparable = new ConcurrentHashMap<>();
+    private final DataInputBuffer buffer = new DataInputBuffer();
+    private Configuration conf;
+    private Settings settings = Settings.DEFAULT;
+    private StructuredRecordWritable key1 = new StructuredRecordWritable();
+    private StructuredRecordWritable key2 = new StructuredRecordWritable();
+
+    public Comparator() {
+      super(StructuredRecordWritable.class);
+    }
+
+    @Override
+    public void setConf(Configuration conf) {
+      this.conf = conf;
+      this.settings = Settings.of(conf);
+      this.key1 = new StructuredRecordWritable(null, settings);
+      this.key2 = new StructuredRecordWritable(null, settings);
+    }
+
+    @Override
+    public Configuration getConf() {
+      return conf;
+    }
+
+    @Override
+    public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+      if (b1[s1] == BINARY_MARKER && b2[s2] == BINARY_MARKER) {
+        int cmp = compareBytes(b1, s1 + 1, FINGERPRINT_LENGTH, b2, s2 + 1, FINGERPRINT_LENGTH);
+        if (cmp != 0) {
+          return cmp;
+        }
+
+        try {
+          if (isRawComparable(b1, s1)) {
+            int recordStart1 = getRecordStart(b1, s1);
+            int recordStart2 = getRecordStart(b2, s2);
+            return compareBytes(b1, recordStart1, l1 - (recordStart1 - s1),
+                                b2, recordStart2, l2 - (recordStart2 - s2));
+          }
+        } catch (IOException e) {
+          throw new IllegalArgumentException(e);
+        }
+      }
+
+      try {
+        buffer.reset(b1, s1, l1);
+        key1.readFields(buffer);
+        buffer.reset(b2, s2, l2);
+        key2.readFields(buffer);
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+      return key1.compareTo(key2);
+    }
+
+    /**
+     * Returns whether the binary serialized record that starts at the given offset can be compared by its
+     * encoded bytes. Records of unknown schemas are deserialized, which fails with a descriptive error.
+     */
+    private boolean isRawComparable(byte[] bytes, int start) throws IOException {
+      int fingerprintStart = start + 1;
+      Boolean result = rawComparable.get(ByteBuffer.wrap(bytes, fingerprintStart, FINGERPRINT_LENGTH));
+      if (result != null) {
+        return result;
+      }
+
+      int offset = fingerprintStart + FINGERPRINT_LENGTH;
+      int schemaLen = readVInt(bytes, offset);
+      Schema schema = schemaLen == 0
+        ? settings.registeredSchemas.get(ByteBuffer.wrap(bytes, fingerprintStart, FINGERPRINT_LENGTH))
+        : getSchema(bytes, fingerprintStart, bytes, offset + WritableUtils.decodeVIntSize(bytes[offset]), schemaLen);
+      if (schema == null) {
+        return false;
+      }
+
+      result = StructuredRecordWritable.isRawComparable(schema, new HashSet<String>());
+      byte[] key = Arrays.copyOfRange(bytes, fingerprintStart, fingerprintStart + FINGERPRINT_LENGTH);
+      rawComparable.putIfAbsent(ByteBuffer.wrap(key), result);
+      return result;
+    }
+
+    /**
+     * Returns the offset of the encoded record in a binary serialized record that starts at the given offset.
+     */
+    private int getRecordStart(byte[] bytes, int start) throws IOException {
+      int offset = start + 1 + FINGERPRINT_LENGTH;
+      int schemaLen = readVInt(bytes, offset);
+      offset += WritableUtils.decodeVIntSize(bytes[offset]) + schemaLen;
+      return offset + WritableUtils.decodeVIntSize(bytes[offset]);
+    }
+  }
+
+  /**
+   * A {@link StructuredRecordDatumWriter} that writes map entries sorted by their encoded bytes, so that equal
+   * records have the same encoding regardless of the iteration order of their maps.
+   */
+  private static final class SortKeyDatumWriter extends StructuredRecordDatumWriter {
+
+    // encoded entries of the maps that are being written, innermost map first
+    private final Deque<List<byte[]>> mapEntries = new ArrayDeque<>();
+
+    @Override
+    protected void encodeMapBegin(Encoder encoder, Schema keySchema, Schema valueSchema, int size) throws IOException {
+      super.encodeMapBegin(encoder, keySchema, valueSchema, size);
+      mapEntries.push(new ArrayList<byte[]>(size));
+    }
+
+    @Override
+    protected void encodeMapEntry(Encoder encoder, Schema keySchema,
+                                  Schema valueSchema, Map.Entry<?, ?> entry) throws IOException {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      super.encodeMapEntry(new BinaryEncoder(os), keySchema, valueSchema, entry);
+      mapEntries.peek().add(os.toByteArray());
+    }
+
+    @Override
+    protected void encodeMapEnd(Encoder encoder, Schema keySchema, Schema valueSchema, int size) throws IOException {
+      List<byte[]> entries = mapEntries.pop();
+      Collections.sort(entries, Bytes.BYTES_COMPARATOR);
+      for (byte[] entry : entries) {
+        encoder.writeBytes(entry);
+      }
+      super.encodeMapEnd(encoder, keySchema, valueSchema, size);
+    }
+  }
+
+  /**
+   * Adapts a {@link DataOutput} to an {@link OutputStream}, so that the encoded record can be copied
+   * without an intermediate byte array.
+   */
+  private static final class DataOutputStreamAdapter extends OutputStream {
+
+    private final DataOutput out;
+
+    DataOutputStreamAdapter(DataOutput out) {
+      this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+  }
 }
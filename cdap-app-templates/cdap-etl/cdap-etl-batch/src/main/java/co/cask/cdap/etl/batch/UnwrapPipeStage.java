@@ -21,7 +21,9 @@ import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.Transformation;
 import co.cask.cdap.etl.common.Destroyables;
 import co.cask.cdap.etl.common.RecordInfo;
+import co.cask.cdap.etl.common.TrackedTransform;
 
+import java.io.Flushable;
 
 /**
  * Processing any stages that can be represented as a Transformation. Gets the value from a RecordInfo before
@@ -44,6 +46,20 @@ public class UnwrapPipeStage<T> extends PipeStage<RecordInfo<T>> {
     transform.transform(input.getValue(), emitter);
   }
 
+  @Override
+  protected void finishInput() throws Exception {
+    if (transform instanceof Flushable) {
+      ((Flushable) transform).flush();
+    }
+  }
+
+  @Override
+  public void flushMetrics() {
+    if (transform instanceof TrackedTransform) {
+      ((TrackedTransform) transform).flushMetrics();
+    }
+  }
+
   @Override
   public void destroy() {
     if (transform instanceof Destroyable) {
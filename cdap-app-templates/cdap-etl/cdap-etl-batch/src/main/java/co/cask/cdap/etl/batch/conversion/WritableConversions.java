@@ -19,6 +19,7 @@ package co.cask.cdap.etl.batch.conversion;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.etl.batch.StructuredRecordWritable;
 import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.BooleanWritable;
 import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.DoubleWritable;
@@ -153,6 +154,37 @@ public class WritableConversions {
     return (WritableConversion<KEY, VAL>) CONVERSIONS.get(className);
   }
 
+  /**
+   * Get the conversion functions to and from the WritableComparable for the specified class, where the
+   * WritableComparable is written according to the given job {@link Configuration}.
+   * Returns null if none exists.
+   *
+   * @param className the name of the class to convert to/from a WritableComparable
+   * @param hConf the configuration of the job that writes the WritableComparable
+   * @return conversion functions to and from the WritableComparable for the specified class
+   */
+  @Nullable
+  public static <KEY, VAL extends Writable> WritableConversion<KEY, VAL> getConversion(String className,
+                                                                                       Configuration hConf) {
+    if (!StructuredRecord.class.getName().equals(className)) {
+      return getConversion(className);
+    }
+
+    final StructuredRecordWritable.Settings settings = StructuredRecordWritable.Settings.of(hConf);
+    //noinspection unchecked
+    return (WritableConversion<KEY, VAL>) new WritableConversion<StructuredRecord, StructuredRecordWritable>() {
+      @Override
+      public StructuredRecordWritable toWritable(StructuredRecord val) {
+        return new StructuredRecordWritable(val, settings);
+      }
+
+      @Override
+      public StructuredRecord fromWritable(StructuredRecordWritable val) {
+        return val.get();
+      }
+    };
+  }
+
   private WritableConversions() {
     // no-op to prevent instantiation of a helper class
   }
@@ -29,6 +29,7 @@ import co.cask.cdap.api.mapreduce.MapReduceTaskContext;
 import co.cask.cdap.api.metrics.Metrics;
 import co.cask.cdap.api.workflow.WorkflowToken;
 import co.cask.cdap.etl.api.AlertPublisher;
+import co.cask.cdap.etl.api.ReducibleAggregator;
 import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.api.batch.BatchAggregator;
 import co.cask.cdap.etl.api.batch.BatchConfigurable;
@@ -43,6 +44,7 @@ import co.cask.cdap.etl.batch.DefaultAggregatorContext;
 import co.cask.cdap.etl.batch.DefaultJoinerContext;
 import co.cask.cdap.etl.batch.PipelinePluginInstantiator;
 import co.cask.cdap.etl.batch.StageFailureException;
+import co.cask.cdap.etl.batch.StructuredRecordWritable;
 import co.cask.cdap.etl.batch.connector.MultiConnectorFactory;
 import co.cask.cdap.etl.batch.conversion.WritableConversion;
 import co.cask.cdap.etl.batch.conversion.WritableConversions;
@@ -95,6 +97,10 @@ public class ETLMapReduce extends AbstractMapReduce {
   public static final String NAME = ETLMapReduce.class.getSimpleName();
   public static final String MAP_KEY_CLASS = "cdap.etl.map.key.class";
   public static final String MAP_VAL_CLASS = "cdap.etl.map.val.class";
+  // maximum number of groups that a mapper partially aggregates in memory for a reducible aggregator before
+  // writing them out. Can be set through the pipeline properties.
+  public static final String COMBINE_MAX_GROUPS = "cdap.etl.aggregator.combine.max.groups";
+  static final int DEFAULT_COMBINE_MAX_GROUPS = 10000;
   static final String RUNTIME_ARGS_KEY = "cdap.etl.runtime.args";
   static final String INPUT_ALIAS_KEY = "cdap.etl.source.alias.key";
   static final String SINK_OUTPUTS_KEY = "cdap.etl.sink.outputs";
@@ -307,6 +313,13 @@ public class ETLMapReduce extends AbstractMapReduce {
               if (outputValClass == null) {
                 outputValClass = TypeChecker.getGroupValueClass(aggregator);
               }
+              if (aggregator instanceof ReducibleAggregator) {
+                // mappers write partial aggregation values instead of group values
+                outputValClass = aggregatorContext.getAggregationValueClass();
+                if (outputValClass == null) {
+                  outputValClass = TypeChecker.getAggregationValueClass((ReducibleAggregator<?, ?, ?, ?>) aggregator);
+                }
+              }
               hConf.set(MAP_KEY_CLASS, outputKeyClass.getName());
               hConf.set(MAP_VAL_CLASS, outputValClass.getName());
               job.setMapOutputKeyClass(getOutputKeyClass(stageName, outputKeyClass));
@@ -355,6 +368,11 @@ public class ETLMapReduce extends AbstractMapReduce {
 
     hConf.set(SINK_OUTPUTS_KEY, GSON.toJson(sinkOutputs));
     hConf.set(INPUT_ALIAS_KEY, GSON.toJson(inputAliasToStage));
+    // mappers and reducers see the same phase, hence know the same schemas for the binary shuffle format
+    StructuredRecordWritable.setRegisteredSchemas(hConf, phase.getRecordSchemas());
+    if (StructuredRecordWritable.class.equals(job.getMapOutputKeyClass())) {
+      job.setSortComparatorClass(StructuredRecordWritable.Comparator.class);
+    }
     finisher = new CompositeFinisher(finishers);
 
     job.setMapperClass(ETLMapper.class);
@@ -471,6 +489,20 @@ public class ETLMapReduce extends AbstractMapReduce {
       }
     }
 
+    @Override
+    protected void cleanup(Mapper.Context context) throws IOException, InterruptedException {
+      // write out anything that stages buffered across records, such as partial aggregations, and send out the
+      // metrics that stages counted locally
+      try {
+        transformRunner.finish();
+      } catch (StageFailureException e) {
+        PIPELINE_LOG.error("{}", e.getMessage(), e.getCause());
+        Throwables.propagate(e.getCause());
+      } catch (Exception e) {
+        Throwables.propagate(e);
+      }
+    }
+
     @Override
     public void destroy() {
       transformRunner.destroy();
@@ -509,6 +541,19 @@ public class ETLMapReduce extends AbstractMapReduce {
       }
     }
 
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+      // send out the metrics that stages counted locally
+      try {
+        transformRunner.finish();
+      } catch (StageFailureException e) {
+        PIPELINE_LOG.error("{}", e.getMessage(), e.getCause());
+        Throwables.propagate(e.getCause());
+      } catch (Exception e) {
+        Throwables.propagate(e);
+      }
+    }
+
     @Override
     public void destroy() {
       transformRunner.destroy();
@@ -27,6 +27,7 @@ import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.ErrorTransform;
 import co.cask.cdap.etl.api.JoinElement;
 import co.cask.cdap.etl.api.Joiner;
+import co.cask.cdap.etl.api.ReducibleAggregator;
 import co.cask.cdap.etl.api.SplitterTransform;
 import co.cask.cdap.etl.api.StageLifecycle;
 import co.cask.cdap.etl.api.StageMetrics;
@@ -69,10 +70,12 @@ import com.google.common.collect.Sets;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
+import java.io.Flushable;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -97,6 +100,8 @@ public class MapReduceTransformExecutorFactory<T> {
   private final int numberOfRecordsPreview;
   private final BasicArguments arguments;
   private final boolean isPipelineContainsCondition;
+  private final Configuration hConf;
+  private final int combineMaxGroups;
   private boolean isMapPhase;
 
   public MapReduceTransformExecutorFactory(MapReduceTaskContext taskContext,
@@ -114,7 +119,8 @@ public class MapReduceTransformExecutorFactory<T> {
     this.macroEvaluator =
       new DefaultMacroEvaluator(arguments, taskContext.getLogicalStartTime(), taskContext, taskContext.getNamespace());
     JobContext hadoopContext = (JobContext) taskContext.getHadoopContext();
-    Configuration hConf = hadoopContext.getConfiguration();
+    this.hConf = hadoopContext.getConfiguration();
+    this.combineMaxGroups = hConf.getInt(ETLMapReduce.COMBINE_MAX_GROUPS, ETLMapReduce.DEFAULT_COMBINE_MAX_GROUPS);
     this.mapOutputKeyClassName = hConf.get(ETLMapReduce.MAP_KEY_CLASS);
     this.mapOutputValClassName = hConf.get(ETLMapReduce.MAP_VAL_CLASS);
     this.isMapPhase = hadoopContext instanceof Mapper.Context;
@@ -160,9 +166,23 @@ public class MapReduceTransformExecutorFactory<T> {
       BatchAggregator<?, ?, ?> batchAggregator = pluginInstantiator.newPluginInstance(stageName, macroEvaluator);
       BatchRuntimeContext runtimeContext = createRuntimeContext(stageSpec);
       batchAggregator.initialize(runtimeContext);
+      if (batchAggregator instanceof ReducibleAggregator) {
+        ReducibleAggregator<?, ?, ?, ?> reducibleAggregator = (ReducibleAggregator<?, ?, ?, ?>) batchAggregator;
+        if (isMapPhase) {
+          return getTrackedEmitKeyStep(
+            new MapperReducibleAggregatorTransformation(reducibleAggregator, mapOutputKeyClassName,
+                                                        mapOutputValClassName, combineMaxGroups, hConf),
+            stageMetrics, taskContext.getDataTracer(stageName), collector);
+        } else {
+          return getTrackedAggregateStep(
+            new ReducerReducibleAggregatorTransformation(reducibleAggregator, mapOutputKeyClassName,
+                                                         mapOutputValClassName, hConf),
+            stageMetrics, taskContext.getDataTracer(stageName), collector);
+        }
+      }
       if (isMapPhase) {
         return getTrackedEmitKeyStep(new MapperAggregatorTransformation(batchAggregator, mapOutputKeyClassName,
-                                                                        mapOutputValClassName),
+                                                                        mapOutputValClassName, hConf),
                                      stageMetrics, taskContext.getDataTracer(stageName), collector);
       } else {
         return getTrackedAggregateStep(new ReducerAggregatorTransformation(batchAggregator,
@@ -176,7 +196,8 @@ public class MapReduceTransformExecutorFactory<T> {
       batchJoiner.initialize(runtimeContext);
       if (isMapPhase) {
         return getTrackedEmitKeyStep(
-          new MapperJoinerTransformation(batchJoiner, mapOutputKeyClassName, mapOutputValClassName), stageMetrics,
+          new MapperJoinerTransformation(batchJoiner, mapOutputKeyClassName, mapOutputValClassName, hConf),
+          stageMetrics,
           taskContext.getDataTracer(stageName), collector);
       } else {
         return getTrackedMergeStep(
@@ -194,7 +215,8 @@ public class MapReduceTransformExecutorFactory<T> {
     // not when we write the alerts to the temporary dataset
     String recordsInMetric = AlertPublisher.PLUGIN_TYPE.equals(pluginType) ? null : Constants.Metrics.RECORDS_IN;
     return new TrackedTransform<>(transformation, stageMetrics, recordsInMetric, Constants.Metrics.RECORDS_OUT,
-                                  taskContext.getDataTracer(stageName), collector);
+                                  taskContext.getDataTracer(stageName), collector,
+                                  TrackedTransform.METRICS_BATCH_SIZE);
   }
 
   /**
@@ -324,7 +346,8 @@ public class MapReduceTransformExecutorFactory<T> {
                                                                            StageMetrics stageMetrics,
                                                                            DataTracer dataTracer,
                                                                            StageStatisticsCollector collector) {
-    return new TrackedTransform<>(transform, stageMetrics, Constants.Metrics.RECORDS_IN, null, dataTracer, collector);
+    return new TrackedTransform<>(transform, stageMetrics, Constants.Metrics.RECORDS_IN, null, dataTracer, collector,
+                                  TrackedTransform.METRICS_BATCH_SIZE);
   }
 
   private static <IN, OUT> TrackedTransform<IN, OUT> getTrackedAggregateStep(Transformation<IN, OUT> transform,
@@ -333,14 +356,15 @@ public class MapReduceTransformExecutorFactory<T> {
                                                                              StageStatisticsCollector collector) {
     // 'aggregator.groups' is the number of groups output by the aggregator
     return new TrackedTransform<>(transform, stageMetrics, Constants.Metrics.AGG_GROUPS, Constants.Metrics.RECORDS_OUT,
-                                  dataTracer, collector);
+                                  dataTracer, collector, TrackedTransform.METRICS_BATCH_SIZE);
   }
 
   private static <IN, OUT> TrackedTransform<IN, OUT> getTrackedMergeStep(Transformation<IN, OUT> transform,
                                                                          StageMetrics stageMetrics,
                                                                          DataTracer dataTracer,
                                                                          StageStatisticsCollector collector) {
-    return new TrackedTransform<>(transform, stageMetrics, null, Constants.Metrics.RECORDS_OUT, dataTracer, collector);
+    return new TrackedTransform<>(transform, stageMetrics, null, Constants.Metrics.RECORDS_OUT, dataTracer, collector,
+                                  TrackedTransform.METRICS_BATCH_SIZE);
   }
 
   /**
@@ -361,11 +385,12 @@ public class MapReduceTransformExecutorFactory<T> {
     private final WritableConversion<INPUT_RECORD, OUT_VALUE> inputConversion;
 
     MapperJoinerTransformation(Joiner<JOIN_KEY, INPUT_RECORD, OUT> joiner, String joinKeyClassName,
-                               String joinInputClassName) {
+                               String joinInputClassName, Configuration hConf) {
       this.joiner = joiner;
-      WritableConversion<JOIN_KEY, OUT_KEY> keyConversion = WritableConversions.getConversion(joinKeyClassName);
+      WritableConversion<JOIN_KEY, OUT_KEY> keyConversion =
+        WritableConversions.getConversion(joinKeyClassName, hConf);
       WritableConversion<INPUT_RECORD, OUT_VALUE> inputConversion =
-        WritableConversions.getConversion(joinInputClassName);
+        WritableConversions.getConversion(joinInputClassName, hConf);
       this.keyConversion = keyConversion == null ? new CastConversion<JOIN_KEY, OUT_KEY>() : keyConversion;
       this.inputConversion = inputConversion == null ? new CastConversion<INPUT_RECORD, OUT_VALUE>() : inputConversion;
     }
@@ -449,12 +474,15 @@ public class MapReduceTransformExecutorFactory<T> {
 
     MapperAggregatorTransformation(Aggregator<GROUP_KEY, GROUP_VAL, ?> aggregator,
                                    String groupKeyClassName,
-                                   String groupValClassName) {
+                                   String groupValClassName,
+                                   Configuration hConf) {
       this.aggregator = aggregator;
       this.groupKeyEmitter =
         new NoErrorEmitter<>("Errors and Alerts cannot be emitted from the groupBy method of an aggregator");
-      WritableConversion<GROUP_KEY, OUT_KEY> keyConversion = WritableConversions.getConversion(groupKeyClassName);
-      WritableConversion<GROUP_VAL, OUT_VAL> valConversion = WritableConversions.getConversion(groupValClassName);
+      WritableConversion<GROUP_KEY, OUT_KEY> keyConversion =
+        WritableConversions.getConversion(groupKeyClassName, hConf);
+      WritableConversion<GROUP_VAL, OUT_VAL> valConversion =
+        WritableConversions.getConversion(groupValClassName, hConf);
       // if the conversion is null, it means the user is using a Writable already
       this.keyConversion = keyConversion == null ? new CastConversion<GROUP_KEY, OUT_KEY>() : keyConversion;
       this.valConversion = valConversion == null ? new CastConversion<GROUP_VAL, OUT_VAL>() : valConversion;
@@ -513,6 +541,114 @@ public class MapReduceTransformExecutorFactory<T> {
     }
   }
 
+  /**
+   * A Transformation that uses the groupBy method of a {@link ReducibleAggregator} and partially aggregates the
+   * values of each group in memory, so that the mapper only writes one aggregation value per group, instead of
+   * every value in the group. Aggregation values are written out when the number of groups reaches the given
+   * maximum, and when the mapper finishes through {@link #flush()}.
+   *
+   * @param <GROUP_KEY> type of group key output by the aggregator
+   * @param <GROUP_VAL> type of group value used by the aggregator
+   * @param <AGG_VAL>   type of aggregation value used by the aggregator
+   * @param <OUT_KEY>   type of output key for mapreduce. Must implement WritableComparable
+   * @param <OUT_VAL>   type of output value for mapreduce. Must implement Writable
+   */
+  private static class MapperReducibleAggregatorTransformation<GROUP_KEY, GROUP_VAL, AGG_VAL,
+    OUT_KEY extends Writable, OUT_VAL extends Writable>
+    implements Transformation<GROUP_VAL, KeyValue<OUT_KEY, OUT_VAL>>, Flushable {
+    private final ReducibleAggregator<GROUP_KEY, GROUP_VAL, AGG_VAL, ?> aggregator;
+    private final NoErrorEmitter<GROUP_KEY> groupKeyEmitter;
+    private final WritableConversion<GROUP_KEY, OUT_KEY> keyConversion;
+    private final WritableConversion<AGG_VAL, OUT_VAL> valConversion;
+    private final int maxGroups;
+    private final Map<GROUP_KEY, AGG_VAL> aggValues;
+    private Emitter<KeyValue<OUT_KEY, OUT_VAL>> emitter;
+
+    MapperReducibleAggregatorTransformation(ReducibleAggregator<GROUP_KEY, GROUP_VAL, AGG_VAL, ?> aggregator,
+                                            String groupKeyClassName, String aggValClassName, int maxGroups,
+                                            Configuration hConf) {
+      this.aggregator = aggregator;
+      this.groupKeyEmitter =
+        new NoErrorEmitter<>("Errors and Alerts cannot be emitted from the groupBy method of an aggregator");
+      WritableConversion<GROUP_KEY, OUT_KEY> keyConversion =
+        WritableConversions.getConversion(groupKeyClassName, hConf);
+      WritableConversion<AGG_VAL, OUT_VAL> valConversion = WritableConversions.getConversion(aggValClassName, hConf);
+      this.keyConversion = keyConversion == null ? new CastConversion<GROUP_KEY, OUT_KEY>() : keyConversion;
+      this.valConversion = valConversion == null ? new CastConversion<AGG_VAL, OUT_VAL>() : valConversion;
+      this.maxGroups = maxGroups;
+      this.aggValues = new HashMap<>();
+    }
+
+    @Override
+    public void transform(GROUP_VAL input, Emitter<KeyValue<OUT_KEY, OUT_VAL>> emitter) throws Exception {
+      this.emitter = emitter;
+      groupKeyEmitter.reset();
+      aggregator.groupBy(input, groupKeyEmitter);
+      for (GROUP_KEY groupKey : groupKeyEmitter.getEntries()) {
+        AGG_VAL aggValue = aggValues.get(groupKey);
+        aggValues.put(groupKey, aggValue == null ?
+          aggregator.initializeAggregationValue(input) : aggregator.mergeValues(aggValue, input));
+      }
+      if (aggValues.size() >= maxGroups) {
+        flush();
+      }
+    }
+
+    @Override
+    public void flush() {
+      for (Map.Entry<GROUP_KEY, AGG_VAL> entry : aggValues.entrySet()) {
+        emitter.emit(new KeyValue<>(keyConversion.toWritable(entry.getKey()),
+                                    valConversion.toWritable(entry.getValue())));
+      }
+      aggValues.clear();
+    }
+  }
+
+  /**
+   * A Transformation that uses the mergePartitions and finalize methods of a {@link ReducibleAggregator} to
+   * aggregate the partial aggregation values written by the mappers.
+   *
+   * @param <GROUP_KEY>  type of group key output by the aggregator
+   * @param <AGG_VAL>    type of aggregation value used by the aggregator
+   * @param <OUT>        type of output of the aggregator
+   * @param <REDUCE_KEY> type of reduce key for mapreduce. Must implement WritableComparable
+   * @param <REDUCE_VAL> type of reduce value for mapreduce. Must implement Writable
+   */
+  private static class ReducerReducibleAggregatorTransformation<GROUP_KEY, AGG_VAL, OUT,
+    REDUCE_KEY extends WritableComparable, REDUCE_VAL extends Writable>
+    implements Transformation<KeyValue<REDUCE_KEY, Iterator<REDUCE_VAL>>, OUT> {
+    private final ReducibleAggregator<GROUP_KEY, ?, AGG_VAL, OUT> aggregator;
+    private final WritableConversion<GROUP_KEY, REDUCE_KEY> keyConversion;
+    private final WritableConversion<AGG_VAL, REDUCE_VAL> valConversion;
+    private final boolean isWritableValue;
+    private final Configuration hConf;
+
+    ReducerReducibleAggregatorTransformation(ReducibleAggregator<GROUP_KEY, ?, AGG_VAL, OUT> aggregator,
+                                             String groupKeyClassName, String aggValClassName,
+                                             Configuration hConf) {
+      this.aggregator = aggregator;
+      WritableConversion<GROUP_KEY, REDUCE_KEY> keyConversion = WritableConversions.getConversion(groupKeyClassName);
+      WritableConversion<AGG_VAL, REDUCE_VAL> valConversion = WritableConversions.getConversion(aggValClassName);
+      this.keyConversion = keyConversion == null ? new CastConversion<GROUP_KEY, REDUCE_KEY>() : keyConversion;
+      this.valConversion = valConversion == null ? new CastConversion<AGG_VAL, REDUCE_VAL>() : valConversion;
+      this.isWritableValue = valConversion == null;
+      this.hConf = hConf;
+    }
+
+    @Override
+    public void transform(KeyValue<REDUCE_KEY, Iterator<REDUCE_VAL>> input, Emitter<OUT> emitter) throws Exception {
+      GROUP_KEY groupKey = keyConversion.fromWritable(input.getKey());
+      Iterator<REDUCE_VAL> values = input.getValue();
+      REDUCE_VAL first = values.next();
+      // Hadoop reuses the same value object while iterating, hence copy the value that is merged into
+      AGG_VAL aggValue = valConversion.fromWritable(isWritableValue ? WritableUtils.clone(first, hConf) : first);
+      while (values.hasNext()) {
+        aggValue = aggregator.mergePartitions(aggValue, valConversion.fromWritable(values.next()));
+      }
+      aggregator.finalize(groupKey, aggValue, emitter);
+    }
+  }
+
   /**
    * Conversion that doesn't do anything but cast types to each other.
    * This is used in the MapperAggregatorTransformation and ReducerAggregatorTransformation when the user is already
@@ -142,6 +142,10 @@ public class TransformRunner<KEY, VALUE> {
     transformExecutor.runOneIteration(input);
   }
 
+  public void finish() {
+    transformExecutor.finish();
+  }
+
   public void destroy() {
     Destroyables.destroyQuietly(transformExecutor);
   }
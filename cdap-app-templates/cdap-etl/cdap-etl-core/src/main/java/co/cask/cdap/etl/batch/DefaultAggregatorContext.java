@@ -33,6 +33,7 @@ public class DefaultAggregatorContext extends AbstractBatchContext implements Ba
   private Integer numPartitions;
   private Class<?> groupKeyClass;
   private Class<?> groupValueClass;
+  private Class<?> aggregationValueClass;
 
   public DefaultAggregatorContext(PipelineRuntime pipelineRuntime, StageSpec stageSpec,
                                   DatasetContext datasetContext, Admin admin) {
@@ -58,6 +59,11 @@ public class DefaultAggregatorContext extends AbstractBatchContext implements Ba
     this.groupValueClass = groupValueClass;
   }
 
+  @Override
+  public void setAggregationValueClass(Class<?> aggregationValueClass) {
+    this.aggregationValueClass = aggregationValueClass;
+  }
+
   public Integer getNumPartitions() {
     return numPartitions;
   }
@@ -69,4 +75,8 @@ public class DefaultAggregatorContext extends AbstractBatchContext implements Ba
   public Class<?> getGroupValueClass() {
     return groupValueClass;
   }
+
+  public Class<?> getAggregationValueClass() {
+    return aggregationValueClass;
+  }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.connector;
+
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.data.schema.SchemaHash;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileRecordReader;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileSplit;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Input format of connector datasets, which reads the files written by {@link ConnectorOutputFormat}. Files are
+ * combined into splits like in {@link org.apache.hadoop.mapreduce.lib.input.CombineSequenceFileInputFormat}.
+ * The key of each record is the schemas in the header of the file that the record is read from, keyed by their
+ * fingerprints, and the value is the record written by {@link ConnectorRecordCodec}. The key is the same instance
+ * for all records of a file, so that the schemas are only parsed once per file.
+ */
+public class ConnectorInputFormat extends CombineFileInputFormat<Map<SchemaHash, Schema>, BytesWritable> {
+
+  @Override
+  public RecordReader<Map<SchemaHash, Schema>, BytesWritable> createRecordReader(InputSplit split,
+                                                                                  TaskAttemptContext context)
+    throws IOException {
+    return new CombineFileRecordReader<>((CombineFileSplit) split, context, FileRecordReader.class);
+  }
+
+  /**
+   * Reads the records in one file of a {@link CombineFileSplit}. This is created by the
+   * {@link CombineFileRecordReader} through reflection.
+   */
+  private static final class FileRecordReader extends RecordReader<Map<SchemaHash, Schema>, BytesWritable> {
+
+    private final Path path;
+    private final long start;
+    private final long end;
+    private final BytesWritable value;
+    private SequenceFile.Reader reader;
+    private Map<SchemaHash, Schema> schemas;
+    private boolean more;
+
+    FileRecordReader(CombineFileSplit split, TaskAttemptContext context, Integer index) {
+      this.path = split.getPath(index);
+      this.start = split.getOffset(index);
+      this.end = start + split.getLength(index);
+      this.value = new BytesWritable();
+    }
+
+    @Override
+    public void initialize(InputSplit split, TaskAttemptContext context) throws IOException {
+      reader = new SequenceFile.Reader(context.getConfiguration(), SequenceFile.Reader.file(path));
+      schemas = ConnectorRecordCodec.getSchemas(reader.getMetadata());
+      if (start > reader.getPosition()) {
+        reader.sync(start);
+      }
+      more = reader.getPosition() < end;
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException {
+      if (!more) {
+        return false;
+      }
+      // Same as the SequenceFileRecordReader, a record after the end of the split belongs to the next split
+      // if there is a sync marker in between
+      long position = reader.getPosition();
+      more = reader.next(NullWritable.get(), value) && (position < end || !reader.syncSeen());
+      return more;
+    }
+
+    @Override
+    public Map<SchemaHash, Schema> getCurrentKey() {
+      return schemas;
+    }
+
+    @Override
+    public BytesWritable getCurrentValue() {
+      return value;
+    }
+
+    @Override
+    public float getProgress() throws IOException {
+      if (end == start || reader == null) {
+        return 0f;
+      }
+      return Math.min(1f, (reader.getPosition() - start) / (float) (end - start));
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (reader != null) {
+        reader.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.connector;
+
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.data.schema.SchemaHash;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Output format of connector datasets. The key of each record is the schema of the record, and the value is the
+ * record written by {@link ConnectorRecordCodec}. Records are written to sequence files, with one file per schema
+ * for each task. The schema is written once into the {@link SequenceFile.Metadata} in the header of the file,
+ * so the records only need to carry the schema fingerprint.
+ */
+public class ConnectorOutputFormat extends FileOutputFormat<Schema, BytesWritable> {
+
+  @Override
+  public RecordWriter<Schema, BytesWritable> getRecordWriter(final TaskAttemptContext context) throws IOException {
+    Configuration conf = context.getConfiguration();
+    SequenceFile.CompressionType compressionType = SequenceFile.CompressionType.NONE;
+    CompressionCodec codec = null;
+    if (getCompressOutput(context)) {
+      compressionType = SequenceFileOutputFormat.getOutputCompressionType(context);
+      codec = ReflectionUtils.newInstance(getOutputCompressorClass(context, DefaultCodec.class), conf);
+    }
+    final SequenceFile.Writer.Option compression = SequenceFile.Writer.compression(compressionType, codec);
+
+    return new RecordWriter<Schema, BytesWritable>() {
+
+      private final Map<SchemaHash, SequenceFile.Writer> writers = new HashMap<>();
+
+      @Override
+      public void write(Schema schema, BytesWritable value) throws IOException {
+        SequenceFile.Writer writer = writers.get(schema.getSchemaHash());
+        if (writer == null) {
+          // Each schema has its own file, since the header is written before any record
+          Path file = getDefaultWorkFile(context, "-" + writers.size());
+          writer = SequenceFile.createWriter(context.getConfiguration(),
+                                             SequenceFile.Writer.file(file),
+                                             SequenceFile.Writer.keyClass(NullWritable.class),
+                                             SequenceFile.Writer.valueClass(BytesWritable.class),
+                                             SequenceFile.Writer.progressable(context),
+                                             SequenceFile.Writer.metadata(ConnectorRecordCodec.createMetadata(schema)),
+                                             compression);
+          writers.put(schema.getSchemaHash(), writer);
+        }
+        writer.append(NullWritable.get(), value);
+      }
+
+      @Override
+      public void close(TaskAttemptContext context) throws IOException {
+        IOException failure = null;
+        for (SequenceFile.Writer writer : writers.values()) {
+          try {
+            writer.close();
+          } catch (IOException e) {
+            if (failure == null) {
+              failure = e;
+            } else {
+              failure.addSuppressed(e);
+            }
+          }
+        }
+        if (failure != null) {
+          throw failure;
+        }
+      }
+    };
+  }
+}
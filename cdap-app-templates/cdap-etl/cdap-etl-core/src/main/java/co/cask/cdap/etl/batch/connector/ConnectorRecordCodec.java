@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.connector;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.data.schema.SchemaHash;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.io.Encoder;
+import co.cask.cdap.format.io.StructuredRecordDatumReader;
+import co.cask.cdap.format.io.StructuredRecordDatumWriter;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes and decodes the binary records stored in connector datasets. Each record is written as its
+ * schema fingerprint, followed by the record encoded with the {@link StructuredRecordDatumWriter}.
+ * The schemas are not part of the records. Instead, the {@link SequenceFile.Metadata} in the header of each
+ * connector file maps the fingerprints to the schemas of the records in the file, which is available to every split
+ * of the file. See {@link ConnectorOutputFormat} and {@link ConnectorInputFormat} for how the header is written
+ * and read.
+ *
+ * Instances of this class are not thread safe.
+ */
+final class ConnectorRecordCodec {
+
+  // Prefix of the metadata keys of the schemas, followed by the hex encoded schema fingerprint
+  private static final String SCHEMA_KEY_PREFIX = "schema.";
+
+  private final ByteArrayOutputStream os = new ByteArrayOutputStream();
+  private final Encoder encoder = new BinaryEncoder(os);
+  private final StructuredRecordDatumWriter datumWriter = new StructuredRecordDatumWriter();
+  private final StructuredRecordDatumReader datumReader = new StructuredRecordDatumReader();
+
+  /**
+   * Returns an {@link Encoder} for a new record. Anything written to the encoder is part of the record
+   * returned by {@link #toWritable()}.
+   */
+  Encoder newEncoder() {
+    os.reset();
+    return encoder;
+  }
+
+  /**
+   * Writes the given {@link StructuredRecord} together with its schema fingerprint.
+   */
+  void writeRecord(Encoder encoder, StructuredRecord record) throws IOException {
+    encoder.writeBytes(record.getSchema().getSchemaHash().toByteArray());
+    datumWriter.encode(record, encoder);
+  }
+
+  /**
+   * Returns the bytes written to the current {@link Encoder} as a {@link BytesWritable}.
+   */
+  BytesWritable toWritable() {
+    return new BytesWritable(os.toByteArray());
+  }
+
+  /**
+   * Returns a {@link Decoder} for reading the given record.
+   */
+  Decoder newDecoder(BytesWritable value) {
+    return new BinaryDecoder(new ByteArrayInputStream(value.getBytes(), 0, value.getLength()));
+  }
+
+  /**
+   * Reads a {@link StructuredRecord} written by {@link #writeRecord(Encoder, StructuredRecord)}.
+   *
+   * @param decoder the decoder to read from
+   * @param schemas the schemas of the file that the record was read from, as returned by {@link #getSchemas}
+   */
+  StructuredRecord readRecord(Decoder decoder, Map<SchemaHash, Schema> schemas) throws IOException {
+    SchemaHash schemaHash = new SchemaHash(decoder.readBytes());
+    Schema schema = schemas.get(schemaHash);
+    if (schema == null) {
+      throw new IOException("Schema with fingerprint " + schemaHash + " is not in the connector file header");
+    }
+    return datumReader.read(decoder, schema);
+  }
+
+  /**
+   * Returns the {@link SequenceFile.Metadata} for the header of a connector file with records of the given schema.
+   */
+  static SequenceFile.Metadata createMetadata(Schema schema) {
+    SequenceFile.Metadata metadata = new SequenceFile.Metadata();
+    metadata.set(new Text(SCHEMA_KEY_PREFIX + schema.getSchemaHash()), new Text(schema.toString()));
+    return metadata;
+  }
+
+  /**
+   * Returns the schemas in the header of a connector file, keyed by their fingerprints.
+   */
+  static Map<SchemaHash, Schema> getSchemas(SequenceFile.Metadata metadata) throws IOException {
+    Map<SchemaHash, Schema> schemas = new HashMap<>();
+    for (Map.Entry<Text, Text> entry : metadata.getMetadata().entrySet()) {
+      String key = entry.getKey().toString();
+      if (key.startsWith(SCHEMA_KEY_PREFIX)) {
+        byte[] fingerprint = Bytes.fromHexString(key.substring(SCHEMA_KEY_PREFIX.length()));
+        schemas.put(new SchemaHash(ByteBuffer.wrap(fingerprint)), Schema.parseJson(entry.getValue().toString()));
+      }
+    }
+    return Collections.unmodifiableMap(schemas);
+  }
+}
@@ -17,12 +17,12 @@
 package co.cask.cdap.etl.batch.connector;
 
 import co.cask.cdap.api.data.batch.Output;
+import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.FileSetArguments;
 import co.cask.cdap.etl.api.batch.BatchSink;
 import co.cask.cdap.etl.api.batch.BatchSinkContext;
 import co.cask.cdap.etl.common.Constants;
-import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.BytesWritable;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -39,11 +39,11 @@ import java.util.Map;
  * This is because we don't want this to show up as a plugin that users can select and use, and also because
  * it uses features not exposed in the etl api (local workflow datasets).
  *
- * TODO: improve storage format. It is currently a json of the record but that is obviously not ideal
+ * Records are stored in block compressed sequence files, see {@link ConnectorSource} for the format.
  *
  * @param <T> type of input object
  */
-public abstract class ConnectorSink<T> extends BatchSink<T, NullWritable, Text> {
+public abstract class ConnectorSink<T> extends BatchSink<T, Schema, BytesWritable> {
   private final String datasetName;
   private final String phaseName;
 
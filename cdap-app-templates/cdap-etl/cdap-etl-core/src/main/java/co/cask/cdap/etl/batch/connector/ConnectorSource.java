@@ -17,6 +17,8 @@
 package co.cask.cdap.etl.batch.connector;
 
 import co.cask.cdap.api.data.batch.Input;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.data.schema.SchemaHash;
 import co.cask.cdap.api.dataset.lib.FileSet;
 import co.cask.cdap.api.dataset.lib.FileSetArguments;
 import co.cask.cdap.api.dataset.lib.FileSetProperties;
@@ -24,11 +26,10 @@ import co.cask.cdap.api.workflow.WorkflowConfigurer;
 import co.cask.cdap.etl.api.batch.BatchSource;
 import co.cask.cdap.etl.api.batch.BatchSourceContext;
 import co.cask.cdap.etl.common.Constants;
-import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Text;
-import org.apache.hadoop.mapreduce.lib.input.CombineTextInputFormat;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
-import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -45,9 +46,14 @@ import java.util.Map;
  * This is because we don't want this to show up as a plugin that users can select and use, and also because
  * it uses features not exposed in the etl api (local workflow datasets).
  *
+ * Records are stored as {@link BytesWritable} values in block compressed sequence files, which carry a header,
+ * sync markers and can be split. Each value is a binary record written by {@link ConnectorRecordCodec}, and the
+ * header of each file has the schemas of its records. See {@link ConnectorOutputFormat} and
+ * {@link ConnectorInputFormat}.
+ *
  * @param <T> type of output object
  */
-public class ConnectorSource<T> extends BatchSource<LongWritable, Text, T> {
+public class ConnectorSource<T> extends BatchSource<Map<SchemaHash, Schema>, BytesWritable, T> {
   // you can't read from the basedir of a FileSet so adding an arbitrary directory where data will be stored/read.
   static final String DATA_DIR = "data";
   private final String datasetName;
@@ -61,9 +67,12 @@ public class ConnectorSource<T> extends BatchSource<LongWritable, Text, T> {
   public void configure(WorkflowConfigurer workflowConfigurer) {
     workflowConfigurer.createLocalDataset(datasetName, FileSet.class,
                                           FileSetProperties.builder()
-                                            .setInputFormat(CombineTextInputFormat.class)
+                                            .setInputFormat(ConnectorInputFormat.class)
                                             .setInputProperty(FileInputFormat.INPUT_DIR_RECURSIVE, "true")
-                                            .setOutputFormat(TextOutputFormat.class)
+                                            .setOutputFormat(ConnectorOutputFormat.class)
+                                            .setOutputProperty(FileOutputFormat.COMPRESS, "true")
+                                            .setOutputProperty(FileOutputFormat.COMPRESS_TYPE,
+                                                               SequenceFile.CompressionType.BLOCK.name())
                                             .build());
   }
 
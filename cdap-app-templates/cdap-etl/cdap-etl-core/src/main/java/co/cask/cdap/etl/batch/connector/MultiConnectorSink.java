@@ -19,13 +19,10 @@ package co.cask.cdap.etl.batch.connector;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.KeyValue;
+import co.cask.cdap.common.io.Encoder;
 import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.common.RecordInfo;
-import co.cask.cdap.format.StructuredRecordStringConverter;
-import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Text;
-
-import java.io.IOException;
+import org.apache.hadoop.io.BytesWritable;
 
 /**
  * Connector sink that needs to preserve which stage each record came from and the record type.
@@ -33,27 +30,20 @@ import java.io.IOException;
  * Connectors store the stage name each record came from in case they are placed in front of a joiner.
  */
 public class MultiConnectorSink extends ConnectorSink<RecordInfo<StructuredRecord>> {
+  private final ConnectorRecordCodec codec;
 
   public MultiConnectorSink(String datasetName, String phaseName) {
     super(datasetName, phaseName);
+    this.codec = new ConnectorRecordCodec();
   }
 
   @Override
-  public void transform(RecordInfo<StructuredRecord> input, Emitter<KeyValue<NullWritable, Text>> emitter)
+  public void transform(RecordInfo<StructuredRecord> input, Emitter<KeyValue<Schema, BytesWritable>> emitter)
     throws Exception {
-    StructuredRecord modifiedRecord = modifyRecord(input);
-    emitter.emit(new KeyValue<>(NullWritable.get(),
-                                new Text(StructuredRecordStringConverter.toJsonString(modifiedRecord))));
-  }
-
-  private StructuredRecord modifyRecord(RecordInfo<StructuredRecord> input) throws IOException {
-    String stageName = input.getFromStage();
-    Schema inputSchema = input.getValue().getSchema();
-    return StructuredRecord.builder(MultiConnectorSource.RECORD_WITH_SCHEMA)
-      .set("stageName", stageName)
-      .set("type", input.getType().name())
-      .set("schema", inputSchema.toString())
-      .set("record", StructuredRecordStringConverter.toJsonString(input.getValue()))
-      .build();
+    Encoder encoder = codec.newEncoder();
+    encoder.writeString(input.getFromStage());
+    encoder.writeString(input.getType().name());
+    codec.writeRecord(encoder, input.getValue());
+    emitter.emit(new KeyValue<>(input.getValue().getSchema(), codec.toWritable()));
   }
 }
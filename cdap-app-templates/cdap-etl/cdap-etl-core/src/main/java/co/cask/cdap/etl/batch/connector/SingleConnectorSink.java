@@ -20,35 +20,24 @@ import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.etl.api.Emitter;
-import co.cask.cdap.format.StructuredRecordStringConverter;
-import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Text;
-
-import java.io.IOException;
+import org.apache.hadoop.io.BytesWritable;
 
 /**
  * Connector sink that only writes a single type of record.
  * This is used in the Spark engine, where connectors are only used for conditions.
  */
 public class SingleConnectorSink extends ConnectorSink<StructuredRecord> {
+  private final ConnectorRecordCodec codec;
 
   public SingleConnectorSink(String datasetName, String phaseName) {
     super(datasetName, phaseName);
+    this.codec = new ConnectorRecordCodec();
   }
 
   @Override
-  public void transform(StructuredRecord input, Emitter<KeyValue<NullWritable, Text>> emitter)
+  public void transform(StructuredRecord input, Emitter<KeyValue<Schema, BytesWritable>> emitter)
     throws Exception {
-    StructuredRecord modifiedRecord = modifyRecord(input);
-    emitter.emit(new KeyValue<>(NullWritable.get(),
-                                new Text(StructuredRecordStringConverter.toJsonString(modifiedRecord))));
-  }
-
-  private StructuredRecord modifyRecord(StructuredRecord input) throws IOException {
-    Schema inputSchema = input.getSchema();
-    return StructuredRecord.builder(SingleConnectorSource.RECORD_WITH_SCHEMA)
-      .set("schema", inputSchema.toString())
-      .set("record", StructuredRecordStringConverter.toJsonString(input))
-      .build();
+    codec.writeRecord(codec.newEncoder(), input);
+    emitter.emit(new KeyValue<>(input.getSchema(), codec.toWritable()));
   }
 }
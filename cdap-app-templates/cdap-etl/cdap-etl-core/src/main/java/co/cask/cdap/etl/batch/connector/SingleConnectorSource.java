@@ -18,44 +18,28 @@ package co.cask.cdap.etl.batch.connector;
 
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.data.schema.SchemaHash;
 import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.etl.api.Emitter;
-import co.cask.cdap.format.StructuredRecordStringConverter;
-import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.BytesWritable;
 
-import javax.annotation.Nullable;
+import java.util.Map;
 
 /**
  * Used to read data written by {@link SingleConnectorSink}.
  */
 public class SingleConnectorSource extends ConnectorSource<StructuredRecord> {
-  static final Schema RECORD_WITH_SCHEMA = Schema.recordOf(
-    "record",
-    Schema.Field.of("schema", Schema.of(Schema.Type.STRING)),
-    Schema.Field.of("record", Schema.of(Schema.Type.STRING)));
-  @Nullable
-  private final Schema schema;
+  private final ConnectorRecordCodec codec;
 
-  public SingleConnectorSource(String datasetName, @Nullable Schema schema) {
+  public SingleConnectorSource(String datasetName) {
     super(datasetName);
-    this.schema = schema;
+    this.codec = new ConnectorRecordCodec();
   }
 
   @Override
-  public void transform(KeyValue<LongWritable, Text> input,
+  public void transform(KeyValue<Map<SchemaHash, Schema>, BytesWritable> input,
                         Emitter<StructuredRecord> emitter) throws Exception {
-    StructuredRecord output;
-    String inputStr = input.getValue().toString();
-    StructuredRecord recordWithSchema =
-      StructuredRecordStringConverter.fromJsonString(inputStr, RECORD_WITH_SCHEMA);
-    if (schema == null) {
-      Schema outputSchema = Schema.parseJson((String) recordWithSchema.get("schema"));
-      output = StructuredRecordStringConverter.fromJsonString((String) recordWithSchema.get("record"), outputSchema);
-    } else {
-      output = StructuredRecordStringConverter.fromJsonString(inputStr, schema);
-    }
-    emitter.emit(output);
+    emitter.emit(codec.readRecord(codec.newDecoder(input.getValue()), input.getKey()));
   }
 
 }
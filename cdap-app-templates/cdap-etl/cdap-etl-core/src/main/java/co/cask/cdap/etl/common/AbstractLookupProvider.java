@@ -16,14 +16,25 @@
 
 package co.cask.cdap.etl.common;
 
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.dataset.Dataset;
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
+import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.api.dataset.lib.KeyValueTable;
+import co.cask.cdap.api.dataset.table.Result;
+import co.cask.cdap.api.dataset.table.Row;
+import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.api.dataset.table.Table;
 import co.cask.cdap.etl.api.Lookup;
 import co.cask.cdap.etl.api.LookupProvider;
+import co.cask.cdap.etl.api.LookupTableConfig;
 import co.cask.cdap.etl.api.lookup.KeyValueTableLookup;
 import co.cask.cdap.etl.api.lookup.TableLookup;
+import com.google.common.base.Function;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import javax.annotation.Nullable;
 
 /**
@@ -31,6 +42,34 @@ import javax.annotation.Nullable;
  */
 public abstract class AbstractLookupProvider implements LookupProvider {
 
+  private static final Function<String, Row> EMPTY_ROW = new Function<String, Row>() {
+    @Override
+    public Row apply(String key) {
+      return new Result(Bytes.toBytes(key), Collections.<byte[], byte[]>emptyMap());
+    }
+  };
+
+  @Override
+  public <T> Lookup<T> provide(String table, LookupTableConfig config) {
+    if (config.isPreloadEnabled()) {
+      return providePreloaded(table, config.getDatasetProperties(), config.getCacheConfig().getMaxSize());
+    }
+    Lookup<T> lookup = provide(table, config.getDatasetProperties());
+    if (config.isCacheEnabled()) {
+      return new CachingLookup<>(lookup, config.getCacheConfig());
+    }
+    return lookup;
+  }
+
+  /**
+   * Provides a {@link Lookup} that serves all lookups from memory, after reading the whole table.
+   *
+   * @param table the name of the table
+   * @param arguments the runtime arguments of the table
+   * @param maxSize the maximum number of entries that can be read, or 0 for no limit
+   */
+  protected abstract <T> Lookup<T> providePreloaded(String table, Map<String, String> arguments, int maxSize);
+
   @SuppressWarnings("unchecked")
   protected <T> Lookup<T> getLookup(String table, @Nullable Dataset dataset) {
     if (dataset == null) {
@@ -45,4 +84,49 @@ public abstract class AbstractLookupProvider implements LookupProvider {
       throw new RuntimeException(String.format("Dataset %s does not support lookup", table));
     }
   }
+
+  /**
+   * Returns a {@link Lookup} that holds all the entries of the given dataset in memory.
+   *
+   * @throws IllegalStateException if the dataset has more than {@code maxSize} entries
+   */
+  @SuppressWarnings("unchecked")
+  protected <T> Lookup<T> getPreloadedLookup(String table, @Nullable Dataset dataset, int maxSize) {
+    if (dataset == null) {
+      throw new RuntimeException(String.format("Dataset %s does not exist", table));
+    }
+
+    if (dataset instanceof KeyValueTable) {
+      Map<String, String> values = new HashMap<>();
+      try (CloseableIterator<KeyValue<byte[], byte[]>> iterator = ((KeyValueTable) dataset).scan(null, null)) {
+        while (iterator.hasNext()) {
+          checkSize(table, values.size(), maxSize);
+          KeyValue<byte[], byte[]> entry = iterator.next();
+          values.put(Bytes.toString(entry.getKey()), Bytes.toString(entry.getValue()));
+        }
+      }
+      return (Lookup<T>) new PreloadedLookup<>(values, null);
+    } else if (dataset instanceof Table) {
+      Map<String, Row> values = new HashMap<>();
+      try (Scanner scanner = ((Table) dataset).scan(null, null)) {
+        Row row;
+        while ((row = scanner.next()) != null) {
+          checkSize(table, values.size(), maxSize);
+          values.put(Bytes.toString(row.getRow()), row);
+        }
+      }
+      // keys that are not in the table are returned as empty rows, the same as TableLookup
+      return (Lookup<T>) new PreloadedLookup<>(values, EMPTY_ROW);
+    } else {
+      throw new RuntimeException(String.format("Dataset %s does not support lookup", table));
+    }
+  }
+
+  private void checkSize(String table, int size, int maxSize) {
+    if (maxSize > 0 && size >= maxSize) {
+      throw new IllegalStateException(String.format("Dataset %s has more than %d entries and cannot be preloaded. " +
+                                                      "Increase the cache size or disable preloading.",
+                                                    table, maxSize));
+    }
+  }
 }
@@ -18,6 +18,7 @@ package co.cask.cdap.etl.common;
 
 import co.cask.cdap.etl.api.Lookup;
 import co.cask.cdap.etl.api.LookupProvider;
+import co.cask.cdap.etl.api.LookupTableConfig;
 import co.cask.cdap.etl.api.TransformContext;
 import co.cask.cdap.etl.api.lineage.field.FieldOperation;
 import co.cask.cdap.etl.spec.StageSpec;
@@ -44,6 +45,16 @@ public abstract class AbstractTransformContext extends AbstractStageContext impl
     return lookup.provide(table, arguments);
   }
 
+  @Override
+  public <T> Lookup<T> provide(String table, LookupTableConfig config) {
+    if (config.isCacheEnabled() && !config.isPreloadEnabled()) {
+      // cache here instead of in the provider, so that cache hits and misses are emitted as metrics of the stage
+      return new CachingLookup<>(lookup.<T>provide(table, config.getDatasetProperties()), config.getCacheConfig(),
+                                 getMetrics());
+    }
+    return lookup.provide(table, config);
+  }
+
   @Override
   public void record(List<FieldOperation> fieldOperations) {
     throw new UnsupportedOperationException("Lineage recording is not supported.");
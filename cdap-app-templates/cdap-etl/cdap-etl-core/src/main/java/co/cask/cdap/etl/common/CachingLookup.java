@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.etl.api.CacheConfig;
+import co.cask.cdap.etl.api.Lookup;
+import co.cask.cdap.etl.api.StageMetrics;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Lookup} that keeps the most recently used values of another {@link Lookup} in memory.
+ * Keys that do not exist are cached as well. Batch lookups only read the keys that are not cached,
+ * using a single batch lookup on the underlying {@link Lookup}.
+ *
+ * @param <T> the type of object that will be returned for a lookup
+ */
+public class CachingLookup<T> implements Lookup<T> {
+  static final int DEFAULT_MAX_SIZE = 10000;
+
+  private final Lookup<T> delegate;
+  private final Cache<String, Optional<T>> cache;
+  private final StageMetrics metrics;
+  private long hits;
+  private long misses;
+
+  public CachingLookup(Lookup<T> delegate, CacheConfig cacheConfig) {
+    this(delegate, cacheConfig, null);
+  }
+
+  /**
+   * @param delegate the lookup to cache
+   * @param cacheConfig the cache config. If no maximum size is set, at most {@link #DEFAULT_MAX_SIZE} values are
+   *                    cached
+   * @param metrics metrics to emit the number of cache hits and misses to, or null to not emit them
+   */
+  public CachingLookup(Lookup<T> delegate, CacheConfig cacheConfig, @Nullable StageMetrics metrics) {
+    this.delegate = delegate;
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+      .maximumSize(cacheConfig.getMaxSize() > 0 ? cacheConfig.getMaxSize() : DEFAULT_MAX_SIZE);
+    if (cacheConfig.getExpirySeconds() > 0) {
+      builder.expireAfterWrite(cacheConfig.getExpirySeconds(), TimeUnit.SECONDS);
+    }
+    this.cache = builder.build();
+    this.metrics = metrics;
+  }
+
+  @Override
+  public T lookup(String key) {
+    Optional<T> cached = cache.getIfPresent(key);
+    if (cached != null) {
+      recordHits(1);
+      return cached.orNull();
+    }
+    recordMisses(1);
+    T value = delegate.lookup(key);
+    cache.put(key, Optional.fromNullable(value));
+    return value;
+  }
+
+  @Override
+  public Map<String, T> lookup(String... keys) {
+    return lookup(ImmutableSet.copyOf(keys));
+  }
+
+  @Override
+  public Map<String, T> lookup(Set<String> keys) {
+    Map<String, T> results = new HashMap<>();
+    Set<String> missingKeys = new HashSet<>();
+    for (String key : keys) {
+      Optional<T> cached = cache.getIfPresent(key);
+      if (cached == null) {
+        missingKeys.add(key);
+      } else if (cached.isPresent()) {
+        results.put(key, cached.get());
+      }
+    }
+    recordHits(keys.size() - missingKeys.size());
+    if (missingKeys.isEmpty()) {
+      return results;
+    }
+
+    recordMisses(missingKeys.size());
+    Map<String, T> values = delegate.lookup(missingKeys);
+    for (String key : missingKeys) {
+      T value = values.get(key);
+      cache.put(key, Optional.fromNullable(value));
+      if (value != null) {
+        results.put(key, value);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * @return the number of keys that were found in the cache
+   */
+  public long getHitCount() {
+    return hits;
+  }
+
+  /**
+   * @return the number of keys that were read from the underlying {@link Lookup}
+   */
+  public long getMissCount() {
+    return misses;
+  }
+
+  private void recordHits(int count) {
+    if (count == 0) {
+      return;
+    }
+    hits += count;
+    if (metrics != null) {
+      metrics.count(Constants.Metrics.LOOKUP_CACHE_HITS, count);
+    }
+  }
+
+  private void recordMisses(int count) {
+    misses += count;
+    if (metrics != null) {
+      metrics.count(Constants.Metrics.LOOKUP_CACHE_MISSES, count);
+    }
+  }
+}
@@ -82,6 +82,11 @@ public final class Constants {
     public static final String RECORDS_ALERT = "records.alert";
     public static final String AGG_GROUPS = "aggregator.groups";
     public static final String JOIN_KEYS = "joiner.keys";
+    public static final String JOIN_STRATEGY_BROADCAST = "joiner.strategy.broadcast";
+    public static final String JOIN_STRATEGY_SHUFFLE = "joiner.strategy.shuffle";
+    public static final String JOIN_BROADCAST_RECORDS = "joiner.broadcast.records";
+    public static final String LOOKUP_CACHE_HITS = "lookup.cache.hits";
+    public static final String LOOKUP_CACHE_MISSES = "lookup.cache.misses";
   }
 
   /**
@@ -37,4 +37,9 @@ public class DatasetContextLookupProvider extends AbstractLookupProvider {
   public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
     return getLookup(table, context.getDataset(table, arguments));
   }
+
+  @Override
+  protected <T> Lookup<T> providePreloaded(String table, Map<String, String> arguments, int maxSize) {
+    return getPreloadedLookup(table, context.getDataset(table, arguments), maxSize);
+  }
 }
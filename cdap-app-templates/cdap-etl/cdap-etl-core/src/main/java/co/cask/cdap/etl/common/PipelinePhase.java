@@ -18,6 +18,7 @@ package co.cask.cdap.etl.common;
 
 import co.cask.cdap.api.artifact.ArtifactVersion;
 import co.cask.cdap.api.artifact.ArtifactVersionRange;
+import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.plugin.PluginConfigurer;
 import co.cask.cdap.api.plugin.PluginProperties;
 import co.cask.cdap.api.plugin.PluginSelector;
@@ -110,6 +111,31 @@ public class PipelinePhase implements Iterable<StageSpec> {
     return dag == null ? new HashSet<String>() : dag.getSinks();
   }
 
+  /**
+   * Get the record schemas of the inputs and outputs of all stages in this phase.
+   *
+   * @return set of record schemas used in this phase
+   */
+  public Set<Schema> getRecordSchemas() {
+    Set<Schema> schemas = new HashSet<>();
+    for (StageSpec stageSpec : stagesByName.values()) {
+      for (Schema inputSchema : stageSpec.getInputSchemas().values()) {
+        addRecordSchema(schemas, inputSchema);
+      }
+      addRecordSchema(schemas, stageSpec.getOutputSchema());
+      for (StageSpec.Port port : stageSpec.getOutputPorts().values()) {
+        addRecordSchema(schemas, port.getSchema());
+      }
+    }
+    return schemas;
+  }
+
+  private void addRecordSchema(Set<Schema> schemas, @Nullable Schema schema) {
+    if (schema != null && schema.getType() == Schema.Type.RECORD) {
+      schemas.add(schema);
+    }
+  }
+
   public int size() {
     return stagesByName.size();
   }
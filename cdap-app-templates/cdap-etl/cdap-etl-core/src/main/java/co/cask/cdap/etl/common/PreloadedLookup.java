@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.etl.api.Lookup;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Lookup} that serves all lookups from the contents of a table that were loaded in memory.
+ *
+ * @param <T> the type of object that will be returned for a lookup
+ */
+public class PreloadedLookup<T> implements Lookup<T> {
+  private final Map<String, T> values;
+  private final Function<String, T> missingValue;
+
+  /**
+   * @param values all the values in the table
+   * @param missingValue function that returns the value for a key that is not in the table, or null if the value
+   *                     of missing keys is null
+   */
+  public PreloadedLookup(Map<String, T> values, @Nullable Function<String, T> missingValue) {
+    this.values = ImmutableMap.copyOf(values);
+    this.missingValue = missingValue;
+  }
+
+  @Override
+  public T lookup(String key) {
+    T value = values.get(key);
+    if (value == null && missingValue != null) {
+      return missingValue.apply(key);
+    }
+    return value;
+  }
+
+  @Override
+  public Map<String, T> lookup(String... keys) {
+    return lookup(ImmutableSet.copyOf(keys));
+  }
+
+  @Override
+  public Map<String, T> lookup(Set<String> keys) {
+    Map<String, T> results = new HashMap<>();
+    for (String key : keys) {
+      T value = lookup(key);
+      if (value != null) {
+        results.put(key, value);
+      }
+    }
+    return results;
+  }
+}
@@ -25,7 +25,8 @@ import java.util.Map;
 import javax.annotation.Nullable;
 
 /**
- * Wrapper around another emitter that tracks how many records were emitted.
+ * Wrapper around another emitter that tracks how many records were emitted. Counts are sent to the
+ * {@link StageMetrics} once they reach the metrics batch size, and the rest through {@link #flushMetrics()}.
  *
  * @param <T> the type of object to emit
  */
@@ -35,19 +36,32 @@ public class TrackedEmitter<T> implements Emitter<T> {
   private final String emitMetricName;
   private final DataTracer dataTracer;
   private final StageStatisticsCollector collector;
+  private final int metricsBatchSize;
+  private int emitCount;
+  private int errorCount;
+  private int alertCount;
 
   public TrackedEmitter(Emitter<T> delegate, StageMetrics stageMetrics, String emitMetricName, DataTracer dataTracer,
                         StageStatisticsCollector collector) {
+    this(delegate, stageMetrics, emitMetricName, dataTracer, collector, 1);
+  }
+
+  public TrackedEmitter(Emitter<T> delegate, StageMetrics stageMetrics, String emitMetricName, DataTracer dataTracer,
+                        StageStatisticsCollector collector, int metricsBatchSize) {
     this.delegate = delegate;
     this.stageMetrics = stageMetrics;
     this.emitMetricName = emitMetricName;
     this.dataTracer = dataTracer;
     this.collector = collector;
+    this.metricsBatchSize = metricsBatchSize;
   }
 
   @Override
   public void emit(T value) {
-    stageMetrics.count(emitMetricName, 1);
+    if (++emitCount >= metricsBatchSize) {
+      stageMetrics.count(emitMetricName, emitCount);
+      emitCount = 0;
+    }
     if (emitMetricName.equals(Constants.Metrics.RECORDS_OUT)) {
       collector.incrementOutputRecordCount();
     }
@@ -59,7 +73,10 @@ public class TrackedEmitter<T> implements Emitter<T> {
 
   @Override
   public void emitError(InvalidEntry<T> value) {
-    stageMetrics.count(Constants.Metrics.RECORDS_ERROR, 1);
+    if (++errorCount >= metricsBatchSize) {
+      stageMetrics.count(Constants.Metrics.RECORDS_ERROR, errorCount);
+      errorCount = 0;
+    }
     collector.incrementErrorRecordCount();
     if (dataTracer.isEnabled()) {
       dataTracer.info(Constants.Metrics.RECORDS_ERROR, value);
@@ -69,10 +86,31 @@ public class TrackedEmitter<T> implements Emitter<T> {
 
   @Override
   public void emitAlert(Map<String, String> payload) {
-    stageMetrics.count(Constants.Metrics.RECORDS_ALERT, 1);
+    if (++alertCount >= metricsBatchSize) {
+      stageMetrics.count(Constants.Metrics.RECORDS_ALERT, alertCount);
+      alertCount = 0;
+    }
     if (dataTracer.isEnabled()) {
       dataTracer.info(Constants.Metrics.RECORDS_ALERT, payload);
     }
     delegate.emitAlert(payload);
   }
+
+  /**
+   * Sends the counts that have not reached the metrics batch size yet to the {@link StageMetrics}.
+   */
+  public void flushMetrics() {
+    if (emitCount > 0) {
+      stageMetrics.count(emitMetricName, emitCount);
+      emitCount = 0;
+    }
+    if (errorCount > 0) {
+      stageMetrics.count(Constants.Metrics.RECORDS_ERROR, errorCount);
+      errorCount = 0;
+    }
+    if (alertCount > 0) {
+      stageMetrics.count(Constants.Metrics.RECORDS_ALERT, alertCount);
+      alertCount = 0;
+    }
+  }
 }
@@ -22,22 +22,38 @@ import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.StageMetrics;
 import co.cask.cdap.etl.api.Transformation;
 
+import java.io.Flushable;
+import java.io.IOException;
 import javax.annotation.Nullable;
 
 /**
  * A {@link Transformation} that delegates transform operations while emitting metrics
- * around how many records were input into the transform and output by it.
+ * around how many records were input into the transform and output by it. Flushes are passed on to the delegate
+ * if it is {@link Flushable}.
+ *
+ * Metrics can be counted locally and sent in batches of a given size, in which case the caller has to send the
+ * remaining counts through {@link #flushMetrics()} once it is done with the transform.
  *
  * @param <IN> Type of input object
  * @param <OUT> Type of output object
  */
-public class TrackedTransform<IN, OUT> implements Transformation<IN, OUT>, Destroyable {
+public class TrackedTransform<IN, OUT> implements Transformation<IN, OUT>, Destroyable, Flushable {
+  /**
+   * Number of records that are counted locally before sending the count to the metrics, for callers that flush.
+   */
+  public static final int METRICS_BATCH_SIZE = 1000;
+
   private final Transformation<IN, OUT> transform;
   private final StageMetrics metrics;
   private final String metricInName;
   private final String metricOutName;
   private final DataTracer dataTracer;
   private final StageStatisticsCollector collector;
+  private final int metricsBatchSize;
+  private int inCount;
+  // the emitter of the last call to transform and its tracked wrapper, which are usually the same for every record
+  private Emitter<OUT> lastEmitter;
+  private TrackedEmitter<OUT> trackedEmitter;
 
   public TrackedTransform(Transformation<IN, OUT> transform, StageMetrics metrics, DataTracer dataTracer) {
     this(transform, metrics, dataTracer, new NoopStageStatisticsCollector());
@@ -55,24 +71,64 @@ public class TrackedTransform<IN, OUT> implements Transformation<IN, OUT>, Destr
 
   public TrackedTransform(Transformation<IN, OUT> transform, StageMetrics metrics, @Nullable String metricInName,
                           @Nullable String metricOutName, DataTracer dataTracer, StageStatisticsCollector collector) {
+    this(transform, metrics, metricInName, metricOutName, dataTracer, collector, 1);
+  }
+
+  public TrackedTransform(Transformation<IN, OUT> transform, StageMetrics metrics, @Nullable String metricInName,
+                          @Nullable String metricOutName, DataTracer dataTracer, StageStatisticsCollector collector,
+                          int metricsBatchSize) {
     this.transform = transform;
     this.metrics = metrics;
     this.metricInName = metricInName;
     this.metricOutName = metricOutName;
     this.dataTracer = dataTracer;
     this.collector = collector;
+    this.metricsBatchSize = metricsBatchSize;
   }
 
   @Override
   public void transform(IN input, Emitter<OUT> emitter) throws Exception {
     if (metricInName != null) {
-      metrics.count(metricInName, 1);
+      if (++inCount >= metricsBatchSize) {
+        metrics.count(metricInName, inCount);
+        inCount = 0;
+      }
       if (metricInName.equals(Constants.Metrics.RECORDS_IN)) {
         collector.incrementInputRecordCount();
       }
     }
-    transform.transform(input, metricOutName == null ? emitter :
-      new TrackedEmitter<>(emitter, metrics, metricOutName, dataTracer, collector));
+    if (metricOutName == null) {
+      transform.transform(input, emitter);
+      return;
+    }
+    if (emitter != lastEmitter) {
+      if (trackedEmitter != null) {
+        trackedEmitter.flushMetrics();
+      }
+      lastEmitter = emitter;
+      trackedEmitter = new TrackedEmitter<>(emitter, metrics, metricOutName, dataTracer, collector, metricsBatchSize);
+    }
+    transform.transform(input, trackedEmitter);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (transform instanceof Flushable) {
+      ((Flushable) transform).flush();
+    }
+  }
+
+  /**
+   * Sends the counts that have not reached the metrics batch size yet to the {@link StageMetrics}.
+   */
+  public void flushMetrics() {
+    if (inCount > 0) {
+      metrics.count(metricInName, inCount);
+      inCount = 0;
+    }
+    if (trackedEmitter != null) {
+      trackedEmitter.flushMetrics();
+    }
   }
 
   @Override
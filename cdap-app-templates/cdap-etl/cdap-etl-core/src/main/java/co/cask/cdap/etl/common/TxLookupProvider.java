@@ -80,6 +80,20 @@ public class TxLookupProvider extends AbstractLookupProvider {
     };
   }
 
+  @Override
+  protected <T> Lookup<T> providePreloaded(final String table, final Map<String, String> arguments,
+                                           final int maxSize) {
+    final AtomicReference<Lookup<T>> result = new AtomicReference<>();
+    Transactionals.execute(tx, new TxRunnable() {
+      @Override
+      public void run(DatasetContext context) throws Exception {
+        Lookup<T> lookup = getPreloadedLookup(table, context.getDataset(table, arguments), maxSize);
+        result.set(lookup);
+      }
+    });
+    return result.get();
+  }
+
   @Nullable
   private <T, R> R executeLookup(final String table, final Map<String, String> arguments,
                                  final Function<Lookup<T>, R> func) {
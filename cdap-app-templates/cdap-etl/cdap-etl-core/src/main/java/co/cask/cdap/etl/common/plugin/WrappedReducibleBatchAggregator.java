@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common.plugin;
+
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.ReducibleAggregator;
+import co.cask.cdap.etl.api.batch.BatchAggregator;
+import co.cask.cdap.etl.api.batch.BatchAggregatorContext;
+import co.cask.cdap.etl.common.TypeChecker;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Wrapper around a {@link BatchAggregator} that is also a {@link ReducibleAggregator}, which makes sure logging,
+ * classloading, and other pipeline capabilities are setup correctly.
+ *
+ * @param <GROUP_KEY> group key type. Must be a supported type
+ * @param <GROUP_VALUE> group value type. Must be a supported type
+ * @param <AGG_VALUE> aggregation value type. Must be a supported type
+ * @param <OUT> output object type
+ */
+public class WrappedReducibleBatchAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT>
+  extends WrappedBatchAggregator<GROUP_KEY, GROUP_VALUE, OUT>
+  implements ReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT> {
+  private final ReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT> aggregator;
+  private final Caller caller;
+  private final OperationTimer operationTimer;
+
+  /**
+   * Creates a wrapper around the given aggregator, which must also implement {@link ReducibleAggregator}.
+   */
+  @SuppressWarnings("unchecked")
+  public WrappedReducibleBatchAggregator(BatchAggregator<GROUP_KEY, GROUP_VALUE, OUT> aggregator, Caller caller,
+                                         OperationTimer operationTimer) {
+    super(aggregator, caller, operationTimer);
+    this.aggregator = (ReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT>) aggregator;
+    this.caller = caller;
+    this.operationTimer = operationTimer;
+  }
+
+  @Override
+  public void prepareRun(BatchAggregatorContext context) throws Exception {
+    context.setAggregationValueClass(TypeChecker.getAggregationValueClass(aggregator));
+    super.prepareRun(context);
+  }
+
+  @Override
+  public AGG_VALUE initializeAggregationValue(final GROUP_VALUE groupValue) throws Exception {
+    operationTimer.start();
+    try {
+      return caller.call(new Callable<AGG_VALUE>() {
+        @Override
+        public AGG_VALUE call() throws Exception {
+          return aggregator.initializeAggregationValue(groupValue);
+        }
+      });
+    } finally {
+      operationTimer.reset();
+    }
+  }
+
+  @Override
+  public AGG_VALUE mergeValues(final AGG_VALUE aggValue, final GROUP_VALUE groupValue) throws Exception {
+    operationTimer.start();
+    try {
+      return caller.call(new Callable<AGG_VALUE>() {
+        @Override
+        public AGG_VALUE call() throws Exception {
+          return aggregator.mergeValues(aggValue, groupValue);
+        }
+      });
+    } finally {
+      operationTimer.reset();
+    }
+  }
+
+  @Override
+  public AGG_VALUE mergePartitions(final AGG_VALUE value1, final AGG_VALUE value2) throws Exception {
+    operationTimer.start();
+    try {
+      return caller.call(new Callable<AGG_VALUE>() {
+        @Override
+        public AGG_VALUE call() throws Exception {
+          return aggregator.mergePartitions(value1, value2);
+        }
+      });
+    } finally {
+      operationTimer.reset();
+    }
+  }
+
+  @Override
+  public void finalize(final GROUP_KEY groupKey, final AGG_VALUE aggValue,
+                       final Emitter<OUT> emitter) throws Exception {
+    operationTimer.start();
+    try {
+      caller.call(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          aggregator.finalize(groupKey, aggValue, new UntimedEmitter<>(emitter, operationTimer));
+          return null;
+        }
+      });
+    } finally {
+      operationTimer.reset();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch.connector;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.data.schema.SchemaHash;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.io.Encoder;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link ConnectorRecordCodec}.
+ */
+public class ConnectorRecordCodecTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static final Schema SCHEMA1 =
+    Schema.recordOf("r1",
+                    Schema.Field.of("x", Schema.of(Schema.Type.STRING)),
+                    Schema.Field.of("y", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))));
+  private static final Schema SCHEMA2 =
+    Schema.recordOf("r2", Schema.Field.of("z", Schema.arrayOf(Schema.of(Schema.Type.INT))));
+  private static final List<StructuredRecord> RECORDS = Arrays.asList(
+    StructuredRecord.builder(SCHEMA1).set("x", "идыло").set("y", 1.5d).build(),
+    StructuredRecord.builder(SCHEMA1).set("x", "abc").build(),
+    StructuredRecord.builder(SCHEMA2).set("z", Arrays.asList(1, 2, 3)).build());
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    ConnectorRecordCodec writeCodec = new ConnectorRecordCodec();
+    ConnectorRecordCodec readCodec = new ConnectorRecordCodec();
+    for (StructuredRecord record : RECORDS) {
+      Encoder encoder = writeCodec.newEncoder();
+      encoder.writeString("stage");
+      writeCodec.writeRecord(encoder, record);
+      BytesWritable value = writeCodec.toWritable();
+
+      Decoder decoder = readCodec.newDecoder(value);
+      Assert.assertEquals("stage", decoder.readString());
+      Map<SchemaHash, Schema> schemas =
+        ConnectorRecordCodec.getSchemas(ConnectorRecordCodec.createMetadata(record.getSchema()));
+      Assert.assertEquals(record, readCodec.readRecord(decoder, schemas));
+    }
+  }
+
+  @Test
+  public void testFileRoundTrip() throws Exception {
+    Job job = Job.getInstance();
+    Path outputPath = new Path(TMP_FOLDER.newFolder().getAbsolutePath(), "output");
+    FileOutputFormat.setOutputPath(job, outputPath);
+    FileOutputFormat.setCompressOutput(job, true);
+    SequenceFileOutputFormat.setOutputCompressionType(job, SequenceFile.CompressionType.BLOCK);
+
+    // Write the records as a single task
+    TaskAttemptContext writeContext = new TaskAttemptContextImpl(job.getConfiguration(),
+                                                                 new TaskAttemptID("test", 1, TaskType.MAP, 0, 0));
+    ConnectorOutputFormat outputFormat = new ConnectorOutputFormat();
+    OutputCommitter committer = outputFormat.getOutputCommitter(writeContext);
+    committer.setupJob(writeContext);
+    committer.setupTask(writeContext);
+    ConnectorRecordCodec codec = new ConnectorRecordCodec();
+    RecordWriter<Schema, BytesWritable> writer = outputFormat.getRecordWriter(writeContext);
+    for (StructuredRecord record : RECORDS) {
+      codec.writeRecord(codec.newEncoder(), record);
+      writer.write(record.getSchema(), codec.toWritable());
+    }
+    writer.close(writeContext);
+    committer.commitTask(writeContext);
+    committer.commitJob(writeContext);
+
+    // Each schema is written to its own file, with the schema in the file header
+    int files = 0;
+    for (FileStatus status : outputPath.getFileSystem(job.getConfiguration()).listStatus(outputPath)) {
+      if (status.getPath().getName().startsWith("part-")) {
+        files++;
+      }
+    }
+    Assert.assertEquals(2, files);
+
+    FileInputFormat.setInputPaths(job, outputPath);
+    ConnectorInputFormat inputFormat = new ConnectorInputFormat();
+    List<StructuredRecord> records = new ArrayList<>();
+    for (InputSplit split : inputFormat.getSplits(job)) {
+      TaskAttemptContext readContext = new TaskAttemptContextImpl(job.getConfiguration(),
+                                                                  new TaskAttemptID("test", 2, TaskType.MAP, 0, 0));
+      try (RecordReader<Map<SchemaHash, Schema>, BytesWritable> reader =
+             inputFormat.createRecordReader(split, readContext)) {
+        reader.initialize(split, readContext);
+        while (reader.nextKeyValue()) {
+          records.add(codec.readRecord(codec.newDecoder(reader.getCurrentValue()), reader.getCurrentKey()));
+        }
+      }
+    }
+    Assert.assertEquals(RECORDS.size(), records.size());
+    Assert.assertEquals(new HashSet<>(RECORDS), new HashSet<>(records));
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.etl.api.CacheConfig;
+import co.cask.cdap.etl.api.Lookup;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link CachingLookup} and {@link PreloadedLookup}.
+ */
+public class CachingLookupTest {
+
+  @Test
+  public void testCaching() {
+    CountingLookup delegate = new CountingLookup(ImmutableMap.of("k1", "v1", "k2", "v2"));
+    MockMetrics metrics = new MockMetrics();
+    CachingLookup<String> lookup = new CachingLookup<>(delegate, new CacheConfig(0, 10),
+                                                       new DefaultStageMetrics(metrics, "stage"));
+
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    // missing keys are cached as well
+    Assert.assertNull(lookup.lookup("k3"));
+    Assert.assertNull(lookup.lookup("k3"));
+    Assert.assertEquals(2, delegate.singleLookups);
+
+    // only keys that are not cached are read, with a single batch lookup
+    Assert.assertEquals(ImmutableMap.of("k1", "v1", "k2", "v2"), lookup.lookup("k1", "k2", "k3", "k4"));
+    Assert.assertEquals(1, delegate.batchLookups.size());
+    Assert.assertEquals(ImmutableSet.of("k2", "k4"), delegate.batchLookups.get(0));
+    Assert.assertEquals(ImmutableMap.of("k1", "v1", "k2", "v2"), lookup.lookup("k1", "k2", "k3", "k4"));
+    Assert.assertEquals(1, delegate.batchLookups.size());
+
+    Assert.assertEquals(8, lookup.getHitCount());
+    Assert.assertEquals(4, lookup.getMissCount());
+    Assert.assertEquals(8, metrics.getCount("stage." + Constants.Metrics.LOOKUP_CACHE_HITS));
+    Assert.assertEquals(4, metrics.getCount("stage." + Constants.Metrics.LOOKUP_CACHE_MISSES));
+  }
+
+  @Test
+  public void testMaxSize() {
+    CountingLookup delegate = new CountingLookup(ImmutableMap.of("k1", "v1", "k2", "v2"));
+    CachingLookup<String> lookup = new CachingLookup<>(delegate, new CacheConfig(0, 1));
+
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertEquals("v2", lookup.lookup("k2"));
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertEquals(3, delegate.singleLookups);
+    Assert.assertEquals(0, lookup.getHitCount());
+  }
+
+  @Test
+  public void testPreloaded() {
+    Lookup<String> lookup = new PreloadedLookup<>(ImmutableMap.of("k1", "v1"), null);
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertNull(lookup.lookup("k2"));
+    Assert.assertEquals(ImmutableMap.of("k1", "v1"), lookup.lookup("k1", "k2"));
+  }
+
+  /**
+   * A {@link Lookup} over a map that records the lookups it receives.
+   */
+  private static class CountingLookup implements Lookup<String> {
+    private final Map<String, String> values;
+    private final List<Set<String>> batchLookups = new ArrayList<>();
+    private int singleLookups;
+
+    CountingLookup(Map<String, String> values) {
+      this.values = values;
+    }
+
+    @Override
+    public String lookup(String key) {
+      singleLookups++;
+      return values.get(key);
+    }
+
+    @Override
+    public Map<String, String> lookup(String... keys) {
+      return lookup(ImmutableSet.copyOf(keys));
+    }
+
+    @Override
+    public Map<String, String> lookup(Set<String> keys) {
+      batchLookups.add(ImmutableSet.copyOf(keys));
+      Map<String, String> results = new HashMap<>();
+      for (String key : keys) {
+        if (values.containsKey(key)) {
+          results.put(key, values.get(key));
+        }
+      }
+      return results;
+    }
+  }
+}
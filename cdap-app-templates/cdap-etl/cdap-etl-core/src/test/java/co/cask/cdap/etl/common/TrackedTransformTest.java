@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.api.preview.DataTracer;
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.InvalidEntry;
+import co.cask.cdap.etl.api.Transformation;
+import co.cask.cdap.internal.app.preview.NoopDataTracerFactory;
+import com.google.common.base.Throwables;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link TrackedTransform}.
+ */
+public class TrackedTransformTest {
+  private static final Logger LOG = LoggerFactory.getLogger(TrackedTransformTest.class);
+  private static final DataTracer DATA_TRACER = new NoopDataTracerFactory().getDataTracer(null, "stage");
+
+  @Test
+  public void testBatchedMetrics() throws Exception {
+    MockMetrics mockMetrics = new MockMetrics();
+    TrackedTransform<Integer, Integer> transform =
+      new TrackedTransform<>(new PassThrough(), new DefaultStageMetrics(mockMetrics, "stage"),
+                             Constants.Metrics.RECORDS_IN, Constants.Metrics.RECORDS_OUT, DATA_TRACER,
+                             new NoopStageStatisticsCollector(), 3);
+    CollectingEmitter emitter = new CollectingEmitter();
+    for (int i = 0; i < 4; i++) {
+      transform.transform(i, emitter);
+    }
+    transform.transform(-1, emitter);
+
+    // counts are sent once they reach the batch size
+    Assert.assertEquals(5, emitter.entries.size());
+    Assert.assertEquals(3, mockMetrics.getCount("stage." + Constants.Metrics.RECORDS_IN));
+    Assert.assertEquals(3, mockMetrics.getCount("stage." + Constants.Metrics.RECORDS_OUT));
+    Assert.assertEquals(0, mockMetrics.getCount("stage." + Constants.Metrics.RECORDS_ERROR));
+
+    transform.flushMetrics();
+    Assert.assertEquals(5, mockMetrics.getCount("stage." + Constants.Metrics.RECORDS_IN));
+    Assert.assertEquals(4, mockMetrics.getCount("stage." + Constants.Metrics.RECORDS_OUT));
+    Assert.assertEquals(1, mockMetrics.getCount("stage." + Constants.Metrics.RECORDS_ERROR));
+
+    // flushing again must not count anything twice
+    transform.flushMetrics();
+    Assert.assertEquals(5, mockMetrics.getCount("stage." + Constants.Metrics.RECORDS_IN));
+    Assert.assertEquals(4, mockMetrics.getCount("stage." + Constants.Metrics.RECORDS_OUT));
+  }
+
+  /**
+   * Measures the per record overhead of a chain of 10 tracked stages, with metrics sent for each record and with
+   * metrics sent in batches. Ignored since it only logs timings.
+   */
+  @Ignore
+  @Test
+  public void testChainOverhead() throws Exception {
+    int numRecords = 5000000;
+    for (int metricsBatchSize : new int[] { 1, TrackedTransform.METRICS_BATCH_SIZE }) {
+      // run once to warm up
+      runChain(10, numRecords, metricsBatchSize);
+      long nanos = runChain(10, numRecords, metricsBatchSize);
+      LOG.info("10 stages with metrics batch size {}: {} ns per record",
+               metricsBatchSize, (double) nanos / numRecords);
+    }
+  }
+
+  private long runChain(int numStages, int numRecords, int metricsBatchSize) throws Exception {
+    MockMetrics mockMetrics = new MockMetrics();
+    List<TrackedTransform<Integer, Integer>> stages = new ArrayList<>();
+    for (int i = 0; i < numStages; i++) {
+      stages.add(new TrackedTransform<>(new PassThrough(), new DefaultStageMetrics(mockMetrics, "stage" + i),
+                                        Constants.Metrics.RECORDS_IN, Constants.Metrics.RECORDS_OUT, DATA_TRACER,
+                                        new NoopStageStatisticsCollector(), metricsBatchSize));
+    }
+    // push each record straight into the next stage, with the last stage emitting into a counting emitter
+    List<Emitter<Integer>> emitters = new ArrayList<>();
+    CollectingEmitter last = new CollectingEmitter();
+    emitters.add(last);
+    for (int i = numStages - 1; i > 0; i--) {
+      emitters.add(0, new ChainEmitter(stages.get(i), emitters.get(0)));
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < numRecords; i++) {
+      stages.get(0).transform(i, emitters.get(0));
+    }
+    for (TrackedTransform<Integer, Integer> stage : stages) {
+      stage.flushMetrics();
+    }
+    long nanos = System.nanoTime() - start;
+
+    Assert.assertEquals(numRecords, last.count);
+    Assert.assertEquals(numRecords, mockMetrics.getCount("stage" + (numStages - 1) + "." +
+                                                           Constants.Metrics.RECORDS_OUT));
+    return nanos;
+  }
+
+  /**
+   * Emits non-negative numbers and emits negative numbers as errors.
+   */
+  private static final class PassThrough implements Transformation<Integer, Integer> {
+
+    @Override
+    public void transform(Integer input, Emitter<Integer> emitter) {
+      if (input < 0) {
+        emitter.emitError(new InvalidEntry<>(1, "negative", input));
+      } else {
+        emitter.emit(input);
+      }
+    }
+  }
+
+  /**
+   * Passes emitted records on to the next stage.
+   */
+  private static final class ChainEmitter implements Emitter<Integer> {
+    private final TrackedTransform<Integer, Integer> next;
+    private final Emitter<Integer> nextEmitter;
+
+    private ChainEmitter(TrackedTransform<Integer, Integer> next, Emitter<Integer> nextEmitter) {
+      this.next = next;
+      this.nextEmitter = nextEmitter;
+    }
+
+    @Override
+    public void emit(Integer value) {
+      try {
+        next.transform(value, nextEmitter);
+      } catch (Exception e) {
+        throw Throwables.propagate(e);
+      }
+    }
+
+    @Override
+    public void emitAlert(Map<String, String> payload) {
+      // no-op
+    }
+
+    @Override
+    public void emitError(InvalidEntry<Integer> invalidEntry) {
+      // no-op
+    }
+  }
+
+  /**
+   * Keeps the entries of the testBatchedMetrics test and counts the records of the chain.
+   */
+  private static final class CollectingEmitter implements Emitter<Integer> {
+    private final List<Integer> entries = new ArrayList<>();
+    private int count;
+
+    @Override
+    public void emit(Integer value) {
+      count++;
+      if (entries.size() < 10) {
+        entries.add(value);
+      }
+    }
+
+    @Override
+    public void emitAlert(Map<String, String> payload) {
+      // no-op
+    }
+
+    @Override
+    public void emitError(InvalidEntry<Integer> invalidEntry) {
+      // no-op
+    }
+  }
+}
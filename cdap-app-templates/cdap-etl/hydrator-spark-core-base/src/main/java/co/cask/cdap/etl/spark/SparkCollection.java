@@ -25,6 +25,7 @@ import co.cask.cdap.etl.spec.StageSpec;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
 
+import java.util.List;
 import javax.annotation.Nullable;
 
 /**
@@ -45,6 +46,16 @@ public interface SparkCollection<T> {
 
   SparkCollection<T> union(SparkCollection<T> other);
 
+  /**
+   * Returns the first records of the collection. Only supported by collections whose size is known when the
+   * pipeline is planned, which excludes streams.
+   *
+   * @param num the maximum number of records to return
+   * @return up to num records of the collection
+   * @throws UnsupportedOperationException if the collection is a stream
+   */
+  List<T> take(int num);
+
   SparkCollection<RecordInfo<Object>> transform(StageSpec stageSpec, StageStatisticsCollector collector);
 
   SparkCollection<RecordInfo<Object>> multiOutputTransform(StageSpec stageSpec, StageStatisticsCollector collector);
@@ -54,6 +65,9 @@ public interface SparkCollection<T> {
   SparkCollection<RecordInfo<Object>> aggregate(StageSpec stageSpec, @Nullable Integer partitions,
                                                 StageStatisticsCollector collector);
 
+  SparkCollection<RecordInfo<Object>> reduceAggregate(StageSpec stageSpec, @Nullable Integer partitions,
+                                                      StageStatisticsCollector collector);
+
   <K, V> SparkPairCollection<K, V> flatMapToPair(PairFlatMapFunction<T, K, V> function);
 
   <U> SparkCollection<U> compute(StageSpec stageSpec, SparkCompute<T, U> compute) throws Exception;
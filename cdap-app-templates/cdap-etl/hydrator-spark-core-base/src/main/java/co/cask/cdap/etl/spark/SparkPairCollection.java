@@ -19,8 +19,11 @@ package co.cask.cdap.etl.spark;
 import com.google.common.base.Optional;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
 import scala.Tuple2;
 
+import java.util.List;
+
 /**
  * Abstraction over different types of spark pair collections with common shared operations on those collections.
  * For example, both JavaPairRDD and JavaPairDStream support the flatMap operation, but don't share a higher interface.
@@ -38,6 +41,23 @@ public interface SparkPairCollection<K, V> {
 
   <T> SparkPairCollection<K, T> mapValues(Function<V, T> function);
 
+  <K2, V2> SparkPairCollection<K2, V2> flatMapToPair(PairFlatMapFunction<Tuple2<K, V>, K2, V2> function);
+
+  SparkPairCollection<K, V> union(SparkPairCollection<K, V> other);
+
+  SparkPairCollection<K, Iterable<V>> groupByKey();
+
+  SparkPairCollection<K, Iterable<V>> groupByKey(int numPartitions);
+
+  /**
+   * Returns all records of the collection. Only supported by collections whose size is known when the
+   * pipeline is planned, which excludes streams.
+   *
+   * @return all records of the collection
+   * @throws UnsupportedOperationException if the collection is a stream
+   */
+  List<Tuple2<K, V>> collect();
+
   <T> SparkPairCollection<K, Tuple2<V, T>> join(SparkPairCollection<K, T> other);
 
   <T> SparkPairCollection<K, Tuple2<V, T>> join(SparkPairCollection<K, T> other, int numPartitions);
@@ -23,8 +23,11 @@ import co.cask.cdap.etl.api.Alert;
 import co.cask.cdap.etl.api.AlertPublisher;
 import co.cask.cdap.etl.api.ErrorRecord;
 import co.cask.cdap.etl.api.ErrorTransform;
+import co.cask.cdap.etl.api.JoinConfig;
 import co.cask.cdap.etl.api.JoinElement;
+import co.cask.cdap.etl.api.ReducibleAggregator;
 import co.cask.cdap.etl.api.SplitterTransform;
+import co.cask.cdap.etl.api.StageMetrics;
 import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.api.batch.BatchAggregator;
 import co.cask.cdap.etl.api.batch.BatchJoiner;
@@ -36,25 +39,32 @@ import co.cask.cdap.etl.api.streaming.Windower;
 import co.cask.cdap.etl.common.BasicArguments;
 import co.cask.cdap.etl.common.Constants;
 import co.cask.cdap.etl.common.DefaultMacroEvaluator;
+import co.cask.cdap.etl.common.DefaultStageMetrics;
 import co.cask.cdap.etl.common.NoopStageStatisticsCollector;
 import co.cask.cdap.etl.common.PipelinePhase;
 import co.cask.cdap.etl.common.RecordInfo;
 import co.cask.cdap.etl.common.StageStatisticsCollector;
 import co.cask.cdap.etl.spark.function.AlertPassFilter;
 import co.cask.cdap.etl.spark.function.BatchSinkFunction;
+import co.cask.cdap.etl.spark.function.BroadcastJoinFunction;
 import co.cask.cdap.etl.spark.function.ErrorPassFilter;
 import co.cask.cdap.etl.spark.function.ErrorTransformFunction;
 import co.cask.cdap.etl.spark.function.InitialJoinFunction;
 import co.cask.cdap.etl.spark.function.JoinFlattenFunction;
 import co.cask.cdap.etl.spark.function.LeftJoinFlattenFunction;
+import co.cask.cdap.etl.spark.function.MultiJoinFunction;
 import co.cask.cdap.etl.spark.function.OuterJoinFlattenFunction;
 import co.cask.cdap.etl.spark.function.OutputPassFilter;
 import co.cask.cdap.etl.spark.function.PluginFunctionContext;
 import co.cask.cdap.etl.spec.StageSpec;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.spark.broadcast.Broadcast;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import scala.Tuple2;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -68,6 +78,8 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
 
 /**
  * Base Spark program to run a Hydrator pipeline.
@@ -87,6 +99,21 @@ public abstract class SparkPipelineRunner {
     SparkPairCollection<Object, List<JoinElement<Object>>> joinedInputs,
     StageStatisticsCollector collector) throws Exception;
 
+  /**
+   * Returns the maximum number of records that a join input can have to be broadcast without being hinted by the
+   * joiner, 0 to only broadcast inputs hinted by the joiner, or a negative number if broadcast joins are not supported.
+   */
+  protected int getBroadcastJoinThreshold() {
+    return -1;
+  }
+
+  /**
+   * Broadcasts the given value to all executors. Only called if broadcast joins are supported.
+   */
+  protected <T> Broadcast<T> broadcast(T value) {
+    throw new UnsupportedOperationException("Broadcast is not supported by " + getClass().getSimpleName());
+  }
+
   public void runPipeline(PipelinePhase pipelinePhase, String sourcePluginType,
                           JavaSparkExecutionContext sec,
                           Map<String, Integer> stagePartitions,
@@ -241,7 +268,10 @@ public abstract class SparkPipelineRunner {
       } else if (BatchAggregator.PLUGIN_TYPE.equals(pluginType)) {
 
         Integer partitions = stagePartitions.get(stageName);
-        SparkCollection<RecordInfo<Object>> combinedData = stageData.aggregate(stageSpec, partitions, collector);
+        Object aggregator = pluginContext.newPluginInstance(stageName, macroEvaluator);
+        SparkCollection<RecordInfo<Object>> combinedData = aggregator instanceof ReducibleAggregator ?
+          stageData.reduceAggregate(stageSpec, partitions, collector) :
+          stageData.aggregate(stageSpec, partitions, collector);
         emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
                                     combinedData, hasErrorOutput, hasAlertOutput);
 
@@ -258,54 +288,22 @@ public abstract class SparkPipelineRunner {
           preJoinStreams.put(inputStage, addJoinKey(stageSpec, inputStage, inputStream, collector));
         }
 
-        Set<String> remainingInputs = new HashSet<>();
-        remainingInputs.addAll(inputDataCollections.keySet());
-
+        JoinConfig joinConfig = joiner.getJoinConfig();
         Integer numPartitions = stagePartitions.get(stageName);
-
-        SparkPairCollection<Object, List<JoinElement<Object>>> joinedInputs = null;
-        // inner join on required inputs
-        for (final String inputStageName : joiner.getJoinConfig().getRequiredInputs()) {
-          SparkPairCollection<Object, Object> preJoinCollection = preJoinStreams.get(inputStageName);
-
-          if (joinedInputs == null) {
-            joinedInputs = preJoinCollection.mapValues(new InitialJoinFunction<>(inputStageName));
-          } else {
-            JoinFlattenFunction<Object> joinFlattenFunction = new JoinFlattenFunction<>(inputStageName);
-            joinedInputs = numPartitions == null ?
-              joinedInputs.join(preJoinCollection).mapValues(joinFlattenFunction) :
-              joinedInputs.join(preJoinCollection, numPartitions).mapValues(joinFlattenFunction);
-          }
-          remainingInputs.remove(inputStageName);
-        }
-
-        // outer join on non-required inputs
-        boolean isFullOuter = joinedInputs == null;
-        for (final String inputStageName : remainingInputs) {
-          SparkPairCollection<Object, Object> preJoinStream = preJoinStreams.get(inputStageName);
-
-          if (joinedInputs == null) {
-            joinedInputs = preJoinStream.mapValues(new InitialJoinFunction<>(inputStageName));
-          } else {
-            if (isFullOuter) {
-              OuterJoinFlattenFunction<Object> flattenFunction = new OuterJoinFlattenFunction<>(inputStageName);
-
-              joinedInputs = numPartitions == null ?
-                joinedInputs.fullOuterJoin(preJoinStream).mapValues(flattenFunction) :
-                joinedInputs.fullOuterJoin(preJoinStream, numPartitions).mapValues(flattenFunction);
-            } else {
-              LeftJoinFlattenFunction<Object> flattenFunction = new LeftJoinFlattenFunction<>(inputStageName);
-
-              joinedInputs = numPartitions == null ?
-                joinedInputs.leftOuterJoin(preJoinStream).mapValues(flattenFunction) :
-                joinedInputs.leftOuterJoin(preJoinStream, numPartitions).mapValues(flattenFunction);
-            }
-          }
-        }
-
-        // should never happen, but removes warnings
-        if (joinedInputs == null) {
-          throw new IllegalStateException("There are no inputs into join stage " + stageName);
+        StageMetrics stageMetrics = new DefaultStageMetrics(sec.getMetrics(), stageName);
+
+        SparkPairCollection<Object, List<JoinElement<Object>>> joinedInputs;
+        String streamedInput = getBroadcastJoinStreamedInput(stageName, joinConfig, inputDataCollections);
+        if (streamedInput != null) {
+          LOG.debug("Joining inputs of stage {} by broadcasting all inputs except {}", stageName, streamedInput);
+          stageMetrics.count(Constants.Metrics.JOIN_STRATEGY_BROADCAST, 1);
+          joinedInputs = broadcastJoin(stageMetrics, streamedInput, joinConfig, preJoinStreams);
+        } else if (preJoinStreams.size() > 2) {
+          stageMetrics.count(Constants.Metrics.JOIN_STRATEGY_SHUFFLE, 1);
+          joinedInputs = multiJoin(numPartitions, joinConfig, preJoinStreams);
+        } else {
+          stageMetrics.count(Constants.Metrics.JOIN_STRATEGY_SHUFFLE, 1);
+          joinedInputs = pairJoin(stageName, numPartitions, joinConfig, preJoinStreams);
         }
 
         emittedBuilder = emittedBuilder.setOutput(mergeJoinResults(stageSpec, joinedInputs, collector).cache());
@@ -369,6 +367,210 @@ public abstract class SparkPipelineRunner {
     }
   }
 
+  /**
+   * Returns the input of a join that is not broadcast if all other inputs can be broadcast, or null if the join
+   * should shuffle all inputs. An input can be broadcast if it is hinted by the joiner, or if it has at most
+   * {@link #getBroadcastJoinThreshold()} records. Hinted inputs with more records are still broadcast, with a warning.
+   */
+  @Nullable
+  private String getBroadcastJoinStreamedInput(String stageName, JoinConfig joinConfig,
+                                               Map<String, SparkCollection<Object>> inputDataCollections) {
+    int threshold = getBroadcastJoinThreshold();
+    if (threshold < 0) {
+      return null;
+    }
+
+    Set<String> hintedInputs = Sets.newHashSet(joinConfig.getBroadcastInputs());
+    List<String> inputs = getJoinInputs(joinConfig, inputDataCollections.keySet());
+    Set<String> requiredInputs = Sets.newHashSet(joinConfig.getRequiredInputs());
+    return getBroadcastJoinStreamedInput(inputs, requiredInputs, input -> {
+      // inputs of a join are always cached, so this does not compute the input more than once
+      boolean withinThreshold = threshold > 0
+        && inputDataCollections.get(input).take(threshold + 1).size() <= threshold;
+      if (hintedInputs.contains(input)) {
+        if (threshold > 0 && !withinThreshold) {
+          LOG.warn("Input {} of join stage {} has more than {} records, but is broadcast as hinted by the joiner. "
+                     + "All of its records are collected in the driver memory.", input, stageName, threshold);
+        }
+        return true;
+      }
+      return withinThreshold;
+    });
+  }
+
+  /**
+   * Returns the input of a join that is not broadcast if all other inputs can be broadcast, or null if the join
+   * should shuffle all inputs. The input that is not broadcast must be a required input, otherwise records of
+   * broadcast inputs that do not match any of its records would be missing from the output.
+   *
+   * @param inputs all inputs of the join
+   * @param requiredInputs the required inputs of the join
+   * @param canBroadcast tells whether an input can be broadcast
+   * @return the input that is not broadcast, or null if not all other inputs can be broadcast
+   */
+  @VisibleForTesting
+  @Nullable
+  static String getBroadcastJoinStreamedInput(List<String> inputs, Set<String> requiredInputs,
+                                              Predicate<String> canBroadcast) {
+    if (requiredInputs.isEmpty()) {
+      return null;
+    }
+    String streamedInput = null;
+    for (String input : inputs) {
+      if (canBroadcast.test(input)) {
+        continue;
+      }
+      if (streamedInput != null || !requiredInputs.contains(input)) {
+        return null;
+      }
+      streamedInput = input;
+    }
+    if (streamedInput != null) {
+      return streamedInput;
+    }
+    // if all inputs can be broadcast, don't broadcast the first required input
+    for (String input : inputs) {
+      if (requiredInputs.contains(input)) {
+        return input;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Joins by collecting all inputs except the given one, and broadcasting them to all executors, so that the
+   * remaining input is joined without being shuffled.
+   */
+  private SparkPairCollection<Object, List<JoinElement<Object>>> broadcastJoin(
+    StageMetrics stageMetrics, String streamedInput, JoinConfig joinConfig,
+    Map<String, SparkPairCollection<Object, Object>> preJoinStreams) {
+
+    Map<String, Broadcast<Map<Object, List<JoinElement<Object>>>>> broadcastInputs = new HashMap<>();
+    long broadcastRecords = 0;
+    for (Map.Entry<String, SparkPairCollection<Object, Object>> preJoinStream : preJoinStreams.entrySet()) {
+      String inputStageName = preJoinStream.getKey();
+      if (inputStageName.equals(streamedInput)) {
+        continue;
+      }
+      Map<Object, List<JoinElement<Object>>> inputRecords = new HashMap<>();
+      for (Tuple2<Object, Object> record : preJoinStream.getValue().collect()) {
+        List<JoinElement<Object>> elements = inputRecords.get(record._1());
+        if (elements == null) {
+          elements = new ArrayList<>();
+          inputRecords.put(record._1(), elements);
+        }
+        elements.add(new JoinElement<>(inputStageName, record._2()));
+        broadcastRecords++;
+      }
+      broadcastInputs.put(inputStageName, broadcast(inputRecords));
+    }
+    stageMetrics.gauge(Constants.Metrics.JOIN_BROADCAST_RECORDS, broadcastRecords);
+
+    List<String> inputs = getJoinInputs(joinConfig, preJoinStreams.keySet());
+    Set<String> requiredInputs = Sets.newHashSet(joinConfig.getRequiredInputs());
+    return preJoinStreams.get(streamedInput).flatMapToPair(
+      Compat.convert(new BroadcastJoinFunction<>(streamedInput, inputs, requiredInputs, broadcastInputs)));
+  }
+
+  /**
+   * Joins any number of inputs with a single shuffle, by grouping the records of all inputs by join key.
+   */
+  private SparkPairCollection<Object, List<JoinElement<Object>>> multiJoin(
+    @Nullable Integer numPartitions, JoinConfig joinConfig,
+    Map<String, SparkPairCollection<Object, Object>> preJoinStreams) {
+
+    List<String> inputs = getJoinInputs(joinConfig, preJoinStreams.keySet());
+    SparkPairCollection<Object, List<JoinElement<Object>>> taggedInputs = null;
+    for (String inputStageName : inputs) {
+      SparkPairCollection<Object, List<JoinElement<Object>>> taggedInput =
+        preJoinStreams.get(inputStageName).mapValues(new InitialJoinFunction<>(inputStageName));
+      taggedInputs = taggedInputs == null ? taggedInput : taggedInputs.union(taggedInput);
+    }
+
+    // should never happen, but removes warnings
+    if (taggedInputs == null) {
+      throw new IllegalStateException("There are no inputs into the join.");
+    }
+
+    SparkPairCollection<Object, Iterable<List<JoinElement<Object>>>> groupedInputs = numPartitions == null ?
+      taggedInputs.groupByKey() : taggedInputs.groupByKey(numPartitions);
+    Set<String> requiredInputs = Sets.newHashSet(joinConfig.getRequiredInputs());
+    return groupedInputs.flatMapToPair(Compat.convert(new MultiJoinFunction<>(inputs, requiredInputs)));
+  }
+
+  /**
+   * Joins two inputs with a join, left outer join, or full outer join, depending on which inputs are required.
+   */
+  private SparkPairCollection<Object, List<JoinElement<Object>>> pairJoin(
+    String stageName, @Nullable Integer numPartitions, JoinConfig joinConfig,
+    Map<String, SparkPairCollection<Object, Object>> preJoinStreams) {
+
+    Set<String> remainingInputs = new HashSet<>();
+    remainingInputs.addAll(preJoinStreams.keySet());
+
+    SparkPairCollection<Object, List<JoinElement<Object>>> joinedInputs = null;
+    // inner join on required inputs
+    for (final String inputStageName : joinConfig.getRequiredInputs()) {
+      SparkPairCollection<Object, Object> preJoinCollection = preJoinStreams.get(inputStageName);
+
+      if (joinedInputs == null) {
+        joinedInputs = preJoinCollection.mapValues(new InitialJoinFunction<>(inputStageName));
+      } else {
+        JoinFlattenFunction<Object> joinFlattenFunction = new JoinFlattenFunction<>(inputStageName);
+        joinedInputs = numPartitions == null ?
+          joinedInputs.join(preJoinCollection).mapValues(joinFlattenFunction) :
+          joinedInputs.join(preJoinCollection, numPartitions).mapValues(joinFlattenFunction);
+      }
+      remainingInputs.remove(inputStageName);
+    }
+
+    // outer join on non-required inputs
+    boolean isFullOuter = joinedInputs == null;
+    for (final String inputStageName : remainingInputs) {
+      SparkPairCollection<Object, Object> preJoinStream = preJoinStreams.get(inputStageName);
+
+      if (joinedInputs == null) {
+        joinedInputs = preJoinStream.mapValues(new InitialJoinFunction<>(inputStageName));
+      } else {
+        if (isFullOuter) {
+          OuterJoinFlattenFunction<Object> flattenFunction = new OuterJoinFlattenFunction<>(inputStageName);
+
+          joinedInputs = numPartitions == null ?
+            joinedInputs.fullOuterJoin(preJoinStream).mapValues(flattenFunction) :
+            joinedInputs.fullOuterJoin(preJoinStream, numPartitions).mapValues(flattenFunction);
+        } else {
+          LeftJoinFlattenFunction<Object> flattenFunction = new LeftJoinFlattenFunction<>(inputStageName);
+
+          joinedInputs = numPartitions == null ?
+            joinedInputs.leftOuterJoin(preJoinStream).mapValues(flattenFunction) :
+            joinedInputs.leftOuterJoin(preJoinStream, numPartitions).mapValues(flattenFunction);
+        }
+      }
+    }
+
+    // should never happen, but removes warnings
+    if (joinedInputs == null) {
+      throw new IllegalStateException("There are no inputs into join stage " + stageName);
+    }
+    return joinedInputs;
+  }
+
+  /**
+   * Returns the inputs of a join, with required inputs first.
+   */
+  private List<String> getJoinInputs(JoinConfig joinConfig, Set<String> allInputs) {
+    List<String> inputs = new ArrayList<>();
+    for (String requiredInput : joinConfig.getRequiredInputs()) {
+      inputs.add(requiredInput);
+    }
+    for (String input : allInputs) {
+      if (!inputs.contains(input)) {
+        inputs.add(input);
+      }
+    }
+    return inputs;
+  }
+
   // return whether this stage should be cached to avoid recomputation
   private boolean shouldCache(PipelinePhase pipelinePhase, StageSpec stageSpec) {
 
@@ -50,6 +50,7 @@ import com.google.common.collect.SetMultimap;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.broadcast.Broadcast;
 
 import java.io.BufferedReader;
 import java.nio.charset.StandardCharsets;
@@ -64,6 +65,10 @@ import java.util.Map;
  * Batch Spark pipeline driver.
  */
 public class BatchSparkPipelineDriver extends SparkPipelineRunner implements JavaSparkMain, TxRunnable {
+  // join inputs with at most this many records are broadcast instead of shuffled, unless it is 0.
+  // Can be set through the pipeline properties.
+  public static final String BROADCAST_JOIN_THRESHOLD = "spark.cdap.pipeline.join.broadcast.threshold";
+  private static final int DEFAULT_BROADCAST_JOIN_THRESHOLD = 10000;
   private static final Gson GSON = new GsonBuilder()
     .registerTypeAdapter(SetMultimap.class, new SetMultimapCodec<>())
     .registerTypeAdapter(Schema.class, new SchemaTypeAdapter())
@@ -107,6 +112,16 @@ public class BatchSparkPipelineDriver extends SparkPipelineRunner implements Jav
     return joinedInputs.flatMap(Compat.convert(new JoinMergeFunction<>(pluginFunctionContext)));
   }
 
+  @Override
+  protected int getBroadcastJoinThreshold() {
+    return Math.max(0, jsc.getConf().getInt(BROADCAST_JOIN_THRESHOLD, DEFAULT_BROADCAST_JOIN_THRESHOLD));
+  }
+
+  @Override
+  protected <T> Broadcast<T> broadcast(T value) {
+    return jsc.broadcast(value);
+  }
+
   @Override
   public void run(JavaSparkExecutionContext sec) throws Exception {
     this.jsc = new JavaSparkContext();
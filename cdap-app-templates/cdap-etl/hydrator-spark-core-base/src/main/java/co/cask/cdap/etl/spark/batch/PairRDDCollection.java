@@ -26,8 +26,11 @@ import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
 import scala.Tuple2;
 
+import java.util.List;
+
 /**
  * Implementation of {@link SparkCollection} that is backed by a JavaPairRDD.
  *
@@ -66,6 +69,32 @@ public class PairRDDCollection<K, V> implements SparkPairCollection<K, V> {
     return wrap(pairRDD.mapValues(function));
   }
 
+  @Override
+  public <K2, V2> SparkPairCollection<K2, V2> flatMapToPair(PairFlatMapFunction<Tuple2<K, V>, K2, V2> function) {
+    return wrap(pairRDD.flatMapToPair(function));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public SparkPairCollection<K, V> union(SparkPairCollection<K, V> other) {
+    return wrap(pairRDD.union((JavaPairRDD<K, V>) other.getUnderlying()));
+  }
+
+  @Override
+  public SparkPairCollection<K, Iterable<V>> groupByKey() {
+    return wrap(pairRDD.groupByKey());
+  }
+
+  @Override
+  public SparkPairCollection<K, Iterable<V>> groupByKey(int numPartitions) {
+    return wrap(pairRDD.groupByKey(numPartitions));
+  }
+
+  @Override
+  public List<Tuple2<K, V>> collect() {
+    return pairRDD.collect();
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <T> SparkPairCollection<K, Tuple2<V, T>> join(SparkPairCollection<K, T> other) {
@@ -38,7 +38,11 @@ import co.cask.cdap.etl.spark.SparkCollection;
 import co.cask.cdap.etl.spark.SparkPairCollection;
 import co.cask.cdap.etl.spark.SparkPipelineRuntime;
 import co.cask.cdap.etl.spark.function.AggregatorAggregateFunction;
+import co.cask.cdap.etl.spark.function.AggregatorFinalizeFunction;
 import co.cask.cdap.etl.spark.function.AggregatorGroupByFunction;
+import co.cask.cdap.etl.spark.function.AggregatorInitializeFunction;
+import co.cask.cdap.etl.spark.function.AggregatorMergePartitionFunction;
+import co.cask.cdap.etl.spark.function.AggregatorMergeValueFunction;
 import co.cask.cdap.etl.spark.function.CountingFunction;
 import co.cask.cdap.etl.spark.function.FlatMapFunc;
 import co.cask.cdap.etl.spark.function.MultiOutputTransformFunction;
@@ -52,9 +56,12 @@ import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
 import scala.Tuple2;
 
+import java.util.List;
 import javax.annotation.Nullable;
 
 
@@ -97,6 +104,11 @@ public class RDDCollection<T> implements SparkCollection<T> {
     return wrap(rdd.union((JavaRDD<T>) other.getUnderlying()));
   }
 
+  @Override
+  public List<T> take(int num) {
+    return rdd.take(num);
+  }
+
   @Override
   public SparkCollection<RecordInfo<Object>> transform(StageSpec stageSpec, StageStatisticsCollector collector) {
     PluginFunctionContext pluginFunctionContext = new PluginFunctionContext(stageSpec, sec, collector);
@@ -135,6 +147,33 @@ public class RDDCollection<T> implements SparkCollection<T> {
     return wrap(groupedCollection.flatMap(sparkAggregateFunction));
   }
 
+  @Override
+  public SparkCollection<RecordInfo<Object>> reduceAggregate(StageSpec stageSpec, @Nullable Integer partitions,
+                                                             StageStatisticsCollector collector) {
+    PluginFunctionContext pluginFunctionContext = new PluginFunctionContext(stageSpec, sec, collector);
+    PairFlatMapFunc<T, Object, T> groupByFunction = new AggregatorGroupByFunction<>(pluginFunctionContext);
+    PairFlatMapFunction<T, Object, T> sparkGroupByFunction = Compat.convert(groupByFunction);
+
+    JavaPairRDD<Object, T> keyedCollection = rdd.flatMapToPair(sparkGroupByFunction);
+
+    // values are aggregated within each partition before the shuffle, so only one value per group and partition
+    // is shuffled instead of all values of the group
+    Function<T, Object> initializeFunction = new AggregatorInitializeFunction<>(pluginFunctionContext);
+    Function2<Object, T, Object> mergeValueFunction = new AggregatorMergeValueFunction<>(pluginFunctionContext);
+    Function2<Object, Object, Object> mergePartitionFunction =
+      new AggregatorMergePartitionFunction<>(pluginFunctionContext);
+    JavaPairRDD<Object, Object> aggregatedCollection = partitions == null ?
+      keyedCollection.combineByKey(initializeFunction, mergeValueFunction, mergePartitionFunction) :
+      keyedCollection.combineByKey(initializeFunction, mergeValueFunction, mergePartitionFunction, partitions);
+
+    FlatMapFunc<Tuple2<Object, Object>, RecordInfo<Object>> finalizeFunction =
+      new AggregatorFinalizeFunction<>(pluginFunctionContext);
+    FlatMapFunction<Tuple2<Object, Object>, RecordInfo<Object>> sparkFinalizeFunction =
+      Compat.convert(finalizeFunction);
+
+    return wrap(aggregatedCollection.flatMap(sparkFinalizeFunction));
+  }
+
   @Override
   public <K, V> SparkPairCollection<K, V> flatMapToPair(PairFlatMapFunction<T, K, V> function) {
     return new PairRDDCollection<>(sec, jsc, datasetContext, sinkFactory, rdd.flatMapToPair(function));
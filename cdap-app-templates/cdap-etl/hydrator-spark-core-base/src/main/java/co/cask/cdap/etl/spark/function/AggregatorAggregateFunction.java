@@ -48,11 +48,9 @@ public class AggregatorAggregateFunction<GROUP_KEY, GROUP_VAL, OUT>
     if (aggregateTransform == null) {
       BatchAggregator<GROUP_KEY, GROUP_VAL, OUT> aggregator = pluginFunctionContext.createPlugin();
       aggregator.initialize(pluginFunctionContext.createBatchRuntimeContext());
-      aggregateTransform = new TrackedTransform<>(new AggregateTransform<>(aggregator),
-                                                  pluginFunctionContext.createStageMetrics(),
-                                                  Constants.Metrics.AGG_GROUPS,
-                                                  Constants.Metrics.RECORDS_OUT, pluginFunctionContext.getDataTracer(),
-                                                  pluginFunctionContext.getStageStatisticsCollector());
+      aggregateTransform = pluginFunctionContext.createTrackedTransform(new AggregateTransform<>(aggregator),
+                                                                       Constants.Metrics.AGG_GROUPS,
+                                                                       Constants.Metrics.RECORDS_OUT);
       emitter = new CombinedEmitter<>(pluginFunctionContext.getStageName());
     }
     emitter.reset();
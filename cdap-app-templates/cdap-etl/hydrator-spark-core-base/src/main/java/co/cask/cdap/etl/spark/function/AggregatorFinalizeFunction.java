@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.spark.function;
+
+import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.ReducibleAggregator;
+import co.cask.cdap.etl.api.Transformation;
+import co.cask.cdap.etl.api.batch.BatchAggregator;
+import co.cask.cdap.etl.common.Constants;
+import co.cask.cdap.etl.common.RecordInfo;
+import co.cask.cdap.etl.common.TrackedTransform;
+import co.cask.cdap.etl.spark.CombinedEmitter;
+import scala.Tuple2;
+
+/**
+ * Function that uses a {@link ReducibleAggregator} to emit the output of a group from its aggregation value.
+ * Non-serializable fields are lazily created since this is used in a Spark closure.
+ *
+ * @param <GROUP_KEY> type of group key
+ * @param <AGG_VAL> type of aggregation value
+ * @param <OUT> type of aggregate output
+ */
+public class AggregatorFinalizeFunction<GROUP_KEY, AGG_VAL, OUT>
+  implements FlatMapFunc<Tuple2<GROUP_KEY, AGG_VAL>, RecordInfo<Object>> {
+  private final PluginFunctionContext pluginFunctionContext;
+  private transient TrackedTransform<Tuple2<GROUP_KEY, AGG_VAL>, OUT> finalizeTransform;
+  private transient CombinedEmitter<OUT> emitter;
+
+  public AggregatorFinalizeFunction(PluginFunctionContext pluginFunctionContext) {
+    this.pluginFunctionContext = pluginFunctionContext;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public Iterable<RecordInfo<Object>> call(Tuple2<GROUP_KEY, AGG_VAL> input) throws Exception {
+    if (finalizeTransform == null) {
+      BatchAggregator<GROUP_KEY, ?, OUT> aggregator = pluginFunctionContext.createPlugin();
+      aggregator.initialize(pluginFunctionContext.createBatchRuntimeContext());
+      finalizeTransform = pluginFunctionContext.createTrackedTransform(
+        new FinalizeTransform<>((ReducibleAggregator<GROUP_KEY, ?, AGG_VAL, OUT>) aggregator),
+        Constants.Metrics.AGG_GROUPS, Constants.Metrics.RECORDS_OUT);
+      emitter = new CombinedEmitter<>(pluginFunctionContext.getStageName());
+    }
+    emitter.reset();
+    finalizeTransform.transform(input, emitter);
+    return emitter.getEmitted();
+  }
+
+  private static class FinalizeTransform<GROUP_KEY, AGG_VAL, OUT_VAL>
+    implements Transformation<Tuple2<GROUP_KEY, AGG_VAL>, OUT_VAL> {
+    private final ReducibleAggregator<GROUP_KEY, ?, AGG_VAL, OUT_VAL> aggregator;
+
+    FinalizeTransform(ReducibleAggregator<GROUP_KEY, ?, AGG_VAL, OUT_VAL> aggregator) {
+      this.aggregator = aggregator;
+    }
+
+    @Override
+    public void transform(Tuple2<GROUP_KEY, AGG_VAL> input, Emitter<OUT_VAL> emitter) throws Exception {
+      aggregator.finalize(input._1(), input._2(), emitter);
+    }
+  }
+}
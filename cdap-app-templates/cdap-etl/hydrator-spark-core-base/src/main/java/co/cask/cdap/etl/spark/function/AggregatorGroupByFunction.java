@@ -47,11 +47,8 @@ public class AggregatorGroupByFunction<GROUP_KEY, GROUP_VAL>
     if (groupByFunction == null) {
       BatchAggregator<GROUP_KEY, GROUP_VAL, ?> aggregator = pluginFunctionContext.createPlugin();
       aggregator.initialize(pluginFunctionContext.createBatchRuntimeContext());
-      groupByFunction = new TrackedTransform<>(new GroupByTransform<>(aggregator),
-                                               pluginFunctionContext.createStageMetrics(),
-                                               Constants.Metrics.RECORDS_IN,
-                                               null, pluginFunctionContext.getDataTracer(),
-                                               pluginFunctionContext.getStageStatisticsCollector());
+      groupByFunction = pluginFunctionContext.createTrackedTransform(new GroupByTransform<>(aggregator),
+                                                                    Constants.Metrics.RECORDS_IN, null);
       emitter = new DefaultEmitter<>();
     }
     emitter.reset();
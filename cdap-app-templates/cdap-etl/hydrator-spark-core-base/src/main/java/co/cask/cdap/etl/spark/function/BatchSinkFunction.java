@@ -18,6 +18,7 @@ package co.cask.cdap.etl.spark.function;
 
 import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.etl.api.batch.BatchSink;
+import co.cask.cdap.etl.common.Constants;
 import co.cask.cdap.etl.common.TrackedTransform;
 import co.cask.cdap.etl.common.TransformingEmitter;
 import com.google.common.base.Function;
@@ -45,9 +46,8 @@ public class BatchSinkFunction<IN, OUT_KEY, OUT_VAL> implements PairFlatMapFunc<
     if (transform == null) {
       BatchSink<IN, OUT_KEY, OUT_VAL> batchSink = pluginFunctionContext.createPlugin();
       batchSink.initialize(pluginFunctionContext.createBatchRuntimeContext());
-      transform = new TrackedTransform<>(batchSink, pluginFunctionContext.createStageMetrics(),
-                                         pluginFunctionContext.getDataTracer(),
-                                         pluginFunctionContext.getStageStatisticsCollector());
+      transform = pluginFunctionContext.createTrackedTransform(batchSink, Constants.Metrics.RECORDS_IN,
+                                                               Constants.Metrics.RECORDS_OUT);
       emitter = new TransformingEmitter<>(new Function<KeyValue<OUT_KEY, OUT_VAL>, Tuple2<OUT_KEY, OUT_VAL>>() {
         @Override
         public Tuple2<OUT_KEY, OUT_VAL> apply(KeyValue<OUT_KEY, OUT_VAL> input) {
@@ -19,8 +19,8 @@ package co.cask.cdap.etl.spark.function;
 import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.etl.api.Transformation;
 import co.cask.cdap.etl.api.batch.BatchSource;
+import co.cask.cdap.etl.common.Constants;
 import co.cask.cdap.etl.common.RecordInfo;
-import co.cask.cdap.etl.common.TrackedTransform;
 import co.cask.cdap.etl.common.preview.LimitingTransform;
 import co.cask.cdap.etl.spark.CombinedEmitter;
 import scala.Tuple2;
@@ -45,12 +45,10 @@ public class BatchSourceFunction implements FlatMapFunc<Tuple2<Object, Object>,
     if (transform == null) {
       BatchSource<Object, Object, Object> batchSource = pluginFunctionContext.createPlugin();
       batchSource.initialize(pluginFunctionContext.createBatchRuntimeContext());
-      transform = new TrackedTransform<>(pluginFunctionContext.getDataTracer().isEnabled() ?
-                                           new LimitingTransform<>(batchSource, numOfRecordsPreview) :
-                                           batchSource,
-                                         pluginFunctionContext.createStageMetrics(),
-                                         pluginFunctionContext.getDataTracer(),
-                                         pluginFunctionContext.getStageStatisticsCollector());
+      transform = pluginFunctionContext.createTrackedTransform(
+        pluginFunctionContext.getDataTracer().isEnabled() ?
+          new LimitingTransform<>(batchSource, numOfRecordsPreview) : batchSource,
+        Constants.Metrics.RECORDS_IN, Constants.Metrics.RECORDS_OUT);
       emitter = new CombinedEmitter<>(pluginFunctionContext.getStageName());
     }
     emitter.reset();
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.etl.spark.function;
+
+import co.cask.cdap.etl.api.JoinElement;
+import org.apache.spark.broadcast.Broadcast;
+import scala.Tuple2;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Joins each record of the one input of a join that is not held in memory with the records of the other inputs,
+ * which are broadcast to every executor, so that the large input does not need to be shuffled.
+ * The input that is not broadcast must be a required input.
+ *
+ * @param <K> type of join key
+ * @param <T> type of input record
+ */
+public class BroadcastJoinFunction<K, T> implements PairFlatMapFunc<Tuple2<K, T>, K, List<JoinElement<T>>> {
+  private final String inputStageName;
+  private final List<String> inputs;
+  private final Set<String> requiredInputs;
+  private final Map<String, Broadcast<Map<K, List<JoinElement<T>>>>> broadcastInputs;
+
+  /**
+   * @param inputStageName the input stage that is not broadcast
+   * @param inputs all input stages of the join, in the order their records should appear in each output
+   * @param requiredInputs the required input stages
+   * @param broadcastInputs the records of every other input stage by join key
+   */
+  public BroadcastJoinFunction(String inputStageName, List<String> inputs, Set<String> requiredInputs,
+                               Map<String, Broadcast<Map<K, List<JoinElement<T>>>>> broadcastInputs) {
+    this.inputStageName = inputStageName;
+    this.inputs = inputs;
+    this.requiredInputs = requiredInputs;
+    this.broadcastInputs = broadcastInputs;
+  }
+
+  @Override
+  public Iterable<Tuple2<K, List<JoinElement<T>>>> call(Tuple2<K, T> in) {
+    K key = in._1();
+    Map<String, List<JoinElement<T>>> inputElements = new HashMap<>();
+    inputElements.put(inputStageName, Collections.singletonList(new JoinElement<>(inputStageName, in._2())));
+    for (Map.Entry<String, Broadcast<Map<K, List<JoinElement<T>>>>> broadcastInput : broadcastInputs.entrySet()) {
+      List<JoinElement<T>> elements = broadcastInput.getValue().value().get(key);
+      if (elements != null) {
+        inputElements.put(broadcastInput.getKey(), elements);
+      }
+    }
+    return MultiJoinFunction.join(key, inputs, requiredInputs, inputElements);
+  }
+}
@@ -18,6 +18,7 @@ package co.cask.cdap.etl.spark.function;
 
 import co.cask.cdap.etl.api.ErrorRecord;
 import co.cask.cdap.etl.api.ErrorTransform;
+import co.cask.cdap.etl.common.Constants;
 import co.cask.cdap.etl.common.RecordInfo;
 import co.cask.cdap.etl.common.TrackedTransform;
 import co.cask.cdap.etl.spark.CombinedEmitter;
@@ -44,9 +45,8 @@ public class ErrorTransformFunction<T, U> implements FlatMapFunc<ErrorRecord<T>,
     if (transform == null) {
       ErrorTransform<T, U> plugin = pluginFunctionContext.createPlugin();
       plugin.initialize(pluginFunctionContext.createBatchRuntimeContext());
-      transform = new TrackedTransform<>(plugin, pluginFunctionContext.createStageMetrics(),
-                                         pluginFunctionContext.getDataTracer(),
-                                         pluginFunctionContext.getStageStatisticsCollector());
+      transform = pluginFunctionContext.createTrackedTransform(plugin, Constants.Metrics.RECORDS_IN,
+                                                               Constants.Metrics.RECORDS_OUT);
       emitter = new CombinedEmitter<>(pluginFunctionContext.getStageName());
     }
     emitter.reset();
@@ -52,11 +52,9 @@ public class JoinMergeFunction<JOIN_KEY, INPUT_RECORD, OUT>
       BatchJoiner<JOIN_KEY, INPUT_RECORD, OUT> joiner = pluginFunctionContext.createPlugin();
       BatchJoinerRuntimeContext context = pluginFunctionContext.createBatchRuntimeContext();
       joiner.initialize(context);
-      joinFunction = new TrackedTransform<>(new JoinOnTransform<>(joiner),
-                                            pluginFunctionContext.createStageMetrics(),
-                                            Constants.Metrics.JOIN_KEYS,
-                                            Constants.Metrics.RECORDS_OUT, pluginFunctionContext.getDataTracer(),
-                                            pluginFunctionContext.getStageStatisticsCollector());
+      joinFunction = pluginFunctionContext.createTrackedTransform(new JoinOnTransform<>(joiner),
+                                                                 Constants.Metrics.JOIN_KEYS,
+                                                                 Constants.Metrics.RECORDS_OUT);
       emitter = new DefaultEmitter<>();
     }
     emitter.reset();
@@ -51,11 +51,8 @@ public class JoinOnFunction<JOIN_KEY, INPUT_RECORD>
       BatchJoiner<JOIN_KEY, INPUT_RECORD, Object> joiner = pluginFunctionContext.createPlugin();
       BatchJoinerRuntimeContext context = pluginFunctionContext.createBatchRuntimeContext();
       joiner.initialize(context);
-      joinFunction = new TrackedTransform<>(new JoinOnTransform<>(joiner, inputStageName),
-                                            pluginFunctionContext.createStageMetrics(),
-                                            Constants.Metrics.RECORDS_IN,
-                                            null, pluginFunctionContext.getDataTracer(),
-                                            pluginFunctionContext.getStageStatisticsCollector());
+      joinFunction = pluginFunctionContext.createTrackedTransform(new JoinOnTransform<>(joiner, inputStageName),
+                                                                 Constants.Metrics.RECORDS_IN, null);
       emitter = new DefaultEmitter<>();
     }
     emitter.reset();
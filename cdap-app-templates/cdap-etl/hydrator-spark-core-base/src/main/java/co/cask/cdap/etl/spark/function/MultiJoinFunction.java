@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.etl.spark.function;
+
+import co.cask.cdap.etl.api.JoinElement;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Joins all the records of a key that were grouped together from every input of a join, so that any number of
+ * inputs can be joined with a single shuffle. Each output contains one record from every input that has records
+ * for the key, for every combination of such records. No output is produced for the key if one of the required
+ * inputs has no records for it, which makes it an inner join on required inputs and an outer join on others.
+ *
+ * @param <K> type of join key
+ * @param <T> type of input record
+ */
+public class MultiJoinFunction<K, T>
+  implements PairFlatMapFunc<Tuple2<K, Iterable<List<JoinElement<T>>>>, K, List<JoinElement<T>>> {
+  private final List<String> inputs;
+  private final Set<String> requiredInputs;
+
+  /**
+   * @param inputs all input stages of the join, in the order their records should appear in each output
+   * @param requiredInputs the required input stages
+   */
+  public MultiJoinFunction(List<String> inputs, Set<String> requiredInputs) {
+    this.inputs = inputs;
+    this.requiredInputs = requiredInputs;
+  }
+
+  @Override
+  public Iterable<Tuple2<K, List<JoinElement<T>>>> call(Tuple2<K, Iterable<List<JoinElement<T>>>> in) {
+    Map<String, List<JoinElement<T>>> inputElements = new HashMap<>();
+    for (List<JoinElement<T>> elements : in._2()) {
+      for (JoinElement<T> element : elements) {
+        List<JoinElement<T>> stageElements = inputElements.get(element.getStageName());
+        if (stageElements == null) {
+          stageElements = new ArrayList<>();
+          inputElements.put(element.getStageName(), stageElements);
+        }
+        stageElements.add(element);
+      }
+    }
+    return join(in._1(), inputs, requiredInputs, inputElements);
+  }
+
+  /**
+   * Returns the cross product of the records of each input for a key, skipping inputs without records.
+   *
+   * @param key the join key
+   * @param inputs all input stages of the join, in the order their records should appear in each output
+   * @param requiredInputs the required input stages
+   * @param inputElements the records of each input for the key
+   * @return the join results for the key, which is empty if one of the required inputs has no records,
+   *         or if no input has records
+   */
+  static <K, T> List<Tuple2<K, List<JoinElement<T>>>> join(K key, List<String> inputs, Set<String> requiredInputs,
+                                                           Map<String, List<JoinElement<T>>> inputElements) {
+    List<List<JoinElement<T>>> results = new ArrayList<>();
+    results.add(new ArrayList<JoinElement<T>>(inputs.size()));
+    boolean hasElements = false;
+    for (String input : inputs) {
+      List<JoinElement<T>> elements = inputElements.get(input);
+      if (elements == null || elements.isEmpty()) {
+        if (requiredInputs.contains(input)) {
+          return Collections.emptyList();
+        }
+        continue;
+      }
+      hasElements = true;
+      if (elements.size() == 1) {
+        for (List<JoinElement<T>> result : results) {
+          result.add(elements.get(0));
+        }
+        continue;
+      }
+      List<List<JoinElement<T>>> expanded = new ArrayList<>(results.size() * elements.size());
+      for (List<JoinElement<T>> result : results) {
+        for (JoinElement<T> element : elements) {
+          List<JoinElement<T>> copy = new ArrayList<>(inputs.size());
+          copy.addAll(result);
+          copy.add(element);
+          expanded.add(copy);
+        }
+      }
+      results = expanded;
+    }
+    if (!hasElements) {
+      return Collections.emptyList();
+    }
+
+    List<Tuple2<K, List<JoinElement<T>>>> output = new ArrayList<>(results.size());
+    for (List<JoinElement<T>> result : results) {
+      output.add(new Tuple2<>(key, result));
+    }
+    return output;
+  }
+}
@@ -24,6 +24,7 @@ import co.cask.cdap.api.preview.DataTracer;
 import co.cask.cdap.api.security.store.SecureStore;
 import co.cask.cdap.api.spark.JavaSparkExecutionContext;
 import co.cask.cdap.etl.api.StageMetrics;
+import co.cask.cdap.etl.api.Transformation;
 import co.cask.cdap.etl.batch.connector.SingleConnectorSink;
 import co.cask.cdap.etl.batch.connector.SingleConnectorSource;
 import co.cask.cdap.etl.common.BasicArguments;
@@ -32,13 +33,17 @@ import co.cask.cdap.etl.common.DefaultMacroEvaluator;
 import co.cask.cdap.etl.common.DefaultStageMetrics;
 import co.cask.cdap.etl.common.PipelineRuntime;
 import co.cask.cdap.etl.common.StageStatisticsCollector;
+import co.cask.cdap.etl.common.TrackedTransform;
 import co.cask.cdap.etl.common.plugin.PipelinePluginContext;
 import co.cask.cdap.etl.spark.batch.SparkBatchRuntimeContext;
 import co.cask.cdap.etl.spark.plugin.SparkPipelinePluginContext;
 import co.cask.cdap.etl.spec.StageSpec;
+import org.apache.spark.TaskContext;
+import org.apache.spark.util.TaskCompletionListener;
 
 import java.io.Serializable;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * Serializable collection of objects that can be used in Spark closures to instantiate plugins.
@@ -85,7 +90,7 @@ public class PluginFunctionContext implements Serializable {
       String connectorType = stageSpec.getPlugin().getProperties().get(Constants.Connector.TYPE);
       // ok to pass in null to constructors here since we are only going to use the transform method
       if (connectorType.equals(Constants.Connector.SOURCE_TYPE)) {
-        return (T) new SingleConnectorSource(null, null);
+        return (T) new SingleConnectorSource(null);
       } else {
         return (T) new SingleConnectorSink(null, null);
       }
@@ -106,6 +111,29 @@ public class PluginFunctionContext implements Serializable {
     return new DefaultStageMetrics(metrics, stageSpec.getName());
   }
 
+  /**
+   * Creates a {@link TrackedTransform} for the stage that counts metrics locally and sends them in batches.
+   * The remaining counts are sent when the current Spark task, which processes one partition, completes.
+   */
+  public <IN, OUT> TrackedTransform<IN, OUT> createTrackedTransform(Transformation<IN, OUT> transform,
+                                                                    @Nullable String metricInName,
+                                                                    @Nullable String metricOutName) {
+    TaskContext taskContext = TaskContext.get();
+    // outside of a task there is no end of the partition to flush at, hence metrics are sent for each record
+    final TrackedTransform<IN, OUT> trackedTransform =
+      new TrackedTransform<>(transform, createStageMetrics(), metricInName, metricOutName, dataTracer, collector,
+                             taskContext == null ? 1 : TrackedTransform.METRICS_BATCH_SIZE);
+    if (taskContext != null) {
+      taskContext.addTaskCompletionListener(new TaskCompletionListener() {
+        @Override
+        public void onTaskCompletion(TaskContext context) {
+          trackedTransform.flushMetrics();
+        }
+      });
+    }
+    return trackedTransform;
+  }
+
   public StageStatisticsCollector getStageStatisticsCollector() {
     return collector;
   }
@@ -51,6 +51,7 @@ import org.apache.spark.streaming.Durations;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.api.java.JavaPairDStream;
 
+import java.util.List;
 import javax.annotation.Nullable;
 
 /**
@@ -85,6 +86,11 @@ public class DStreamCollection<T> implements SparkCollection<T> {
     return wrap(stream.union((JavaDStream<T>) other.getUnderlying()));
   }
 
+  @Override
+  public List<T> take(int num) {
+    throw new UnsupportedOperationException("Records cannot be taken from a stream.");
+  }
+
   @Override
   public SparkCollection<RecordInfo<Object>> transform(StageSpec stageSpec, StageStatisticsCollector collector) {
     return wrap(stream.transform(new DynamicTransform<T>(new DynamicDriverContext(stageSpec, sec, collector), false)));
@@ -119,6 +125,13 @@ public class DStreamCollection<T> implements SparkCollection<T> {
     return wrap(groupedCollection.transform(new DynamicAggregatorAggregate<Object, T, Object>(dynamicDriverContext)));
   }
 
+  @Override
+  public SparkCollection<RecordInfo<Object>> reduceAggregate(StageSpec stageSpec, @Nullable Integer partitions,
+                                                             StageStatisticsCollector collector) {
+    // the plugin is instantiated for each batch, so use the aggregate method like any other aggregator
+    return aggregate(stageSpec, partitions, collector);
+  }
+
   @Override
   public <U> SparkCollection<U> compute(final StageSpec stageSpec, SparkCompute<T, U> compute) throws Exception {
     final SparkCompute<T, U> wrappedCompute =
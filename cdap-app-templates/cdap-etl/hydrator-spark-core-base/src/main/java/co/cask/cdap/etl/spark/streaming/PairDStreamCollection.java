@@ -23,9 +23,12 @@ import co.cask.cdap.etl.spark.StreamingCompat;
 import com.google.common.base.Optional;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
 import org.apache.spark.streaming.api.java.JavaPairDStream;
 import scala.Tuple2;
 
+import java.util.List;
+
 /**
  * JavaPairDStream backed {@link SparkPairCollection}
  *
@@ -57,6 +60,32 @@ public class PairDStreamCollection<K, V> implements SparkPairCollection<K, V> {
     return wrap(pairStream.mapValues(function));
   }
 
+  @Override
+  public <K2, V2> SparkPairCollection<K2, V2> flatMapToPair(PairFlatMapFunction<Tuple2<K, V>, K2, V2> function) {
+    return wrap(pairStream.flatMapToPair(function));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public SparkPairCollection<K, V> union(SparkPairCollection<K, V> other) {
+    return wrap(pairStream.union((JavaPairDStream<K, V>) other.getUnderlying()));
+  }
+
+  @Override
+  public SparkPairCollection<K, Iterable<V>> groupByKey() {
+    return wrap(pairStream.groupByKey());
+  }
+
+  @Override
+  public SparkPairCollection<K, Iterable<V>> groupByKey(int numPartitions) {
+    return wrap(pairStream.groupByKey(numPartitions));
+  }
+
+  @Override
+  public List<Tuple2<K, V>> collect() {
+    throw new UnsupportedOperationException("Records cannot be collected from a stream.");
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <T> SparkPairCollection<K, Tuple2<V, T>> join(SparkPairCollection<K, T> other) {
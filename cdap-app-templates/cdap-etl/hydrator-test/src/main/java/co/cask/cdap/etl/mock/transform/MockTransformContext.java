@@ -24,6 +24,7 @@ import co.cask.cdap.api.plugin.PluginProperties;
 import co.cask.cdap.etl.api.Arguments;
 import co.cask.cdap.etl.api.Lookup;
 import co.cask.cdap.etl.api.LookupProvider;
+import co.cask.cdap.etl.api.LookupTableConfig;
 import co.cask.cdap.etl.api.StageMetrics;
 import co.cask.cdap.etl.api.TransformContext;
 import co.cask.cdap.etl.api.lineage.field.FieldOperation;
@@ -149,6 +150,11 @@ public class MockTransformContext implements TransformContext {
     return lookup.provide(table, arguments);
   }
 
+  @Override
+  public <T> Lookup<T> provide(String table, LookupTableConfig config) {
+    return lookup.provide(table, config);
+  }
+
   @Override
   public Map<MetadataScope, Metadata> getMetadata(MetadataEntity metadataEntity) {
     return null;
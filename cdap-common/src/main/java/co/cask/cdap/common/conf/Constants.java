@@ -190,6 +190,8 @@ public final class Constants {
     public static final String LOCAL_DATASET_DELETER_INITIAL_DELAY_SECONDS
       = "app.program.local.dataset.deleter.initial.delay";
     public static final String SYSTEM_ARTIFACTS_DIR = "app.artifact.dir";
+    public static final String ARTIFACT_UNPACK_CACHE_DIR = "app.artifact.unpack.cache.dir";
+    public static final String ARTIFACT_UNPACK_CACHE_SIZE_MB = "app.artifact.unpack.cache.size.mb";
     public static final String PROGRAM_EXTRA_CLASSPATH = "app.program.extra.classpath";
     public static final String SPARK_YARN_CLIENT_REWRITE = "app.program.spark.yarn.client.rewrite.enabled";
     public static final String SPARK_COMPAT = "app.program.spark.compat";
@@ -606,6 +608,7 @@ public final class Constants {
     public static final String CLIENT_BOSS_THREADS = "router.client.boss.threads";
     public static final String CLIENT_WORKER_THREADS = "router.client.worker.threads";
     public static final String CONNECTION_TIMEOUT_SECS = "router.connection.idle.timeout.secs";
+    public static final String CONNECTION_POOL_MAX_IDLE = "router.connection.pool.max.idle.per.backend";
     public static final String ROUTER_USERSERVICE_FALLBACK_STRAGEY = "router.userservice.fallback.strategy";
     public static final String ROUTER_AUDIT_PATH_CHECK_ENABLED = "router.audit.path.check.enabled";
     public static final String ROUTER_AUDIT_LOG_ENABLED = "router.audit.log.enabled";
@@ -638,6 +641,12 @@ public final class Constants {
     public static final String SERVICE_DESCRIPTION = "Service to handle metrics requests.";
     public static final String PROCESSOR_MAX_DELAY_MS = "metrics.processor.max.delay.ms";
     public static final String QUEUE_SIZE = "metrics.processor.queue.size";
+    public static final String ROLLUP_ENABLED = "metrics.rollup.enabled";
+    public static final String ROLLUP_DELAY_SECONDS = "metrics.rollup.delay.seconds";
+    public static final String ROLLUP_INTERVAL_SECONDS = "metrics.rollup.interval.seconds";
+    public static final String QUERY_CACHE_MAX_WEIGHT = "metrics.query.cache.max.weight";
+    public static final String QUERY_CACHE_CLOSED_DELAY_SECONDS = "metrics.query.cache.closed.delay.seconds";
+    public static final String QUERY_CACHE_EXPIRATION_SECONDS = "metrics.query.cache.expiration.seconds";
 
     public static final String ENTITY_TABLE_NAME = "metrics.data.entity.tableName";
     public static final String METRICS_TABLE_PREFIX = "metrics.data.table.prefix";
@@ -781,6 +790,8 @@ public final class Constants {
         public static final String OP_COUNT = "dataset.store.ops";
         public static final String WRITE_COUNT = "dataset.store.writes";
         public static final String WRITE_BYTES = "dataset.store.bytes";
+        public static final String READ_CACHE_HIT = "dataset.store.read.cache.hits";
+        public static final String READ_CACHE_MISS = "dataset.store.read.cache.misses";
       }
 
       /**
@@ -1366,6 +1377,8 @@ public final class Constants {
     public static final String LOCAL_DATA_CLEANUP_FREQUENCY = "messaging.local.data.cleanup.frequency.secs";
 
     public static final String CACHE_SIZE_MB = "messaging.cache.size.mb";
+    public static final String CACHE_TYPE = "messaging.cache.type";
+    public static final String CACHE_RING_BUFFER_SIZE = "messaging.cache.ring.buffer.size";
 
     public static final String HBASE_MAX_SCAN_THREADS = "messaging.hbase.max.scan.threads";
     public static final String HBASE_SCAN_CACHE_ROWS = "messaging.hbase.scan.cache.rows";
@@ -1374,6 +1387,8 @@ public final class Constants {
     public static final String MESSAGE_TABLE_HBASE_SPLITS = "messaging.message.table.hbase.splits";
     public static final String PAYLOAD_TABLE_NAME = "messaging.payload.table.name";
     public static final String PAYLOAD_TABLE_HBASE_SPLITS = "messaging.payload.table.hbase.splits";
+    public static final String SUBSCRIBER_PREFETCH_ENABLED = "messaging.subscriber.prefetch.enabled";
+    public static final String SUBSCRIBER_POLL_TIMEOUT_MS = "messaging.subscriber.poll.timeout.ms";
     public static final String SYSTEM_TOPICS = "messaging.system.topics";
     public static final String TABLE_CACHE_EXPIRATION_SECONDS = "messaging.table.expiration.seconds";
     public static final String TABLE_HBASE_SPLIT_POLICY = "messaging.table.hbase.split.policy";
@@ -1385,6 +1400,11 @@ public final class Constants {
     public static final String HTTP_SERVER_EXECUTOR_THREADS = "messaging.http.server.executor.threads";
     public static final String HTTP_SERVER_MAX_REQUEST_SIZE_MB = "messaging.http.server.max.request.size.mb";
     public static final String HTTP_SERVER_CONSUME_CHUNK_SIZE = "messaging.http.server.consume.chunk.size";
+    public static final String HTTP_SERVER_POLL_THREADS = "messaging.http.server.poll.threads";
+
+    public static final String GROUP_COMMIT_ENABLED = "messaging.group.commit.enabled";
+    public static final String GROUP_COMMIT_MAX_BATCH_SIZE = "messaging.group.commit.max.batch.size";
+    public static final String GROUP_COMMIT_LINGER_MICROS = "messaging.group.commit.linger.micros";
 
     // Distributed mode related configurations
     public static final String HA_FENCING_DELAY_SECONDS = "messaging.ha.fencing.delay.seconds";
@@ -23,6 +23,7 @@ import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.http.AbstractHandlerHook;
 import co.cask.http.HttpResponder;
 import co.cask.http.internal.HandlerInfo;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -46,6 +47,8 @@ public class MetricsReporterHook extends AbstractHandlerHook {
   private final String serviceName;
 
   private final LoadingCache<Map<String, String>, MetricsContext> collectorCache;
+  // Start time of requests in progress. Weak keys use identity comparison for the request objects.
+  private final Cache<HttpRequest, Long> requestStartTimes;
 
   public MetricsReporterHook(final MetricsCollectionService metricsCollectionService, String serviceName) {
     this.metricsCollectionService = metricsCollectionService;
@@ -60,8 +63,10 @@ public class MetricsReporterHook extends AbstractHandlerHook {
             return metricsCollectionService.getContext(key);
           }
         });
+      this.requestStartTimes = CacheBuilder.newBuilder().weakKeys().build();
     } else {
       collectorCache = null;
+      requestStartTimes = null;
     }
   }
 
@@ -71,6 +76,7 @@ public class MetricsReporterHook extends AbstractHandlerHook {
       try {
         MetricsContext collector = collectorCache.get(createContext(handlerInfo));
         collector.increment("request.received", 1);
+        requestStartTimes.put(request, System.nanoTime());
       } catch (Throwable e) {
         LOG.error("Got exception while getting collector", e);
       }
@@ -103,6 +109,12 @@ public class MetricsReporterHook extends AbstractHandlerHook {
 
         // todo: report metrics broken down by status
         collector.increment("response." + name, 1/*, "status:" + code*/);
+
+        Long startTime = requestStartTimes.getIfPresent(request);
+        if (startTime != null) {
+          requestStartTimes.invalidate(request);
+          collector.distribution("response.latency", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        }
       } catch (Throwable e) {
         LOG.error("Got exception while getting collector", e);
       }
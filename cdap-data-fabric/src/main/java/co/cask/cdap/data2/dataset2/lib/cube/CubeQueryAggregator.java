@@ -0,0 +1,277 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.cube;
+
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
+import co.cask.cdap.api.dataset.lib.cube.CubeQuery;
+import co.cask.cdap.api.dataset.lib.cube.DimensionValue;
+import co.cask.cdap.api.dataset.lib.cube.TimeValue;
+import co.cask.cdap.data2.dataset2.lib.timeseries.FactScanResult;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregates {@link FactScanResult}s of a {@link CubeQuery} into time series.
+ *
+ * Dimension value tuples of the group by dimensions are interned to int ids, and each (tuple, measure) series
+ * is aggregated into a primitive {@link Long2LongOpenHashMap} of time to value. This avoids creating a map of
+ * dimensions and boxing the time and value for every scanned record.
+ */
+final class CubeQueryAggregator {
+
+  private static final int NO_ID = -1;
+
+  private final Map<String, Integer> groupByIndices;
+  private final String[] groupByDimensions;
+  private final String[] measureNames;
+  private final AggregationFunction[] functions;
+  private final Map<String, Integer> measureIndices;
+
+  // Interning of dimension values tuple to int id
+  private final Object2IntOpenHashMap<DimensionValues> dimensionIds;
+  private final List<String[]> dimensions;
+
+  // Series id is at (dimension id * number of measures + measure index). Series data is indexed by series id.
+  private final IntArrayList seriesIds;
+  private final List<Long2LongOpenHashMap> series;
+  private final IntArrayList seriesDimensionIds;
+  private final IntArrayList seriesMeasureIndices;
+
+  // Reusable buffer for extracting dimension values from a scan result
+  private String[] values;
+  private DimensionValues lastValues;
+  private int lastDimensionId = NO_ID;
+
+  CubeQueryAggregator(CubeQuery query) {
+    this.groupByDimensions = query.getGroupByDimensions().toArray(new String[0]);
+    this.groupByIndices = new HashMap<>();
+    for (int i = 0; i < groupByDimensions.length; i++) {
+      groupByIndices.put(groupByDimensions[i], i);
+    }
+
+    Map<String, AggregationFunction> measurements = query.getMeasurements();
+    this.measureNames = new String[measurements.size()];
+    this.functions = new AggregationFunction[measurements.size()];
+    this.measureIndices = new HashMap<>();
+    int idx = 0;
+    for (Map.Entry<String, AggregationFunction> entry : measurements.entrySet()) {
+      measureNames[idx] = entry.getKey();
+      functions[idx] = entry.getValue();
+      measureIndices.put(entry.getKey(), idx);
+      idx++;
+    }
+
+    this.dimensionIds = new Object2IntOpenHashMap<>();
+    this.dimensionIds.defaultReturnValue(NO_ID);
+    this.dimensions = new ArrayList<>();
+    this.seriesIds = new IntArrayList();
+    this.series = new ArrayList<>();
+    this.seriesDimensionIds = new IntArrayList();
+    this.seriesMeasureIndices = new IntArrayList();
+    this.values = new String[groupByDimensions.length];
+  }
+
+  /**
+   * Adds the given {@link FactScanResult} to the aggregation.
+   *
+   * @return {@code true} if the result is aggregated, {@code false} if it is skipped
+   */
+  boolean add(FactScanResult result) {
+    Integer measureIdx = measureIndices.get(result.getMeasureName());
+    if (measureIdx == null) {
+      // Should never happen since only the measures in the query are scanned
+      throw new IllegalArgumentException("Unknown measure in scan result: " + result.getMeasureName());
+    }
+
+    int dimensionId = getDimensionId(result.getDimensionValues());
+    if (dimensionId == NO_ID) {
+      return false;
+    }
+
+    Long2LongOpenHashMap timeValues = getSeries(dimensionId, measureIdx);
+    AggregationFunction function = functions[measureIdx];
+    for (TimeValue timeValue : result) {
+      long timestamp = timeValue.getTimestamp();
+      long value = timeValue.getValue();
+
+      switch (function) {
+        case SUM:
+          // Default return value is 0
+          timeValues.put(timestamp, timeValues.get(timestamp) + value);
+          break;
+        case MAX:
+          if (!timeValues.containsKey(timestamp) || timeValues.get(timestamp) < value) {
+            timeValues.put(timestamp, value);
+          }
+          break;
+        case MIN:
+          if (!timeValues.containsKey(timestamp) || timeValues.get(timestamp) > value) {
+            timeValues.put(timestamp, value);
+          }
+          break;
+        case LATEST:
+          timeValues.put(timestamp, value);
+          break;
+        default:
+          // should never happen: developer error
+          throw new RuntimeException("Unknown MeasureType: " + function);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of time series aggregated.
+   */
+  int size() {
+    return series.size();
+  }
+
+  /**
+   * Returns the measure name of the given time series.
+   */
+  String getMeasureName(int seriesId) {
+    return measureNames[seriesMeasureIndices.getInt(seriesId)];
+  }
+
+  /**
+   * Returns the group by dimension values of the given time series.
+   */
+  Map<String, String> getDimensionValues(int seriesId) {
+    String[] values = dimensions.get(seriesDimensionIds.getInt(seriesId));
+    Map<String, String> result = new TreeMap<>();
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        result.put(groupByDimensions[i], values[i]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the {@link TimeValue}s of the given time series, sorted by time.
+   */
+  List<TimeValue> getTimeValues(int seriesId) {
+    Long2LongOpenHashMap timeValues = series.get(seriesId);
+    long[] timestamps = timeValues.keySet().toLongArray();
+    Arrays.sort(timestamps);
+
+    List<TimeValue> result = new ArrayList<>(timestamps.length);
+    for (long timestamp : timestamps) {
+      result.add(new TimeValue(timestamp, timeValues.get(timestamp)));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the interned id of the group by dimension values in the given list or {@link #NO_ID} if the
+   * result should be skipped.
+   */
+  private int getDimensionId(List<DimensionValue> dimensionValues) {
+    Arrays.fill(values, null);
+    for (DimensionValue dimensionValue : dimensionValues) {
+      Integer idx = groupByIndices.get(dimensionValue.getName());
+      if (idx == null || values[idx] != null) {
+        continue;
+      }
+      if (dimensionValue.getValue() == null) {
+        // Currently, we do NOT return null as grouped by value.
+        // Depending on whether dimension is required or not the records with null value in it may or may not be
+        // in aggregation. At this moment, the choosing of the aggregation for query doesn't look at this, so
+        // potentially null may or may not be included in results, depending on the aggregation selected
+        // querying. We don't want to produce inconsistent results varying due to different aggregations selected,
+        // so don't return nulls in any of those cases.
+        return NO_ID;
+      }
+      values[idx] = dimensionValue.getValue();
+    }
+
+    // Consecutive scan results usually have the same dimension values with different measures or time
+    if (lastValues != null && Arrays.equals(lastValues.values, values)) {
+      return lastDimensionId;
+    }
+
+    DimensionValues key = new DimensionValues(values);
+    int id = dimensionIds.getInt(key);
+    if (id == NO_ID) {
+      id = dimensions.size();
+      dimensionIds.put(key, id);
+      dimensions.add(values);
+    }
+    // The buffer is now owned by the key, allocate a new one for the next result
+    values = new String[groupByDimensions.length];
+    lastValues = key;
+    lastDimensionId = id;
+    return id;
+  }
+
+  /**
+   * Returns the time to value map of the series for the given dimension id and measure.
+   */
+  private Long2LongOpenHashMap getSeries(int dimensionId, int measureIdx) {
+    int idx = dimensionId * measureNames.length + measureIdx;
+    while (seriesIds.size() <= idx) {
+      seriesIds.add(NO_ID);
+    }
+    int seriesId = seriesIds.getInt(idx);
+    if (seriesId == NO_ID) {
+      seriesId = series.size();
+      seriesIds.set(idx, seriesId);
+      series.add(new Long2LongOpenHashMap());
+      seriesDimensionIds.add(dimensionId);
+      seriesMeasureIndices.add(measureIdx);
+    }
+    return series.get(seriesId);
+  }
+
+  /**
+   * Key for interning dimension values tuple.
+   */
+  private static final class DimensionValues {
+    private final String[] values;
+    private final int hashCode;
+
+    DimensionValues(String[] values) {
+      this.values = values;
+      this.hashCode = Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      return Arrays.equals(values, ((DimensionValues) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -16,13 +16,14 @@
 
 package co.cask.cdap.data2.dataset2.lib.cube;
 
-import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
 import co.cask.cdap.api.dataset.lib.cube.Cube;
 import co.cask.cdap.api.dataset.lib.cube.CubeDeleteQuery;
 import co.cask.cdap.api.dataset.lib.cube.CubeExploreQuery;
 import co.cask.cdap.api.dataset.lib.cube.CubeFact;
 import co.cask.cdap.api.dataset.lib.cube.CubeQuery;
 import co.cask.cdap.api.dataset.lib.cube.DimensionValue;
+import co.cask.cdap.api.dataset.lib.cube.MeasureType;
+import co.cask.cdap.api.dataset.lib.cube.Measurement;
 import co.cask.cdap.api.dataset.lib.cube.TimeSeries;
 import co.cask.cdap.api.dataset.lib.cube.TimeValue;
 import co.cask.cdap.api.dataset.metrics.MeteredDataset;
@@ -33,25 +34,28 @@ import co.cask.cdap.data2.dataset2.lib.timeseries.FactScan;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactScanResult;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactScanner;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactTable;
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Sets;
-import com.google.common.collect.Table;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
+import java.util.function.Predicate;
 import javax.annotation.Nullable;
 
 /**
@@ -61,12 +65,13 @@ public class DefaultCube implements Cube, MeteredDataset {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultCube.class);
 
   private static final DimensionValueComparator DIMENSION_VALUE_COMPARATOR = new DimensionValueComparator();
-  // hard-limit on max records to scan
-  private static final int MAX_RECORDS_TO_SCAN = 100 * 1000;
+  // number of time values to write to the rollup resolutions in one batch
+  private static final int ROLLUP_BATCH_SIZE = 10000;
 
   private final Map<Integer, FactTable> resolutionToFactTable;
   private final Map<String, ? extends Aggregation> aggregations;
   private final Map<String, AggregationAlias> aggregationAliasMap;
+  private final Set<Integer> rollupResolutions;
 
   @Nullable
   private MetricsCollector metrics;
@@ -74,12 +79,26 @@ public class DefaultCube implements Cube, MeteredDataset {
   public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
                      Map<String, ? extends Aggregation> aggregations,
                      Map<String, AggregationAlias> aggregationAliasMap) {
+    this(resolutions, factTableSupplier, aggregations, aggregationAliasMap, Collections.emptySet());
+  }
+
+  /**
+   * Creates a {@link DefaultCube} with some resolutions being filled by rollup.
+   *
+   * @param rollupResolutions resolutions that {@link #add(Collection)} only writes non-counter measurements to.
+   *                          Counter measurements for those resolutions are written by
+   *                          {@link #rollup(int, int, long, long, Predicate)} from a finer resolution
+   */
+  public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
+                     Map<String, ? extends Aggregation> aggregations,
+                     Map<String, AggregationAlias> aggregationAliasMap, Set<Integer> rollupResolutions) {
     this.aggregations = aggregations;
     this.resolutionToFactTable = Maps.newHashMap();
     for (int resolution : resolutions) {
       resolutionToFactTable.put(resolution, factTableSupplier.get(resolution, 3600));
     }
     this.aggregationAliasMap = aggregationAliasMap;
+    this.rollupResolutions = ImmutableSet.copyOf(rollupResolutions);
   }
 
   @Override
@@ -89,6 +108,18 @@ public class DefaultCube implements Cube, MeteredDataset {
 
   @Override
   public void add(Collection<? extends CubeFact> facts) {
+    add(facts, Collections.emptyMap());
+  }
+
+  /**
+   * Adds facts, with counter measurements of facts that are older than the given times also written to the
+   * rollup resolutions. It is used for adding facts to the time buckets that have already been rolled up.
+   *
+   * @param directCounterTimes for each rollup resolution, counter measurements of facts with timestamp before the
+   *                           given time in seconds are written to the resolution directly. If a rollup resolution
+   *                           is absent, no counter measurement is written to it directly
+   */
+  public void add(Collection<? extends CubeFact> facts, Map<Integer, Long> directCounterTimes) {
     List<Fact> toWrite = Lists.newArrayList();
     int dimValuesCount = 0;
     for (CubeFact fact : facts) {
@@ -113,8 +144,17 @@ public class DefaultCube implements Cube, MeteredDataset {
       }
     }
 
-    for (FactTable table : resolutionToFactTable.values()) {
-      table.add(toWrite);
+    for (Map.Entry<Integer, FactTable> entry : resolutionToFactTable.entrySet()) {
+      if (!rollupResolutions.contains(entry.getKey())) {
+        entry.getValue().add(toWrite);
+        continue;
+      }
+      // Counters will be rolled up from the finer resolution, unless the time has already been rolled up
+      Long directCounterTime = directCounterTimes.get(entry.getKey());
+      List<Fact> rollupFacts = removeCounters(toWrite, directCounterTime == null ? Long.MIN_VALUE : directCounterTime);
+      if (!rollupFacts.isEmpty()) {
+        entry.getValue().add(rollupFacts);
+      }
     }
 
     incrementMetric("cube.cubeFact.add.request.count", 1);
@@ -124,6 +164,106 @@ public class DefaultCube implements Cube, MeteredDataset {
     incrementMetric("cube.tsFact.added.count", toWrite.size() * resolutionToFactTable.size());
   }
 
+  /**
+   * Rolls up counter measurements in the given time range from the given resolution to the given rollup resolution.
+   * The counter of each time bucket in the target resolution is set to the sum of the counters in the source
+   * resolution, hence rolling up the same time range again is idempotent. The time range must cover complete time
+   * buckets of the target resolution, otherwise the counters of partially covered buckets are set to partial sums.
+   *
+   * @param sourceResolution the resolution to read counters from
+   * @param targetResolution the rollup resolution to write counters to
+   * @param startTs start time in seconds, inclusive
+   * @param endTs end time in seconds, inclusive
+   * @param counterFilter predicate to tell whether a measure name is a counter
+   * @return number of time values written to the target resolution
+   */
+  public long rollup(int sourceResolution, int targetResolution, long startTs, long endTs,
+                     Predicate<String> counterFilter) {
+    FactTable sourceTable = resolutionToFactTable.get(sourceResolution);
+    if (sourceTable == null) {
+      throw new IllegalArgumentException("There's no data aggregated for resolution " + sourceResolution);
+    }
+    if (!rollupResolutions.contains(targetResolution)) {
+      throw new IllegalArgumentException("Resolution " + targetResolution + " is not a rollup resolution");
+    }
+
+    // Sums up the counters of each time bucket in the target resolution
+    Map<ImmutablePair<List<DimensionValue>, String>, Map<Long, Long>> sums = new LinkedHashMap<>();
+    for (Aggregation agg : aggregations.values()) {
+      List<DimensionValue> dimensionValues = new ArrayList<>();
+      for (String dimensionName : agg.getDimensionNames()) {
+        // null means "any"
+        dimensionValues.add(new DimensionValue(dimensionName, null));
+      }
+
+      FactScanner scanner = sourceTable.scan(new FactScan(startTs, endTs, dimensionValues));
+      try {
+        while (scanner.hasNext()) {
+          FactScanResult result = scanner.next();
+          if (!counterFilter.test(result.getMeasureName())) {
+            continue;
+          }
+          Map<Long, Long> bucketSums = sums.computeIfAbsent(
+            new ImmutablePair<>(result.getDimensionValues(), result.getMeasureName()), k -> new HashMap<>());
+          for (TimeValue timeValue : result) {
+            long bucket = (timeValue.getTimestamp() / targetResolution) * targetResolution;
+            bucketSums.merge(bucket, timeValue.getValue(), Long::sum);
+          }
+        }
+      } finally {
+        scanner.close();
+      }
+    }
+
+    // Sets the sums to the target resolution. Gauge measurements are written with put instead of increment.
+    FactTable targetTable = resolutionToFactTable.get(targetResolution);
+    long count = 0;
+    List<Fact> toWrite = new ArrayList<>();
+    for (Map.Entry<ImmutablePair<List<DimensionValue>, String>, Map<Long, Long>> entry : sums.entrySet()) {
+      for (Map.Entry<Long, Long> bucketSum : entry.getValue().entrySet()) {
+        toWrite.add(new Fact(bucketSum.getKey(), entry.getKey().getFirst(),
+                             new Measurement(entry.getKey().getSecond(), MeasureType.GAUGE, bucketSum.getValue())));
+      }
+      if (toWrite.size() >= ROLLUP_BATCH_SIZE) {
+        targetTable.add(toWrite);
+        count += toWrite.size();
+        toWrite.clear();
+      }
+    }
+    if (!toWrite.isEmpty()) {
+      targetTable.add(toWrite);
+      count += toWrite.size();
+    }
+
+    incrementMetric("cube.rollup.request.count", 1);
+    incrementMetric("cube.rollup.values.count", count);
+    return count;
+  }
+
+  /**
+   * Returns a list of {@link Fact} that only contains non-counter measurements of the given facts, except for
+   * facts with timestamp before the given time, which are returned with all measurements.
+   */
+  private static List<Fact> removeCounters(List<Fact> facts, long directCounterTime) {
+    List<Fact> result = new ArrayList<>();
+    for (Fact fact : facts) {
+      if (fact.getTimestamp() < directCounterTime) {
+        result.add(fact);
+        continue;
+      }
+      List<Measurement> measurements = new ArrayList<>();
+      for (Measurement measurement : fact.getMeasurements()) {
+        if (measurement.getType() != MeasureType.COUNTER) {
+          measurements.add(measurement);
+        }
+      }
+      if (!measurements.isEmpty()) {
+        result.add(new Fact(fact.getTimestamp(), fact.getDimensionValues(), measurements));
+      }
+    }
+    return result;
+  }
+
   @Override
   public Collection<TimeSeries> query(CubeQuery query) {
     /*
@@ -210,12 +350,12 @@ public class DefaultCube implements Cube, MeteredDataset {
     // 3) execute scan query
     FactTable table = resolutionToFactTable.get(query.getResolution());
     FactScanner scanner = table.scan(scan);
-    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, scanner);
+    CubeQueryAggregator aggregator = getTimeSeries(query, scanner);
 
     incrementMetric("cube.query.request.success.count", 1);
-    incrementMetric("cube.query.result.size", resultMap.size());
+    incrementMetric("cube.query.result.size", aggregator.size());
 
-    Collection<TimeSeries> timeSeries = convertToQueryResult(query, resultMap);
+    Collection<TimeSeries> timeSeries = convertToQueryResult(query, aggregator);
     incrementMetric("cube.query.result.timeseries.count", timeSeries.size());
 
     return timeSeries;
@@ -329,105 +469,44 @@ public class DefaultCube implements Cube, MeteredDataset {
     return currentBest;
   }
 
-  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query, FactScanner scanner) {
-    // {dimension values, measure} -> {time -> value}s
-    Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
+  private CubeQueryAggregator getTimeSeries(CubeQuery query, FactScanner scanner) {
+    // {dimension values, measure} -> {time -> value}s, aggregated in primitive form
+    CubeQueryAggregator result = new CubeQueryAggregator(query);
 
-    int count = 0;
+    long count = 0;
+    long skipped = 0;
     while (scanner.hasNext()) {
-      FactScanResult next = scanner.next();
-      incrementMetric("cube.query.scan.records.count", 1);
-
-      boolean skip = false;
-      // using tree map, as we are using it as a key for a map
-      Map<String, String> seriesDimensions = Maps.newTreeMap();
-      for (String dimensionName : query.getGroupByDimensions()) {
-        // todo: use Map<String, String> instead of List<DimensionValue> into a String, String, everywhere
-        for (DimensionValue dimensionValue : next.getDimensionValues()) {
-          if (dimensionName.equals(dimensionValue.getName())) {
-            if (dimensionValue.getValue() == null) {
-              // Currently, we do NOT return null as grouped by value.
-              // Depending on whether dimension is required or not the records with null value in it may or may not be
-              // in aggregation. At this moment, the choosing of the aggregation for query doesn't look at this, so
-              // potentially null may or may not be included in results, depending on the aggregation selected
-              // querying. We don't want to produce inconsistent results varying due to different aggregations selected,
-              // so don't return nulls in any of those cases.
-              skip = true;
-              continue;
-            }
-            seriesDimensions.put(dimensionName, dimensionValue.getValue());
-            break;
-          }
-        }
-      }
-
-      if (skip) {
-        incrementMetric("cube.query.scan.skipped.count", 1);
-        continue;
-      }
-
-      for (TimeValue timeValue : next) {
-        Map<Long, Long> timeValues = result.get(seriesDimensions, next.getMeasureName());
-        if (timeValues == null) {
-          result.put(seriesDimensions, next.getMeasureName(), Maps.<Long, Long>newHashMap());
-        }
-
-        AggregationFunction function = query.getMeasurements().get(next.getMeasureName());
-        if (AggregationFunction.SUM == function) {
-          Long value =  result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value == null ? 0 : value;
-          value += timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.MAX == function) {
-          Long value = result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value != null && value > timeValue.getValue() ? value : timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.MIN == function) {
-          Long value =  result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value != null && value < timeValue.getValue() ? value : timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.LATEST == function) {
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), timeValue.getValue());
-        } else {
-          // should never happen: developer error
-          throw new RuntimeException("Unknown MeasureType: " + function);
-        }
-      }
-      if (++count >= MAX_RECORDS_TO_SCAN) {
-        break;
+      count++;
+      if (!result.add(scanner.next())) {
+        skipped++;
       }
     }
+    incrementMetric("cube.query.scan.records.count", count);
+    if (skipped > 0) {
+      incrementMetric("cube.query.scan.skipped.count", skipped);
+    }
     return result;
   }
 
-  private Collection<TimeSeries> convertToQueryResult(CubeQuery query,
-                                                      Table<Map<String, String>, String,
-                                                        Map<Long, Long>> resultTable) {
-
-    List<TimeSeries> result = Lists.newArrayList();
-    // iterating each groupValue dimensions
-    for (Map.Entry<Map<String, String>, Map<String, Map<Long, Long>>> row : resultTable.rowMap().entrySet()) {
-      // iterating each measure
-      for (Map.Entry<String, Map<Long, Long>> measureEntry : row.getValue().entrySet()) {
-        // generating time series for a grouping and a measure
-        int count = 0;
-        List<TimeValue> timeValues = Lists.newArrayList();
-        for (Map.Entry<Long, Long> timeValue : measureEntry.getValue().entrySet()) {
-          timeValues.add(new TimeValue(timeValue.getKey(), timeValue.getValue()));
-        }
-        Collections.sort(timeValues);
-        PeekingIterator<TimeValue> timeValueItor = Iterators.peekingIterator(
-          new TimeSeriesInterpolator(timeValues, query.getInterpolator(), query.getResolution()).iterator());
-        List<TimeValue> resultTimeValues = Lists.newArrayList();
-        while (timeValueItor.hasNext()) {
-          TimeValue timeValue = timeValueItor.next();
-          resultTimeValues.add(new TimeValue(timeValue.getTimestamp(), timeValue.getValue()));
-          if (++count >= query.getLimit()) {
-            break;
-          }
+  private Collection<TimeSeries> convertToQueryResult(CubeQuery query, CubeQueryAggregator aggregator) {
+    List<TimeSeries> result = Lists.newArrayListWithCapacity(aggregator.size());
+    // iterating each time series of groupValue dimensions and measure
+    for (int seriesId = 0; seriesId < aggregator.size(); seriesId++) {
+      // generating time series for a grouping and a measure
+      int count = 0;
+      List<TimeValue> timeValues = aggregator.getTimeValues(seriesId);
+      PeekingIterator<TimeValue> timeValueItor = Iterators.peekingIterator(
+        new TimeSeriesInterpolator(timeValues, query.getInterpolator(), query.getResolution()).iterator());
+      List<TimeValue> resultTimeValues = Lists.newArrayList();
+      while (timeValueItor.hasNext()) {
+        TimeValue timeValue = timeValueItor.next();
+        resultTimeValues.add(new TimeValue(timeValue.getTimestamp(), timeValue.getValue()));
+        if (++count >= query.getLimit()) {
+          break;
         }
-        result.add(new TimeSeries(measureEntry.getKey(), row.getKey(), resultTimeValues));
       }
+      result.add(new TimeSeries(aggregator.getMeasureName(seriesId), aggregator.getDimensionValues(seriesId),
+                                resultTimeValues));
     }
     return result;
   }
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.partitioned;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.lib.PartitionFilter;
+import co.cask.cdap.api.dataset.lib.Partitioning;
+import co.cask.cdap.api.dataset.lib.Partitioning.FieldType;
+
+import java.util.Arrays;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Computes the next row key of the partitions table that can match a {@link PartitionFilter}, given a row key that
+ * doesn't match. This allows a scan to skip over ranges of partitions that fail a condition on a field that is not
+ * the leading field of the partitioning, e.g. {@code hour=3} over a {@code year/month/day/hour} partitioning.
+ *
+ * The row key of a partition is the encoded field values separated by a {@code \0} byte
+ * (see {@link PartitionedFileSetDataset#generateRowKey}). For the first field in the row key that fails its
+ * condition, all row keys with the same field values before it fail too. If the value is below the lower bound,
+ * the scan can continue from the lower bound after the same prefix. Otherwise, the scan can continue after
+ * all row keys that have the same prefix.
+ */
+final class PartitionSkipScan {
+
+  private final Partitioning partitioning;
+  private final PartitionFilter filter;
+
+  PartitionSkipScan(Partitioning partitioning, PartitionFilter filter) {
+    this.partitioning = partitioning;
+    this.filter = filter;
+  }
+
+  /**
+   * Returns the row key to continue the scan from, which is greater than the given row key.
+   *
+   * @param rowKey a row key that doesn't match the filter
+   * @return the row key to continue from, or {@code null} if no row key after the given one can match the filter
+   */
+  @Nullable
+  byte[] nextRowKey(byte[] rowKey) {
+    int offset = 0;
+    boolean first = true;
+    for (Map.Entry<String, FieldType> entry : partitioning.getFields().entrySet()) {
+      FieldType fieldType = entry.getValue();
+      if (!first) {
+        if (offset >= rowKey.length || rowKey[offset] != 0) {
+          // Invalid row key, cannot skip
+          return successor(rowKey);
+        }
+        offset++;
+      }
+      int size = FieldTypes.determineLengthInBytes(rowKey, offset, fieldType);
+      if (size + offset > rowKey.length) {
+        return successor(rowKey);
+      }
+
+      PartitionFilter.Condition<? extends Comparable> condition = filter.getCondition(entry.getKey());
+      if (condition != null) {
+        Comparable value = FieldTypes.fromBytes(rowKey, offset, size, fieldType);
+        if (!condition.match(value)) {
+          Comparable lower = condition.getLower();
+          @SuppressWarnings("unchecked")
+          boolean belowLower = lower != null && lower.compareTo(value) > 0;
+          if (belowLower) {
+            // continue from the same prefix followed by the lower bound
+            return Bytes.add(Arrays.copyOf(rowKey, offset), FieldTypes.toBytes(lower, fieldType));
+          }
+          if (first) {
+            // the leading field is beyond the upper bound, no more row keys can match
+            return null;
+          }
+          // continue after all row keys with the same prefix, by replacing the \0 separator with \1
+          byte[] next = Arrays.copyOf(rowKey, offset);
+          next[offset - 1] = 1;
+          return next;
+        }
+      }
+      offset += size;
+      first = false;
+    }
+    return successor(rowKey);
+  }
+
+  private static byte[] successor(byte[] rowKey) {
+    return Bytes.add(rowKey, new byte[] { 0 });
+  }
+}
@@ -45,6 +45,7 @@ import co.cask.cdap.api.dataset.lib.PartitionMetadata;
 import co.cask.cdap.api.dataset.lib.PartitionOutput;
 import co.cask.cdap.api.dataset.lib.PartitionedFileSet;
 import co.cask.cdap.api.dataset.lib.PartitionedFileSetArguments;
+import co.cask.cdap.api.dataset.lib.PartitionedFileSetProperties;
 import co.cask.cdap.api.dataset.lib.Partitioning;
 import co.cask.cdap.api.dataset.lib.Partitioning.FieldType;
 import co.cask.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
@@ -129,6 +130,12 @@ public class PartitionedFileSetDataset extends AbstractDataset
   private static final byte[] LAST_MODIFICATION_TIME_COL = { 'm' };
   private static final byte[] RELATIVE_PATH = { 'p' };
   private static final byte[] METADATA_PREFIX = { 'm', '.' };
+  // prefix of the columns that store the values of indexed partitioning fields
+  private static final byte[] INDEXED_FIELD_PREFIX = { 'f', '.' };
+
+  // number of consecutive partitions not matching a filter before the scan skips ahead. Restarting a scan
+  // is more expensive than reading a few rows, hence only skip if the filter doesn't match for a while.
+  private static final int SKIP_SCAN_MISSES = 4;
 
   protected final FileSet files;
   protected final DatasetSpecification spec;
@@ -136,6 +143,7 @@ public class PartitionedFileSetDataset extends AbstractDataset
   private final boolean exploreEnabled;
   protected final Map<String, String> runtimeArguments;
   protected final Partitioning partitioning;
+  private final Set<String> indexedFields;
   private final IndexedTable partitionsTable;
   private final Provider<ExploreFacade> exploreFacadeProvider;
 
@@ -164,6 +172,7 @@ public class PartitionedFileSetDataset extends AbstractDataset
     this.exploreEnabled = FileSetProperties.isExploreEnabled(spec.getProperties());
     this.runtimeArguments = arguments;
     this.partitioning = partitioning;
+    this.indexedFields = PartitionedFileSetProperties.getIndexedFields(spec.getProperties());
     this.exploreFacadeProvider = exploreFacadeProvider;
     this.datasetInstanceId = new DatasetId(datasetContext.getNamespaceId(), name);
   }
@@ -363,6 +372,12 @@ public class PartitionedFileSetDataset extends AbstractDataset
     addMetadataToPut(row, metadata, put, true);
     // index each row by its transaction's write pointer
     put.add(WRITE_PTR_COL, tx.getWritePointer());
+    if (!appending) {
+      // index each row by the values of the indexed fields
+      for (String field : indexedFields) {
+        put.add(getIndexColumn(field), FieldTypes.toBytes(key.getField(field), partitioning.getFieldType(field)));
+      }
+    }
 
     partitionsTable.put(put);
 
@@ -759,38 +774,122 @@ public class PartitionedFileSetDataset extends AbstractDataset
   protected void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata) {
     byte[] startKey = generateStartKey(filter);
     byte[] endKey = generateStopKey(filter);
+    // if the filter doesn't bound the leading field, use the index of an indexed field in the filter if there is one
+    if (filter != null && startKey == null && endKey == null) {
+      PartitionFilter.Condition<? extends Comparable> indexCondition = getIndexCondition(filter);
+      if (indexCondition != null) {
+        getPartitionsByIndex(filter, indexCondition, consumer, decodeMetadata);
+        return;
+      }
+    }
     getPartitions(filter, consumer, decodeMetadata, startKey, endKey, Long.MAX_VALUE);
   }
 
   private void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata,
                              @Nullable byte[] startKey, @Nullable byte[] endKey, long limit) {
     long count = 0L;
-    try (Scanner scanner = partitionsTable.scan(startKey, endKey)) {
+    PartitionSkipScan skipScan = filter == null ? null : new PartitionSkipScan(partitioning, filter);
+    int misses = 0;
+    Scanner scanner = partitionsTable.scan(startKey, endKey);
+    try {
       while (count < limit) {
         Row row = scanner.next();
         if (row == null) {
           break;
         }
-        PartitionKey key;
-        try {
-          key = parseRowKey(row.getRow(), partitioning);
-        } catch (IllegalArgumentException e) {
-          LOG.debug(String.format("Failed to parse row key for partitioned file set '%s': %s",
-                                  getName(), Bytes.toStringBinary(row.getRow())));
+        PartitionKey key = parseRowKey(row);
+        if (key == null) {
           continue;
         }
         if (filter != null && !filter.match(key)) {
+          // skip ahead to the next row key that can match the filter
+          if (++misses >= SKIP_SCAN_MISSES) {
+            misses = 0;
+            byte[] nextKey = skipScan.nextRowKey(row.getRow());
+            if (nextKey == null || (endKey != null && Bytes.compareTo(nextKey, endKey) >= 0)) {
+              break;
+            }
+            scanner.close();
+            scanner = partitionsTable.scan(nextKey, endKey);
+          }
           continue;
         }
-        byte[] pathBytes = row.get(RELATIVE_PATH);
-        if (pathBytes != null) {
-          consumer.consume(key, Bytes.toString(pathBytes), decodeMetadata ? metadataFromRow(row) : null);
-        }
+        misses = 0;
+        consumePartition(key, row, consumer, decodeMetadata);
         count++;
       }
       if (count == 0) {
         warnIfInvalidPartitionFilter(filter, partitioning);
       }
+    } finally {
+      scanner.close();
+    }
+  }
+
+  /**
+   * Returns the condition of the filter on an indexed field to be used for index lookup, or {@code null} if the
+   * filter has no condition on any indexed field. A single value condition is preferred over a range condition.
+   */
+  @Nullable
+  private PartitionFilter.Condition<? extends Comparable> getIndexCondition(PartitionFilter filter) {
+    PartitionFilter.Condition<? extends Comparable> result = null;
+    for (String field : indexedFields) {
+      PartitionFilter.Condition<? extends Comparable> condition = filter.getCondition(field);
+      if (condition != null && (result == null || (condition.isSingleValue() && !result.isSingleValue()))) {
+        result = condition;
+      }
+    }
+    return result;
+  }
+
+  private void getPartitionsByIndex(PartitionFilter filter, PartitionFilter.Condition<? extends Comparable> condition,
+                                    PartitionConsumer consumer, boolean decodeMetadata) {
+    String field = condition.getFieldName();
+    FieldType fieldType = partitioning.getFieldType(field);
+    byte[] column = getIndexColumn(field);
+    long count = 0L;
+    try (Scanner scanner = condition.isSingleValue()
+      ? partitionsTable.readByIndex(column, FieldTypes.toBytes(condition.getValue(), fieldType))
+      : partitionsTable.scanByIndex(column,
+                                    condition.getLower() == null
+                                      ? null : FieldTypes.toBytes(condition.getLower(), fieldType),
+                                    condition.getUpper() == null
+                                      ? null : FieldTypes.toBytes(condition.getUpper(), fieldType))) {
+      Row row;
+      while ((row = scanner.next()) != null) {
+        PartitionKey key = parseRowKey(row);
+        if (key == null || !filter.match(key)) {
+          continue;
+        }
+        consumePartition(key, row, consumer, decodeMetadata);
+        count++;
+      }
+    }
+    if (count == 0) {
+      warnIfInvalidPartitionFilter(filter, partitioning);
+    }
+  }
+
+  /**
+   * Parses the partition key from the row key of the given row.
+   *
+   * @return the partition key or {@code null} if the row key is invalid
+   */
+  @Nullable
+  private PartitionKey parseRowKey(Row row) {
+    try {
+      return parseRowKey(row.getRow(), partitioning);
+    } catch (IllegalArgumentException e) {
+      LOG.debug(String.format("Failed to parse row key for partitioned file set '%s': %s",
+                              getName(), Bytes.toStringBinary(row.getRow())));
+      return null;
+    }
+  }
+
+  private void consumePartition(PartitionKey key, Row row, PartitionConsumer consumer, boolean decodeMetadata) {
+    byte[] pathBytes = row.get(RELATIVE_PATH);
+    if (pathBytes != null) {
+      consumer.consume(key, Bytes.toString(pathBytes), decodeMetadata ? metadataFromRow(row) : null);
     }
   }
 
@@ -1306,6 +1405,13 @@ public class PartitionedFileSetDataset extends AbstractDataset
     return stopKey;
   }
 
+  /**
+   * Returns the column that stores the value of the given indexed partitioning field.
+   */
+  static byte[] getIndexColumn(String field) {
+    return Bytes.add(INDEXED_FIELD_PREFIX, Bytes.toBytes(field));
+  }
+
   @VisibleForTesting
   static PartitionKey parseRowKey(byte[] rowKey, Partitioning partitioning) {
     PartitionKey.Builder builder = PartitionKey.builder();
@@ -49,6 +49,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Defines the partitioned dataset type. At this time, the partitions are not managed by the
@@ -89,10 +90,15 @@ public class PartitionedFileSetDefinition
   public DatasetSpecification configure(String instanceName, DatasetProperties properties) {
     Partitioning partitioning = PartitionedFileSetProperties.getPartitioning(properties.getProperties());
     Preconditions.checkArgument(partitioning != null, "Properties do not contain partitioning");
+    Set<String> indexedFields = PartitionedFileSetProperties.getIndexedFields(properties.getProperties());
+    for (String field : indexedFields) {
+      Preconditions.checkArgument(partitioning.getFields().containsKey(field),
+                                  "Indexed field '%s' is not a partitioning field", field);
+    }
     // define the columns for indexing on the partitionsTable
     DatasetProperties indexedTableProperties = DatasetProperties.builder()
       .addAll(properties.getProperties())
-      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, INDEXED_COLS)
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, getIndexedColumns(indexedFields))
       .build();
 
     Map<String, String> pfsProperties = new HashMap<>(properties.getProperties());
@@ -135,12 +141,20 @@ public class PartitionedFileSetDefinition
         "Partitioning cannot be changed. Existing: %s, new: %s", oldPartitioning, newPartitioning));
     }
 
+    // partitions added before a field is indexed would be missing from the index
+    Set<String> oldIndexedFields = PartitionedFileSetProperties.getIndexedFields(currentSpec.getProperties());
+    Set<String> newIndexedFields = PartitionedFileSetProperties.getIndexedFields(properties.getProperties());
+    if (!oldIndexedFields.containsAll(newIndexedFields)) {
+      throw new IncompatibleUpdateException(String.format(
+        "Indexed fields cannot be added. Existing: %s, new: %s", oldIndexedFields, newIndexedFields));
+    }
+
     Map<String, String> pfsProperties = new HashMap<>(properties.getProperties());
 
     // define the columns for indexing on the partitionsTable
     DatasetProperties indexedTableProperties = DatasetProperties.builder()
       .addAll(properties.getProperties())
-      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, INDEXED_COLS)
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, getIndexedColumns(newIndexedFields))
       .build();
 
     // only set the default base path property if the default was set the last time it was configured,
@@ -164,6 +178,17 @@ public class PartitionedFileSetDefinition
       .build();
   }
 
+  /**
+   * Returns the value of {@link IndexedTable#INDEX_COLUMNS_CONF_KEY} for the partitions table.
+   */
+  private static String getIndexedColumns(Set<String> indexedFields) {
+    StringBuilder builder = new StringBuilder(INDEXED_COLS);
+    for (String field : indexedFields) {
+      builder.append(',').append(Bytes.toString(PartitionedFileSetDataset.getIndexColumn(field)));
+    }
+    return builder.toString();
+  }
+
   @Override
   public DatasetAdmin getAdmin(DatasetContext datasetContext, DatasetSpecification spec,
                                ClassLoader classLoader) throws IOException {
@@ -20,6 +20,8 @@ import co.cask.cdap.api.annotation.ReadOnly;
 import co.cask.cdap.api.annotation.ReadWrite;
 import co.cask.cdap.api.annotation.WriteOnly;
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.batch.FieldFilter;
+import co.cask.cdap.api.data.batch.FilterableRecordScannable;
 import co.cask.cdap.api.data.batch.RecordScanner;
 import co.cask.cdap.api.data.batch.Split;
 import co.cask.cdap.api.data.batch.SplitReader;
@@ -48,14 +50,20 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Implements some of the methods in a generic way (not necessarily in most efficient way).
  */
-public abstract class AbstractTable implements Table, TransactionAware {
+public abstract class AbstractTable implements Table, TransactionAware, FilterableRecordScannable {
   private static final Logger LOG = LoggerFactory.getLogger(AbstractTable.class);
 
   // empty immutable row's column->value map constant
@@ -211,7 +219,114 @@ public abstract class AbstractTable implements Table, TransactionAware {
   @Override
   public RecordScanner<StructuredRecord> createSplitRecordScanner(Split split) {
     Preconditions.checkArgument(tableSchema != null, "Table has no schema and is not record scannable.");
-    return new StructuredRecordScanner(createSplitReader(split));
+    return new StructuredRecordScanner(createSplitReader(split), tableSchema);
+  }
+
+  @Override
+  public boolean isFilterHandled(FieldFilter filter) {
+    return getRowKey(filter) != null;
+  }
+
+  @Override
+  public List<Split> getSplits(Collection<FieldFilter> filters) {
+    // intersect the row key ranges of all filters on the row field
+    byte[] start = null;
+    byte[] stop = null;
+    for (FieldFilter filter : filters) {
+      byte[] key = getRowKey(filter);
+      if (key == null) {
+        continue;
+      }
+      switch (filter.getOperator()) {
+        case EQUAL:
+          start = max(start, key);
+          stop = min(stop, Bytes.add(key, new byte[] { 0 }));
+          break;
+        case GREATER_THAN:
+          start = max(start, Bytes.add(key, new byte[] { 0 }));
+          break;
+        case GREATER_THAN_OR_EQUAL:
+          start = max(start, key);
+          break;
+        case LESS_THAN:
+          stop = min(stop, key);
+          break;
+        case LESS_THAN_OR_EQUAL:
+          stop = min(stop, Bytes.add(key, new byte[] { 0 }));
+          break;
+      }
+    }
+    if (start != null && stop != null && Bytes.compareTo(start, stop) >= 0) {
+      return Collections.emptyList();
+    }
+    return getSplits(-1, start, stop);
+  }
+
+  @ReadOnly
+  @Override
+  public RecordScanner<StructuredRecord> createSplitRecordScanner(Split split, @Nullable Set<String> fields) {
+    Preconditions.checkArgument(tableSchema != null, "Table has no schema and is not record scannable.");
+    if (fields == null) {
+      return createSplitRecordScanner(split);
+    }
+    List<Schema.Field> projected = new ArrayList<>();
+    for (Schema.Field field : tableSchema.getFields()) {
+      if (fields.contains(field.getName())) {
+        projected.add(field);
+      }
+    }
+    // a record needs at least one field, use the row field since it doesn't need any column to be decoded
+    if (projected.isEmpty() && rowFieldName != null) {
+      projected.add(tableSchema.getField(rowFieldName));
+    }
+    if (projected.isEmpty() || projected.size() == tableSchema.getFields().size()) {
+      return createSplitRecordScanner(split);
+    }
+    return new StructuredRecordScanner(createSplitReader(split),
+                                       Schema.recordOf(tableSchema.getRecordName(), projected));
+  }
+
+  /**
+   * Returns the row key for the value of a filter, if the filter is on the row field and can be applied as
+   * a row key range. Since row keys are compared as unsigned bytes, only filters on string and bytes row fields
+   * can be applied for all operators, while filters on other types can only be applied for equality.
+   */
+  @Nullable
+  private byte[] getRowKey(FieldFilter filter) {
+    if (tableSchema == null || rowFieldName == null || !rowFieldName.equals(filter.getFieldName())) {
+      return null;
+    }
+    Schema.Field rowField = tableSchema.getField(rowFieldName);
+    if (rowField == null) {
+      return null;
+    }
+    Schema schema = rowField.getSchema().isNullable() ? rowField.getSchema().getNonNullable() : rowField.getSchema();
+    Object value = filter.getValue();
+    switch (schema.getType()) {
+      case STRING:
+        return value instanceof String ? Bytes.toBytes((String) value) : null;
+      case BYTES:
+        if (value instanceof ByteBuffer) {
+          return Bytes.toBytes((ByteBuffer) value);
+        }
+        return value instanceof byte[] ? (byte[]) value : null;
+      case INT:
+        return filter.getOperator() == FieldFilter.Operator.EQUAL && value instanceof Integer
+          ? Bytes.toBytes((Integer) value) : null;
+      case LONG:
+        return filter.getOperator() == FieldFilter.Operator.EQUAL && value instanceof Long
+          ? Bytes.toBytes((Long) value) : null;
+      default:
+        return null;
+    }
+  }
+
+  private static byte[] max(@Nullable byte[] current, byte[] key) {
+    return current == null || Bytes.compareTo(key, current) > 0 ? key : current;
+  }
+
+  private static byte[] min(@Nullable byte[] current, byte[] key) {
+    return current == null || Bytes.compareTo(key, current) < 0 ? key : current;
   }
 
   @WriteOnly
@@ -229,9 +344,13 @@ public abstract class AbstractTable implements Table, TransactionAware {
     private final ReflectionRowRecordReader rowReader;
     private final SplitReader<byte[], Row> tableSplitReader;
 
-    private StructuredRecordScanner(SplitReader<byte[], Row> tableSplitReader) {
+    /**
+     * @param readSchema the schema of the records to return, which can be a projection of the table schema
+     */
+    private StructuredRecordScanner(SplitReader<byte[], Row> tableSplitReader, Schema readSchema) {
       this.tableSplitReader = tableSplitReader;
-      this.rowReader = new ReflectionRowRecordReader(tableSchema, rowFieldName);
+      this.rowReader = new ReflectionRowRecordReader(readSchema,
+                                                     readSchema.getField(rowFieldName) == null ? null : rowFieldName);
     }
 
     @Override
@@ -69,9 +69,10 @@ import javax.annotation.Nullable;
  * <p>
  * This implementation assumes that the table has name and conflicts are resolved on row level.
  * <p>
- * NOTE: this implementation doesn't cache any data in-memory besides changes. I.e. if you do get of same data that is
- *       not in in-memory buffer twice, two times it will try to fetch it from persistent store.
- *       Given the snapshot isolation tx model, this can be improved in future implementations.
+ * NOTE: by default this implementation doesn't cache any data in-memory besides changes. I.e. if you do get of same
+ *       data that is not in in-memory buffer twice, two times it will try to fetch it from persistent store.
+ *       Given the snapshot isolation tx model, rows read from persistent store can be cached for the duration of the
+ *       transaction by setting {@link TableProperties#PROPERTY_READ_CACHE_ROWS}.
  * <p>
  * NOTE: current implementation persists changes only at the end of transaction. Beware of OOME. There should be better
  *       implementation for MapReduce case (YMMV though, for counters/aggregations this implementation looks sweet)
@@ -102,6 +103,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   // Keeps track of what was persisted so far
   private NavigableMap<byte[], NavigableMap<byte[], Update>> toUndo;
 
+  // Cache of rows read from persistent store in the current tx, null if disabled
+  private final RowReadCache readCache;
+
   // Report data ops metrics to
   private MetricsCollector metricsCollector;
 
@@ -151,6 +155,8 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     // Default uses the above scheme. Subclasses can change it by overriding the #getNameAsTxChangePrefix method
     this.nameAsTxChangePrefix = Bytes.add(new byte[]{(byte) name.length()}, Bytes.toBytes(name));
     this.buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    int readCacheRows = TableProperties.getReadCacheRows(properties);
+    this.readCache = readCacheRows > 0 ? new RowReadCache(readCacheRows) : null;
   }
 
   /**
@@ -252,6 +258,72 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     return results;
   }
 
+  /**
+   * Fetches a row from the read cache of the current transaction if it is enabled, otherwise from
+   * persistent store with {@link #getPersisted(byte[], byte[][])}.
+   */
+  private NavigableMap<byte[], byte[]> getPersistedCached(byte[] row, @Nullable byte[][] columns) throws Exception {
+    if (readCache == null) {
+      return getPersisted(row, columns);
+    }
+    NavigableMap<byte[], byte[]> cached = readCache.get(row, columns);
+    reportReadCache(cached != null);
+    if (cached != null) {
+      return cached;
+    }
+    NavigableMap<byte[], byte[]> persisted = getPersisted(row, columns);
+    if (persisted != null) {
+      readCache.put(row, columns, persisted);
+    }
+    return persisted;
+  }
+
+  /**
+   * Fetches a list of rows from the read cache of the current transaction if it is enabled. Rows that are not
+   * cached are fetched from persistent store with {@link #getPersisted(List)}.
+   */
+  private List<Map<byte[], byte[]>> getPersistedCached(List<Get> gets) throws Exception {
+    if (readCache == null) {
+      return getPersisted(gets);
+    }
+
+    List<Map<byte[], byte[]>> results = new ArrayList<>(gets.size());
+    List<Get> missedGets = new ArrayList<>();
+    for (Get get : gets) {
+      NavigableMap<byte[], byte[]> cached = readCache.get(get.getRow(), getColumns(get));
+      reportReadCache(cached != null);
+      results.add(cached);
+      if (cached == null) {
+        missedGets.add(get);
+      }
+    }
+    if (missedGets.isEmpty()) {
+      return results;
+    }
+
+    List<Map<byte[], byte[]>> persistedRows = getPersisted(missedGets);
+    Preconditions.checkArgument(missedGets.size() == persistedRows.size(),
+      "Invalid number of rows fetched when performing multi-get. There must be one row for each get.");
+    Iterator<Map<byte[], byte[]>> persistedIter = persistedRows.iterator();
+    for (int i = 0; i < results.size(); i++) {
+      if (results.get(i) == null) {
+        Get get = gets.get(i);
+        Map<byte[], byte[]> persisted = persistedIter.next();
+        if (persisted != null) {
+          readCache.put(get.getRow(), getColumns(get), persisted);
+        }
+        results.set(i, persisted);
+      }
+    }
+    return results;
+  }
+
+  @Nullable
+  private static byte[][] getColumns(Get get) {
+    List<byte[]> getColumns = get.getColumns();
+    return getColumns == null ? null : getColumns.toArray(new byte[getColumns.size()][]);
+  }
+
   @Override
   public void setMetricsCollector(MetricsCollector metricsCollector) {
     this.metricsCollector = metricsCollector;
@@ -262,6 +334,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     // releasing resources
     buff = null;
     toUndo = null;
+    clearReadCache();
   }
 
   @Override
@@ -274,6 +347,8 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     // starting with fresh buffer when tx starts
     buff.clear();
     toUndo = null;
+    // rows cached in the previous tx may not be the same in the snapshot of the new tx
+    clearReadCache();
     this.tx = tx;
   }
 
@@ -358,12 +433,14 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     // don't need buffer anymore: tx has been committed
     buff.clear();
     toUndo = null;
+    clearReadCache();
     tx = null;
   }
 
   @Override
   public boolean rollbackTx() throws Exception {
     buff.clear();
+    clearReadCache();
     if (toUndo != null) {
       undo(toUndo);
       toUndo = null;
@@ -420,7 +497,15 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     // NOTE: since we cannot tell the exact column set, we always have to go to persisted store.
     //       potential improvement: do not fetch columns available in in-mem buffer (we know them at this point)
     try {
-      Map<byte[], byte[]> persistedCols = getPersisted(row, startColumn, stopColumn, limit);
+      Map<byte[], byte[]> persistedCols = null;
+      if (readCache != null) {
+        // only a completely cached row can be used for column range
+        persistedCols = readCache.get(row, startColumn, stopColumn, limit);
+        reportReadCache(persistedCols != null);
+      }
+      if (persistedCols == null) {
+        persistedCols = getPersisted(row, startColumn, stopColumn, limit);
+      }
 
       // adding server cols, and then overriding with buffered values
       NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
@@ -448,7 +533,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     ensureTransactionIsStarted();
     try {
       // get persisted, then overwrite with whats buffered
-      List<Map<byte[], byte[]>> persistedRows = getPersisted(gets);
+      List<Map<byte[], byte[]>> persistedRows = getPersistedCached(gets);
       // gets and rows lists are always of the same size
       Preconditions.checkArgument(gets.size() == persistedRows.size(),
         "Invalid number of rows fetched when performing multi-get. There must be one row for each get.");
@@ -752,7 +837,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
       return Collections.emptyMap();
     }
 
-    Map<byte[], byte[]> persisted = getPersisted(row, null);
+    Map<byte[], byte[]> persisted = getPersistedCached(row, null);
 
 
     result.putAll(persisted);
@@ -771,7 +856,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
     // if nothing locally, return all from server
     if (buffCols == null) {
-      return getPersisted(row, columns);
+      return getPersistedCached(row, columns);
     }
 
     // otherwise try to fetch data from in-memory buffer. If not all present - fetch leftover from persisted
@@ -793,7 +878,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     // fetching from server those that were not found in in-mem buffer
     if (colsToFetchFromPersisted.size() > 0) {
       Map<byte[], byte[]> persistedCols =
-        getPersisted(row, colsToFetchFromPersisted.toArray(new byte[colsToFetchFromPersisted.size()][]));
+        getPersistedCached(row, colsToFetchFromPersisted.toArray(new byte[colsToFetchFromPersisted.size()][]));
       if (persistedCols != null) {
         result.putAll(persistedCols);
       }
@@ -937,6 +1022,19 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     }
   }
 
+  private void reportReadCache(boolean hit) {
+    if (metricsCollector != null) {
+      metricsCollector.increment(hit ? Constants.Metrics.Name.Dataset.READ_CACHE_HIT
+                                     : Constants.Metrics.Name.Dataset.READ_CACHE_MISS, 1);
+    }
+  }
+
+  private void clearReadCache() {
+    if (readCache != null) {
+      readCache.clear();
+    }
+  }
+
   private int getSize(long[] values) {
     return Bytes.SIZEOF_LONG * values.length;
   }
@@ -20,6 +20,8 @@ import co.cask.cdap.api.annotation.Beta;
 import co.cask.cdap.api.annotation.ReadOnly;
 import co.cask.cdap.api.annotation.WriteOnly;
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.batch.FieldFilter;
+import co.cask.cdap.api.data.batch.FilterableRecordScannable;
 import co.cask.cdap.api.data.batch.RecordScanner;
 import co.cask.cdap.api.data.batch.Split;
 import co.cask.cdap.api.data.batch.SplitReader;
@@ -46,7 +48,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import javax.annotation.Nullable;
 
 /**
@@ -55,7 +59,8 @@ import javax.annotation.Nullable;
  * @param <T> the type of objects in the table
  */
 @Beta
-public class ObjectMappedTableDataset<T> extends AbstractDataset implements ObjectMappedTable<T> {
+public class ObjectMappedTableDataset<T> extends AbstractDataset
+  implements ObjectMappedTable<T>, FilterableRecordScannable {
   private static final Logger LOG = LoggerFactory.getLogger(ObjectMappedTableDataset.class);
 
   private final Table table;
@@ -191,6 +196,28 @@ public class ObjectMappedTableDataset<T> extends AbstractDataset implements Obje
     return table.createSplitRecordScanner(split);
   }
 
+  @Override
+  public boolean isFilterHandled(FieldFilter filter) {
+    return table instanceof FilterableRecordScannable && ((FilterableRecordScannable) table).isFilterHandled(filter);
+  }
+
+  @Override
+  public List<Split> getSplits(Collection<FieldFilter> filters) {
+    if (table instanceof FilterableRecordScannable) {
+      return ((FilterableRecordScannable) table).getSplits(filters);
+    }
+    return table.getSplits();
+  }
+
+  @ReadOnly
+  @Override
+  public RecordScanner<StructuredRecord> createSplitRecordScanner(Split split, @Nullable Set<String> fields) {
+    if (table instanceof FilterableRecordScannable) {
+      return ((FilterableRecordScannable) table).createSplitRecordScanner(split, fields);
+    }
+    return table.createSplitRecordScanner(split);
+  }
+
   @ReadOnly
   @Override
   public SplitReader<byte[], T> createSplitReader(Split split) {
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import co.cask.cdap.api.common.Bytes;
+import com.google.common.collect.Maps;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import javax.annotation.Nullable;
+
+/**
+ * A LRU cache of rows read from the persistent store by a {@link BufferingTable} within one transaction.
+ * Since reads are isolated to the transaction snapshot, the persisted values don't change for the duration
+ * of the transaction, and the cache must be cleared when a new transaction starts.
+ *
+ * A row is either cached completely, or partially with the columns that were fetched. For a partially cached row,
+ * columns that were fetched but don't exist are also remembered, so that reading them again is a cache hit.
+ *
+ * This class is not thread safe.
+ */
+final class RowReadCache {
+
+  private final Map<ByteBuffer, CachedRow> rows;
+
+  RowReadCache(final int maxRows) {
+    this.rows = new LinkedHashMap<ByteBuffer, CachedRow>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<ByteBuffer, CachedRow> eldest) {
+        return size() > maxRows;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached columns of the given row.
+   *
+   * @param row the row key
+   * @param columns the columns to get, or {@code null} for all columns
+   * @return a new map of the columns that exist in the row, or {@code null} if not all requested columns are cached
+   */
+  @Nullable
+  NavigableMap<byte[], byte[]> get(byte[] row, @Nullable byte[][] columns) {
+    CachedRow cached = rows.get(ByteBuffer.wrap(row));
+    if (cached == null) {
+      return null;
+    }
+
+    NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    if (columns == null) {
+      if (!cached.complete) {
+        return null;
+      }
+      for (Map.Entry<byte[], byte[]> entry : cached.columns.entrySet()) {
+        result.put(copy(entry.getKey()), copy(entry.getValue()));
+      }
+      return result;
+    }
+
+    for (byte[] column : columns) {
+      if (!cached.complete && !cached.columns.containsKey(column)) {
+        return null;
+      }
+      byte[] value = cached.columns.get(column);
+      if (value != null) {
+        result.put(column, copy(value));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the cached columns of the given row within the given column range.
+   *
+   * @return a new map of the columns, or {@code null} if the row is not completely cached
+   */
+  @Nullable
+  NavigableMap<byte[], byte[]> get(byte[] row, @Nullable byte[] startColumn, @Nullable byte[] stopColumn, int limit) {
+    CachedRow cached = rows.get(ByteBuffer.wrap(row));
+    if (cached == null || !cached.complete) {
+      return null;
+    }
+    NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    for (Map.Entry<byte[], byte[]> entry
+      : BufferingTable.getRange(cached.columns, startColumn, stopColumn, limit).entrySet()) {
+      result.put(copy(entry.getKey()), copy(entry.getValue()));
+    }
+    return result;
+  }
+
+  /**
+   * Adds the columns of a row read from the persistent store to this cache.
+   *
+   * @param row the row key
+   * @param columns the columns that were read, or {@code null} if all columns were read
+   * @param persisted the columns returned by the persistent store
+   */
+  void put(byte[] row, @Nullable byte[][] columns, Map<byte[], byte[]> persisted) {
+    ByteBuffer key = ByteBuffer.wrap(row);
+    CachedRow cached = rows.get(key);
+    if (cached == null) {
+      cached = new CachedRow();
+      rows.put(ByteBuffer.wrap(copy(row)), cached);
+    } else if (cached.complete) {
+      return;
+    }
+
+    if (columns == null) {
+      cached.columns.clear();
+      for (Map.Entry<byte[], byte[]> entry : persisted.entrySet()) {
+        cached.columns.put(copy(entry.getKey()), copy(entry.getValue()));
+      }
+      cached.complete = true;
+      return;
+    }
+
+    // Columns that don't exist are cached with null value
+    for (byte[] column : columns) {
+      cached.columns.put(copy(column), copy(persisted.get(column)));
+    }
+  }
+
+  /**
+   * Removes all cached rows.
+   */
+  void clear() {
+    rows.clear();
+  }
+
+  private static byte[] copy(@Nullable byte[] bytes) {
+    return bytes == null ? null : Arrays.copyOf(bytes, bytes.length);
+  }
+
+  /**
+   * Cached columns of a row.
+   */
+  private static final class CachedRow {
+    private final NavigableMap<byte[], byte[]> columns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    private boolean complete;
+  }
+}
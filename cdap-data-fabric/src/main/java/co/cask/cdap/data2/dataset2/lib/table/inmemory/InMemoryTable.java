@@ -24,6 +24,7 @@ import co.cask.cdap.api.dataset.DatasetContext;
 import co.cask.cdap.api.dataset.DatasetSpecification;
 import co.cask.cdap.api.dataset.table.ConflictDetection;
 import co.cask.cdap.api.dataset.table.Filter;
+import co.cask.cdap.api.dataset.table.Get;
 import co.cask.cdap.api.dataset.table.Scan;
 import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.common.conf.CConfiguration;
@@ -36,7 +37,9 @@ import com.google.common.collect.Maps;
 import org.apache.tephra.Transaction;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import javax.annotation.Nullable;
@@ -135,6 +138,20 @@ public class InMemoryTable extends BufferingTable {
     return getInternal(row, columns);
   }
 
+  @ReadOnly
+  @Override
+  protected List<Map<byte[], byte[]>> getPersisted(List<Get> gets) throws Exception {
+    List<NavigableMap<byte[], NavigableMap<Long, byte[]>>> rowMaps = InMemoryTableService.get(getTableName(), gets, tx);
+    List<Map<byte[], byte[]>> results = new ArrayList<>(gets.size());
+    Iterator<Get> getIter = gets.iterator();
+    for (NavigableMap<byte[], NavigableMap<Long, byte[]>> rowMap : rowMaps) {
+      List<byte[]> getColumns = getIter.next().getColumns();
+      byte[][] columns = getColumns == null ? null : getColumns.toArray(new byte[getColumns.size()][]);
+      results.add(getVisibleRow(rowMap, columns));
+    }
+    return results;
+  }
+
   @ReadOnly
   @Override
   protected Scanner scanPersisted(Scan scan) {
@@ -176,17 +193,19 @@ public class InMemoryTable extends BufferingTable {
 
   @ReadOnly
   private NavigableMap<byte[], byte[]> getInternal(byte[] row, @Nullable byte[][] columns) throws IOException {
+    return getVisibleRow(InMemoryTableService.get(getTableName(), row, tx), columns);
+  }
+
+  /**
+   * Returns the latest visible values of the given columns from the versioned row.
+   */
+  private NavigableMap<byte[], byte[]> getVisibleRow(@Nullable NavigableMap<byte[], NavigableMap<Long, byte[]>> rowMap,
+                                                     @Nullable byte[][] columns) {
     // no tx logic needed
     if (tx == null) {
-      NavigableMap<byte[], NavigableMap<Long, byte[]>> rowMap =
-        InMemoryTableService.get(getTableName(), row, tx);
-
       return unwrapDeletes(filterByColumns(getLatest(rowMap), columns));
     }
 
-    NavigableMap<byte[], NavigableMap<Long, byte[]>> rowMap =
-      InMemoryTableService.get(getTableName(), row, tx);
-
     if (rowMap == null) {
       return EMPTY_ROW_MAP;
     }
@@ -17,6 +17,7 @@
 package co.cask.cdap.data2.dataset2.lib.table.inmemory;
 
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.table.Get;
 import co.cask.cdap.data2.dataset2.lib.table.IncrementValue;
 import co.cask.cdap.data2.dataset2.lib.table.PutValue;
 import co.cask.cdap.data2.dataset2.lib.table.Update;
@@ -29,9 +30,11 @@ import com.google.common.collect.Ordering;
 import com.google.common.primitives.Longs;
 import org.apache.tephra.Transaction;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.SortedMap;
@@ -249,6 +252,36 @@ public class InMemoryTableService {
     return deepCopy(Updates.rowToBytes(getVisible(rowMap, tx)));
   }
 
+  /**
+   * Gets multiple rows while holding the lock once, hence all rows are read from the same state of the table.
+   * Only the columns requested by each {@link Get} are copied.
+   *
+   * @return list of rows, one for each get, in the same order as the given gets
+   */
+  public static synchronized List<NavigableMap<byte[], NavigableMap<Long, byte[]>>> get(String tableName,
+                                                                                        List<Get> gets,
+                                                                                        @Nullable Transaction tx) {
+    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
+    Preconditions.checkArgument(table != null, "table not found: " + tableName);
+    List<NavigableMap<byte[], NavigableMap<Long, byte[]>>> result = new ArrayList<>(gets.size());
+    for (Get get : gets) {
+      NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(get.getRow());
+      List<byte[]> columns = get.getColumns();
+      if (rowMap != null && columns != null) {
+        NavigableMap<byte[], NavigableMap<Long, Update>> selected = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        for (byte[] column : columns) {
+          NavigableMap<Long, Update> values = rowMap.get(column);
+          if (values != null) {
+            selected.put(column, values);
+          }
+        }
+        rowMap = selected;
+      }
+      result.add(deepCopy(Updates.rowToBytes(getVisible(rowMap, tx))));
+    }
+    return result;
+  }
+
   public static synchronized NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>>
                              getRowRange(String tableName,
                                          byte[] startRow,
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table.leveldb;
+
+import com.google.common.base.Throwables;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.WriteBatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Writes key values to a LevelDB table with group commit. Concurrent callers enqueue their key values, and
+ * whichever caller acquires the write lock first writes all pending key values in one {@link WriteBatch}
+ * on behalf of the others. Each call returns only after its key values are written.
+ */
+final class LevelDBGroupWriter {
+
+  private final String tableName;
+  private final LevelDBTableService service;
+  private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+  private final Object writeLock = new Object();
+
+  LevelDBGroupWriter(String tableName, LevelDBTableService service) {
+    this.tableName = tableName;
+    this.service = service;
+  }
+
+  /**
+   * Writes the given key values. All of them are written atomically.
+   *
+   * @param keys keys to write
+   * @param values values to write, with the same size as the keys
+   */
+  void write(List<byte[]> keys, List<byte[]> values) throws IOException {
+    PendingWrite write = new PendingWrite(keys, values);
+    pendingWrites.add(write);
+
+    synchronized (writeLock) {
+      // The write could have been done by another caller as part of its group
+      if (!write.isDone()) {
+        writePending();
+      }
+    }
+    write.checkFailure();
+  }
+
+  /**
+   * Writes all pending key values in one batch. Must be called while holding the write lock.
+   */
+  private void writePending() {
+    List<PendingWrite> group = new ArrayList<>();
+    Throwable failure = null;
+    try {
+      DB db = service.getTable(tableName);
+      try (WriteBatch batch = db.createWriteBatch()) {
+        PendingWrite write = pendingWrites.poll();
+        while (write != null) {
+          group.add(write);
+          for (int i = 0; i < write.keys.size(); i++) {
+            batch.put(write.keys.get(i), write.values.get(i));
+          }
+          write = pendingWrites.poll();
+        }
+        db.write(batch, service.getWriteOptions());
+      }
+    } catch (Throwable t) {
+      failure = t;
+    }
+
+    for (PendingWrite write : group) {
+      write.complete(failure);
+    }
+  }
+
+  /**
+   * Key values of one caller waiting to be written.
+   */
+  private static final class PendingWrite {
+    private final List<byte[]> keys;
+    private final List<byte[]> values;
+    // Only accessed while holding the write lock
+    private boolean done;
+    private Throwable failure;
+
+    PendingWrite(List<byte[]> keys, List<byte[]> values) {
+      this.keys = keys;
+      this.values = values;
+    }
+
+    boolean isDone() {
+      return done;
+    }
+
+    void complete(Throwable failure) {
+      this.failure = failure;
+      this.done = true;
+    }
+
+    void checkFailure() throws IOException {
+      if (failure != null) {
+        Throwables.propagateIfPossible(failure, IOException.class);
+        throw Throwables.propagate(failure);
+      }
+    }
+  }
+}
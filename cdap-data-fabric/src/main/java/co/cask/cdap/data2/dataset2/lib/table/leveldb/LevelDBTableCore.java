@@ -17,6 +17,7 @@
 package co.cask.cdap.data2.dataset2.lib.table.leveldb;
 
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.table.Get;
 import co.cask.cdap.api.dataset.table.Result;
 import co.cask.cdap.api.dataset.table.Row;
 import co.cask.cdap.api.dataset.table.Scanner;
@@ -26,6 +27,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.tephra.Transaction;
 import org.iq80.leveldb.DB;
@@ -36,12 +38,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.concurrent.locks.Lock;
 import javax.annotation.Nullable;
 
 /**
@@ -92,48 +97,82 @@ public class LevelDBTableCore {
   }
 
 
-  public synchronized boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
-    byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
-    // verify
-    if (oldValue == null && existing != null) {
-      return false;
-    }
-    if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
-      return false;
-    }
-    // write
-    if (newValue == null) {
-      // to-do
-      deleteColumn(row, column);
-    } else {
-      persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), System.currentTimeMillis());
-    }
-    return true;
-  }
-
-  public synchronized Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
-    Map<byte[], Long> result = getResultMap(row, increments);
-    Map<byte[], byte[]> replacing = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], Long> entry : result.entrySet()) {
-      replacing.put(entry.getKey(), Bytes.toBytes(entry.getValue()));
+  public boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
+    Lock lock = getRowLock(row);
+    lock.lock();
+    try {
+      byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
+      // verify
+      if (oldValue == null && existing != null) {
+        return false;
+      }
+      if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
+        return false;
+      }
+      // write
+      if (newValue == null) {
+        // to-do
+        deleteColumn(row, column);
+      } else {
+        persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)),
+                System.currentTimeMillis());
+      }
+      return true;
+    } finally {
+      lock.unlock();
     }
-    persist(ImmutableMap.of(row, replacing), System.currentTimeMillis());
-    return result;
   }
 
-
-  public synchronized void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
-    Map<byte[], Map<byte[], byte[]>> resultMap = Maps.newHashMap();
-    for (NavigableMap.Entry<byte[], NavigableMap<byte[], Long>> row : updates.entrySet()) {
-      NavigableMap<byte[], Long> increments = row.getValue();
+  public Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
+    Lock lock = getRowLock(row);
+    lock.lock();
+    try {
+      Map<byte[], Long> result = getResultMap(row, increments);
       Map<byte[], byte[]> replacing = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      Map<byte[], Long> result = getResultMap(row.getKey(), increments);
       for (Map.Entry<byte[], Long> entry : result.entrySet()) {
         replacing.put(entry.getKey(), Bytes.toBytes(entry.getValue()));
       }
-      resultMap.put(row.getKey(), replacing);
+      persist(ImmutableMap.of(row, replacing), System.currentTimeMillis());
+      return result;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
+    // Striped.bulkGet returns the locks in a consistent order, hence no deadlock between concurrent callers
+    List<Integer> rowHashes = new ArrayList<>(updates.size());
+    for (byte[] row : updates.keySet()) {
+      rowHashes.add(Bytes.hashCode(row));
+    }
+    List<Lock> locks = Lists.newArrayList(service.getRowLocks(tableName).bulkGet(rowHashes));
+    for (Lock lock : locks) {
+      lock.lock();
+    }
+    try {
+      Map<byte[], Map<byte[], byte[]>> resultMap = Maps.newHashMap();
+      for (NavigableMap.Entry<byte[], NavigableMap<byte[], Long>> row : updates.entrySet()) {
+        NavigableMap<byte[], Long> increments = row.getValue();
+        Map<byte[], byte[]> replacing = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        Map<byte[], Long> result = getResultMap(row.getKey(), increments);
+        for (Map.Entry<byte[], Long> entry : result.entrySet()) {
+          replacing.put(entry.getKey(), Bytes.toBytes(entry.getValue()));
+        }
+        resultMap.put(row.getKey(), replacing);
+      }
+      persist(resultMap, System.currentTimeMillis());
+    } finally {
+      for (Lock lock : Lists.reverse(locks)) {
+        lock.unlock();
+      }
     }
-    persist(resultMap, System.currentTimeMillis());
+  }
+
+  /**
+   * Returns the lock of the given row. The lock is shared by all {@link LevelDBTableCore} of the same table.
+   */
+  private Lock getRowLock(byte[] row) {
+    return service.getRowLocks(tableName).get(Bytes.hashCode(row));
   }
 
   private Map<byte[], Long> getResultMap(byte[] row, Map<byte[], Long> increments) throws IOException {
@@ -158,16 +197,17 @@ public class LevelDBTableCore {
   }
 
   public void persist(Map<byte[], ? extends Map<byte[], byte[]>> changes, long version) throws IOException {
-    DB db = getDB();
     // todo support writing null when no transaction
-    WriteBatch batch = db.createWriteBatch();
+    List<byte[]> keys = new ArrayList<>();
+    List<byte[]> values = new ArrayList<>();
     for (Map.Entry<byte[], ? extends Map<byte[], byte[]>> row : changes.entrySet()) {
       for (Map.Entry<byte[], byte[]> column : row.getValue().entrySet()) {
-        byte[] key = createPutKey(row.getKey(), column.getKey(), version);
-        batch.put(key, column.getValue() == null ? DELETE_MARKER : column.getValue());
+        keys.add(createPutKey(row.getKey(), column.getKey(), version));
+        values.add(column.getValue() == null ? DELETE_MARKER : column.getValue());
       }
     }
-    db.write(batch, service.getWriteOptions());
+    // Concurrent writes to the same table are grouped into one batch
+    service.getGroupWriter(tableName).write(keys, values);
   }
 
   public void put(byte[] row, byte[] column, byte[] value, long version) throws IOException {
@@ -221,14 +261,61 @@ public class LevelDBTableCore {
       limit = columns.length;
     }
 
-    byte[] startKey = createStartKey(row, columns == null ? startCol : columns[0]);
-    byte[] endKey = createEndKey(row, columns == null ? stopCol : upperBound(columns[columns.length - 1]));
     try (DBIterator iterator = getDB().iterator()) {
-      iterator.seek(startKey);
-      return getRow(iterator, endKey, tx, false, columns, limit).getSecond();
+      return getRow(iterator, row, columns, startCol, stopCol, limit, tx);
     }
   }
 
+  /**
+   * Reads multiple rows with a single iterator, hence from the same snapshot of the database. The rows are read
+   * in sorted order, so that the iterator only seeks forward.
+   *
+   * @param gets list of gets to perform
+   * @param tx the transaction to use for visibility
+   * @return list of rows, one for each get, in the same order as the given gets
+   */
+  public List<Map<byte[], byte[]>> getRows(List<Get> gets, Transaction tx) throws IOException {
+    List<Map<byte[], byte[]>> results = new ArrayList<>(Collections.nCopies(gets.size(), null));
+
+    Integer[] order = new Integer[gets.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (i1, i2) -> Bytes.compareTo(gets.get(i1).getRow(), gets.get(i2).getRow()));
+
+    try (DBIterator iterator = getDB().iterator()) {
+      for (int idx : order) {
+        Get get = gets.get(idx);
+        List<byte[]> getColumns = get.getColumns();
+        byte[][] columns = getColumns == null ? null : getColumns.toArray(new byte[getColumns.size()][]);
+        if (columns != null) {
+          if (columns.length == 0) {
+            results.set(idx, EMPTY_ROW_MAP);
+            continue;
+          }
+          Arrays.sort(columns, Bytes.BYTES_COMPARATOR);
+        }
+        int limit = columns == null ? -1 : columns.length;
+        results.set(idx, getRow(iterator, get.getRow(), columns, null, null, limit, tx));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Reads one row by seeking the given iterator to the start of the row.
+   *
+   * @param columns if non-null, only columns contained in this will be returned. It must be sorted and non-empty
+   */
+  private NavigableMap<byte[], byte[]> getRow(DBIterator iterator, byte[] row, @Nullable byte[][] columns,
+                                              byte[] startCol, byte[] stopCol, int limit,
+                                              Transaction tx) throws IOException {
+    byte[] startKey = createStartKey(row, columns == null ? startCol : columns[0]);
+    byte[] endKey = createEndKey(row, columns == null ? stopCol : upperBound(columns[columns.length - 1]));
+    iterator.seek(startKey);
+    return getRow(iterator, endKey, tx, false, columns, limit).getSecond();
+  }
+
   private static Scanner createEmptyScanner() {
     return new Scanner() {
       @Override
@@ -27,6 +27,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.iq80.leveldb.DB;
@@ -44,6 +45,7 @@ import java.net.URLEncoder;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 
 import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
 
@@ -55,6 +57,9 @@ public class LevelDBTableService implements AutoCloseable {
 
   private static final Logger LOG = LoggerFactory.getLogger(LevelDBTableService.class);
 
+  // Number of row lock stripes per table
+  private static final int ROW_LOCK_STRIPES = 256;
+
   private int blockSize;
   private long cacheSize;
   private String basePath;
@@ -62,6 +67,9 @@ public class LevelDBTableService implements AutoCloseable {
   private boolean isClosed;
 
   private final ConcurrentMap<String, DB> tables = Maps.newConcurrentMap();
+  // Row locks and group writers are shared by all LevelDBTableCore of the same table
+  private final ConcurrentMap<String, Striped<Lock>> rowLocks = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, LevelDBGroupWriter> groupWriters = Maps.newConcurrentMap();
 
   /**
    * To avoid database locking issues make sure that the single LevelDBTableService instance
@@ -187,6 +195,20 @@ public class LevelDBTableService implements AutoCloseable {
     return db;
   }
 
+  /**
+   * Returns the row locks of the given table. Locks are striped by the hash code of the row key.
+   */
+  Striped<Lock> getRowLocks(String tableName) {
+    return rowLocks.computeIfAbsent(tableName, name -> Striped.lock(ROW_LOCK_STRIPES));
+  }
+
+  /**
+   * Returns the {@link LevelDBGroupWriter} for writing to the given table.
+   */
+  LevelDBGroupWriter getGroupWriter(String tableName) {
+    return groupWriters.computeIfAbsent(tableName, name -> new LevelDBGroupWriter(name, this));
+  }
+
   public void ensureTableExists(String tableName) throws IOException {
     ensureOpen();
     DB db = tables.get(tableName);
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.cube;
+
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
+import co.cask.cdap.api.dataset.lib.cube.CubeQuery;
+import co.cask.cdap.api.dataset.lib.cube.DimensionValue;
+import co.cask.cdap.api.dataset.lib.cube.TimeValue;
+import co.cask.cdap.data2.dataset2.lib.timeseries.FactScanResult;
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link CubeQueryAggregator}.
+ */
+public class CubeQueryAggregatorTest {
+
+  @Test
+  public void testAggregation() {
+    CubeQuery query = CubeQuery.builder()
+      .select()
+        .measurement("sum", AggregationFunction.SUM)
+        .measurement("max", AggregationFunction.MAX)
+        .measurement("min", AggregationFunction.MIN)
+        .measurement("latest", AggregationFunction.LATEST)
+      .from("agg").resolution(1, TimeUnit.SECONDS)
+      .where()
+        .timeRange(0, 100)
+      .groupBy()
+        .dimension("app")
+      .limit(100)
+      .build();
+
+    CubeQueryAggregator aggregator = new CubeQueryAggregator(query);
+    for (String measure : Arrays.asList("sum", "max", "min", "latest")) {
+      Assert.assertTrue(aggregator.add(result(measure, "app1", "flow1", 1, 5, 2, 3)));
+      Assert.assertTrue(aggregator.add(result(measure, "app1", "flow2", 1, 7, 2, 1)));
+      Assert.assertTrue(aggregator.add(result(measure, "app2", "flow1", 1, 4)));
+    }
+    // Null value in group by dimension is skipped
+    Assert.assertFalse(aggregator.add(result("sum", null, "flow1", 1, 10)));
+
+    Map<String, List<TimeValue>> expected = new HashMap<>();
+    expected.put("app1:sum", timeValues(1, 12, 2, 4));
+    expected.put("app1:max", timeValues(1, 7, 2, 3));
+    expected.put("app1:min", timeValues(1, 5, 2, 1));
+    expected.put("app1:latest", timeValues(1, 7, 2, 1));
+    expected.put("app2:sum", timeValues(1, 4));
+    expected.put("app2:max", timeValues(1, 4));
+    expected.put("app2:min", timeValues(1, 4));
+    expected.put("app2:latest", timeValues(1, 4));
+
+    Assert.assertEquals(expected.size(), aggregator.size());
+    for (int i = 0; i < aggregator.size(); i++) {
+      Map<String, String> dimensions = aggregator.getDimensionValues(i);
+      Assert.assertEquals(1, dimensions.size());
+      String key = dimensions.get("app") + ":" + aggregator.getMeasureName(i);
+      Assert.assertEquals(key, expected.get(key), aggregator.getTimeValues(i));
+    }
+  }
+
+  private FactScanResult result(String measure, String app, String flow, long... timeValues) {
+    return new FactScanResult(measure, ImmutableList.of(new DimensionValue("app", app),
+                                                        new DimensionValue("flow", flow)),
+                              timeValues(timeValues));
+  }
+
+  private List<TimeValue> timeValues(long... longs) {
+    ImmutableList.Builder<TimeValue> builder = ImmutableList.builder();
+    for (int i = 0; i < longs.length; i += 2) {
+      builder.add(new TimeValue(longs[i], longs[i + 1]));
+    }
+    return builder.build();
+  }
+}
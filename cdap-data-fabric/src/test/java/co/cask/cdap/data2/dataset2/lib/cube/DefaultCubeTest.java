@@ -16,14 +16,27 @@
 
 package co.cask.cdap.data2.dataset2.lib.cube;
 
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
 import co.cask.cdap.api.dataset.lib.cube.Cube;
+import co.cask.cdap.api.dataset.lib.cube.CubeFact;
+import co.cask.cdap.api.dataset.lib.cube.CubeQuery;
+import co.cask.cdap.api.dataset.lib.cube.MeasureType;
+import co.cask.cdap.api.dataset.lib.cube.TimeSeries;
+import co.cask.cdap.api.dataset.lib.cube.TimeValue;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
 import co.cask.cdap.data2.dataset2.lib.timeseries.EntityTable;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactTable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -32,7 +45,73 @@ public class DefaultCubeTest extends AbstractCubeTest {
 
   @Override
   protected Cube getCube(final String name, int[] resolutions, Map<String, ? extends Aggregation> aggregations) {
-    FactTableSupplier supplier = new FactTableSupplier() {
+    return new DefaultCube(resolutions, getFactTableSupplier(name), aggregations,
+                           ImmutableMap.<String, AggregationAlias>of());
+  }
+
+  @Test
+  public void testRollup() {
+    Map<String, Aggregation> aggregations = ImmutableMap.of(
+      "agg", new DefaultAggregation(ImmutableList.of("dim1", "dim2"), ImmutableList.of("dim1")));
+    DefaultCube cube = new DefaultCube(new int[] {1, 60}, getFactTableSupplier("testRollup"), aggregations,
+                                       ImmutableMap.<String, AggregationAlias>of(), ImmutableSet.of(60));
+
+    // Counters are only written to the 1 second resolution, while gauges are written to all resolutions.
+    // The latest gauge values of the two dim2 values are summed up by the query.
+    for (int i = 0; i < 120; i++) {
+      cube.add(new CubeFact(i)
+                 .addDimensionValue("dim1", "1").addDimensionValue("dim2", String.valueOf(i % 2))
+                 .addMeasurement("count", MeasureType.COUNTER, 1)
+                 .addMeasurement("gauge", MeasureType.GAUGE, i));
+    }
+    Assert.assertEquals(ImmutableMap.of(0L, 60L, 60L, 60L), query(cube, 1, "count"));
+    Assert.assertTrue(query(cube, 60, "count").isEmpty());
+    Assert.assertEquals(ImmutableMap.of(0L, 117L, 60L, 237L), query(cube, 60, "gauge"));
+
+    // Rollup the first minute. Rolling up the same time range again doesn't change the result.
+    cube.rollup(1, 60, 0, 59, "count"::equals);
+    Assert.assertEquals(ImmutableMap.of(0L, 60L), query(cube, 60, "count"));
+    cube.rollup(1, 60, 0, 59, "count"::equals);
+    Assert.assertEquals(ImmutableMap.of(0L, 60L), query(cube, 60, "count"));
+    Assert.assertEquals(ImmutableMap.of(0L, 117L, 60L, 237L), query(cube, 60, "gauge"));
+
+    // Late facts for the time that has been rolled up are written to the rollup resolution directly
+    cube.add(ImmutableList.of(new CubeFact(10).addDimensionValue("dim1", "1")
+                                .addMeasurement("count", MeasureType.COUNTER, 5),
+                              new CubeFact(70).addDimensionValue("dim1", "1")
+                                .addMeasurement("count", MeasureType.COUNTER, 5)),
+             ImmutableMap.of(60, 60L));
+    Assert.assertEquals(ImmutableMap.of(0L, 65L), query(cube, 60, "count"));
+    Assert.assertEquals(ImmutableMap.of(0L, 65L, 60L, 65L), query(cube, 1, "count"));
+
+    // Rolling up again includes the late facts written to the source resolution, hence it doesn't double count
+    cube.rollup(1, 60, 0, 119, "count"::equals);
+    Assert.assertEquals(ImmutableMap.of(0L, 65L, 60L, 65L), query(cube, 60, "count"));
+  }
+
+  private Map<Long, Long> query(Cube cube, int resolution, String measureName) {
+    CubeQuery query = CubeQuery.builder()
+      .select()
+        .measurement(measureName, AggregationFunction.SUM)
+      .from("agg").resolution(resolution, TimeUnit.SECONDS)
+      .where()
+        .dimension("dim1", "1")
+        .timeRange(0, 120)
+      .limit(1000)
+      .build();
+
+    Collection<TimeSeries> result = cube.query(query);
+    Map<Long, Long> timeValues = new HashMap<>();
+    for (TimeSeries timeSeries : result) {
+      for (TimeValue timeValue : timeSeries.getTimeValues()) {
+        timeValues.merge(timeValue.getTimestamp(), timeValue.getValue(), Long::sum);
+      }
+    }
+    return timeValues;
+  }
+
+  private FactTableSupplier getFactTableSupplier(final String name) {
+    return new FactTableSupplier() {
       @Override
       public FactTable get(int resolution, int rollTime) {
         String entityTableName = "EntityTable-" + name;
@@ -45,7 +124,5 @@ public class DefaultCubeTest extends AbstractCubeTest {
 
       }
     };
-
-    return new DefaultCube(resolutions, supplier, aggregations, ImmutableMap.<String, AggregationAlias>of());
   }
 }
@@ -38,6 +38,7 @@ import co.cask.cdap.common.namespace.NamespacedLocationFactory;
 import co.cask.cdap.data2.dataset2.DatasetFrameworkTestUtil;
 import co.cask.cdap.proto.id.DatasetId;
 import co.cask.cdap.test.SlowTests;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -238,6 +239,70 @@ public class PartitionedFileSetTest {
     Assert.assertFalse(baseLocation.exists());
   }
 
+  @Test
+  public void testFilterSkipScanAndIndex() throws Exception {
+    DatasetId id = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("testFilterSkipScanAndIndex");
+    dsFrameworkUtil.createInstance("partitionedFileSet", id, PartitionedFileSetProperties.builder()
+      .setPartitioning(PARTITIONING_1)
+      .setIndexedFields("l")
+      .build());
+    try {
+      final PartitionedFileSet pfs = dsFrameworkUtil.getInstance(id);
+      final Set<PartitionKey> allKeys = new HashSet<>();
+      for (String s : new String[] { "a", "b", "c" }) {
+        for (int i = 0; i < 10; i++) {
+          for (long l = 0; l < 5; l++) {
+            allKeys.add(PartitionKey.builder().addStringField("s", s).addIntField("i", i).addLongField("l", l).build());
+          }
+        }
+      }
+      dsFrameworkUtil.newInMemoryTransactionExecutor((TransactionAware) pfs).execute(
+        new TransactionExecutor.Subroutine() {
+          @Override
+          public void apply() throws Exception {
+            for (PartitionKey key : allKeys) {
+              pfs.addPartition(key, key.toString());
+            }
+          }
+        });
+
+      final List<PartitionFilter> filters = ImmutableList.of(
+        // skip-scan on non-leading fields
+        PartitionFilter.builder().addValueCondition("i", 3).build(),
+        PartitionFilter.builder().addRangeCondition("i", 7, null).build(),
+        // prefix scan with skip-scan on the following fields
+        PartitionFilter.builder().addValueCondition("s", "b").addRangeCondition("i", 8, null).build(),
+        PartitionFilter.builder().addRangeCondition("s", "a", "c").addValueCondition("l", 4L).build(),
+        // index lookup
+        PartitionFilter.builder().addRangeCondition("i", 2, 5).addValueCondition("l", 4L).build(),
+        PartitionFilter.builder().addRangeCondition("l", 1L, 3L).build(),
+        PartitionFilter.builder().addRangeCondition("i", 2, 4).addRangeCondition("l", null, 2L).build(),
+        PartitionFilter.builder().addValueCondition("l", 7L).build());
+
+      dsFrameworkUtil.newInMemoryTransactionExecutor((TransactionAware) pfs).execute(
+        new TransactionExecutor.Subroutine() {
+          @Override
+          public void apply() throws Exception {
+            for (PartitionFilter filter : filters) {
+              Set<PartitionKey> expected = new HashSet<>();
+              for (PartitionKey key : allKeys) {
+                if (filter.match(key)) {
+                  expected.add(key);
+                }
+              }
+              Set<PartitionKey> actual = new HashSet<>();
+              for (PartitionDetail partition : pfs.getPartitions(filter)) {
+                actual.add(partition.getPartitionKey());
+              }
+              Assert.assertEquals(filter.toString(), expected, actual);
+            }
+          }
+        });
+    } finally {
+      dsFrameworkUtil.deleteInstance(id);
+    }
+  }
+
   @Test
   public void testPartitionConsumer() throws Exception {
     // exercises the edge case of partition consumption, when partitions are being consumed, while another in-progress
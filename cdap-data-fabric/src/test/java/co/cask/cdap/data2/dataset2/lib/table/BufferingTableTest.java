@@ -31,6 +31,7 @@ import com.google.common.collect.Maps;
 import org.apache.tephra.Transaction;
 import org.apache.tephra.TransactionAware;
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -38,6 +39,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 /**
  * unit-test
@@ -541,6 +544,138 @@ public abstract class BufferingTableTest<T extends BufferingTable> extends Table
     Assert.assertNull(scan.next());
   }
 
+  @Test
+  public void testReadCache() throws Exception {
+    DatasetProperties props = TableProperties.builder().setReadCacheRows(2).build();
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE, props);
+    admin.create();
+    try {
+      Transaction tx = txClient.startShort();
+      BufferingTable table = getTable(CONTEXT1, MY_TABLE, props);
+      table.startTx(tx);
+      table.put(R1, a(C1, C2), a(V1, V2));
+      table.put(R2, a(C1), a(V1));
+      table.put(R3, a(C1), a(V1));
+      txClient.canCommitOrThrow(tx, table.getTxChanges());
+      Assert.assertTrue(table.commitTx());
+      txClient.commitOrThrow(tx);
+      table.postTxCommit();
+
+      tx = txClient.startShort();
+      table.startTx(tx);
+      // Repeated reads of whole row, columns, column range and multi-get should be consistent
+      for (int i = 0; i < 2; i++) {
+        TableAssert.assertRow(a(C1, V1, C2, V2), table.get(R1));
+        TableAssert.assertRow(a(C2, V2), table.get(R1, a(C2, C3)));
+        TableAssert.assertRow(a(C2, V2), table.get(R1, C2, null, 1));
+        TableAssert.assertRow(a(C1, V1), table.get(R2, a(C1)));
+        List<Row> rows = table.get(Lists.newArrayList(new Get(R1, C1), new Get(R3), new Get(R2, C1, C2)));
+        TableAssert.assertRow(a(C1, V1), rows.get(0));
+        TableAssert.assertRow(a(C1, V1), rows.get(1));
+        TableAssert.assertRow(a(C1, V1), rows.get(2));
+      }
+
+      // Buffered changes should be merged with cached rows
+      table.put(R1, a(C1), a(V3));
+      table.delete(R1, a(C2));
+      TableAssert.assertRow(a(C1, V3), table.get(R1));
+      TableAssert.assertRow(a(C1, V3), table.get(R1, a(C1, C2)));
+      table.put(R2, a(C2), lb(1L));
+      Assert.assertEquals(3L, Bytes.toLong(table.incrementAndGet(R2, a(C2), new long[] { 2L }).get(C2)));
+      TableAssert.assertRow(a(C1, V1, C2, Bytes.toBytes(3L)), table.get(R2));
+
+      txClient.canCommitOrThrow(tx, table.getTxChanges());
+      Assert.assertTrue(table.commitTx());
+      txClient.commitOrThrow(tx);
+      table.postTxCommit();
+
+      // Changes committed by another transaction should be visible in a new transaction
+      tx = txClient.startShort();
+      BufferingTable table2 = getTable(CONTEXT1, MY_TABLE, props);
+      table2.startTx(tx);
+      table2.put(R3, a(C1), a(V2));
+      txClient.canCommitOrThrow(tx, table2.getTxChanges());
+      Assert.assertTrue(table2.commitTx());
+      txClient.commitOrThrow(tx);
+      table2.postTxCommit();
+
+      tx = txClient.startShort();
+      table.startTx(tx);
+      TableAssert.assertRow(a(C1, V3), table.get(R1));
+      TableAssert.assertRow(a(C1, V1, C2, Bytes.toBytes(3L)), table.get(R2));
+      TableAssert.assertRow(a(C1, V2), table.get(R3));
+      table.commitTx();
+      txClient.abort(tx);
+    } finally {
+      admin.drop();
+    }
+  }
+
+  @Ignore
+  @Test
+  public void testMultiGetSpeed() throws Exception {
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE);
+    admin.create();
+    try {
+      int numRows = 100000;
+      Transaction tx = txClient.startShort();
+      BufferingTable table = getTable(CONTEXT1, MY_TABLE);
+      table.startTx(tx);
+      for (int i = 0; i < numRows; i++) {
+        table.put(Bytes.toBytes(i), a(C1, C2, C3), lb(i, i + 1, i + 2));
+      }
+      txClient.canCommitOrThrow(tx, table.getTxChanges());
+      Assert.assertTrue(table.commitTx());
+      txClient.commitOrThrow(tx);
+      table.postTxCommit();
+
+      tx = txClient.startShort();
+      table.startTx(tx);
+      Random random = new Random();
+      for (int batchSize : new int[] { 1, 10, 100, 1000, 10000 }) {
+        List<Get> gets = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+          // Random order of rows, half of the gets with columns
+          int row = random.nextInt(numRows);
+          gets.add(i % 2 == 0 ? new Get(Bytes.toBytes(row)) : new Get(Bytes.toBytes(row), C1, C3));
+        }
+        int iterations = Math.max(1, 100000 / batchSize);
+
+        long startTime = System.nanoTime();
+        List<Row> looped = new ArrayList<>();
+        for (int i = 0; i < iterations; i++) {
+          looped.clear();
+          for (Get get : gets) {
+            looped.add(table.get(get));
+          }
+        }
+        long loopedTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        List<Row> batched = null;
+        for (int i = 0; i < iterations; i++) {
+          batched = table.get(gets);
+        }
+        long batchedTime = System.nanoTime() - startTime;
+
+        Assert.assertEquals(looped.size(), batched.size());
+        for (int i = 0; i < looped.size(); i++) {
+          Assert.assertEquals(looped.get(i).getColumns().size(), batched.get(i).getColumns().size());
+          for (Map.Entry<byte[], byte[]> entry : looped.get(i).getColumns().entrySet()) {
+            Assert.assertArrayEquals(entry.getValue(), batched.get(i).get(entry.getKey()));
+          }
+        }
+        System.out.println(String.format("Batch size %d: looped gets %d ms, batched gets %d ms", batchSize,
+                                         TimeUnit.NANOSECONDS.toMillis(loopedTime),
+                                         TimeUnit.NANOSECONDS.toMillis(batchedTime)));
+      }
+      table.commitTx();
+      txClient.abort(tx);
+    } finally {
+      admin.drop();
+    }
+  }
+
   // This class looks weird, this is what we have to do to override persist method to make it throw exception in the
   // middle. NOTE: We want to test how every implementation of BufferingTable handles undoing changes in this
   // case, otherwise we would just test the method of BufferingTable directly.
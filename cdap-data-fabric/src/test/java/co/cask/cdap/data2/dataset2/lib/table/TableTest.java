@@ -17,6 +17,12 @@
 package co.cask.cdap.data2.dataset2.lib.table;
 
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.batch.FieldFilter;
+import co.cask.cdap.api.data.batch.FilterableRecordScannable;
+import co.cask.cdap.api.data.batch.RecordScanner;
+import co.cask.cdap.api.data.batch.Split;
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.DatasetAdmin;
 import co.cask.cdap.api.dataset.DatasetContext;
 import co.cask.cdap.api.dataset.DatasetProperties;
@@ -40,6 +46,7 @@ import co.cask.cdap.data2.dataset2.lib.table.hbase.HBaseTable;
 import co.cask.cdap.proto.id.NamespaceId;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -552,6 +559,77 @@ public abstract class TableTest<T extends Table> {
     txClient.abort(tx);
   }
 
+  @Test
+  public void testFilteredRecordScan() throws Exception {
+    Schema schema = Schema.recordOf("rec",
+                                    Schema.Field.of("id", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("count", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("name", Schema.of(Schema.Type.STRING)));
+    DatasetProperties props = TableProperties.builder().setSchema(schema).setRowFieldName("id").build();
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE, props);
+    admin.create();
+    try {
+      Transaction tx = txClient.startShort();
+      T table = getTable(CONTEXT1, MY_TABLE, props);
+      ((TransactionAware) table).startTx(tx);
+      for (int i = 0; i < 10; i++) {
+        table.put(new Put("r" + i).add("count", i).add("name", "n" + i));
+      }
+      txClient.canCommitOrThrow(tx, ((TransactionAware) table).getTxChanges());
+      Assert.assertTrue(((TransactionAware) table).commitTx());
+      txClient.commitOrThrow(tx);
+
+      tx = txClient.startShort();
+      ((TransactionAware) table).startTx(tx);
+      FilterableRecordScannable scannable = (FilterableRecordScannable) table;
+
+      // Only comparisons on the row field are handled
+      FieldFilter greater = new FieldFilter("id", FieldFilter.Operator.GREATER_THAN, "r2");
+      FieldFilter lessOrEqual = new FieldFilter("id", FieldFilter.Operator.LESS_THAN_OR_EQUAL, "r5");
+      FieldFilter count = new FieldFilter("count", FieldFilter.Operator.EQUAL, 3);
+      Assert.assertTrue(scannable.isFilterHandled(greater));
+      Assert.assertTrue(scannable.isFilterHandled(lessOrEqual));
+      Assert.assertFalse(scannable.isFilterHandled(count));
+
+      List<String> ids = new ArrayList<>();
+      for (Split split : scannable.getSplits(ImmutableList.of(greater, lessOrEqual, count))) {
+        RecordScanner<StructuredRecord> scanner = scannable.createSplitRecordScanner(split, ImmutableSet.of("id"));
+        scanner.initialize(split);
+        while (scanner.nextRecord()) {
+          StructuredRecord record = scanner.getCurrentRecord();
+          Assert.assertEquals(1, record.getSchema().getFields().size());
+          ids.add(record.<String>get("id"));
+        }
+        scanner.close();
+      }
+      Assert.assertEquals(ImmutableList.of("r3", "r4", "r5"), ids);
+
+      // Equality on the row field, with the projection of a non-row field
+      List<StructuredRecord> records = new ArrayList<>();
+      FieldFilter equal = new FieldFilter("id", FieldFilter.Operator.EQUAL, "r7");
+      for (Split split : scannable.getSplits(ImmutableList.of(equal))) {
+        RecordScanner<StructuredRecord> scanner = scannable.createSplitRecordScanner(split, ImmutableSet.of("name"));
+        scanner.initialize(split);
+        while (scanner.nextRecord()) {
+          records.add(scanner.getCurrentRecord());
+        }
+        scanner.close();
+      }
+      Assert.assertEquals(1, records.size());
+      Assert.assertEquals("n7", records.get(0).get("name"));
+      Assert.assertNull(records.get(0).getSchema().getField("count"));
+
+      // Disjoint ranges produce no splits
+      Assert.assertTrue(scannable.getSplits(ImmutableList.of(
+        new FieldFilter("id", FieldFilter.Operator.LESS_THAN, "r2"),
+        new FieldFilter("id", FieldFilter.Operator.GREATER_THAN_OR_EQUAL, "r5"))).isEmpty());
+      ((TransactionAware) table).rollbackTx();
+      txClient.abort(tx);
+    } finally {
+      admin.drop();
+    }
+  }
+
   @Test
   public void testBasicCompareAndSwapWithTx() throws Exception {
     DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE);
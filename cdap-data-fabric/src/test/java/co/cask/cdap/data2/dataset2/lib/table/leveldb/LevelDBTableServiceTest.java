@@ -38,7 +38,17 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
 import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -112,6 +122,57 @@ public class LevelDBTableServiceTest {
     Assert.assertEquals(table2Size, service.getTableStats().get(tableId2).getDiskSizeBytes());
   }
 
+  @Test
+  public void testConcurrentIncrement() throws Exception {
+    final String tableName = "cdap_default.concurrent_incr";
+    service.ensureTableExists(tableName);
+
+    // Increment the same rows from multiple threads, each with its own LevelDBTableCore
+    int threads = 8;
+    final int increments = 500;
+    final byte[] column = Bytes.toBytes("c");
+    final CyclicBarrier barrier = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+            barrier.await();
+            for (int j = 0; j < increments; j++) {
+              table.increment(Bytes.toBytes("row" + (j % 2)), Collections.singletonMap(column, 1L));
+
+              NavigableMap<byte[], NavigableMap<byte[], Long>> updates = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+              for (int k = 0; k < 3; k++) {
+                NavigableMap<byte[], Long> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+                columns.put(column, 1L);
+                updates.put(Bytes.toBytes("row" + k), columns);
+              }
+              table.increment(updates);
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+    Assert.assertEquals(threads * increments * 3 / 2,
+                        Bytes.toLong(table.getRow(Bytes.toBytes("row0"), null, null, null, -1, null).get(column)));
+    Assert.assertEquals(threads * increments * 3 / 2,
+                        Bytes.toLong(table.getRow(Bytes.toBytes("row1"), null, null, null, -1, null).get(column)));
+    Assert.assertEquals(threads * increments,
+                        Bytes.toLong(table.getRow(Bytes.toBytes("row2"), null, null, null, -1, null).get(column)));
+    service.dropTable(tableName);
+  }
+
   private void writeSome(String tableName) throws IOException {
     LevelDBTableCore table = new LevelDBTableCore(tableName, service);
     Random r = new Random();
@@ -18,6 +18,7 @@ package co.cask.cdap.explore.client;
 
 import co.cask.cdap.api.data.format.FormatSpecification;
 import co.cask.cdap.api.dataset.DatasetSpecification;
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
 import co.cask.cdap.api.dataset.lib.PartitionKey;
 import co.cask.cdap.common.ServiceUnavailableException;
 import co.cask.cdap.common.UnauthenticatedException;
@@ -54,6 +55,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -431,7 +433,8 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
   }
 
   /**
-   * Result iterator which polls Explore service using HTTP to get next results.
+   * Result iterator which polls Explore service using HTTP to get next results, or consumes the stream of results
+   * if result streaming is enabled.
    */
   private static final class ClientExploreExecutionResult extends AbstractIterator<QueryResult>
     implements ExploreExecutionResult {
@@ -441,6 +444,8 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
     private int fetchSize = DEFAULT_FETCH_SIZE;
     private Iterator<QueryResult> delegate;
     private List<ColumnDesc> resultSchema = null;
+    private boolean streamOpened;
+    private CloseableIterator<List<QueryResult>> stream;
 
     private final ExploreHttpClient exploreClient;
     private final QueryHandle handle;
@@ -467,9 +472,8 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
         return delegate.next();
       }
       try {
-        // call the endpoint 'next' to get more results and set delegate
-        List<QueryResult> nextResults = convertRows(exploreClient.nextResults(handle, fetchSize));
-        delegate = nextResults.iterator();
+        // get more results and set delegate
+        delegate = nextBatch().iterator();
 
         // At this point, if delegate has no result, there are no more results at all
         if (!delegate.hasNext()) {
@@ -486,6 +490,27 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
       }
     }
 
+    /**
+     * Returns the next batch of results from the result stream if it is available,
+     * otherwise by calling the endpoint 'next'.
+     */
+    private List<QueryResult> nextBatch() throws ExploreException, HandleNotFoundException {
+      if (!streamOpened && exploreClient.isResultStreamingEnabled()) {
+        streamOpened = true;
+        stream = exploreClient.streamResults(handle, fetchSize);
+      }
+      if (stream != null) {
+        // Streamed values keep their types, but still need to be converted to the same types as fetched pages
+        return convertRows(stream.hasNext() ? stream.next() : Collections.<QueryResult>emptyList());
+      }
+      return convertRows(exploreClient.nextResults(handle, fetchSize));
+    }
+
+    /**
+     * Converts the values of the given rows based on the result schema. Values of rows fetched from the 'next'
+     * endpoint are decoded from JSON, while streamed values keep the types of the server. Both are converted
+     * to the same types.
+     */
     private List<QueryResult> convertRows(List<QueryResult> rows) throws ExploreException {
       List<ColumnDesc> schema = getResultSchema();
       ImmutableList.Builder<QueryResult> builder = ImmutableList.builder();
@@ -509,7 +534,11 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
             } else if (schemaColumn.getType().equals("TINYINT")) {
               columnValue = ((Double) columnValue).byteValue();
             }
-          } else if ("BINARY".equals(columnType)) {
+          } else if (columnValue instanceof Float) {
+            // JSON has no float, hence fetched FLOAT values are doubles. The decimal representation is used to
+            // get the same double value as the one decoded from JSON.
+            columnValue = Double.valueOf(columnValue.toString());
+          } else if ("BINARY".equals(columnType) && !(columnValue instanceof byte[])) {
             // A BINARY value is a byte array, which is deserialized by GSon into a list of
             // double objects - here we recreate a byte[] object.
             List<Object> binary;
@@ -549,6 +578,9 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
 
     @Override
     public void close() throws IOException {
+      if (stream != null) {
+        stream.close();
+      }
       try {
         exploreClient.close(handle);
       } catch (HandleNotFoundException e) {
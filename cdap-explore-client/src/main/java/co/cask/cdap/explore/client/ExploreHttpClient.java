@@ -20,6 +20,8 @@ import co.cask.cdap.api.data.format.FormatSpecification;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.DatasetSpecification;
 import co.cask.cdap.api.dataset.ExploreProperties;
+import co.cask.cdap.api.dataset.lib.AbstractCloseableIterator;
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
 import co.cask.cdap.api.dataset.lib.PartitionKey;
 import co.cask.cdap.api.dataset.lib.PartitionedFileSetArguments;
 import co.cask.cdap.common.ServiceUnavailableException;
@@ -55,7 +57,10 @@ import co.cask.common.http.HttpResponse;
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
@@ -63,7 +68,12 @@ import com.google.gson.reflect.TypeToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
@@ -104,6 +114,14 @@ abstract class ExploreHttpClient implements Explore {
 
   protected abstract boolean verifySSLCert();
 
+  /**
+   * Returns whether query results should be streamed as binary batches instead of being fetched as JSON pages.
+   */
+  protected boolean isResultStreamingEnabled() {
+    // by default, results are fetched with the next results endpoint
+    return false;
+  }
+
   @Nullable
   protected String getUserId() {
     // by default, return null, it is only required to be set by DiscoveryExploreClient
@@ -301,6 +319,97 @@ abstract class ExploreHttpClient implements Explore {
     throw new ExploreException("Cannot get next results. Reason: " + response);
   }
 
+  /**
+   * Opens a stream of the results of a query, encoded as binary batches by {@link QueryResultBatches}.
+   * As with {@link #nextResults(QueryHandle, int)}, the results are consumed from the cursor of the query.
+   *
+   * @param handle the query handle
+   * @param batchSize the number of rows in each batch
+   * @return an iterator of batches of rows, or {@code null} if streaming is not available, in which case results
+   *         can still be fetched with {@link #nextResults(QueryHandle, int)}
+   */
+  @Nullable
+  CloseableIterator<List<QueryResult>> streamResults(QueryHandle handle, int batchSize) throws ExploreException {
+    if (isSSLEnabled() && !verifySSLCert()) {
+      // Trusting any certificate is only supported by the common http library, which buffers the whole response
+      return null;
+    }
+
+    // The cask common http library doesn't support read streaming, hence we use the HttpURLConnection directly.
+    String resolvedUrl = resolve(String.format("data/explore/queries/%s/%s", handle.getHandle(), "stream"));
+    try {
+      final HttpURLConnection urlConn = (HttpURLConnection) new URL(resolvedUrl).openConnection();
+      urlConn.setConnectTimeout(getHttpRequestConfig().getConnectTimeout());
+      urlConn.setReadTimeout(getHttpRequestConfig().getReadTimeout());
+      urlConn.setRequestMethod("POST");
+      Map<String, String> headers = addSecurityHeaders(null);
+      if (headers != null) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+          urlConn.setRequestProperty(header.getKey(), header.getValue());
+        }
+      }
+      urlConn.setDoOutput(true);
+      try (Writer writer = new OutputStreamWriter(urlConn.getOutputStream(), Charsets.UTF_8)) {
+        GSON.toJson(ImmutableMap.of("size", batchSize), writer);
+      }
+
+      int responseCode = urlConn.getResponseCode();
+      if (responseCode == HttpURLConnection.HTTP_NOT_FOUND || responseCode == HttpURLConnection.HTTP_BAD_METHOD
+        || (responseCode == HttpURLConnection.HTTP_OK
+        && !QueryResultBatches.CONTENT_TYPE.equalsIgnoreCase(urlConn.getContentType()))) {
+        // Either the handle is not found, or the Explore service doesn't support streaming.
+        // In both cases, let the next results endpoint decide.
+        urlConn.disconnect();
+        return null;
+      }
+      if (responseCode != HttpURLConnection.HTTP_OK) {
+        String message;
+        try (InputStream errorStream = urlConn.getErrorStream()) {
+          message = errorStream == null ? "" : new String(ByteStreams.toByteArray(errorStream), Charsets.UTF_8);
+        } finally {
+          urlConn.disconnect();
+        }
+        throw new ExploreException(String.format("Cannot stream results. Reason: %d %s", responseCode, message));
+      }
+
+      final DataInputStream input = new DataInputStream(new BufferedInputStream(urlConn.getInputStream()));
+      return new AbstractCloseableIterator<List<QueryResult>>() {
+
+        private boolean closed;
+
+        @Override
+        protected List<QueryResult> computeNext() {
+          if (closed) {
+            return endOfData();
+          }
+          try {
+            List<QueryResult> batch = QueryResultBatches.read(input);
+            if (batch == null) {
+              close();
+              return endOfData();
+            }
+            return batch;
+          } catch (IOException e) {
+            close();
+            throw Throwables.propagate(e);
+          }
+        }
+
+        @Override
+        public void close() {
+          if (!closed) {
+            closed = true;
+            Closeables.closeQuietly(input);
+            urlConn.disconnect();
+          }
+        }
+      };
+    } catch (IOException e) {
+      throw new ExploreException(String.format("Error connecting to Explore Service at %s to stream results",
+                                               resolvedUrl), e);
+    }
+  }
+
   @Override
   public List<QueryResult> previewResults(QueryHandle handle)
     throws ExploreException, HandleNotFoundException, SQLException {
@@ -28,13 +28,20 @@ public class FixedAddressExploreClient extends AbstractExploreClient {
   private final String authToken;
   private final boolean sslEnabled;
   private final boolean verifySSLCert;
+  private final boolean resultStreamingEnabled;
 
   public FixedAddressExploreClient(String host, int port, @Nullable String authToken,
                                    boolean sslEnabled, boolean verifySSLCert) {
+    this(host, port, authToken, sslEnabled, verifySSLCert, false);
+  }
+
+  public FixedAddressExploreClient(String host, int port, @Nullable String authToken,
+                                   boolean sslEnabled, boolean verifySSLCert, boolean resultStreamingEnabled) {
     this.addr = InetSocketAddress.createUnresolved(host, port);
     this.authToken = authToken;
     this.sslEnabled = sslEnabled;
     this.verifySSLCert = verifySSLCert;
+    this.resultStreamingEnabled = resultStreamingEnabled;
   }
 
   @Override
@@ -56,4 +63,9 @@ public class FixedAddressExploreClient extends AbstractExploreClient {
   protected boolean verifySSLCert() {
     return verifySSLCert;
   }
+
+  @Override
+  protected boolean isResultStreamingEnabled() {
+    return resultStreamingEnabled;
+  }
 }
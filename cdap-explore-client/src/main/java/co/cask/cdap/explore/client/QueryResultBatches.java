@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.explore.client;
+
+import co.cask.cdap.proto.QueryResult;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Helper class for the binary encoding of query results used by the streaming results endpoint.
+ * Results are written as a sequence of column batches, each of
+ *
+ * <pre>
+ *   [row count][column count][column 1 values]...[column n values]
+ * </pre>
+ *
+ * where the values of a column are written one after the other for all rows of the batch, each as a one byte type
+ * tag followed by the value in {@link DataOutput} encoding. The end of the results is marked by a single
+ * {@link #END_OF_BATCHES} row count. Unlike the JSON encoding, values keep their types, so numbers and
+ * binary values don't need to be converted back using the result schema.
+ */
+public final class QueryResultBatches {
+
+  /**
+   * Content type of the streaming results response.
+   */
+  public static final String CONTENT_TYPE = "application/x-cdap-query-result-batches";
+
+  /**
+   * The row count value that marks the end of batches.
+   */
+  public static final int END_OF_BATCHES = -1;
+
+  private static final byte NULL = 0;
+  private static final byte BOOLEAN = 1;
+  private static final byte BYTE = 2;
+  private static final byte SHORT = 3;
+  private static final byte INT = 4;
+  private static final byte LONG = 5;
+  private static final byte FLOAT = 6;
+  private static final byte DOUBLE = 7;
+  private static final byte STRING = 8;
+  private static final byte BYTES = 9;
+
+  /**
+   * Writes the given rows as one batch. Values of types other than the primitive types, strings and byte arrays
+   * are written as strings.
+   *
+   * @param output the {@link DataOutput} to write to
+   * @param rows the rows to write, which must all have the same number of columns
+   * @throws IOException if failed to write
+   */
+  public static void write(DataOutput output, List<QueryResult> rows) throws IOException {
+    if (rows.isEmpty()) {
+      return;
+    }
+    int columnCount = rows.get(0).getColumns().size();
+    output.writeInt(rows.size());
+    output.writeInt(columnCount);
+    for (int column = 0; column < columnCount; column++) {
+      for (QueryResult row : rows) {
+        List<Object> columns = row.getColumns();
+        if (columns.size() != columnCount) {
+          throw new IOException("Row and batch length differ: " + columns.size() + " != " + columnCount);
+        }
+        writeValue(output, columns.get(column));
+      }
+    }
+  }
+
+  /**
+   * Writes the end of batches marker.
+   */
+  public static void writeEnd(DataOutput output) throws IOException {
+    output.writeInt(END_OF_BATCHES);
+  }
+
+  /**
+   * Reads the next batch of rows from the given {@link DataInput}.
+   *
+   * @return the rows of the batch, or {@code null} if reached the end of batches
+   * @throws IOException if failed to read or the batch is malformed
+   */
+  @Nullable
+  public static List<QueryResult> read(DataInput input) throws IOException {
+    int rowCount = input.readInt();
+    if (rowCount == END_OF_BATCHES) {
+      return null;
+    }
+    int columnCount = input.readInt();
+    if (rowCount < 0 || columnCount < 0) {
+      throw new IOException("Invalid batch size " + rowCount + "x" + columnCount);
+    }
+    Object[][] values = new Object[rowCount][columnCount];
+    for (int column = 0; column < columnCount; column++) {
+      for (int row = 0; row < rowCount; row++) {
+        values[row][column] = readValue(input);
+      }
+    }
+    List<QueryResult> rows = new ArrayList<>(rowCount);
+    for (Object[] row : values) {
+      rows.add(new QueryResult(Arrays.asList(row)));
+    }
+    return rows;
+  }
+
+  private static void writeValue(DataOutput output, @Nullable Object value) throws IOException {
+    if (value == null) {
+      output.writeByte(NULL);
+    } else if (value instanceof Boolean) {
+      output.writeByte(BOOLEAN);
+      output.writeBoolean((Boolean) value);
+    } else if (value instanceof Byte) {
+      output.writeByte(BYTE);
+      output.writeByte((Byte) value);
+    } else if (value instanceof Short) {
+      output.writeByte(SHORT);
+      output.writeShort((Short) value);
+    } else if (value instanceof Integer) {
+      output.writeByte(INT);
+      output.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      output.writeByte(LONG);
+      output.writeLong((Long) value);
+    } else if (value instanceof Float) {
+      output.writeByte(FLOAT);
+      output.writeFloat((Float) value);
+    } else if (value instanceof Double) {
+      output.writeByte(DOUBLE);
+      output.writeDouble((Double) value);
+    } else if (value instanceof byte[]) {
+      output.writeByte(BYTES);
+      writeBytes(output, (byte[]) value);
+    } else {
+      output.writeByte(STRING);
+      writeBytes(output, value.toString().getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  @Nullable
+  private static Object readValue(DataInput input) throws IOException {
+    byte type = input.readByte();
+    switch (type) {
+      case NULL:
+        return null;
+      case BOOLEAN:
+        return input.readBoolean();
+      case BYTE:
+        return input.readByte();
+      case SHORT:
+        return input.readShort();
+      case INT:
+        return input.readInt();
+      case LONG:
+        return input.readLong();
+      case FLOAT:
+        return input.readFloat();
+      case DOUBLE:
+        return input.readDouble();
+      case STRING:
+        return new String(readBytes(input), StandardCharsets.UTF_8);
+      case BYTES:
+        return readBytes(input);
+      default:
+        throw new IOException("Invalid value type " + type);
+    }
+  }
+
+  private static void writeBytes(DataOutput output, byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInput input) throws IOException {
+    int length = input.readInt();
+    if (length < 0) {
+      throw new IOException("Invalid value length " + length);
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  private QueryResultBatches() {
+    // protect the constructor
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.explore.client;
+
+import co.cask.cdap.proto.QueryResult;
+import com.google.common.collect.ImmutableList;
+import com.google.common.reflect.TypeToken;
+import com.google.gson.Gson;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link QueryResultBatches}.
+ */
+public class QueryResultBatchesTest {
+
+  private static final Gson GSON = new Gson();
+  private static final Type ROW_LIST_TYPE = new TypeToken<List<QueryResult>>() { }.getType();
+
+  @Test
+  public void testEncoding() throws IOException {
+    List<QueryResult> batch1 = ImmutableList.of(
+      new QueryResult(Arrays.<Object>asList(true, (byte) 1, (short) 2, 3, 4L, 5.0f, 6.0d, "s1",
+                                            new byte[] { 1, 2 }, null)),
+      new QueryResult(Arrays.<Object>asList(false, (byte) -1, (short) -2, -3, -4L, -5.0f, -6.0d, "",
+                                            new byte[0], new BigDecimal("1.5")))
+    );
+    List<QueryResult> batch2 = ImmutableList.of(new QueryResult(Arrays.<Object>asList(null, "ä")));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    QueryResultBatches.write(output, batch1);
+    // empty batches are not written
+    QueryResultBatches.write(output, ImmutableList.<QueryResult>of());
+    QueryResultBatches.write(output, batch2);
+    QueryResultBatches.writeEnd(output);
+
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    List<QueryResult> decoded = QueryResultBatches.read(input);
+    Assert.assertNotNull(decoded);
+    Assert.assertEquals(2, decoded.size());
+    for (int i = 0; i < batch1.size(); i++) {
+      List<Object> expected = new ArrayList<>(batch1.get(i).getColumns());
+      List<Object> actual = decoded.get(i).getColumns();
+      // byte arrays are compared by content, and other types are written as strings
+      Assert.assertArrayEquals((byte[]) expected.get(8), (byte[]) actual.get(8));
+      expected.set(8, actual.get(8));
+      if (expected.get(9) != null) {
+        expected.set(9, expected.get(9).toString());
+      }
+      Assert.assertEquals(expected, actual);
+    }
+    Assert.assertEquals(batch2, QueryResultBatches.read(input));
+    Assert.assertNull(QueryResultBatches.read(input));
+  }
+
+  @Test(expected = IOException.class)
+  public void testMismatchedColumns() throws IOException {
+    QueryResultBatches.write(new DataOutputStream(new ByteArrayOutputStream()),
+                             ImmutableList.of(new QueryResult(ImmutableList.<Object>of(1, 2)),
+                                              new QueryResult(ImmutableList.<Object>of(1))));
+  }
+
+  @Ignore
+  @Test
+  public void testBenchmark() throws IOException {
+    int totalRows = 2000000;
+    int batchSize = 1000;
+    List<QueryResult> batch = new ArrayList<>();
+    for (int i = 0; i < batchSize; i++) {
+      batch.add(new QueryResult(ImmutableList.<Object>of(i, (long) i * 1000, "name" + i, i / 3.0d, i % 2 == 0)));
+    }
+
+    for (int run = 0; run < 3; run++) {
+      // JSON pages, as returned by the next results endpoint
+      long startTime = System.nanoTime();
+      long jsonBytes = 0;
+      for (int rows = 0; rows < totalRows; rows += batchSize) {
+        byte[] page = GSON.toJson(batch).getBytes(StandardCharsets.UTF_8);
+        jsonBytes += page.length;
+        List<QueryResult> decoded = GSON.fromJson(new String(page, StandardCharsets.UTF_8), ROW_LIST_TYPE);
+        Assert.assertEquals(batchSize, decoded.size());
+      }
+      long jsonTime = System.nanoTime() - startTime;
+
+      // Binary batches, as returned by the stream endpoint
+      startTime = System.nanoTime();
+      long binaryBytes = 0;
+      for (int rows = 0; rows < totalRows; rows += batchSize) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        QueryResultBatches.write(new DataOutputStream(bytes), batch);
+        byte[] chunk = bytes.toByteArray();
+        binaryBytes += chunk.length;
+        List<QueryResult> decoded = QueryResultBatches.read(new DataInputStream(new ByteArrayInputStream(chunk)));
+        Assert.assertEquals(batchSize, decoded.size());
+      }
+      long binaryTime = System.nanoTime() - startTime;
+
+      System.out.printf("JSON pages: %d ms, %d bytes. Binary batches: %d ms, %d bytes.%n",
+                        TimeUnit.NANOSECONDS.toMillis(jsonTime), jsonBytes,
+                        TimeUnit.NANOSECONDS.toMillis(binaryTime), binaryBytes);
+    }
+  }
+}
@@ -40,7 +40,8 @@ public class ExploreConnectionParams {
     NAMESPACE("namespace"),
     SSL_ENABLED("ssl.enabled"),
     VERIFY_SSL_CERT("verify.ssl.cert"),
-    FETCH_SIZE("fetch.size");
+    FETCH_SIZE("fetch.size"),
+    STREAM_RESULTS("stream.results");
 
     private final String name;
 
@@ -69,9 +69,12 @@ public class ExploreDriver implements Driver {
     String namespace = getString(params, ExploreConnectionParams.Info.NAMESPACE, NamespaceId.DEFAULT.getNamespace());
     boolean sslEnabled = getBoolean(params, ExploreConnectionParams.Info.SSL_ENABLED, false);
     boolean verifySSLCert = getBoolean(params, ExploreConnectionParams.Info.VERIFY_SSL_CERT, true);
+    // Stream results as binary batches, which falls back to fetching JSON pages if the server doesn't support it
+    boolean streamResults = getBoolean(params, ExploreConnectionParams.Info.STREAM_RESULTS, true);
 
     ExploreClient exploreClient =
-      new FixedAddressExploreClient(params.getHost(), params.getPort(), authToken, sslEnabled, verifySSLCert);
+      new FixedAddressExploreClient(params.getHost(), params.getPort(), authToken, sslEnabled, verifySSLCert,
+                                    streamResults);
     try {
       exploreClient.ping();
     } catch (UnauthenticatedException e) {
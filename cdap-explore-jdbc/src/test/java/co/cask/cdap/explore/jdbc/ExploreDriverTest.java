@@ -17,6 +17,7 @@
 package co.cask.cdap.explore.jdbc;
 
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.explore.client.QueryResultBatches;
 import co.cask.cdap.proto.ColumnDesc;
 import co.cask.cdap.proto.QueryHandle;
 import co.cask.cdap.proto.QueryResult;
@@ -32,7 +33,9 @@ import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.junit.AfterClass;
@@ -40,6 +43,8 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -172,6 +177,51 @@ public class ExploreDriverTest {
     statement.close();
   }
 
+  @Test
+  public void testStreamResults() throws Exception {
+    Connection connection = DriverManager.getConnection(exploreServiceUrl);
+    PreparedStatement statement = connection.prepareStatement(MockExploreExecutorHandler.STREAM_QUERY);
+    ResultSet resultSet = statement.executeQuery();
+
+    // Results are streamed in two batches
+    for (int i = 1; i <= 3; i++) {
+      Assert.assertTrue(resultSet.next());
+      Assert.assertEquals(i, resultSet.getInt(1));
+      Assert.assertEquals("row" + i, resultSet.getString(2));
+    }
+    Assert.assertFalse(resultSet.next());
+    resultSet.close();
+    statement.close();
+
+    // With streaming disabled, the same query is fetched through the next results endpoint
+    connection = DriverManager.getConnection(exploreServiceUrl + "&stream.results=false");
+    statement = connection.prepareStatement(MockExploreExecutorHandler.STREAM_QUERY);
+    resultSet = statement.executeQuery();
+    Assert.assertTrue(resultSet.next());
+    Assert.assertEquals(1, resultSet.getInt(1));
+    Assert.assertEquals("one", resultSet.getString(2));
+    resultSet.close();
+    statement.close();
+  }
+
+  @Test
+  public void testResultTypes() throws Exception {
+    // Values have the same types whether the results are streamed or fetched as JSON pages
+    for (String url : ImmutableList.of(exploreServiceUrl, exploreServiceUrl + "&stream.results=false")) {
+      Connection connection = DriverManager.getConnection(url);
+      PreparedStatement statement = connection.prepareStatement(MockExploreExecutorHandler.TYPED_QUERY);
+      ResultSet resultSet = statement.executeQuery();
+      Assert.assertTrue(resultSet.next());
+      Assert.assertEquals(1, resultSet.getObject(1));
+      Assert.assertEquals(1.1d, resultSet.getObject(2));
+      Assert.assertArrayEquals(new byte[] { 98, 111, 98 }, (byte[]) resultSet.getObject(3));
+      Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) resultSet.getObject(4));
+      Assert.assertFalse(resultSet.next());
+      resultSet.close();
+      statement.close();
+    }
+  }
+
   @Test(timeout = 2000L)
   public void testCancelQuery() throws Exception {
     Connection connection = DriverManager.getConnection(exploreServiceUrl);
@@ -199,11 +249,19 @@ public class ExploreDriverTest {
   @Path(Constants.Gateway.API_VERSION_3)
   public static class MockExploreExecutorHandler extends AbstractHttpHandler {
     static final String LONG_RUNNING_QUERY = "long_running_query";
+    static final String STREAM_QUERY = "stream_query";
+    static final String TYPED_QUERY = "typed_query";
+
+    // Values of a row as returned by the explore service. Some versions of Hive return array<tinyint> as string.
+    private static final QueryResult TYPED_ROW =
+      new QueryResult(ImmutableList.<Object>of(1, 1.1f, "[98,111,98]", new byte[] { 1, 2, 3 }));
 
     private static final Set<String> handleWithFetchedResutls = Sets.newHashSet();
     private static final Set<String> closedHandles = Sets.newHashSet();
     private static final Set<String> canceledHandles = Sets.newHashSet();
     private static final Set<String> longRunningQueries = Sets.newHashSet();
+    private static final Set<String> streamQueries = Sets.newHashSet();
+    private static final Set<String> typedQueries = Sets.newHashSet();
 
     @GET
     @Path("explore/status")
@@ -220,6 +278,12 @@ public class ExploreDriverTest {
         if (LONG_RUNNING_QUERY.equals(args.get("query"))) {
           longRunningQueries.add(handle.getHandle());
         }
+        if (STREAM_QUERY.equals(args.get("query"))) {
+          streamQueries.add(handle.getHandle());
+        }
+        if (TYPED_QUERY.equals(args.get("query"))) {
+          typedQueries.add(handle.getHandle());
+        }
         responder.sendJson(HttpResponseStatus.OK, GSON.toJson(handle));
       } catch (IOException e) {
         responder.sendStatus(HttpResponseStatus.INTERNAL_SERVER_ERROR);
@@ -265,6 +329,14 @@ public class ExploreDriverTest {
           new ColumnDesc("column1", "INT", 1, ""),
           new ColumnDesc("column2", "STRING", 2, "")
       );
+      if (typedQueries.contains(id)) {
+        schema = ImmutableList.of(
+          new ColumnDesc("column1", "INT", 1, ""),
+          new ColumnDesc("column2", "FLOAT", 2, ""),
+          new ColumnDesc("column3", "array<tinyint>", 3, ""),
+          new ColumnDesc("column4", "BINARY", 4, "")
+        );
+      }
       responder.sendJson(HttpResponseStatus.OK, GSON.toJson(schema));
     }
 
@@ -277,13 +349,42 @@ public class ExploreDriverTest {
       }
       List<QueryResult> rows = Lists.newArrayList();
       if (!canceledHandles.contains(id) && !handleWithFetchedResutls.contains(id)) {
-        rows.add(new QueryResult(ImmutableList.<Object>of("1", "one")));
-        rows.add(new QueryResult(ImmutableList.<Object>of("2", "two")));
+        if (typedQueries.contains(id)) {
+          rows.add(TYPED_ROW);
+        } else {
+          rows.add(new QueryResult(ImmutableList.<Object>of("1", "one")));
+          rows.add(new QueryResult(ImmutableList.<Object>of("2", "two")));
+        }
         handleWithFetchedResutls.add(id);
       }
       responder.sendJson(HttpResponseStatus.OK, GSON.toJson(rows));
     }
 
+    @POST
+    @Path("data/explore/queries/{id}/stream")
+    public void streamQueryResults(HttpRequest request, HttpResponder responder,
+                                   @PathParam("id") String id) throws IOException {
+      // Only streams results of the stream query, to test the fallback to the next endpoint for other queries
+      if (closedHandles.contains(id) || !(streamQueries.contains(id) || typedQueries.contains(id))) {
+        responder.sendStatus(HttpResponseStatus.NOT_FOUND);
+        return;
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(bytes);
+      if (typedQueries.contains(id)) {
+        QueryResultBatches.write(output, ImmutableList.of(TYPED_ROW));
+      } else {
+        QueryResultBatches.write(output, ImmutableList.of(new QueryResult(ImmutableList.<Object>of(1, "row1")),
+                                                          new QueryResult(ImmutableList.<Object>of(2, "row2"))));
+        QueryResultBatches.write(output, ImmutableList.of(new QueryResult(ImmutableList.<Object>of(3, "row3"))));
+      }
+      QueryResultBatches.writeEnd(output);
+      output.flush();
+      responder.sendByteArray(HttpResponseStatus.OK, bytes.toByteArray(),
+                              new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE,
+                                                           QueryResultBatches.CONTENT_TYPE));
+    }
+
     private Map<String, String> decodeArguments(FullHttpRequest request) throws IOException {
       ByteBuf content = request.content();
       if (!content.isReadable()) {
@@ -17,6 +17,7 @@
 package co.cask.cdap.explore.executor;
 
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.explore.client.QueryResultBatches;
 import co.cask.cdap.explore.service.ExploreException;
 import co.cask.cdap.explore.service.ExploreService;
 import co.cask.cdap.explore.service.HandleNotFoundException;
@@ -31,8 +32,10 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.google.gson.Gson;
 import com.google.inject.Inject;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.slf4j.Logger;
@@ -196,6 +199,35 @@ public class ExploreQueryExecutorHttpHandler extends AbstractExploreQueryExecuto
     }
   }
 
+  @POST
+  @Path("data/explore/queries/{id}/stream")
+  public void streamQueryResults(FullHttpRequest request, HttpResponder responder,
+                                 @PathParam("id") String id) throws IOException {
+    // NOTE: this call is a POST because it is not idempotent: cursor of results is moved
+    try {
+      QueryHandle handle = QueryHandle.fromId(id);
+      if (handle.equals(QueryHandle.NO_OP)) {
+        responder.sendStatus(HttpResponseStatus.NOT_FOUND);
+        return;
+      }
+      Map<String, String> args = decodeArguments(request);
+      int size = args.containsKey("size") ? Integer.valueOf(args.get("size")) : DOWNLOAD_FETCH_CHUNK_SIZE;
+      if (size <= 0) {
+        throw new IllegalArgumentException("Batch size must be positive: " + size);
+      }
+      OperationInfo operationInfo = exploreService.getOperationInfo(handle);
+      responder.sendContent(HttpResponseStatus.OK,
+                            new QueryResultBatchesBodyProducer(exploreService, handle, operationInfo.getUGI(), size),
+                            new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE,
+                                                         QueryResultBatches.CONTENT_TYPE));
+    } catch (IllegalArgumentException e) {
+      LOG.debug("Got exception:", e);
+      responder.sendString(HttpResponseStatus.BAD_REQUEST, e.getMessage());
+    } catch (HandleNotFoundException e) {
+      responder.sendStatus(HttpResponseStatus.NOT_FOUND);
+    }
+  }
+
   @POST
   @Path("data/explore/queries/{id}/preview")
   public void getQueryResultPreview(HttpRequest request, HttpResponder responder,
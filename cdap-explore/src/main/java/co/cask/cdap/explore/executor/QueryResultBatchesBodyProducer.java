@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.explore.executor;
+
+import co.cask.cdap.explore.client.QueryResultBatches;
+import co.cask.cdap.explore.service.ExploreService;
+import co.cask.cdap.proto.QueryHandle;
+import co.cask.cdap.proto.QueryResult;
+import co.cask.cdap.security.impersonation.ImpersonationUtils;
+import co.cask.http.BodyProducer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * BodyProducer used for streaming the results of a Query as binary column batches, one batch per chunk.
+ * See {@link QueryResultBatches} for the encoding.
+ */
+final class QueryResultBatchesBodyProducer extends BodyProducer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(QueryResultBatchesBodyProducer.class);
+
+  private final ExploreService exploreService;
+  private final QueryHandle handle;
+  private final UserGroupInformation ugi;
+  private final int batchSize;
+
+  private boolean finished;
+
+  QueryResultBatchesBodyProducer(ExploreService exploreService, QueryHandle handle,
+                                 UserGroupInformation ugi, int batchSize) {
+    this.exploreService = exploreService;
+    this.handle = handle;
+    this.ugi = ugi;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public ByteBuf nextChunk() throws Exception {
+    if (finished) {
+      return Unpooled.EMPTY_BUFFER;
+    }
+
+    // Chunks are produced outside of the handler method, hence fetch the results as the query user
+    List<QueryResult> results = ImpersonationUtils.doAs(ugi, () -> exploreService.nextResults(handle, batchSize));
+    ByteBuf buffer = Unpooled.buffer();
+    try (ByteBufOutputStream output = new ByteBufOutputStream(buffer)) {
+      if (results.isEmpty()) {
+        QueryResultBatches.writeEnd(output);
+        finished = true;
+      } else {
+        QueryResultBatches.write(output, results);
+      }
+    }
+    return buffer;
+  }
+
+  @Override
+  public void finished() throws Exception {
+
+  }
+
+  @Override
+  public void handleError(Throwable cause) {
+    LOG.error("Received error while streaming query results.", cause);
+  }
+}
@@ -124,16 +124,22 @@ public class JsonStructuredRecordDatumReader extends StructuredRecordDatumReader
 
     JsonReader jsonReader = getJsonReader(decoder);
 
+    List<Schema.Field> fields = schema.getFields();
     jsonReader.beginObject();
     while (jsonReader.peek() != JsonToken.END_OBJECT) {
-      Schema.Field field = schema.getField(jsonReader.nextName(), fieldNameIgnoreCase);
-      if (field == null) {
+      String name = jsonReader.nextName();
+      int index = schema.getFieldIndex(name);
+      if (index < 0 && fieldNameIgnoreCase) {
+        Schema.Field field = schema.getField(name, true);
+        index = field == null ? -1 : schema.getFieldIndex(field.getName());
+      }
+      if (index < 0) {
         // Ignore unrecognized fields
         jsonReader.skipValue();
         continue;
       }
 
-      builder.set(field.getName(), decode(decoder, field.getSchema()));
+      builder.set(index, decode(decoder, fields.get(index).getSchema()));
     }
     jsonReader.endObject();
 
@@ -160,8 +160,9 @@ public class StructuredRecordDatumReader implements DatumReader<StructuredRecord
    */
   protected StructuredRecord decodeRecord(Decoder decoder, Schema schema) throws IOException {
     StructuredRecord.Builder builder = StructuredRecord.builder(schema);
-    for (Schema.Field field : schema.getFields()) {
-      builder.set(field.getName(), decode(decoder, field.getSchema()));
+    List<Schema.Field> fields = schema.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      builder.set(i, decode(decoder, fields.get(i).getSchema()));
     }
     return builder.build();
   }
@@ -28,6 +28,7 @@ import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -302,9 +303,16 @@ public class StructuredRecordDatumWriter implements DatumWriter<StructuredRecord
       throw new IOException("Expected StructuredRecord type. Got: " + record.getClass());
     }
 
+    StructuredRecord structuredRecord = (StructuredRecord) record;
+    // If the record has the same schema, the fields are in the same order and can be read by position
+    boolean sameSchema = recordSchema == structuredRecord.getSchema()
+      || recordSchema.equals(structuredRecord.getSchema());
+
     encodeRecordBegin(encoder, recordSchema);
-    for (Schema.Field field : recordSchema.getFields()) {
-      encodeRecordField(encoder, field, ((StructuredRecord) record).get(field.getName()));
+    List<Schema.Field> fields = recordSchema.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      Schema.Field field = fields.get(i);
+      encodeRecordField(encoder, field, sameSchema ? structuredRecord.get(i) : structuredRecord.get(field.getName()));
     }
     encodeRecordEnd(encoder, recordSchema);
   }
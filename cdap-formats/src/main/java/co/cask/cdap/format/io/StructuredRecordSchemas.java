@@ -0,0 +1,34 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.format.io;
+
+/**
+ * Constants for sharing {@link co.cask.cdap.api.data.format.StructuredRecord} schemas between processes ahead of
+ * serialization.
+ */
+public final class StructuredRecordSchemas {
+
+  /**
+   * Spark configuration for a json array of record schemas that are registered on every executor. Records of those
+   * schemas are serialized by the CDAP Kryo serializer with a schema fingerprint instead of the full schema.
+   */
+  public static final String SPARK_CONF = "spark.cdap.structured.record.schemas";
+
+  private StructuredRecordSchemas() {
+    // no-op
+  }
+}
@@ -22,6 +22,10 @@ import co.cask.cdap.api.data.schema.Schema;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -29,6 +33,9 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.TimeZone;
 
 /**
@@ -36,6 +43,53 @@ import java.util.TimeZone;
  */
 public class StructuredRecordBuilderTest {
 
+  @Test
+  public void testIndexedAccess() throws Exception {
+    Schema schema = Schema.recordOf("x",
+                                    Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("name", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("score", Schema.of(Schema.Type.DOUBLE)));
+    Assert.assertEquals(1, schema.getFieldIndex("name"));
+    Assert.assertEquals(-1, schema.getFieldIndex("missing"));
+
+    StructuredRecord record = StructuredRecord.builder(schema).set(0, 1).set("score", 2.5d).build();
+    Assert.assertEquals(1, (int) record.get("id"));
+    Assert.assertEquals(2.5d, (double) record.get(2), 0d);
+    Assert.assertNull(record.get(1));
+    Assert.assertNull(record.get("missing"));
+    Assert.assertEquals(StructuredRecord.builder(schema).set("id", 1).set("name", null).set(2, 2.5d).build(), record);
+
+    // the hash code is the same as with a map from field name to value
+    Map<String, Object> fields = new HashMap<>();
+    fields.put("id", 1);
+    fields.put("name", null);
+    fields.put("score", 2.5d);
+    Assert.assertEquals(Objects.hash(schema, fields), record.hashCode());
+
+    // java serialization
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+      output.writeObject(record);
+    }
+    try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      StructuredRecord copy = (StructuredRecord) input.readObject();
+      Assert.assertEquals(record, copy);
+      Assert.assertEquals(1, (int) copy.get(0));
+    }
+  }
+
+  @Test(expected = UnexpectedFormatException.class)
+  public void testInvalidIndex() {
+    Schema schema = Schema.recordOf("x", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+    StructuredRecord.builder(schema).set(1, 5);
+  }
+
+  @Test(expected = UnexpectedFormatException.class)
+  public void testIndexNullCheck() {
+    Schema schema = Schema.recordOf("x", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+    StructuredRecord.builder(schema).set(0, null);
+  }
+
   @Test
   public void testNullCheck() {
     Schema schema = Schema.recordOf("x", Schema.Field.of("x", Schema.of(Schema.Type.NULL)));
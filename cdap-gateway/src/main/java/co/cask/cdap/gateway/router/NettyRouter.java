@@ -22,6 +22,7 @@ import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.conf.SConfiguration;
 import co.cask.cdap.gateway.router.handlers.AuditLogHandler;
 import co.cask.cdap.gateway.router.handlers.AuthenticationHandler;
+import co.cask.cdap.gateway.router.handlers.HttpPipeliningHandler;
 import co.cask.cdap.gateway.router.handlers.HttpRequestRouter;
 import co.cask.cdap.gateway.router.handlers.HttpStatusRequestHandler;
 import co.cask.cdap.security.auth.AccessTokenTransformer;
@@ -169,6 +170,8 @@ public class NettyRouter extends AbstractIdleService {
   private ServerBootstrap createServerBootstrap(final ChannelGroup channelGroup) {
     EventLoopGroup bossGroup = createEventLoopGroup(serverBossThreadPoolSize, "router-server-boss-thread-%d");
     EventLoopGroup workerGroup = createEventLoopGroup(serverWorkerThreadPoolSize, "router-server-worker-thread-%d");
+    final HttpRequestRouter.ConnectionPool connectionPool =
+      new HttpRequestRouter.ConnectionPool(cConf.getInt(Constants.Router.CONNECTION_POOL_MAX_IDLE));
 
     return new ServerBootstrap()
       .group(bossGroup, workerGroup)
@@ -183,6 +186,8 @@ public class NettyRouter extends AbstractIdleService {
             pipeline.addLast("ssl", sslHandlerFactory.create(ch.alloc()));
           }
           pipeline.addLast("http-codec", new HttpServerCodec());
+          // Pipelined requests are handled one at a time, hence all handlers after it see at most one request
+          pipeline.addLast("http-pipelining", new HttpPipeliningHandler());
           pipeline.addLast("http-status-request-handler", new HttpStatusRequestHandler());
           if (securityEnabled) {
             pipeline.addLast("access-token-authenticator",
@@ -195,7 +200,7 @@ public class NettyRouter extends AbstractIdleService {
           // Always let the client to continue sending the request body after the authentication passed
           pipeline.addLast("expect-continue", new HttpServerExpectContinueHandler());
           // for now there's only one hardcoded rule, but if there will be more, we may want it generic and configurable
-          pipeline.addLast("http-request-handler", new HttpRequestRouter(cConf, serviceLookup));
+          pipeline.addLast("http-request-handler", new HttpRequestRouter(cConf, serviceLookup, connectionPool));
         }
       });
   }
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.gateway.router.handlers;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.LinkedList;
+import java.util.Queue;
+
+/**
+ * A {@link ChannelDuplexHandler} for supporting HTTP pipelining. It only lets one request at a time pass to the
+ * handlers after it. Messages of pipelined requests are buffered and passed on in order after the response of the
+ * current request is written and the current request is fully read, which guarantees that responses are written
+ * in the same order as the requests were received. Reading from the channel is suspended while there are buffered
+ * requests. Other handlers must change the channel auto read through {@link #setAutoRead(Channel, boolean)} so that
+ * they cannot resume reading while requests are buffered.
+ *
+ * This handler must be placed right after the HTTP codec, so that all handlers after it, which keep per request
+ * states, never see more than one request on the fly.
+ */
+public class HttpPipeliningHandler extends ChannelDuplexHandler {
+
+  private final Queue<Object> pendingMessages = new LinkedList<>();
+  private boolean requestInProgress;
+  private boolean requestCompleted;
+  private boolean responseCompleted;
+  private boolean informationalResponse;
+  private boolean readSuspended;
+
+  /**
+   * Sets the auto read of the given channel on behalf of handlers other than the {@link HttpPipeliningHandler}.
+   * If the channel has a {@link HttpPipeliningHandler}, reading is only resumed when there is no buffered request.
+   * This method must be called from the channel event loop.
+   */
+  public static void setAutoRead(Channel channel, boolean autoRead) {
+    HttpPipeliningHandler handler = channel.pipeline().get(HttpPipeliningHandler.class);
+    if (handler == null) {
+      channel.config().setAutoRead(autoRead);
+      return;
+    }
+    handler.readSuspended = !autoRead;
+    handler.updateAutoRead(channel);
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    // Pass the message on if there is no request buffered, and the message is either the start of a new request
+    // when there is no request in progress, or is the content of the request in progress.
+    if (pendingMessages.isEmpty() && (requestInProgress ? !requestCompleted : msg instanceof HttpRequest)) {
+      forward(ctx, msg);
+      return;
+    }
+    // Content without a request, which can only be left over from a request that failed to decode.
+    if (pendingMessages.isEmpty() && !requestInProgress) {
+      ReferenceCountUtil.release(msg);
+      return;
+    }
+
+    // Otherwise the message belongs to a pipelined request. Buffer it and stop reading from the channel
+    // until the current request is completed.
+    pendingMessages.add(msg);
+    updateAutoRead(ctx.channel());
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+    // Informational responses (e.g. 100-continue) don't complete the request
+    if (msg instanceof HttpResponse) {
+      informationalResponse = ((HttpResponse) msg).status().codeClass() == HttpStatusClass.INFORMATIONAL;
+    }
+    if (msg instanceof LastHttpContent && requestInProgress && !informationalResponse) {
+      responseCompleted = true;
+      schedulePendingMessages(ctx);
+    }
+    ctx.write(msg, promise);
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    Object msg = pendingMessages.poll();
+    while (msg != null) {
+      ReferenceCountUtil.release(msg);
+      msg = pendingMessages.poll();
+    }
+    ctx.fireChannelInactive();
+  }
+
+  /**
+   * Passes buffered messages to the next handler if the current request is completed, until a new request
+   * is passed on and fully read.
+   */
+  private void processPendingMessages(ChannelHandlerContext ctx) {
+    if (!requestInProgress || !requestCompleted || !responseCompleted) {
+      return;
+    }
+    requestInProgress = false;
+
+    boolean forwarded = false;
+    while (!pendingMessages.isEmpty() && !(requestInProgress && requestCompleted)) {
+      Object msg = pendingMessages.poll();
+      if (!requestInProgress && !(msg instanceof HttpRequest)) {
+        // Content without a request, which can only be left over from a request that failed to decode.
+        ReferenceCountUtil.release(msg);
+        continue;
+      }
+      forward(ctx, msg);
+      forwarded = true;
+    }
+
+    if (forwarded) {
+      ctx.fireChannelReadComplete();
+    }
+    if (pendingMessages.isEmpty() && ctx.channel().isActive()) {
+      updateAutoRead(ctx.channel());
+    }
+  }
+
+  /**
+   * Reads from the channel only if no handler suspended reading and there is no buffered request.
+   */
+  private void updateAutoRead(Channel channel) {
+    channel.config().setAutoRead(!readSuspended && pendingMessages.isEmpty());
+  }
+
+  /**
+   * Passes the given message to the next handler and updates the request state.
+   */
+  private void forward(ChannelHandlerContext ctx, Object msg) {
+    if (msg instanceof HttpRequest) {
+      requestInProgress = true;
+      requestCompleted = false;
+      responseCompleted = false;
+      informationalResponse = false;
+    }
+    if (msg instanceof LastHttpContent) {
+      requestCompleted = true;
+    }
+    ctx.fireChannelRead(msg);
+
+    // If the response was written before the request is fully read (e.g. an error response),
+    // pass on the pending requests once the request is fully read.
+    if (msg instanceof LastHttpContent && responseCompleted) {
+      schedulePendingMessages(ctx);
+    }
+  }
+
+  /**
+   * Schedules to process the pending messages in the channel event loop. It is done asynchronously so that
+   * handlers after this one can finish updating their states for the current request and response.
+   */
+  private void schedulePendingMessages(final ChannelHandlerContext ctx) {
+    ctx.executor().execute(new Runnable() {
+      @Override
+      public void run() {
+        processPendingMessages(ctx);
+      }
+    });
+  }
+}
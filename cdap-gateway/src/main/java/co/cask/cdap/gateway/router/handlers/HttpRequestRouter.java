@@ -34,6 +34,7 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
@@ -60,10 +61,13 @@ import java.io.Flushable;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.annotation.Nullable;
 import javax.net.ssl.SSLException;
 
@@ -79,14 +83,20 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
 
   private final CConfiguration cConf;
   private final RouterServiceLookup serviceLookup;
+  private final ConnectionPool connectionPool;
   private final Map<Discoverable, Queue<MessageSender>> messageSenders;
-  private int inflightRequests;
+  private boolean requestInProgress;
   private MessageSender currentMessageSender;
   private ChannelFutureListener failureResponseListener;
 
   public HttpRequestRouter(CConfiguration cConf, RouterServiceLookup serviceLookup) {
+    this(cConf, serviceLookup, new ConnectionPool(0));
+  }
+
+  public HttpRequestRouter(CConfiguration cConf, RouterServiceLookup serviceLookup, ConnectionPool connectionPool) {
     this.cConf = cConf;
     this.serviceLookup = serviceLookup;
+    this.connectionPool = connectionPool;
     this.messageSenders = new HashMap<>();
   }
 
@@ -97,22 +107,17 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
       ChannelFutureListener writeCompletedListener = getFailureResponseListener(inboundChannel);
 
       if (msg instanceof HttpRequest) {
-        inflightRequests++;
-        if (inflightRequests != 1) {
-          // This means there is concurrent request via HTTP pipelining.
-          // Simply return
-          // At the end of the first response, we'll respond to all the other requests as well
-          return;
-        }
+        // Pipelined requests are queued by the HttpPipeliningHandler, hence there is only one request in progress
+        requestInProgress = true;
 
         // Disable read until sending of this request object is completed successfully
         // This is for handling the initial connection delay
-        inboundChannel.config().setAutoRead(false);
+        HttpPipeliningHandler.setAutoRead(inboundChannel, false);
         writeCompletedListener = new ChannelFutureListener() {
           @Override
           public void operationComplete(ChannelFuture future) throws Exception {
             if (future.isSuccess()) {
-              inboundChannel.config().setAutoRead(true);
+              HttpPipeliningHandler.setAutoRead(inboundChannel, true);
             } else {
               getFailureResponseListener(inboundChannel).operationComplete(future);
             }
@@ -124,7 +129,7 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
         );
       }
 
-      if (inflightRequests == 1 && currentMessageSender != null) {
+      if (requestInProgress && currentMessageSender != null) {
         ReferenceCountUtil.retain(msg);
         currentMessageSender.send(msg, writeCompletedListener);
       }
@@ -145,14 +150,10 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
   public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
     ctx.writeAndFlush(msg, promise);
 
-    // When the response for the first request is completed, write N failure responses for pipelining requests (if any).
-    if (msg instanceof LastHttpContent) {
-      for (int i = 0; i < inflightRequests - 1; i++) {
-        ctx.writeAndFlush(createPipeliningNotSupported());
-      }
-      inflightRequests = 0;
-
-      // Recycle the message sender
+    // When the response is completed, recycle the message sender.
+    // Any remaining content of the request will not be forwarded.
+    if (msg instanceof LastHttpContent && requestInProgress) {
+      requestInProgress = false;
       if (currentMessageSender != null) {
         messageSenders.get(currentMessageSender.getDiscoverable()).add(currentMessageSender);
       }
@@ -170,14 +171,17 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
 
   @Override
   public void channelInactive(ChannelHandlerContext ctx) {
-    if (currentMessageSender != null) {
+    // Close the sender of the request in progress, since the response cannot be delivered
+    if (requestInProgress && currentMessageSender != null) {
       currentMessageSender.close();
     }
+    // Release the idle senders to the pool, so that the outbound connections can be reused by other inbound channels
     for (Map.Entry<Discoverable, Queue<MessageSender>> entry : messageSenders.entrySet()) {
       for (MessageSender sender : entry.getValue()) {
-        sender.close();
+        connectionPool.release(ctx.channel().eventLoop(), sender);
       }
     }
+    messageSenders.clear();
     ctx.fireChannelInactive();
   }
 
@@ -230,6 +234,13 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
       return sender;
     }
 
+    // Try to acquire an idle MessageSender released by other inbound channels
+    sender = connectionPool.acquire(inboundChannel, discoverable);
+    if (sender != null) {
+      LOG.trace("Reuse pooled message sender for {}", discoverable);
+      return sender;
+    }
+
     // Create new MessageSender
     sender = new MessageSender(cConf, inboundChannel, discoverable);
     LOG.trace("Create new message sender for {}", discoverable);
@@ -240,13 +251,6 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
     return request.method() + " " + request.uri() + " " + request.protocolVersion();
   }
 
-  private HttpResponse createPipeliningNotSupported() {
-    FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_IMPLEMENTED);
-    response.content().writeCharSequence("HTTP pipelining is not supported", StandardCharsets.UTF_8);
-    HttpUtil.setContentLength(response, response.content().readableBytes());
-    return response;
-  }
-
   private static HttpResponse createErrorResponse(Throwable cause) {
     FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
                                                             HttpResponseStatus.INTERNAL_SERVER_ERROR);
@@ -267,12 +271,14 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
     private final Queue<OutboundMessage> pendingMessages;
     private final Bootstrap clientBootstrap;
     private volatile SslContext sslContext;
+    private Channel inboundChannel;
     private Channel outboundChannel;
     private boolean closed;
     private boolean connecting;
 
-    private MessageSender(final CConfiguration cConf, final Channel inboundChannel, final Discoverable discoverable) {
+    private MessageSender(final CConfiguration cConf, Channel inboundChannel, final Discoverable discoverable) {
       this.discoverable = discoverable;
+      this.inboundChannel = inboundChannel;
       this.pendingMessages = new LinkedList<>();
 
       // A channel listener for resetting the state of this message sender on closing of outbound channel
@@ -304,7 +310,7 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
             pipeline.addLast("idle-state-handler",
                              new IdleStateHandler(0, 0, cConf.getInt(Constants.Router.CONNECTION_TIMEOUT_SECS)));
             pipeline.addLast("codec", new HttpClientCodec());
-            pipeline.addLast("forwarder", new OutboundHandler(inboundChannel));
+            pipeline.addLast("forwarder", new OutboundHandler(MessageSender.this.inboundChannel));
           }
         });
     }
@@ -380,6 +386,32 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
       return discoverable;
     }
 
+    /**
+     * Returns {@code true} if this sender is connected and has no request in progress, hence can be used
+     * by another inbound channel.
+     */
+    boolean isReusable() {
+      if (closed || connecting || outboundChannel == null || !outboundChannel.isActive()) {
+        return false;
+      }
+      OutboundHandler handler = outboundChannel.pipeline().get(OutboundHandler.class);
+      return handler != null && handler.isReusable();
+    }
+
+    /**
+     * Sets the inbound channel that responses received by this sender are forwarded to. The given channel must be
+     * using the same event loop as the one this sender was created with.
+     */
+    void setInboundChannel(Channel inboundChannel) {
+      this.inboundChannel = inboundChannel;
+      if (outboundChannel != null) {
+        OutboundHandler handler = outboundChannel.pipeline().get(OutboundHandler.class);
+        if (handler != null) {
+          handler.setInboundChannel(inboundChannel);
+        }
+      }
+    }
+
     /**
      * Returns the {@link SslContext} to be used for a given discoverable endpoint
      *
@@ -424,6 +456,75 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
     }
   }
 
+  /**
+   * A pool of idle outbound connections shared by all inbound channels of a router. Connections are pooled per
+   * {@link EventLoop}, so that a connection is only ever used by inbound channels of the event loop it was created
+   * with. Each pool is only accessed from its event loop thread, hence no extra synchronization is needed.
+   * Idle connections are closed by the idle state handler of the outbound channel, and are removed from the pool
+   * lazily when they are acquired.
+   */
+  public static final class ConnectionPool {
+
+    private final int maxIdlePerBackend;
+    private final ConcurrentMap<EventLoop, Map<Discoverable, Deque<MessageSender>>> pools;
+
+    /**
+     * Creates a pool that keeps at most the given number of idle connections per backend per event loop.
+     * A non-positive value disables pooling of connections across inbound channels.
+     */
+    public ConnectionPool(int maxIdlePerBackend) {
+      this.maxIdlePerBackend = maxIdlePerBackend;
+      this.pools = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Acquires an idle {@link MessageSender} for the given {@link Discoverable} and binds it to the given
+     * inbound channel. Returns {@code null} if there is no idle sender available.
+     */
+    @Nullable
+    private MessageSender acquire(Channel inboundChannel, Discoverable discoverable) {
+      Map<Discoverable, Deque<MessageSender>> pool = pools.get(inboundChannel.eventLoop());
+      Deque<MessageSender> senders = pool == null ? null : pool.get(discoverable);
+      if (senders == null) {
+        return null;
+      }
+
+      // Use the most recently released sender first, so that the least used connections can become idle and closed
+      MessageSender sender = senders.pollFirst();
+      while (sender != null) {
+        if (sender.isReusable()) {
+          sender.setInboundChannel(inboundChannel);
+          return sender;
+        }
+        sender.close();
+        sender = senders.pollFirst();
+      }
+      return null;
+    }
+
+    /**
+     * Releases the given {@link MessageSender} to the pool. The sender will be closed if it cannot be reused or
+     * the pool is full.
+     */
+    private void release(EventLoop eventLoop, MessageSender sender) {
+      if (maxIdlePerBackend <= 0 || !sender.isReusable()) {
+        sender.close();
+        return;
+      }
+
+      Deque<MessageSender> senders = pools.computeIfAbsent(eventLoop, k -> new HashMap<>())
+        .computeIfAbsent(sender.getDiscoverable(), k -> new LinkedList<>());
+
+      // Evict connections that were closed while idle
+      senders.removeIf(s -> !s.isReusable());
+      if (senders.size() >= maxIdlePerBackend) {
+        sender.close();
+        return;
+      }
+      senders.addFirst(sender);
+    }
+  }
+
   /**
    * A wrapper for a message and the {@link ChannelPromise} to use for writing to a {@link Channel}.
    */
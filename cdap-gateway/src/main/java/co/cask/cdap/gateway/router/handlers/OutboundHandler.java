@@ -37,7 +37,7 @@ import org.slf4j.LoggerFactory;
 public class OutboundHandler extends ChannelDuplexHandler {
   private static final Logger LOG = LoggerFactory.getLogger(OutboundHandler.class);
 
-  private final Channel inboundChannel;
+  private Channel inboundChannel;
   private boolean requestInProgress;
   private boolean keepAlive;
 
@@ -45,6 +45,21 @@ public class OutboundHandler extends ChannelDuplexHandler {
     this.inboundChannel = inboundChannel;
   }
 
+  /**
+   * Sets the inbound channel to forward responses to. It is used when the outbound connection is reused by
+   * another inbound channel.
+   */
+  void setInboundChannel(Channel inboundChannel) {
+    this.inboundChannel = inboundChannel;
+  }
+
+  /**
+   * Returns {@code true} if there is no request in progress and the connection can be kept alive for reuse.
+   */
+  boolean isReusable() {
+    return !requestInProgress && keepAlive;
+  }
+
   @Override
   public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
     // One receiving messages from the internal service, forward it to the inbound channel
@@ -84,11 +99,11 @@ public class OutboundHandler extends ChannelDuplexHandler {
         // the incoming traffic from the inboundChannel.
         if (channel.isWritable()) {
           LOG.trace("Setting inboundChannel readable.");
-          inboundChannel.config().setAutoRead(true);
+          HttpPipeliningHandler.setAutoRead(inboundChannel, true);
         } else {
           // If outboundChannel is saturated, do not read inboundChannel
           LOG.trace("Setting inboundChannel non-readable.");
-          inboundChannel.config().setAutoRead(false);
+          HttpPipeliningHandler.setAutoRead(inboundChannel, false);
         }
       });
     }
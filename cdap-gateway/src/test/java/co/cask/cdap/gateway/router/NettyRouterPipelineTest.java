@@ -41,12 +41,12 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpRequest;
-import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.util.ReferenceCountUtil;
@@ -73,6 +73,7 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -154,7 +155,7 @@ public class NettyRouterPipelineTest {
 
   @Test
   public void testHttpPipelining() throws Exception {
-    final BlockingQueue<HttpResponseStatus> responseStatuses = new LinkedBlockingQueue<>();
+    final BlockingQueue<FullHttpResponse> responses = new LinkedBlockingQueue<>();
     EventLoopGroup eventGroup = new NioEventLoopGroup();
 
     Bootstrap bootstrap = new Bootstrap()
@@ -169,8 +170,8 @@ public class NettyRouterPipelineTest {
           pipeline.addLast("handler", new ChannelInboundHandlerAdapter() {
             @Override
             public void channelRead(ChannelHandlerContext ctx, Object msg) {
-              if (msg instanceof HttpResponse) {
-                responseStatuses.add(((HttpResponse) msg).status());
+              if (msg instanceof FullHttpResponse) {
+                responses.add(((FullHttpResponse) msg).copy());
               }
               ReferenceCountUtil.release(msg);
             }
@@ -178,29 +179,36 @@ public class NettyRouterPipelineTest {
         }
       });
 
-    // Create a connection and make five consecutive HTTP call without waiting for the first to respond
+    // Create a connection and make five consecutive HTTP call without waiting for the first to respond.
+    // The first call is slow, so that all the other calls are pipelined behind it.
     InetSocketAddress address = ROUTER.getRouterAddress();
     Channel channel = bootstrap.connect(address.getHostName(), address.getPort()).sync().channel();
     for (int i = 0; i < 5; i++) {
-      HttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
-                                                       HttpMethod.GET, "/v1/sleep?sleepMillis=3000");
+      String path = i == 0 ? "/v1/sleep?sleepMillis=1000" : "/v1/echo/req" + i;
+      HttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, path);
       request.headers().set(HttpHeaderNames.HOST, HOSTNAME);
       channel.writeAndFlush(request);
     }
 
     // Should get the first response as normal one
-    HttpResponseStatus status = responseStatuses.poll(5, TimeUnit.SECONDS);
-    Assert.assertEquals(HttpResponseStatus.OK, status);
-
-    // The rest four should be failure responses
-    for (int i = 0; i < 4; i++) {
-      Assert.assertEquals(HttpResponseStatus.NOT_IMPLEMENTED, responseStatuses.poll(1, TimeUnit.SECONDS));
+    FullHttpResponse response = responses.poll(5, TimeUnit.SECONDS);
+    Assert.assertNotNull(response);
+    Assert.assertEquals(HttpResponseStatus.OK, response.status());
+    response.release();
+
+    // The rest four should be responded in the same order as the requests
+    for (int i = 1; i < 5; i++) {
+      response = responses.poll(5, TimeUnit.SECONDS);
+      Assert.assertNotNull(response);
+      Assert.assertEquals(HttpResponseStatus.OK, response.status());
+      Assert.assertEquals("req" + i, response.content().toString(StandardCharsets.UTF_8));
+      response.release();
     }
 
     eventGroup.shutdownGracefully();
     channel.close();
 
-    Assert.assertTrue(responseStatuses.isEmpty());
+    Assert.assertTrue(responses.isEmpty());
   }
 
   //Deploy word count app n times.
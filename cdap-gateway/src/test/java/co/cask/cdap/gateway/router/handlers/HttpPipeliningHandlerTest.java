@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.gateway.router.handlers;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link HttpPipeliningHandler}.
+ */
+public class HttpPipeliningHandlerTest {
+
+  @Test
+  public void testAutoReadWithPendingRequests() {
+    EmbeddedChannel channel = new EmbeddedChannel(new HttpPipeliningHandler());
+
+    // The first request is passed on, the pipelined one is buffered and reading is suspended
+    channel.writeInbound(createRequest("/first"));
+    channel.writeInbound(createRequest("/second"));
+    Assert.assertEquals("/first", readRequestUri(channel));
+    Assert.assertNull(channel.readInbound());
+    Assert.assertFalse(channel.config().isAutoRead());
+
+    // Other handlers cannot resume reading while there is a buffered request
+    HttpPipeliningHandler.setAutoRead(channel, true);
+    Assert.assertFalse(channel.config().isAutoRead());
+
+    // Completing the first response passes on the buffered request and resumes reading
+    channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+    channel.runPendingTasks();
+    Assert.assertEquals("/second", readRequestUri(channel));
+    Assert.assertTrue(channel.config().isAutoRead());
+
+    // Reading suspended by other handlers is not resumed when the buffered requests are drained
+    HttpPipeliningHandler.setAutoRead(channel, false);
+    channel.writeInbound(createRequest("/third"));
+    channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+    channel.runPendingTasks();
+    Assert.assertEquals("/third", readRequestUri(channel));
+    Assert.assertFalse(channel.config().isAutoRead());
+
+    HttpPipeliningHandler.setAutoRead(channel, true);
+    Assert.assertTrue(channel.config().isAutoRead());
+
+    channel.finishAndReleaseAll();
+  }
+
+  private FullHttpRequest createRequest(String uri) {
+    return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+  }
+
+  private String readRequestUri(EmbeddedChannel channel) {
+    FullHttpRequest request = channel.readInbound();
+    Assert.assertNotNull(request);
+    try {
+      return request.uri();
+    } finally {
+      ReferenceCountUtil.release(request);
+    }
+  }
+}
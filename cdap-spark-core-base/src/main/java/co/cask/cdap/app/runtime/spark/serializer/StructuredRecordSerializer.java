@@ -18,28 +18,84 @@ package co.cask.cdap.app.runtime.spark.serializer;
 
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.data.schema.SchemaHash;
 import co.cask.cdap.format.io.StructuredRecordDatumReader;
 import co.cask.cdap.format.io.StructuredRecordDatumWriter;
+import co.cask.cdap.format.io.StructuredRecordSchemas;
+import co.cask.cdap.internal.io.SchemaTypeAdapter;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.apache.spark.SparkEnv;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A Kryo {@link Serializer} for {@link StructuredRecord}.
+ *
+ * By default a record is serialized as the full schema followed by the record data, which is the layout used by
+ * earlier CDAP versions and hence readable from existing streaming checkpoints and persisted RDDs.
+ *
+ * Schemas listed in the {@link StructuredRecordSchemas#SPARK_CONF} Spark configuration are known to every executor,
+ * hence records of those schemas are serialized with a {@link #FINGERPRINT_MARKER} byte and the 16 bytes schema
+ * fingerprint instead of the full schema. The marker never starts a serialized schema string, so records in both
+ * layouts can always be read back.
  */
 public class StructuredRecordSerializer extends Serializer<StructuredRecord> {
 
   private static final StructuredRecordDatumWriter DATUM_WRITER = new StructuredRecordDatumWriter();
   private static final StructuredRecordDatumReader DATUM_READER = new StructuredRecordDatumReader();
+  private static final Gson GSON = new GsonBuilder()
+    .registerTypeAdapter(Schema.class, new SchemaTypeAdapter())
+    .create();
+  private static final Type SCHEMAS_TYPE = new TypeToken<List<Schema>>() { }.getType();
+  private static final int FINGERPRINT_LENGTH = 16;
+  // Kryo strings start with either a printable ascii character or a byte with the highest bit set
+  private static final byte FINGERPRINT_MARKER = 0;
+
+  // The last SPARK_CONF value and the schemas parsed from it, so that schemas are only parsed once per executor
+  private static volatile Map.Entry<String, Map<SchemaHash, Schema>> confSchemas;
+
+  private final Map<SchemaHash, Schema> knownSchemas;
+
+  public StructuredRecordSerializer() {
+    this(getConfSchemas());
+  }
+
+  @VisibleForTesting
+  StructuredRecordSerializer(Collection<Schema> knownSchemas) {
+    this(toSchemaMap(knownSchemas));
+  }
+
+  private StructuredRecordSerializer(Map<SchemaHash, Schema> knownSchemas) {
+    this.knownSchemas = knownSchemas;
+  }
 
   @Override
   public void write(Kryo kryo, Output output, StructuredRecord record) {
-    // First write out the schema
-    kryo.writeObject(output, record.getSchema());
+    // First write out the schema, either as fingerprint or the full schema
+    Schema schema = record.getSchema();
+    SchemaHash schemaHash = schema.getSchemaHash();
+    if (knownSchemas.containsKey(schemaHash)) {
+      output.writeByte(FINGERPRINT_MARKER);
+      output.writeBytes(schemaHash.toByteArray());
+    } else {
+      kryo.writeObject(output, schema);
+    }
     // Then write out the data
     try {
       DATUM_WRITER.encode(record, new KryoEncoder(output));
@@ -51,11 +107,49 @@ public class StructuredRecordSerializer extends Serializer<StructuredRecord> {
   @Override
   public StructuredRecord read(Kryo kryo, Input input, Class<StructuredRecord> type) {
     // Read the schema
-    Schema schema = kryo.readObject(input, Schema.class);
+    Schema schema;
+    if (input.readByte() == FINGERPRINT_MARKER) {
+      SchemaHash schemaHash = new SchemaHash(ByteBuffer.wrap(input.readBytes(FINGERPRINT_LENGTH)));
+      schema = knownSchemas.get(schemaHash);
+      if (schema == null) {
+        throw new KryoException("Schema with fingerprint " + schemaHash + " is not registered");
+      }
+    } else {
+      // The byte read belongs to the serialized schema, hence step back before reading it
+      input.setPosition(input.position() - 1);
+      schema = kryo.readObject(input, Schema.class);
+    }
     try {
       return DATUM_READER.read(new KryoDecoder(input), schema);
     } catch (IOException e) {
       throw new KryoException("Failed to decode StructuredRecord " + schema.getRecordName(), e);
     }
   }
+
+  /**
+   * Returns the schemas registered through the {@link StructuredRecordSchemas#SPARK_CONF} configuration of the current {@link SparkEnv}.
+   */
+  private static Map<SchemaHash, Schema> getConfSchemas() {
+    SparkEnv sparkEnv = SparkEnv.get();
+    String schemasJson = sparkEnv == null ? null : sparkEnv.conf().get(StructuredRecordSchemas.SPARK_CONF, null);
+    if (schemasJson == null) {
+      return Collections.emptyMap();
+    }
+
+    Map.Entry<String, Map<SchemaHash, Schema>> entry = confSchemas;
+    if (entry == null || !entry.getKey().equals(schemasJson)) {
+      List<Schema> schemas = GSON.fromJson(schemasJson, SCHEMAS_TYPE);
+      entry = new AbstractMap.SimpleImmutableEntry<>(schemasJson, toSchemaMap(schemas));
+      confSchemas = entry;
+    }
+    return entry.getValue();
+  }
+
+  private static Map<SchemaHash, Schema> toSchemaMap(Collection<Schema> schemas) {
+    Map<SchemaHash, Schema> schemaMap = new HashMap<>();
+    for (Schema schema : schemas) {
+      schemaMap.put(schema.getSchemaHash(), schema);
+    }
+    return Collections.unmodifiableMap(schemaMap);
+  }
 }
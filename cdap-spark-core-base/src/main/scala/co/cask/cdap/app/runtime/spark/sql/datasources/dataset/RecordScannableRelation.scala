@@ -16,6 +16,8 @@
 
 package co.cask.cdap.app.runtime.spark.sql.datasources.dataset
 
+import co.cask.cdap.api.data.batch.FieldFilter
+import co.cask.cdap.api.data.batch.FilterableRecordScannable
 import co.cask.cdap.api.data.batch.RecordScannable
 import co.cask.cdap.api.data.batch.Split
 import co.cask.cdap.api.data.batch.Splits
@@ -24,13 +26,20 @@ import co.cask.cdap.api.data.schema.UnsupportedTypeException
 import co.cask.cdap.api.dataset.Dataset
 import co.cask.cdap.api.spark.sql.DataFrames
 import co.cask.cdap.app.runtime.spark.SparkClassLoader
+import co.cask.cdap.app.runtime.spark.data.FilterableRecordScannableRDD
 import co.cask.cdap.app.runtime.spark.data.RecordScannableRDD
 import co.cask.cdap.proto.id.DatasetId
+import com.google.common.annotations.VisibleForTesting
 import org.apache.spark.rdd.RDD
 import org.apache.spark.sql.Row
 import org.apache.spark.sql.SQLContext
 import org.apache.spark.sql.sources.BaseRelation
+import org.apache.spark.sql.sources.EqualTo
 import org.apache.spark.sql.sources.Filter
+import org.apache.spark.sql.sources.GreaterThan
+import org.apache.spark.sql.sources.GreaterThanOrEqual
+import org.apache.spark.sql.sources.LessThan
+import org.apache.spark.sql.sources.LessThanOrEqual
 import org.apache.spark.sql.sources.PrunedFilteredScan
 import org.apache.spark.sql.types.StructType
 
@@ -40,7 +49,9 @@ import scala.collection.JavaConversions._
 import scala.reflect.ClassTag
 
 /**
-  *
+  * A [[org.apache.spark.sql.sources.BaseRelation]] for reading a [[co.cask.cdap.api.data.batch.RecordScannable]]
+  * dataset. If the dataset is a [[co.cask.cdap.api.data.batch.FilterableRecordScannable]], supported filters and
+  * the required columns are pushed down to the dataset.
   */
 private[dataset] class RecordScannableRelation(override val sqlContext: SQLContext,
                                                override val schema: StructType,
@@ -48,6 +59,21 @@ private[dataset] class RecordScannableRelation(override val sqlContext: SQLConte
                                                parameters: Map[String, String])
   extends BaseRelation with Serializable with PrunedFilteredScan {
 
+  override def unhandledFilters(filters: Array[Filter]): Array[Filter] = {
+    if (!RecordScannableRelation.isFilterPushDownSupported(parameters)) {
+      filters
+    } else {
+      val sec = SparkClassLoader.findFromContext().getSparkExecutionContext(false)
+      sec.createDatasetCompute()(datasetId.getNamespace, datasetId.getDataset, parameters, (dataset: Dataset) => {
+        dataset match {
+          case filterable: FilterableRecordScannable =>
+            RecordScannableRelation.determineUnhandledFilters(filters, filterable.isFilterHandled)
+          case _ => filters
+        }
+      })
+    }
+  }
+
   override def buildScan(requiredColumns: Array[String], filters: Array[Filter]): RDD[Row] = {
     val sparkClassLoader = SparkClassLoader.findFromContext()
     val sec = sparkClassLoader.getSparkExecutionContext(false)
@@ -59,10 +85,20 @@ private[dataset] class RecordScannableRelation(override val sqlContext: SQLConte
       // Create a target schema based on the query columns
       val rowSchema = StructType(requiredColumns.map(col => schema.fields(schema.fieldIndex(col))))
       // User may provide a custom set of splits from the query parameters
-      val inputSplits = parameters.get("input.splits")
+      val inputSplits = parameters.get(RecordScannableRelation.INPUT_SPLITS)
         .map(Splits.decode(_, new util.ArrayList[Split](), sparkClassLoader))
 
       dataset.asInstanceOf[RecordScannable[_]].getRecordType match {
+        case recordType if classOf[StructuredRecord] == recordType &&
+                           dataset.isInstanceOf[FilterableRecordScannable] => {
+          // Push down the filters and the required columns to the dataset
+          val filterable = dataset.asInstanceOf[FilterableRecordScannable]
+          val fieldFilters = filters.flatMap(RecordScannableRelation.toFieldFilter).toSeq
+          new FilterableRecordScannableRDD(sc, datasetId.getNamespace, datasetId.getDataset, parameters,
+                                           inputSplits.getOrElse(filterable.getSplits(fieldFilters)),
+                                           Some(requiredColumns.toSeq), driveHttpServiceURI)
+            .map(DataFrames.toRow(_, rowSchema))
+        }
         case recordType if classOf[StructuredRecord] == recordType => {
           val recordScannable = dataset.asInstanceOf[RecordScannable[StructuredRecord]]
           new RecordScannableRDD[StructuredRecord](sc, datasetId.getNamespace, datasetId.getDataset, parameters,
@@ -83,3 +119,51 @@ private[dataset] class RecordScannableRelation(override val sqlContext: SQLConte
     })
   }
 }
+
+/**
+  * Companion object to provide helper methods.
+  */
+private[dataset] object RecordScannableRelation {
+
+  private val INPUT_SPLITS = "input.splits"
+
+  /**
+    * Returns whether filters can be pushed down to the dataset. It is not the case if custom splits are provided
+    * in the parameters, since those splits are scanned as they are.
+    */
+  @VisibleForTesting
+  def isFilterPushDownSupported(parameters: Map[String, String]): Boolean = !parameters.contains(INPUT_SPLITS)
+
+  /**
+    * Determines the filters that are not fully applied by the dataset.
+    *
+    * @param filters the set of filters from the SQL expression, provided by Spark
+    * @param isFilterHandled function to tell whether a [[co.cask.cdap.api.data.batch.FieldFilter]] is fully applied
+    *                        by the dataset
+    * @return the filters that Spark needs to evaluate after the scan
+    */
+  @VisibleForTesting
+  def determineUnhandledFilters(filters: Array[Filter], isFilterHandled: FieldFilter => Boolean): Array[Filter] = {
+    filters.filterNot(filter => toFieldFilter(filter).exists(isFilterHandled))
+  }
+
+  /**
+    * Translates a Spark [[org.apache.spark.sql.sources.Filter]] to a [[co.cask.cdap.api.data.batch.FieldFilter]],
+    * if it is a comparison of a field with a non-null value.
+    */
+  def toFieldFilter(filter: Filter): Option[FieldFilter] = {
+    filter match {
+      case EqualTo(field, value) if value != null =>
+        Some(new FieldFilter(field, FieldFilter.Operator.EQUAL, value))
+      case LessThan(field, value) if value != null =>
+        Some(new FieldFilter(field, FieldFilter.Operator.LESS_THAN, value))
+      case LessThanOrEqual(field, value) if value != null =>
+        Some(new FieldFilter(field, FieldFilter.Operator.LESS_THAN_OR_EQUAL, value))
+      case GreaterThan(field, value) if value != null =>
+        Some(new FieldFilter(field, FieldFilter.Operator.GREATER_THAN, value))
+      case GreaterThanOrEqual(field, value) if value != null =>
+        Some(new FieldFilter(field, FieldFilter.Operator.GREATER_THAN_OR_EQUAL, value))
+      case _ => None
+    }
+  }
+}
@@ -19,6 +19,7 @@ package co.cask.cdap.app.runtime.spark.serializer;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.format.StructuredRecordStringConverter;
+import co.cask.cdap.format.io.StructuredRecordDatumWriter;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
@@ -29,6 +30,7 @@ import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 
 /**
  * Unit tests for various Kryo serializers in CDAP.
@@ -87,6 +89,97 @@ public class KryoSerializerTest {
                         StructuredRecordStringConverter.toJsonString(newRecord));
   }
 
+  @Test
+  public void testRegisteredSchema() {
+    Schema schema = createSchema();
+    StructuredRecord record = StructuredRecord.builder(schema)
+      .set("boolean", false)
+      .set("int", 1)
+      .set("long", 2L)
+      .set("float", 3.5f)
+      .set("double", 4.25d)
+      .set("string", "Hello")
+      .set("bytes", "Bytes".getBytes(StandardCharsets.UTF_8))
+      .set("enum", "c")
+      .set("array", new int[]{4, 5})
+      .set("map", ImmutableMap.of("4", 4))
+      .set("union", "union").build();
+
+    Kryo kryo = new Kryo();
+    kryo.addDefaultSerializer(Schema.class, SchemaSerializer.class);
+    kryo.addDefaultSerializer(StructuredRecord.class, StructuredRecordSerializer.class);
+    byte[] withSchema = serialize(kryo, record);
+
+    Kryo registeredKryo = new Kryo();
+    registeredKryo.addDefaultSerializer(Schema.class, SchemaSerializer.class);
+    registeredKryo.addDefaultSerializer(StructuredRecord.class,
+                                        new StructuredRecordSerializer(Collections.singleton(schema)));
+    byte[] withFingerprint = serialize(registeredKryo, record);
+
+    // Only the fingerprint should be written for registered schema
+    Assert.assertTrue(withFingerprint.length < withSchema.length);
+
+    StructuredRecord newRecord = registeredKryo.readObject(new Input(withFingerprint), StructuredRecord.class);
+    Assert.assertEquals(StructuredRecordStringConverter.toJsonString(record),
+                        StructuredRecordStringConverter.toJsonString(newRecord));
+
+    // Records written with the full schema can still be read
+    newRecord = registeredKryo.readObject(new Input(withSchema), StructuredRecord.class);
+    Assert.assertEquals(StructuredRecordStringConverter.toJsonString(record),
+                        StructuredRecordStringConverter.toJsonString(newRecord));
+  }
+
+  @Test
+  public void testReadOldFormat() throws IOException {
+    Schema schema = createSchema();
+    StructuredRecord record = StructuredRecord.builder(schema)
+      .set("boolean", true)
+      .set("int", 5)
+      .set("long", 6L)
+      .set("float", 7.5f)
+      .set("double", 8.25d)
+      .set("string", "Old")
+      .set("bytes", "Old Bytes".getBytes(StandardCharsets.UTF_8))
+      .set("enum", "b")
+      .set("array", new int[]{7, 8, 9})
+      .set("map", ImmutableMap.of("7", 7))
+      .set("union", "old").build();
+
+    Kryo kryo = new Kryo();
+    kryo.addDefaultSerializer(Schema.class, SchemaSerializer.class);
+
+    // Records written by earlier versions are the full schema followed by the record data
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (Output output = new Output(bos)) {
+      kryo.writeObject(output, schema);
+      new StructuredRecordDatumWriter().encode(record, new KryoEncoder(output));
+    }
+    byte[] oldBytes = bos.toByteArray();
+
+    kryo.addDefaultSerializer(StructuredRecord.class, StructuredRecordSerializer.class);
+    Assert.assertArrayEquals(oldBytes, serialize(kryo, record));
+    StructuredRecord newRecord = kryo.readObject(new Input(oldBytes), StructuredRecord.class);
+    Assert.assertEquals(StructuredRecordStringConverter.toJsonString(record),
+                        StructuredRecordStringConverter.toJsonString(newRecord));
+
+    // Serializer with registered schemas can also read them
+    Kryo registeredKryo = new Kryo();
+    registeredKryo.addDefaultSerializer(Schema.class, SchemaSerializer.class);
+    registeredKryo.addDefaultSerializer(StructuredRecord.class,
+                                        new StructuredRecordSerializer(Collections.singleton(schema)));
+    newRecord = registeredKryo.readObject(new Input(oldBytes), StructuredRecord.class);
+    Assert.assertEquals(StructuredRecordStringConverter.toJsonString(record),
+                        StructuredRecordStringConverter.toJsonString(newRecord));
+  }
+
+  private byte[] serialize(Kryo kryo, Object obj) {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (Output output = new Output(bos)) {
+      kryo.writeObject(output, obj);
+    }
+    return bos.toByteArray();
+  }
+
   private Schema createSchema() {
     return Schema.recordOf("record",
       Schema.Field.of("boolean", Schema.of(Schema.Type.BOOLEAN)),
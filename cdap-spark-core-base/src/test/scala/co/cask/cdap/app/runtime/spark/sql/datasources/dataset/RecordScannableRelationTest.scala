@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.app.runtime.spark.sql.datasources.dataset
+
+import co.cask.cdap.api.data.batch.FieldFilter
+import org.apache.spark.sql.sources.EqualTo
+import org.apache.spark.sql.sources.Filter
+import org.apache.spark.sql.sources.GreaterThan
+import org.apache.spark.sql.sources.IsNull
+import org.apache.spark.sql.sources.LessThanOrEqual
+import org.apache.spark.sql.sources.Or
+import org.junit.Assert
+import org.junit.Test
+
+/**
+  * Unit-test for [[RecordScannableRelation]] functions without launch Spark SQL.
+  */
+class RecordScannableRelationTest {
+
+  /**
+    * Test for the translation of Spark filters to field filters
+    */
+  @Test
+  def testToFieldFilter(): Unit = {
+    Assert.assertEquals(Some(new FieldFilter("id", FieldFilter.Operator.EQUAL, "a")),
+                        RecordScannableRelation.toFieldFilter(EqualTo("id", "a")))
+    Assert.assertEquals(Some(new FieldFilter("id", FieldFilter.Operator.LESS_THAN_OR_EQUAL, 10L)),
+                        RecordScannableRelation.toFieldFilter(LessThanOrEqual("id", 10L)))
+
+    // Comparison with null, and filters other than comparison are not translated
+    Assert.assertEquals(None, RecordScannableRelation.toFieldFilter(EqualTo("id", null)))
+    Assert.assertEquals(None, RecordScannableRelation.toFieldFilter(IsNull("id")))
+    Assert.assertEquals(None, RecordScannableRelation.toFieldFilter(Or(EqualTo("id", "a"), EqualTo("id", "b"))))
+  }
+
+  /**
+    * Test that only the filters handled by the dataset are reported as handled
+    */
+  @Test
+  def testUnhandledFilters(): Unit = {
+    // A dataset that only handles comparisons on the "id" field
+    val isFilterHandled = (filter: FieldFilter) => filter.getFieldName == "id"
+
+    val filters: Array[Filter] = Array(EqualTo("id", "a"), GreaterThan("id", "b"), EqualTo("name", "c"),
+                                       EqualTo("id", null), Or(EqualTo("id", "d"), EqualTo("id", "e")))
+    Assert.assertEquals(Seq(EqualTo("name", "c"), EqualTo("id", null), Or(EqualTo("id", "d"), EqualTo("id", "e"))),
+                        RecordScannableRelation.determineUnhandledFilters(filters, isFilterHandled).toSeq)
+  }
+
+  /**
+    * Test that filters are not pushed down when custom splits are provided
+    */
+  @Test
+  def testCustomSplits(): Unit = {
+    Assert.assertTrue(RecordScannableRelation.isFilterPushDownSupported(Map("other" -> "value")))
+    Assert.assertFalse(RecordScannableRelation.isFilterPushDownSupported(Map("input.splits" -> "splits")))
+  }
+}
@@ -35,6 +35,7 @@ public abstract class MessageFetcher {
   private boolean includeStart = true;
   private Long startTime;
   private Transaction transaction;
+  private long pollTimeoutMillis;
 
   // by default there is virtually no limit
   private int limit = Integer.MAX_VALUE;
@@ -96,6 +97,21 @@ public abstract class MessageFetcher {
     return this;
   }
 
+  /**
+   * Sets the maximum time to wait for new messages if there is no message available when fetching.
+   * By default, this is set to {@code 0}, meaning the fetch returns immediately.
+   *
+   * @param timeoutMillis maximum time in milliseconds to wait for new messages
+   * @return this instance
+   */
+  public MessageFetcher setPollTimeout(long timeoutMillis) {
+    if (timeoutMillis < 0) {
+      throw new IllegalArgumentException("Invalid poll timeout. Timeout must be >= 0");
+    }
+    this.pollTimeoutMillis = timeoutMillis;
+    return this;
+  }
+
   @Nullable
   protected byte[] getStartOffset() {
     return startOffset;
@@ -119,6 +135,10 @@ public abstract class MessageFetcher {
     return limit;
   }
 
+  protected long getPollTimeout() {
+    return pollTimeoutMillis;
+  }
+
   /**
    * Returns a {@link CloseableIterator} that iterates over messages fetched from the messaging system.
    *
@@ -0,0 +1,425 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.cache;
+
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.messaging.store.MessageFilter;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link MessageCache} backed by a fixed size ring buffer. Since TMS has a single writer per topic and entries
+ * are always added in strictly increasing order, the cache content is simply a sequence of slots between a head
+ * and a tail sequence number. This allows adding entries and reducing weight without any lock:
+ *
+ * - The single writer publishes a new slot and then advances the tail.
+ * - Weight reduction, either from the writer or from the fetchers, removes the oldest slot by advancing the head
+ *   with a compare-and-set, hence multiple reducers can run concurrently.
+ * - Fetchers binary search the sorted range between head and tail. Each slot carries the sequence number it was
+ *   written with, so that a fetcher can detect a slot being recycled by the writer and retry the scan.
+ *
+ * Updating entries mutates them in place, hence it acquires the write lock of a {@link ReadWriteLock}, which
+ * fetchers hold as a read lock while scanning. This way a fetcher never sees a partially updated entry. Updates
+ * are rare (e.g. on transaction rollback), so the read lock is normally uncontended.
+ *
+ * Besides the weight limits as described in {@link MessageCache}, the number of entries is also bounded by the
+ * capacity of the ring buffer. When the ring buffer is full, the oldest entry is removed on addition.
+ *
+ * @param <T> type of entry stored in the cache
+ */
+public class RingBufferMessageCache<T> implements MessageCache<T> {
+
+  private final AtomicReferenceArray<Slot<T>> slots;
+  private final int mask;
+  private final Comparator<T> comparator;
+  private final Weigher<T> weigher;
+  private final AtomicReference<Limits> limits;
+  private final MetricsContext metricsContext;
+  private final AtomicLong currentWeight;
+  private final AtomicBoolean needReduceWeight;
+  private final AtomicBoolean adding;
+  private final AtomicLong head;
+  private final ReadWriteLock updateLock;
+  private volatile long tail;
+
+  /**
+   * Creates a new instance of the cache.
+   *
+   * @param comparator a {@link Comparator} for ordering cache entries
+   * @param weigher a {@link Weigher} for computing the weight of each cache entry
+   * @param limits the limits for maintaining cache weight; see {@link MessageCache} for more detail
+   * @param metricsContext a {@link MetricsContext} for emitting metrics about this cache.
+   * @param capacity the maximum number of entries in the cache. It will be rounded up to the next power of two.
+   */
+  public RingBufferMessageCache(Comparator<T> comparator, Weigher<T> weigher, Limits limits,
+                                MetricsContext metricsContext, int capacity) {
+    Preconditions.checkArgument(capacity > 0 && capacity <= 1 << 30,
+                                "Capacity must be between 1 and 2^30, but got %s", capacity);
+    int size = Integer.highestOneBit(capacity);
+    size = size < capacity ? size << 1 : size;
+
+    this.slots = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+    this.comparator = comparator;
+    this.weigher = weigher;
+    this.limits = new AtomicReference<>(limits);
+    this.metricsContext = metricsContext;
+    this.currentWeight = new AtomicLong();
+    this.needReduceWeight = new AtomicBoolean();
+    this.adding = new AtomicBoolean();
+    this.head = new AtomicLong();
+    this.updateLock = new ReentrantReadWriteLock();
+  }
+
+  @Override
+  public Comparator<T> getComparator() {
+    return comparator;
+  }
+
+  @Override
+  public void addAll(Iterator<T> entries) {
+    if (!adding.compareAndSet(false, true)) {
+      // This is to guard against bug, otherwise this shouldn't happen
+      throw new ConcurrentModificationException(
+        "The MessageCache.addAll method shouldn't be called concurrently by multiple threads.");
+    }
+
+    try {
+      long newWeight = 0L;
+      long sequence = tail;
+
+      // The entry at (tail - 1) can only be overwritten by this writer, hence it is safe to read even if it has
+      // been removed by a concurrent weight reduction.
+      T largestEntry = head.get() < sequence ? slots.get(index(sequence - 1)).getEntry() : null;
+
+      int entriesAdded = 0;
+      while (entries.hasNext()) {
+        T entry = entries.next();
+        int weight = weigher.weight(entry);
+        newWeight = currentWeight.addAndGet(weight);
+        if (newWeight > limits.get().getHardLimit()) {
+          reduceWeight();
+          metricsContext.increment(METRICS_ADD_REDUCE_WEIGHT, 1L);
+          newWeight = currentWeight.get();
+        }
+
+        if (largestEntry != null && comparator.compare(largestEntry, entry) >= 0) {
+          // Entries must be in strictly increasing order
+          // Clear the cache to reset state. This is just for precaution, as this shouldn't happen,
+          // unless there is bug in the TMS system (from the caller side).
+          currentWeight.addAndGet(-1 * weight);
+          clear();
+          throw new IllegalArgumentException("Cache entry must be in strictly increasing order. " +
+                                               "Entry " + entry + " is smaller than or equal to " + largestEntry);
+        }
+
+        // Free up the slot to be written if the ring buffer is full
+        if (sequence - head.get() > mask) {
+          removeHead(sequence - mask);
+          metricsContext.increment(METRICS_ADD_REDUCE_WEIGHT, 1L);
+        }
+
+        // Publish the slot before advancing the tail so that it is visible to fetchers through the volatile write
+        slots.set(index(sequence), new Slot<>(sequence, entry, weight));
+        tail = ++sequence;
+        entriesAdded++;
+        largestEntry = entry;
+      }
+
+      metricsContext.increment(METRICS_ADD_REQUESTS, 1L);
+      metricsContext.increment(METRICS_ENTRIES_ADDED, entriesAdded);
+      metricsContext.gauge(METRICS_WEIGHT, newWeight);
+
+      if (newWeight > limits.get().getHardLimit()) {
+        reduceWeight();
+        metricsContext.increment(METRICS_ADD_REDUCE_WEIGHT, 1L);
+      } else if (newWeight > limits.get().getReduceTrigger()) {
+        needReduceWeight.compareAndSet(false, true);
+      }
+    } finally {
+      adding.set(false);
+    }
+  }
+
+  @Override
+  public Scanner<T> scan(T startEntry, boolean includeStart, int limit, MessageFilter<T> filter) {
+    List<T> entries = new ArrayList<>();
+    T firstInCache = null;
+
+    // Hold the read lock while scanning, so that entries are not updated while they are filtered and copied
+    updateLock.readLock().lock();
+    try {
+      boolean completed = false;
+      while (!completed) {
+        entries.clear();
+
+        // Head must be read before tail to have a valid range
+        long start = head.get();
+        long end = tail;
+        if (start >= end) {
+          break;
+        }
+
+        Slot<T> first = slots.get(index(start));
+        if (first.getSequence() != start) {
+          // The head slot was recycled, retry with the new head
+          continue;
+        }
+        firstInCache = first.getEntry();
+
+        long sequence = search(startEntry, includeStart, start, end);
+        if (sequence < 0) {
+          continue;
+        }
+
+        completed = true;
+        for (; sequence < end && entries.size() < limit; sequence++) {
+          Slot<T> slot = slots.get(index(sequence));
+          if (slot.getSequence() != sequence) {
+            // The writer caught up with this scan and recycled the slot, need to retry from the new head
+            completed = false;
+            break;
+          }
+
+          MessageFilter.Result result = filter.apply(slot.getEntry());
+          if (result == MessageFilter.Result.ACCEPT) {
+            entries.add(slot.getEntry());
+          } else if (result == MessageFilter.Result.HOLD) {
+            // Hold means not to scan more, so just break
+            break;
+          }
+        }
+      }
+    } finally {
+      updateLock.readLock().unlock();
+    }
+
+    metricsContext.increment(METRICS_SCAN_REQUESTS, 1L);
+
+    return new AbstractScanner<T>(entries.iterator(), firstInCache) {
+      @Override
+      void doClose() {
+        // Use compareAndSet to check if need to reduce weight. There will only be
+        // one winner to proceed with the reduce weight call.
+        if (needReduceWeight.compareAndSet(true, false)) {
+          reduceWeight();
+          metricsContext.increment(METRICS_SCAN_REDUCE_WEIGHT, 1L);
+        }
+      }
+    };
+  }
+
+  @Override
+  public void updateEntries(T startEntry, T endEntry, EntryUpdater<T> updater) {
+    // Entries are updated in place, hence block the fetchers, but never the writer
+    updateLock.writeLock().lock();
+    try {
+      long start = head.get();
+      long end = tail;
+      long sequence = search(startEntry, true, start, end);
+      while (sequence < 0) {
+        start = head.get();
+        end = tail;
+        sequence = search(startEntry, true, start, end);
+      }
+
+      T lower = sequence > start ? getEntry(sequence - 1) : null;
+      for (; sequence < end; sequence++) {
+        Slot<T> slot = slots.get(index(sequence));
+        if (slot.getSequence() != sequence) {
+          // The slot was recycled, meaning everything up to this point has been removed already
+          lower = null;
+          continue;
+        }
+        T entry = slot.getEntry();
+        if (comparator.compare(entry, endEntry) > 0) {
+          break;
+        }
+        T higher = sequence + 1 < end ? getEntry(sequence + 1) : null;
+
+        try {
+          updater.updateEntry(entry);
+        } catch (RuntimeException e) {
+          clear();
+          throw e;
+        }
+
+        // A quick check that the ordering hasn't been altered.
+        // It doesn't cover all possible case though. This is just a quick catch for bug in the caller.
+        if ((lower != null && comparator.compare(lower, entry) >= 0)
+          || (higher != null && comparator.compare(higher, entry) <= 0)) {
+          // This shouldn't happen, unless there is bug in the caller.
+          clear();
+          throw new IllegalStateException("Entry order should not be altered after update.");
+        }
+        lower = entry;
+      }
+    } finally {
+      updateLock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    removeHead(tail);
+  }
+
+  @Override
+  public void resize(Limits limits) {
+    this.limits.set(limits);
+    reduceWeight();
+  }
+
+  @Override
+  public Limits getLimits() {
+    return limits.get();
+  }
+
+  @Override
+  public long getCurrentWeight() {
+    return currentWeight.get();
+  }
+
+  /**
+   * Returns the capacity of the ring buffer.
+   */
+  @VisibleForTesting
+  int getCapacity() {
+    return slots.length();
+  }
+
+  /**
+   * Reduces the cache weight. Cached entries will be removed from the head until the cache weight is smaller than
+   * the min retain weight. It is safe to be called concurrently.
+   */
+  private void reduceWeight() {
+    int entriesRemoved = 0;
+    long sequence = head.get();
+    while (sequence < tail) {
+      Slot<T> slot = slots.get(index(sequence));
+      // If removing the next entry is smaller than the min weight, we are done with the reduce logic
+      if (slot.getSequence() == sequence
+        && currentWeight.get() - slot.getWeight() < limits.get().getMinRetain()) {
+        break;
+      }
+      if (slot.getSequence() == sequence && head.compareAndSet(sequence, sequence + 1)) {
+        currentWeight.addAndGet(-1 * slot.getWeight());
+        entriesRemoved++;
+      }
+      sequence = head.get();
+    }
+    metricsContext.increment(METRICS_ENTRIES_REMOVED, entriesRemoved);
+  }
+
+  /**
+   * Removes entries from the head until the head is at least at the given sequence.
+   */
+  private void removeHead(long untilSequence) {
+    int entriesRemoved = 0;
+    long sequence = head.get();
+    while (sequence < untilSequence) {
+      Slot<T> slot = slots.get(index(sequence));
+      if (slot.getSequence() == sequence && head.compareAndSet(sequence, sequence + 1)) {
+        currentWeight.addAndGet(-1 * slot.getWeight());
+        entriesRemoved++;
+      }
+      sequence = head.get();
+    }
+    metricsContext.increment(METRICS_ENTRIES_REMOVED, entriesRemoved);
+  }
+
+  /**
+   * Finds the sequence of the first entry in the range of [start, end) that is larger than (or equal to, if
+   * {@code inclusive} is {@code true}) the given entry.
+   *
+   * @return the sequence found, which can be {@code end} if all entries are smaller than the given entry;
+   *         or {@code -1} if the range is no longer valid due to the writer recycling slots in the range
+   */
+  private long search(T entry, boolean inclusive, long start, long end) {
+    long low = start;
+    long high = end;
+    while (low < high) {
+      long mid = (low + high) >>> 1;
+      Slot<T> slot = slots.get(index(mid));
+      if (slot.getSequence() != mid) {
+        return -1L;
+      }
+      int cmp = comparator.compare(slot.getEntry(), entry);
+      if (cmp < 0 || (cmp == 0 && !inclusive)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the entry of the given sequence or {@code null} if the slot was recycled.
+   */
+  @Nullable
+  private T getEntry(long sequence) {
+    Slot<T> slot = slots.get(index(sequence));
+    return slot.getSequence() == sequence ? slot.getEntry() : null;
+  }
+
+  private int index(long sequence) {
+    return (int) (sequence & mask);
+  }
+
+  /**
+   * An immutable slot in the ring buffer, carrying the sequence number that it was written with.
+   *
+   * @param <T> type of the entry
+   */
+  private static final class Slot<T> {
+    private final long sequence;
+    private final T entry;
+    private final int weight;
+
+    private Slot(long sequence, T entry, int weight) {
+      this.sequence = sequence;
+      this.entry = entry;
+      this.weight = weight;
+    }
+
+    long getSequence() {
+      return sequence;
+    }
+
+    T getEntry() {
+      return entry;
+    }
+
+    int getWeight() {
+      return weight;
+    }
+  }
+}
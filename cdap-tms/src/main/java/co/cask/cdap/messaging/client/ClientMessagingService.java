@@ -31,6 +31,7 @@ import co.cask.cdap.messaging.RollbackDetail;
 import co.cask.cdap.messaging.Schemas;
 import co.cask.cdap.messaging.StoreRequest;
 import co.cask.cdap.messaging.TopicMetadata;
+import co.cask.cdap.messaging.data.MessageFrames;
 import co.cask.cdap.messaging.data.RawMessage;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.proto.id.TopicId;
@@ -61,7 +62,9 @@ import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.TransactionCodec;
 import org.apache.twill.discovery.DiscoveryServiceClient;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Type;
@@ -335,18 +338,120 @@ public final class ClientMessagingService implements MessagingService {
    * Verifies the content-type in the header matches with the required type.
    */
   private void verifyContentType(Map<String, ? extends Collection<String>> headers, String requiredContentType) {
+    if (!requiredContentType.equalsIgnoreCase(getContentType(headers))) {
+      throw new IllegalArgumentException("Only " + requiredContentType + " content type is support.");
+    }
+  }
+
+  /**
+   * Returns the content-type in the header or {@code null} if it is absent.
+   */
+  @Nullable
+  private String getContentType(Map<String, ? extends Collection<String>> headers) {
     // Netty 4.1 has all headers set with lower case name
     // However, the cdap-http library doesn't handle it well, hence we iterate all headers instead of lookup in here
-    boolean passed = false;
     for (Map.Entry<String, ? extends Collection<String>> entry : headers.entrySet()) {
       if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(entry.getKey())) {
-        passed = requiredContentType.equalsIgnoreCase(Iterables.getFirst(entry.getValue(), null));
-        break;
+        return Iterables.getFirst(entry.getValue(), null);
       }
     }
-    if (!passed) {
-      throw new IllegalArgumentException("Only " + requiredContentType + " content type is support.");
+    return null;
+  }
+
+  /**
+   * Creates a {@link CloseableIterator} that decodes the messages in a fetch response body. The response is either
+   * in the framed encoding as described in {@link MessageFrames}, or an avro array of messages if the server
+   * doesn't support the framed encoding.
+   *
+   * @param contentType the content type of the response
+   * @param inputStream the {@link InputStream} for reading the response body
+   * @param closeAction the action to perform after the input stream is closed when the iterator is closed
+   * @return a {@link CloseableIterator} of the messages
+   * @throws IllegalArgumentException if the content type is not supported
+   */
+  @VisibleForTesting
+  static CloseableIterator<RawMessage> createMessagesIterator(@Nullable String contentType,
+                                                              final InputStream inputStream,
+                                                              final Runnable closeAction) throws IOException {
+    if (MessageFrames.CONTENT_TYPE.equalsIgnoreCase(contentType)) {
+      return createFramesIterator(inputStream, closeAction);
     }
+    if (!"avro/binary".equalsIgnoreCase(contentType)) {
+      throw new IllegalArgumentException("Only avro/binary content type is support.");
+    }
+
+    // Decode the avro array manually instead of using DatumReader in order to support streaming decode.
+    final Decoder decoder = DecoderFactory.get().binaryDecoder(inputStream, null);
+    final long initialItemCount = decoder.readArrayStart();
+    // These are for reading individual message (response is an array of messages)
+    final DatumReader<GenericRecord> messageReader =
+      new GenericDatumReader<>(Schemas.V1.ConsumeResponse.SCHEMA.getElementType());
+    return new AbstractCloseableIterator<RawMessage>() {
+
+      private long itemCount = initialItemCount;
+      private GenericRecord messageRecord = new GenericData.Record(Schemas.V1.ConsumeResponse.SCHEMA.getElementType());
+
+      @Override
+      protected RawMessage computeNext() {
+        if (initialItemCount == 0) {
+          return endOfData();
+        }
+
+        try {
+          if (itemCount == 0) {
+            itemCount = decoder.arrayNext();
+            if (itemCount == 0) {
+              // The zero item count signals the end of the array
+              return endOfData();
+            }
+          }
+
+          itemCount--;
+
+          // Use DatumReader to decode individual message
+          // This provides greater flexibility on schema evolution.
+          // The response will likely always be an array, but the element schema can evolve.
+          messageRecord = messageReader.read(messageRecord, decoder);
+
+          return new RawMessage(Bytes.toBytes((ByteBuffer) messageRecord.get("id")),
+                                Bytes.toBytes((ByteBuffer) messageRecord.get("payload")));
+        } catch (IOException e) {
+          throw Throwables.propagate(e);
+        }
+      }
+
+      @Override
+      public void close() {
+        Closeables.closeQuietly(inputStream);
+        closeAction.run();
+      }
+    };
+  }
+
+  /**
+   * Creates a {@link CloseableIterator} that decodes messages from a response with framed encoding.
+   * Each message is read directly into its id and payload arrays, without any intermediate record.
+   */
+  private static CloseableIterator<RawMessage> createFramesIterator(final InputStream inputStream,
+                                                                    final Runnable closeAction) {
+    final DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+    return new AbstractCloseableIterator<RawMessage>() {
+      @Override
+      protected RawMessage computeNext() {
+        try {
+          RawMessage message = MessageFrames.read(input);
+          return message == null ? endOfData() : message;
+        } catch (IOException e) {
+          throw Throwables.propagate(e);
+        }
+      }
+
+      @Override
+      public void close() {
+        Closeables.closeQuietly(inputStream);
+        closeAction.run();
+      }
+    };
   }
 
   /**
@@ -368,15 +473,9 @@ public final class ClientMessagingService implements MessagingService {
   private final class ClientMessageFetcher extends MessageFetcher {
 
     private final TopicId topicId;
-    private final DatumReader<GenericRecord> messageReader;
-    private GenericRecord messageRecord;
 
     private ClientMessageFetcher(TopicId topicId) {
       this.topicId = topicId;
-
-      // These are for reading individual message (response is an array of messages)
-      this.messageRecord = new GenericData.Record(Schemas.V1.ConsumeResponse.SCHEMA.getElementType());
-      this.messageReader = new GenericDatumReader<>(Schemas.V1.ConsumeResponse.SCHEMA.getElementType());
     }
 
     @Override
@@ -398,12 +497,17 @@ public final class ClientMessagingService implements MessagingService {
 
       // The cask common http library doesn't support read streaming, and we don't want to buffer all messages
       // in memory, hence we use the HttpURLConnection directly instead.
-      URL url = remoteClient.resolve(createTopicPath(topicId) + "/poll");
+      // With long polling, the server may wait up to the poll timeout before responding
+      long pollTimeout = getPollTimeout();
+      String path = createTopicPath(topicId) + "/poll" + (pollTimeout > 0 ? "?timeout=" + pollTimeout : "");
+      URL url = remoteClient.resolve(path);
       final HttpURLConnection urlConn = (HttpURLConnection)  url.openConnection();
       urlConn.setConnectTimeout(HTTP_REQUEST_CONFIG.getConnectTimeout());
-      urlConn.setReadTimeout(HTTP_REQUEST_CONFIG.getReadTimeout());
+      urlConn.setReadTimeout((int) Math.min(Integer.MAX_VALUE, HTTP_REQUEST_CONFIG.getReadTimeout() + pollTimeout));
       urlConn.setRequestMethod("POST");
       urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "avro/binary");
+      // Prefer the framed response, which is cheaper to decode. Server that doesn't support it responds with avro.
+      urlConn.setRequestProperty(HttpHeaders.ACCEPT, MessageFrames.CONTENT_TYPE + ", avro/binary");
       urlConn.setDoInput(true);
       urlConn.setDoOutput(true);
 
@@ -428,51 +532,9 @@ public final class ClientMessagingService implements MessagingService {
           urlConn.disconnect();
         }
       }, "Failed to update topic " + topicId);
-      verifyContentType(urlConn.getHeaderFields(), "avro/binary");
-
-      // Decode the avro array manually instead of using DatumReader in order to support streaming decode.
-      final InputStream inputStream = urlConn.getInputStream();
-      final Decoder decoder = DecoderFactory.get().binaryDecoder(inputStream, null);
-      final long initialItemCount = decoder.readArrayStart();
-      return new AbstractCloseableIterator<RawMessage>() {
 
-        private long itemCount = initialItemCount;
-
-        @Override
-        protected RawMessage computeNext() {
-          if (initialItemCount == 0) {
-            return endOfData();
-          }
-
-          try {
-            if (itemCount == 0) {
-              itemCount = decoder.arrayNext();
-              if (itemCount == 0) {
-                // The zero item count signals the end of the array
-                return endOfData();
-              }
-            }
-
-            itemCount--;
-
-            // Use DatumReader to decode individual message
-            // This provides greater flexibility on schema evolution.
-            // The response will likely always be an array, but the element schema can evolve.
-            messageRecord = messageReader.read(messageRecord, decoder);
-
-            return new RawMessage(Bytes.toBytes((ByteBuffer) messageRecord.get("id")),
-                                  Bytes.toBytes((ByteBuffer) messageRecord.get("payload")));
-          } catch (IOException e) {
-            throw Throwables.propagate(e);
-          }
-        }
-
-        @Override
-        public void close() {
-          Closeables.closeQuietly(inputStream);
-          urlConn.disconnect();
-        }
-      };
+      return createMessagesIterator(getContentType(urlConn.getHeaderFields()), urlConn.getInputStream(),
+                                    urlConn::disconnect);
     }
   }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.context;
+
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
+import co.cask.cdap.api.messaging.Message;
+import co.cask.cdap.api.messaging.MessageFetcher;
+import co.cask.cdap.api.messaging.TopicNotFoundException;
+
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link MessageFetcher} that can wait for new messages to be published if there is no message available
+ * when fetching. This is for internal use only.
+ */
+public interface LongPollMessageFetcher extends MessageFetcher {
+
+  /**
+   * Fetches messages from the given topic that were published after a message, identified by the given
+   * message id. If there is no such message, it waits up to the given timeout for new messages.
+   *
+   * @param namespace namespace of the topic
+   * @param topic name of the topic
+   * @param limit maximum number of messages to fetch
+   * @param afterMessageId message id returned from the {@link Message#getId()} method from a prior call.
+   *                       If it is {@code null}, it will fetch from the first available message.
+   * @param timeoutMillis maximum time in milliseconds to wait for new messages
+   * @return a {@link CloseableIterator} of {@link Message}, which is empty if no new message is available
+   *         after the timeout
+   * @throws IOException if there was a failure to communicate with the messaging system
+   * @throws TopicNotFoundException if the give topic doesn't exist
+   */
+  CloseableIterator<Message> poll(String namespace, String topic, int limit, @Nullable String afterMessageId,
+                                  long timeoutMillis) throws TopicNotFoundException, IOException;
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.data;
+
+import java.io.DataInput;
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+/**
+ * Helper class for the framed encoding of fetched messages used by the v2 fetch protocol.
+ * Instead of an avro array of records, each {@link RawMessage} is encoded as a frame of
+ *
+ * <pre>
+ *   [id length][id bytes][payload length][payload bytes]
+ * </pre>
+ *
+ * with lengths written as 4 bytes big-endian integers. The end of the response is marked by a single
+ * {@link #END_OF_FRAMES} length. The frames can be written directly from the message byte arrays without
+ * creating intermediate record objects, and read directly into exact size byte arrays.
+ */
+public final class MessageFrames {
+
+  /**
+   * Content type of the framed fetch response. The client requests for it through the {@code Accept} header.
+   */
+  public static final String CONTENT_TYPE = "application/x-cdap-message-frames";
+
+  /**
+   * The length value that marks the end of frames.
+   */
+  public static final int END_OF_FRAMES = -1;
+
+  /**
+   * Reads the next {@link RawMessage} from the given {@link DataInput}.
+   *
+   * @return the {@link RawMessage} or {@code null} if reached the end of frames
+   * @throws IOException if failed to read or the frame is malformed
+   */
+  @Nullable
+  public static RawMessage read(DataInput input) throws IOException {
+    int idLength = input.readInt();
+    if (idLength == END_OF_FRAMES) {
+      return null;
+    }
+    byte[] id = readBytes(input, idLength);
+    byte[] payload = readBytes(input, input.readInt());
+    return new RawMessage(id, payload);
+  }
+
+  private static byte[] readBytes(DataInput input, int length) throws IOException {
+    if (length < 0) {
+      throw new IOException("Invalid message frame length " + length);
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  private MessageFrames() {
+    // protect the constructor
+  }
+}
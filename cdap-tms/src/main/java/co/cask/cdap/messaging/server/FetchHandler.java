@@ -20,6 +20,7 @@ import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.dataset.lib.CloseableIterator;
 import co.cask.cdap.api.messaging.TopicNotFoundException;
 import co.cask.cdap.common.BadRequestException;
+import co.cask.cdap.common.HttpExceptionHandler;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.ByteBuffers;
@@ -28,17 +29,22 @@ import co.cask.cdap.common.logging.Loggers;
 import co.cask.cdap.messaging.MessageFetcher;
 import co.cask.cdap.messaging.MessagingService;
 import co.cask.cdap.messaging.Schemas;
+import co.cask.cdap.messaging.data.MessageFrames;
 import co.cask.cdap.messaging.data.RawMessage;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.proto.id.TopicId;
 import co.cask.http.AbstractHttpHandler;
 import co.cask.http.BodyProducer;
+import co.cask.http.HandlerContext;
 import co.cask.http.HttpResponder;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
@@ -55,6 +61,7 @@ import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.TransactionCodec;
+import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,10 +72,17 @@ import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 
 /**
  * A netty http handler for handling message fetching REST API for the messaging system.
@@ -84,21 +98,40 @@ public final class FetchHandler extends AbstractHttpHandler {
     "Connection reset by peer",
     "Broken pipe"
   );
+  // Payloads not larger than this size are copied into the frame buffer instead of added as separate buffer
+  private static final int MAX_INLINE_PAYLOAD_SIZE = 512;
+  // Maximum time that a poll request can wait for new messages
+  private static final long MAX_POLL_TIMEOUT_MILLIS = 30000L;
 
   private final MessagingService messagingService;
+  private final ExecutorService pollExecutor;
+  private final HttpExceptionHandler exceptionHandler;
   private int messageChunkSize;
 
   @Inject
   FetchHandler(CConfiguration cConf, MessagingService messagingService) {
     this.messagingService = messagingService;
     this.messageChunkSize = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_CONSUME_CHUNK_SIZE);
+    // Poll requests that wait for new messages are executed in this executor so that they won't block the IO threads.
+    // It shrinks to 0 threads if left idle. When all threads are busy, requests are responded without waiting.
+    this.pollExecutor = new ThreadPoolExecutor(0, cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_POLL_THREADS),
+                                               60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                                               Threads.createDaemonThreadFactory("messaging-long-poll-%d"));
+    this.exceptionHandler = new HttpExceptionHandler();
+  }
+
+  @Override
+  public void destroy(HandlerContext context) {
+    super.destroy(context);
+    pollExecutor.shutdownNow();
   }
 
   @POST
   @Path("poll")
   public void poll(FullHttpRequest request, HttpResponder responder,
                    @PathParam("namespace") String namespace,
-                   @PathParam("topic") String topic) throws Exception {
+                   @PathParam("topic") String topic,
+                   @QueryParam("timeout") @DefaultValue("0") long timeoutMillis) throws Exception {
 
     TopicId topicId = new NamespaceId(namespace).topic(topic);
 
@@ -111,11 +144,67 @@ public final class FetchHandler extends AbstractHttpHandler {
     Decoder decoder = DecoderFactory.get().directBinaryDecoder(new ByteBufInputStream(request.content()), null);
     DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.ConsumeRequest.SCHEMA);
 
-    // Fetch the messages
-    CloseableIterator<RawMessage> iterator = fetchMessages(datumReader.read(null, decoder), topicId);
+    // Use the framed response if the client accepts it
+    String accept = request.headers().get(HttpHeaderNames.ACCEPT);
+    boolean framed = accept != null && accept.contains(MessageFrames.CONTENT_TYPE);
+
+    // Fetch the messages without waiting first
+    GenericRecord fetchRequest = datumReader.read(null, decoder);
+    long pollTimeoutMillis = Math.min(timeoutMillis, MAX_POLL_TIMEOUT_MILLIS);
+    CloseableIterator<RawMessage> iterator = fetchMessages(fetchRequest, topicId, 0L);
+    boolean waiting;
+    try {
+      waiting = pollTimeoutMillis > 0 && !iterator.hasNext()
+        && longPoll(request, responder, fetchRequest, topicId, pollTimeoutMillis, framed);
+    } catch (Throwable t) {
+      iterator.close();
+      throw t;
+    }
+    if (waiting) {
+      iterator.close();
+      return;
+    }
+    sendMessages(responder, iterator, framed);
+  }
+
+  /**
+   * Waits for new messages in the poll executor and responds to the request from there.
+   *
+   * @return {@code true} if the request will be responded by the poll executor; {@code false} if all poll threads
+   *         are busy, in which case the caller should respond without waiting
+   */
+  private boolean longPoll(FullHttpRequest request, HttpResponder responder, GenericRecord fetchRequest,
+                           TopicId topicId, long timeoutMillis, boolean framed) {
+    try {
+      pollExecutor.execute(() -> {
+        try {
+          sendMessages(responder, fetchMessages(fetchRequest, topicId, timeoutMillis), framed);
+        } catch (Throwable t) {
+          // The request is no longer handled by the http service, hence need to respond to the error explicitly
+          exceptionHandler.handle(t, request, responder);
+        }
+      });
+      return true;
+    } catch (RejectedExecutionException e) {
+      SAMPLING_LOG.warn("No thread available for waiting for messages from topic {}. Respond without waiting.",
+                        topicId);
+      return false;
+    }
+  }
+
+  /**
+   * Sends messages from the given {@link CloseableIterator} as the response. The iterator will be closed
+   * when the response is completed.
+   */
+  private void sendMessages(HttpResponder responder, CloseableIterator<RawMessage> iterator, boolean framed) {
     try {
-      responder.sendContent(HttpResponseStatus.OK, new MessagesBodyProducer(iterator, messageChunkSize),
-                            new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
+      if (framed) {
+        responder.sendContent(HttpResponseStatus.OK, new FramedMessagesBodyProducer(iterator, messageChunkSize),
+                              new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, MessageFrames.CONTENT_TYPE));
+      } else {
+        responder.sendContent(HttpResponseStatus.OK, new MessagesBodyProducer(iterator, messageChunkSize),
+                              new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
+      }
     } catch (Throwable t) {
       iterator.close();
       throw t;
@@ -125,9 +214,12 @@ public final class FetchHandler extends AbstractHttpHandler {
   /**
    * Creates a {@link CloseableIterator} of {@link RawMessage} based on the given fetch request.
    */
-  private CloseableIterator<RawMessage> fetchMessages(GenericRecord fetchRequest,
-                                                      TopicId topicId) throws IOException, TopicNotFoundException {
+  private CloseableIterator<RawMessage> fetchMessages(GenericRecord fetchRequest, TopicId topicId,
+                                                      long timeoutMillis) throws IOException, TopicNotFoundException {
     MessageFetcher fetcher = messagingService.prepareFetch(topicId);
+    if (timeoutMillis > 0) {
+      fetcher.setPollTimeout(timeoutMillis);
+    }
 
     Object startFrom = fetchRequest.get("startFrom");
     if (startFrom != null) {
@@ -161,7 +253,8 @@ public final class FetchHandler extends AbstractHttpHandler {
    * Instead of using GenericDatumWriter, we perform the array encoding manually so that we don't have to buffer
    * all messages in memory before sending out.
    */
-  private static class MessagesBodyProducer extends BodyProducer {
+  @VisibleForTesting
+  static class MessagesBodyProducer extends BodyProducer {
 
     private final CloseableIterator<RawMessage> iterator;
     private final List<RawMessage> messages;
@@ -250,18 +343,108 @@ public final class FetchHandler extends AbstractHttpHandler {
     @Override
     public void handleError(@Nullable Throwable cause) {
       iterator.close();
-      // Since response header is already sent, there is nothing we can send back to client. Simply log the failure
-      if (cause instanceof SocketException
-        || cause instanceof ClosedChannelException
-        || (cause instanceof IOException && KNOWN_IO_EXCEPTION_MESSAGES.contains(cause.getMessage()))) {
-        // This can easily caused by client close connection prematurely. Don't want to flood the log.
-        LOG.trace("Connection closed by client prematurely while sending messages back to client", cause);
-      } else {
-        // Use sampling logger to log to avoid flooding the log if there is any systematic failure
-        SAMPLING_LOG.warn("Exception raised when sending messages back to client", cause);
-        // Also log a trace to provide a way to see every error if needed
-        LOG.trace("Exception raised when sending messages back to client", cause);
+      logSendError(cause);
+    }
+  }
+
+  /**
+   * A {@link BodyProducer} to send back messages with the framed encoding as described in {@link MessageFrames}.
+   * Frames are written to pooled buffers, with large payloads added to the chunk as wrapped buffers without copying.
+   */
+  @VisibleForTesting
+  static class FramedMessagesBodyProducer extends BodyProducer {
+
+    private final CloseableIterator<RawMessage> iterator;
+    private final int messageChunkSize;
+    private final ByteBufAllocator allocator;
+    private boolean ended;
+
+    FramedMessagesBodyProducer(CloseableIterator<RawMessage> iterator, int messageChunkSize) {
+      this.iterator = iterator;
+      this.messageChunkSize = messageChunkSize;
+      this.allocator = ByteBufAllocator.DEFAULT;
+    }
+
+    @Override
+    public ByteBuf nextChunk() throws Exception {
+      // Already sent all messages, return empty to signal the end of response
+      if (ended) {
+        return Unpooled.EMPTY_BUFFER;
       }
+
+      // Don't limit the number of components to avoid consolidation, which copies all the components.
+      CompositeByteBuf chunk = allocator.compositeBuffer(Integer.MAX_VALUE);
+      ByteBuf frames = allocator.buffer(Math.min(messageChunkSize, 8192));
+      try {
+        // Try to buffer up to buffer size
+        int size = 0;
+        while (iterator.hasNext() && size < messageChunkSize) {
+          RawMessage message = iterator.next();
+          byte[] id = message.getId();
+          byte[] payload = message.getPayload();
+
+          frames.writeInt(id.length).writeBytes(id).writeInt(payload.length);
+          if (payload.length <= MAX_INLINE_PAYLOAD_SIZE) {
+            frames.writeBytes(payload);
+          } else {
+            // the chunk owns the frames buffer once added, so it must not be released again on failure
+            chunk.addComponent(true, frames);
+            frames = null;
+            chunk.addComponent(true, Unpooled.wrappedBuffer(payload));
+            frames = allocator.buffer(Math.min(messageChunkSize, 8192));
+          }
+          size += id.length + payload.length + 8;
+        }
+
+        if (!iterator.hasNext()) {
+          ended = true;
+          frames.writeInt(MessageFrames.END_OF_FRAMES);
+        }
+
+        ByteBuf lastFrames = frames;
+        frames = null;
+        if (lastFrames.isReadable()) {
+          chunk.addComponent(true, lastFrames);
+        } else {
+          lastFrames.release();
+        }
+        return chunk;
+      } catch (Throwable t) {
+        if (frames != null) {
+          frames.release();
+        }
+        chunk.release();
+        throw t;
+      }
+    }
+
+    @Override
+    public void finished() throws Exception {
+      iterator.close();
+    }
+
+    @Override
+    public void handleError(@Nullable Throwable cause) {
+      iterator.close();
+      logSendError(cause);
+    }
+  }
+
+  /**
+   * Logs the failure when sending messages back to client.
+   */
+  private static void logSendError(@Nullable Throwable cause) {
+    // Since response header is already sent, there is nothing we can send back to client. Simply log the failure
+    if (cause instanceof SocketException
+      || cause instanceof ClosedChannelException
+      || (cause instanceof IOException && KNOWN_IO_EXCEPTION_MESSAGES.contains(cause.getMessage()))) {
+      // This can easily caused by client close connection prematurely. Don't want to flood the log.
+      LOG.trace("Connection closed by client prematurely while sending messages back to client", cause);
+    } else {
+      // Use sampling logger to log to avoid flooding the log if there is any systematic failure
+      SAMPLING_LOG.warn("Exception raised when sending messages back to client", cause);
+      // Also log a trace to provide a way to see every error if needed
+      LOG.trace("Exception raised when sending messages back to client", cause);
     }
   }
 }
@@ -22,15 +22,19 @@ import co.cask.cdap.messaging.RollbackDetail;
 import co.cask.cdap.messaging.StoreRequest;
 import co.cask.cdap.messaging.TopicMetadata;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
@@ -58,15 +62,27 @@ import javax.annotation.concurrent.ThreadSafe;
  *
  * The spin lock between step 2 to step 8 is necessary as it guarantees events enqueued by all threads would eventually
  * get written and flushed.
+ *
+ * Alternatively, the writer can operate in group commit mode, in which a dedicated writer thread persists the
+ * pending requests in batches, while the calling threads block until their requests are completed. The writer
+ * thread collects up to a maximum number of requests per batch. When there are concurrent publishers, which is
+ * indicated by the last batch having more than one request, it also lingers for a short period of time to
+ * collect more requests into the batch. While a batch is being persisted, new requests keep getting enqueued,
+ * such that the next batch is ready as soon as the current one is completed.
  */
 @ThreadSafe
 final class ConcurrentMessageWriter implements Closeable {
 
+  private static final Logger LOG = LoggerFactory.getLogger(ConcurrentMessageWriter.class);
+  private static final long GROUP_COMMIT_POLL_MILLIS = 100L;
+
   private final StoreRequestWriter<?> messagesWriter;
   private final MetricsCollector metricsCollector;
   private final PendingStoreQueue pendingStoreQueue;
   private final AtomicBoolean writerFlag;
   private final AtomicBoolean closed;
+  @Nullable
+  private final Thread groupCommitThread;
 
   /**
    * Constructor with a {@link NoopMetricsContext}. This constructor should only be used in unit-testing.
@@ -88,6 +104,49 @@ final class ConcurrentMessageWriter implements Closeable {
     this.pendingStoreQueue = new PendingStoreQueue(metricsCollector);
     this.writerFlag = new AtomicBoolean();
     this.closed = new AtomicBoolean();
+    this.groupCommitThread = null;
+  }
+
+  /**
+   * Constructor for the group commit mode. A dedicated writer thread is started for persisting requests.
+   *
+   * @param messagesWriter the {@link StoreRequestWriter} for persisting {@link StoreRequest}.
+   * @param metricsCollector the {@link MetricsCollector} for collecting metrics emitted by this class.
+   * @param name name of this writer, which is used for naming the writer thread
+   * @param maxBatchSize maximum number of {@link StoreRequest} to be persisted in one batch
+   * @param lingerMicros maximum time in microseconds to wait for more requests to batch up
+   */
+  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector,
+                          String name, final int maxBatchSize, long lingerMicros) {
+    Preconditions.checkArgument(maxBatchSize > 0, "Max batch size must be positive");
+    Preconditions.checkArgument(lingerMicros >= 0, "Linger time must not be negative");
+
+    this.messagesWriter = messagesWriter;
+    this.metricsCollector = metricsCollector;
+    this.pendingStoreQueue = new PendingStoreQueue(metricsCollector);
+    this.writerFlag = new AtomicBoolean();
+    this.closed = new AtomicBoolean();
+
+    final long lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+    this.groupCommitThread = new Thread("message-writer-" + name) {
+      @Override
+      public void run() {
+        long pollNanos = TimeUnit.MILLISECONDS.toNanos(GROUP_COMMIT_POLL_MILLIS);
+        int lastBatchSize = 0;
+        try {
+          // Keep running until closed and everything enqueued before closing is persisted
+          while (!closed.get() || !pendingStoreQueue.isEmpty()) {
+            int batchSize = pendingStoreQueue.persist(messagesWriter, maxBatchSize,
+                                                      lastBatchSize > 1 ? lingerNanos : 0L, pollNanos);
+            lastBatchSize = batchSize;
+          }
+        } catch (InterruptedException e) {
+          LOG.debug("Writer thread {} interrupted", getName());
+        }
+      }
+    };
+    this.groupCommitThread.setDaemon(true);
+    this.groupCommitThread.start();
   }
 
   /**
@@ -111,10 +170,14 @@ final class ConcurrentMessageWriter implements Closeable {
 
     metricsCollector.increment("persist.requested", 1L);
 
-    while (!pendingStoreRequest.isCompleted()) {
-      if (!tryWrite()) {
-        Thread.yield();
+    if (groupCommitThread == null) {
+      while (!pendingStoreRequest.isCompleted()) {
+        if (!tryWrite()) {
+          Thread.yield();
+        }
       }
+    } else {
+      awaitGroupCommit(pendingStoreRequest);
     }
 
     if (pendingStoreRequest.isSuccess()) {
@@ -133,6 +196,32 @@ final class ConcurrentMessageWriter implements Closeable {
     }
   }
 
+  /**
+   * Waits for the given request to be persisted by the group commit writer thread.
+   */
+  private void awaitGroupCommit(PendingStoreRequest pendingStoreRequest) {
+    boolean interrupted = false;
+    try {
+      while (!pendingStoreRequest.isCompleted()) {
+        try {
+          if (!pendingStoreRequest.awaitCompleted(GROUP_COMMIT_POLL_MILLIS, TimeUnit.MILLISECONDS)
+            && !groupCommitThread.isAlive()) {
+            // The writer thread is gone due to racing with close. Persist from the current thread.
+            // It will fail since the underlying writer is closed, but that prevents the caller being blocked forever.
+            tryWrite();
+          }
+        } catch (InterruptedException e) {
+          // The request is already enqueued, hence need to wait for it to complete
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
   /**
    * Tries to acquire the writer flag and persist the pending requests.
    *
@@ -156,6 +245,16 @@ final class ConcurrentMessageWriter implements Closeable {
     if (!closed.compareAndSet(false, true)) {
       return;
     }
+    if (groupCommitThread != null) {
+      // The writer thread will persist everything in the queue before exiting.
+      try {
+        groupCommitThread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for the writer thread to complete", e);
+      }
+    }
+
     // Flush everything in the queue.
     // When this thread can grab the writer flag, all pending write requests must be completed since the closed
     // flag was already set to false.
@@ -167,18 +266,19 @@ final class ConcurrentMessageWriter implements Closeable {
 
   /**
    * A resettable {@link Iterator} to provide {@link StoreRequest} to {@link StoreRequestWriter}.
-   * Except the {@link #enqueue(PendingStoreRequest)} method, all methods on this class can only be
-   * called while holding the writer flag.
+   * Except the {@link #enqueue(PendingStoreRequest)} and {@link #isEmpty()} methods, all methods on this class can
+   * only be called while holding the writer flag or from the group commit writer thread.
    */
   private static final class PendingStoreQueue {
 
     private final MetricsCollector metricsCollector;
-    private final Queue<PendingStoreRequest> writeQueue;
+    private final BlockingQueue<PendingStoreRequest> writeQueue;
     private final List<PendingStoreRequest> inflightRequests;
 
     private PendingStoreQueue(MetricsCollector metricsCollector) {
       this.metricsCollector = metricsCollector;
-      this.writeQueue = new ConcurrentLinkedQueue<>();
+      // LinkedTransferQueue is non-blocking on enqueue and dequeue, with the option of blocking dequeue
+      this.writeQueue = new LinkedTransferQueue<>();
       this.inflightRequests = new ArrayList<>(100);
     }
 
@@ -200,20 +300,76 @@ final class ConcurrentMessageWriter implements Closeable {
       // Since this method is expected to be called (indirectly) from a http handler thread, that is bounded by
       // the thread pool size used by the http service.
       inflightRequests.clear();
-      PendingStoreRequest request = writeQueue.poll();
-      while (request != null) {
+      writeQueue.drainTo(inflightRequests);
+      write(writer);
+    }
+
+    /**
+     * Persists a batch of {@link PendingStoreRequest} with the given writer. This method blocks until there is
+     * at least one request in the queue or the poll timeout is reached.
+     *
+     * @param writer the writer for persisting the batch
+     * @param maxBatchSize maximum number of requests in the batch
+     * @param lingerNanos maximum time in nanoseconds to wait for more requests to batch up
+     * @param pollNanos maximum time in nanoseconds to wait for the first request
+     * @return number of requests persisted
+     * @throws InterruptedException if interrupted while waiting for requests
+     */
+    int persist(StoreRequestWriter<?> writer, int maxBatchSize,
+                long lingerNanos, long pollNanos) throws InterruptedException {
+      inflightRequests.clear();
+      PendingStoreRequest request = writeQueue.poll(pollNanos, TimeUnit.NANOSECONDS);
+      if (request == null) {
+        return 0;
+      }
+
+      inflightRequests.add(request);
+      writeQueue.drainTo(inflightRequests, maxBatchSize - inflightRequests.size());
+
+      long deadline = System.nanoTime() + lingerNanos;
+      long remaining = lingerNanos;
+      while (inflightRequests.size() < maxBatchSize && remaining > 0) {
+        request = writeQueue.poll(remaining, TimeUnit.NANOSECONDS);
+        if (request == null) {
+          break;
+        }
         inflightRequests.add(request);
-        request = writeQueue.poll();
+        writeQueue.drainTo(inflightRequests, maxBatchSize - inflightRequests.size());
+        remaining = deadline - System.nanoTime();
       }
 
-      metricsCollector.gauge("persist.queue.size", inflightRequests.size());
+      int batchSize = inflightRequests.size();
+      write(writer);
+      return batchSize;
+    }
+
+    /**
+     * Returns {@code true} if there is no request in the queue.
+     */
+    boolean isEmpty() {
+      return writeQueue.isEmpty();
+    }
+
+    /**
+     * Writes all inflight requests with the given writer and marks them as completed.
+     */
+    private void write(StoreRequestWriter<?> writer) {
+      int batchSize = inflightRequests.size();
+      metricsCollector.gauge("persist.queue.size", batchSize);
 
+      long startTime = System.nanoTime();
       try {
         writer.write(inflightRequests.iterator());
         completeAll(null);
       } catch (Throwable t) {
         completeAll(t);
       }
+
+      if (batchSize > 0) {
+        metricsCollector.distribution("persist.batch.size", batchSize);
+        metricsCollector.distribution("persist.commit.latency.us",
+                                      TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+      }
     }
 
     /**
@@ -29,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.NoSuchElementException;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
@@ -44,17 +45,54 @@ final class CoreMessageFetcher extends MessageFetcher {
   private final TopicMetadata topicMetadata;
   private final TableProvider<MessageTable> messageTableProvider;
   private final TableProvider<PayloadTable> payloadTableProvider;
+  private final PublishNotifier publishNotifier;
 
   CoreMessageFetcher(TopicMetadata topicMetadata,
                      TableProvider<MessageTable> messageTableProvider,
-                     TableProvider<PayloadTable> payloadTableProvider) {
+                     TableProvider<PayloadTable> payloadTableProvider,
+                     PublishNotifier publishNotifier) {
     this.topicMetadata = topicMetadata;
     this.messageTableProvider = messageTableProvider;
     this.payloadTableProvider = payloadTableProvider;
+    this.publishNotifier = publishNotifier;
   }
 
   @Override
   public CloseableIterator<RawMessage> fetch() throws IOException {
+    long timeoutMillis = getPollTimeout();
+    if (timeoutMillis <= 0) {
+      return doFetch();
+    }
+
+    // Long polling. Keeps fetching until there is message or timeout reached.
+    TopicId topicId = topicMetadata.getTopicId();
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    while (true) {
+      // Get the publish count before the fetch, so that no publish after the fetch will be missed
+      long publishCount = publishNotifier.getPublishCount(topicId);
+      CloseableIterator<RawMessage> iterator = doFetch();
+      long remaining = deadline - System.currentTimeMillis();
+      // Messages of uncommitted transactions can only become visible to a new transaction. If there may be such
+      // messages, don't wait so that the caller can fetch again with a new transaction.
+      if (remaining <= 0 || iterator.hasNext()
+        || (getTransaction() != null && publishNotifier.hasPendingTransaction(topicId))) {
+        return iterator;
+      }
+      iterator.close();
+
+      try {
+        publishNotifier.await(topicId, publishCount, remaining, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for messages from topic " + topicId);
+      }
+    }
+  }
+
+  /**
+   * Creates a {@link CloseableIterator} for fetching messages based on the current settings.
+   */
+  private CloseableIterator<RawMessage> doFetch() throws IOException {
     MessageTable messageTable = messageTableProvider.get();
     try {
       return new MessageCloseableIterator(messageTable);
@@ -85,6 +85,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   private final TimeProvider timeProvider;
   private final MetricsCollectionService metricsCollectionService;
   private final long txMaxLifeTimeInMillis;
+  private final PublishNotifier publishNotifier;
 
   @Inject
   CoreMessagingService(CConfiguration cConf, TableFactory tableFactory,
@@ -114,6 +115,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     this.metricsCollectionService = metricsCollectionService;
     this.txMaxLifeTimeInMillis = TimeUnit.SECONDS.toMillis(cConf.getLong(TxConstants.Manager.CFG_TX_MAX_LIFETIME,
                                                                          TxConstants.Manager.DEFAULT_TX_MAX_LIFETIME));
+    this.publishNotifier = new PublishNotifier(txMaxLifeTimeInMillis);
   }
 
   @Override
@@ -176,7 +178,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
       public PayloadTable get() throws IOException {
         return createPayloadTable(metadata);
       }
-    });
+    }, publishNotifier);
   }
 
   @Nullable
@@ -187,7 +189,9 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
       if (request.isTransactional()) {
         ensureValidTxLifetime(request.getTransactionWritePointer());
       }
-      return messageTableWriterCache.get(request.getTopicId()).persist(request, metadata);
+      RollbackDetail rollbackDetail = messageTableWriterCache.get(request.getTopicId()).persist(request, metadata);
+      publishNotifier.published(request.getTopicId(), request.isTransactional());
+      return rollbackDetail;
     } catch (ExecutionException e) {
       Throwable cause = Objects.firstNonNull(e.getCause(), e);
       Throwables.propagateIfPossible(cause, TopicNotFoundException.class, IOException.class);
@@ -200,6 +204,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     try {
       TopicMetadata metadata = topicCache.get(request.getTopicId());
       payloadTableWriterCache.get(request.getTopicId()).persist(request, metadata);
+      publishNotifier.published(request.getTopicId(), true);
     } catch (ExecutionException e) {
       Throwable cause = Objects.firstNonNull(e.getCause(), e);
       Throwables.propagateIfPossible(cause, TopicNotFoundException.class, IOException.class);
@@ -216,6 +221,8 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     } catch (Exception e) {
       failure = e;
     }
+    // Rolled back messages are no longer blocking transactional fetchers
+    publishNotifier.published(topicId, false);
 
     // Throw if there is any failure in rollback.
     if (failure != null) {
@@ -373,7 +380,14 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
             Constants.Metrics.Tag.TABLE, messageTable ? "message" : "payload"
           ));
 
-          return new ConcurrentMessageWriter(messagesWriter, metricsContext);
+          if (!cConf.getBoolean(Constants.MessagingSystem.GROUP_COMMIT_ENABLED, false)) {
+            return new ConcurrentMessageWriter(messagesWriter, metricsContext);
+          }
+          return new ConcurrentMessageWriter(messagesWriter, metricsContext,
+                                             topicId.getNamespace() + "." + topicId.getTopic() + "-"
+                                               + (messageTable ? "message" : "payload"),
+                                             cConf.getInt(Constants.MessagingSystem.GROUP_COMMIT_MAX_BATCH_SIZE),
+                                             cConf.getLong(Constants.MessagingSystem.GROUP_COMMIT_LINGER_MICROS));
         }
       });
   }
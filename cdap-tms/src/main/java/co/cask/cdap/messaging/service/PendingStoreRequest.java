@@ -20,6 +20,7 @@ import co.cask.cdap.messaging.StoreRequest;
 import co.cask.cdap.messaging.TopicMetadata;
 
 import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
@@ -30,7 +31,7 @@ final class PendingStoreRequest extends StoreRequest {
   private final StoreRequest originalRequest;
   private final TopicMetadata metadata;
 
-  private boolean completed;
+  private volatile boolean completed;
   private long startTimestamp;
   private long endTimestamp;
   private int startSequenceId;
@@ -64,9 +65,25 @@ final class PendingStoreRequest extends StoreRequest {
     return failureCause;
   }
 
-  void completed(@Nullable Throwable failureCause) {
-    completed = true;
+  synchronized void completed(@Nullable Throwable failureCause) {
     this.failureCause = failureCause;
+    completed = true;
+    notifyAll();
+  }
+
+  /**
+   * Waits for this request to be completed.
+   *
+   * @return {@code true} if the request is completed; {@code false} if timeout
+   */
+  synchronized boolean awaitCompleted(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    long remaining = unit.toNanos(timeout);
+    while (!completed && remaining > 0) {
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      remaining = deadline - System.nanoTime();
+    }
+    return completed;
   }
 
   void setStartTimestamp(long startTimestamp) {
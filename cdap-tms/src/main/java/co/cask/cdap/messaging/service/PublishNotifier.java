@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.service;
+
+import co.cask.cdap.proto.id.TopicId;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks publishing to topics so that fetchers can wait for new messages instead of polling repeatedly.
+ * A fetcher first gets the current publish count of a topic, performs the fetch, and if nothing was fetched,
+ * waits for the publish count to change.
+ *
+ * Transactional messages become visible to transactional fetchers when the transaction is committed,
+ * which happens outside of the messaging system, and only to fetchers in transactions started after the commit.
+ * The time of the last transactional write of each topic is tracked, so that transactional fetchers know when
+ * waiting cannot make such messages visible.
+ */
+final class PublishNotifier {
+
+  private final ConcurrentMap<TopicId, AtomicLong> publishCounts = new ConcurrentHashMap<>();
+  private final ConcurrentMap<TopicId, Long> txWriteTimes = new ConcurrentHashMap<>();
+  private final long txMaxLifetimeMillis;
+
+  /**
+   * Creates an instance.
+   *
+   * @param txMaxLifetimeMillis the maximum lifetime of a transaction in milliseconds
+   */
+  PublishNotifier(long txMaxLifetimeMillis) {
+    this.txMaxLifetimeMillis = txMaxLifetimeMillis;
+  }
+
+  /**
+   * Returns the current publish count of the given topic.
+   */
+  long getPublishCount(TopicId topicId) {
+    return getCounter(topicId).get();
+  }
+
+  /**
+   * Returns {@code true} if there was transactional write to the given topic within the transaction max lifetime,
+   * meaning there may be messages that become visible when the transaction is committed.
+   */
+  boolean hasPendingTransaction(TopicId topicId) {
+    Long writeTime = txWriteTimes.get(topicId);
+    return writeTime != null && writeTime + txMaxLifetimeMillis > System.currentTimeMillis();
+  }
+
+  /**
+   * Signals that messages were written to the given topic.
+   *
+   * @param topicId the topic written to
+   * @param transactional {@code true} if the messages were written transactionally
+   */
+  void published(TopicId topicId, boolean transactional) {
+    if (transactional) {
+      txWriteTimes.put(topicId, System.currentTimeMillis());
+    }
+    AtomicLong counter = publishCounts.get(topicId);
+    // If no one has ever waited on the topic, no need to signal
+    if (counter == null) {
+      return;
+    }
+    counter.incrementAndGet();
+    synchronized (counter) {
+      counter.notifyAll();
+    }
+  }
+
+  /**
+   * Waits for the publish count of the given topic to be different than the given one.
+   *
+   * @return {@code true} if there was publishing since the given publish count; {@code false} if timeout
+   * @throws InterruptedException if interrupted while waiting
+   */
+  boolean await(TopicId topicId, long publishCount, long timeout, TimeUnit unit) throws InterruptedException {
+    AtomicLong counter = getCounter(topicId);
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (counter) {
+      long remaining = unit.toNanos(timeout);
+      while (counter.get() == publishCount && remaining > 0) {
+        TimeUnit.NANOSECONDS.timedWait(counter, remaining);
+        remaining = deadline - System.nanoTime();
+      }
+      return counter.get() != publishCount;
+    }
+  }
+
+  private AtomicLong getCounter(TopicId topicId) {
+    AtomicLong counter = publishCounts.get(topicId);
+    if (counter != null) {
+      return counter;
+    }
+    counter = new AtomicLong();
+    AtomicLong existing = publishCounts.putIfAbsent(topicId, counter);
+    return existing == null ? counter : existing;
+  }
+}
@@ -33,10 +33,13 @@ import co.cask.cdap.common.service.AbstractRetryableScheduledService;
 import co.cask.cdap.common.service.RetryStrategy;
 import co.cask.cdap.common.utils.ImmutablePair;
 import co.cask.cdap.common.utils.TimeBoundIterator;
+import co.cask.cdap.messaging.context.LongPollMessageFetcher;
 import co.cask.cdap.messaging.data.MessageId;
 import co.cask.cdap.proto.id.TopicId;
 import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.tephra.TransactionNotInProgressException;
+import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +47,11 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.Nullable;
 import javax.xml.ws.handler.MessageContext;
 
@@ -52,6 +60,10 @@ import javax.xml.ws.handler.MessageContext;
  * This service allows optional transactional fetch from TMS.
  * It always process messages and persisting consumer states in the same transaction.
  *
+ * Optionally, the next batch of messages can be prefetched while the current batch is being processed
+ * (see {@link #isPrefetchEnabled()}), and fetches can wait for new messages to be published instead of sleeping
+ * on empty fetches (see {@link #getPollTimeoutMillis()}).
+ *
  * @param <T> the type that each message will be decoded to.
  */
 public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetryableScheduledService {
@@ -68,6 +80,9 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetr
   private final int maxTxTimeoutSeconds;
   private boolean messageIdInitialized;
   private String messageId;
+  private ExecutorService prefetchExecutor;
+  private Future<List<Message>> prefetchFuture;
+  private String prefetchMessageId;
 
   /**
    * Constructor.
@@ -170,6 +185,25 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetr
   protected abstract void processMessages(DatasetContext datasetContext,
                                           Iterator<ImmutablePair<String, T>> messages) throws Exception;
 
+  /**
+   * Returns whether to fetch the next batch of messages while the current batch is being processed.
+   * The prefetched messages are only used if the current batch is fully processed; otherwise they are discarded.
+   * By default, prefetching is disabled.
+   */
+  protected boolean isPrefetchEnabled() {
+    return false;
+  }
+
+  /**
+   * Returns the maximum time in milliseconds for a fetch to wait for new messages if there is no message available.
+   * When it is positive, the empty fetch delay is reduced by the time spent in waiting. If the fetch is
+   * transactional, the transaction will be kept open while waiting, hence the timeout should be small comparing
+   * to the transaction timeout. By default, it is {@code 0}, meaning no waiting.
+   */
+  protected long getPollTimeoutMillis() {
+    return 0L;
+  }
+
   /**
    * Perform post processing after a batch of messages has been processed and before the next batch of
    * messages is fetched. This will take place outside of the transaction used when processing messages.
@@ -189,6 +223,20 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetr
     return delayMillis;
   }
 
+  /**
+   * Stops the prefetching thread. Sub-class overriding this method must call this method.
+   */
+  @Override
+  protected void doShutdown() throws Exception {
+    try {
+      if (prefetchExecutor != null) {
+        prefetchExecutor.shutdownNow();
+      }
+    } finally {
+      super.doShutdown();
+    }
+  }
+
   @Override
   protected final boolean shouldRetry(Exception ex) {
     // Log the exception
@@ -222,13 +270,20 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetr
     // non-overlapping transactions, as long as the processing transaction starts after the fetching one.
     long startTime = System.currentTimeMillis();
 
-    final List<Message> messages = fetchMessages(messageId);
-    metricsContext.gauge("tms.fetch.time.ms", System.currentTimeMillis() - startTime);
+    final List<Message> messages = getMessages(messageId);
+    long fetchTime = System.currentTimeMillis() - startTime;
+    metricsContext.gauge("tms.fetch.time.ms", fetchTime);
     metricsContext.increment("tms.fetch.messages", messages.size());
 
     // Return if stopping or request to sleep for configured number of milliseconds if there are no notifications
     if (messages.isEmpty() || state() != State.RUNNING) {
-      return emptyFetchDelayMillis;
+      // If the fetch was waiting for new messages, only sleep for the remaining of the delay
+      return getPollTimeoutMillis() > 0 ? Math.max(0L, emptyFetchDelayMillis - fetchTime) : emptyFetchDelayMillis;
+    }
+
+    // Fetch the next batch while processing the current one
+    if (isPrefetchEnabled()) {
+      prefetch(messages.get(messages.size() - 1).getId());
     }
 
     startTime = System.currentTimeMillis();
@@ -282,6 +337,43 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetr
     return 0L;
   }
 
+  /**
+   * Returns the next batch of messages, either from the prefetch or from a new fetch.
+   */
+  private List<Message> getMessages(@Nullable String messageId) throws TopicNotFoundException, IOException {
+    Future<List<Message>> future = prefetchFuture;
+    String futureMessageId = prefetchMessageId;
+    prefetchFuture = null;
+    prefetchMessageId = null;
+
+    // Only use the prefetched messages if they are fetched from the message id that the processing is up to
+    if (future != null && Objects.equals(futureMessageId, messageId)) {
+      try {
+        List<Message> messages = Uninterruptibles.getUninterruptibly(future);
+        metricsContext.increment("tms.prefetch.hit", 1L);
+        return messages;
+      } catch (ExecutionException e) {
+        // Fetch again, which will surface the failure if it is not transient
+        LOG.debug("Failed to prefetch messages from topic {}", topicId, e.getCause());
+      }
+    } else if (future != null) {
+      metricsContext.increment("tms.prefetch.miss", 1L);
+    }
+    return fetchMessages(messageId);
+  }
+
+  /**
+   * Starts fetching messages after the given message id asynchronously.
+   */
+  private void prefetch(String messageId) {
+    if (prefetchExecutor == null) {
+      prefetchExecutor = Executors.newSingleThreadExecutor(
+        Threads.createDaemonThreadFactory(getServiceName() + "-prefetch"));
+    }
+    prefetchMessageId = messageId;
+    prefetchFuture = prefetchExecutor.submit(() -> fetchMessages(messageId));
+  }
+
   /**
    * Fetch messages from TMS, optionally with transaction.
    */
@@ -301,8 +393,11 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractRetr
     List<Message> messages = new ArrayList<>();
     LOG.trace("Fetching from topic '{}' with messageId '{}'", messageId);
     MessageFetcher messageFetcher = getMessagingContext().getMessageFetcher();
-    try (CloseableIterator<Message> iterator = messageFetcher.fetch(topicId.getNamespace(),
-                                                                    topicId.getTopic(), fetchSize, messageId)) {
+    long pollTimeoutMillis = getPollTimeoutMillis();
+    try (CloseableIterator<Message> iterator = pollTimeoutMillis > 0 && messageFetcher instanceof LongPollMessageFetcher
+      ? ((LongPollMessageFetcher) messageFetcher).poll(topicId.getNamespace(), topicId.getTopic(),
+                                                       fetchSize, messageId, pollTimeoutMillis)
+      : messageFetcher.fetch(topicId.getNamespace(), topicId.getTopic(), fetchSize, messageId)) {
       while (iterator.hasNext() && state() == State.RUNNING) {
         messages.add(iterator.next());
       }
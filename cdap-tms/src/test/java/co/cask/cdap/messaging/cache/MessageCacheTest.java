@@ -39,16 +39,25 @@ import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Unit test for {@link MessageCache}.
+ * Unit test for {@link MessageCache}. It runs against the {@link SkipListMessageCache}; subclasses run the same
+ * tests against other implementations.
  */
 public class MessageCacheTest {
 
   private static final MetricsContext NOOP_METRICS = new NoopMetricsContext();
 
+  /**
+   * Creates the {@link MessageCache} being tested.
+   */
+  protected <T> MessageCache<T> createCache(Comparator<T> comparator, MessageCache.Weigher<T> weigher,
+                                            MessageCache.Limits limits, MetricsContext metricsContext) {
+    return new SkipListMessageCache<>(comparator, weigher, limits, metricsContext);
+  }
+
   @Test
   public void testNoCache() {
     // Create a cache with zero limits
-    MessageCache<String> cache = new MessageCache<>(String.CASE_INSENSITIVE_ORDER, new MessageCache.Weigher<String>() {
+    MessageCache<String> cache = createCache(String.CASE_INSENSITIVE_ORDER, new MessageCache.Weigher<String>() {
       @Override
       public int weight(String entry) {
         return entry.length();
@@ -66,8 +75,8 @@ public class MessageCacheTest {
   @Test
   public void testBasic() {
     // Test basic operations for the cache from single thread
-    MessageCache<Integer> cache = new MessageCache<>(new IntComparator(), new UnitWeigher<Integer>(),
-                                                     new MessageCache.Limits(10, 14, 20), NOOP_METRICS);
+    MessageCache<Integer> cache = createCache(new IntComparator(), new UnitWeigher<Integer>(),
+                                              new MessageCache.Limits(10, 14, 20), NOOP_METRICS);
 
     cache.addAll(Arrays.asList(1, 2, 3, 4, 5, 11, 12, 13, 14, 15).iterator());
     Assert.assertEquals(10, cache.getCurrentWeight());
@@ -137,8 +146,8 @@ public class MessageCacheTest {
 
   @Test
   public void testUpdate() {
-    MessageCache<Entry> cache = new MessageCache<>(new EntryComparator(), new UnitWeigher<Entry>(),
-                                                   new MessageCache.Limits(10, 14, 20), NOOP_METRICS);
+    MessageCache<Entry> cache = createCache(new EntryComparator(), new UnitWeigher<Entry>(),
+                                            new MessageCache.Limits(10, 14, 20), NOOP_METRICS);
 
     // Try update that alter order at different element. Exception should be raised in all cases.
     for (int i = 0; i < 3; i++) {
@@ -190,8 +199,8 @@ public class MessageCacheTest {
   @Test
   public void testCacheReduction() {
     // Test the cache reduction logic in single thread case.
-    MessageCache<Integer> cache = new MessageCache<>(new IntComparator(), new UnitWeigher<Integer>(),
-                                                     new MessageCache.Limits(5, 7, 10), NOOP_METRICS);
+    MessageCache<Integer> cache = createCache(new IntComparator(), new UnitWeigher<Integer>(),
+                                              new MessageCache.Limits(5, 7, 10), NOOP_METRICS);
 
     MessageFilter<Integer> filter = MessageFilter.alwaysAccept();
 
@@ -239,8 +248,8 @@ public class MessageCacheTest {
   @Test
   public void testCacheResize() {
     // Test resize the cache
-    MessageCache<Integer> cache = new MessageCache<>(new IntComparator(), new UnitWeigher<Integer>(),
-                                                     new MessageCache.Limits(2, 3, 4), NOOP_METRICS);
+    MessageCache<Integer> cache = createCache(new IntComparator(), new UnitWeigher<Integer>(),
+                                              new MessageCache.Limits(2, 3, 4), NOOP_METRICS);
 
     MessageFilter<Integer> filter = MessageFilter.alwaysAccept();
 
@@ -269,8 +278,8 @@ public class MessageCacheTest {
   @Test
   public void testAddError() throws Exception {
     // Test to verify various error situations are being safeguarded
-    final MessageCache<Integer> cache = new MessageCache<>(new IntComparator(), new UnitWeigher<Integer>(),
-                                                           new MessageCache.Limits(5, 7, 10), NOOP_METRICS);
+    final MessageCache<Integer> cache = createCache(new IntComparator(), new UnitWeigher<Integer>(),
+                                                    new MessageCache.Limits(5, 7, 10), NOOP_METRICS);
 
     // 1. Adding out of order should result in error
     try {
@@ -378,7 +387,7 @@ public class MessageCacheTest {
   /**
    * A {@link Comparator} for {@link Integer}.
    */
-  private static final class IntComparator implements Comparator<Integer> {
+  static final class IntComparator implements Comparator<Integer> {
 
     @Override
     public int compare(Integer o1, Integer o2) {
@@ -391,7 +400,7 @@ public class MessageCacheTest {
    *
    * @param <T> type of entry
    */
-  private static final class UnitWeigher<T> implements MessageCache.Weigher<T> {
+  static final class UnitWeigher<T> implements MessageCache.Weigher<T> {
 
     @Override
     public int weight(T entry) {
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.cache;
+
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.api.metrics.NoopMetricsContext;
+import co.cask.cdap.messaging.store.MessageFilter;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unit test for {@link RingBufferMessageCache}. It runs all the tests in {@link MessageCacheTest}, with
+ * additional tests specific to the ring buffer.
+ */
+public class RingBufferMessageCacheTest extends MessageCacheTest {
+
+  private static final MetricsContext NOOP_METRICS = new NoopMetricsContext();
+
+  @Override
+  protected <T> MessageCache<T> createCache(Comparator<T> comparator, MessageCache.Weigher<T> weigher,
+                                            MessageCache.Limits limits, MetricsContext metricsContext) {
+    return new RingBufferMessageCache<>(comparator, weigher, limits, metricsContext, 1024);
+  }
+
+  @Test
+  public void testCapacity() {
+    RingBufferMessageCache<Integer> cache = new RingBufferMessageCache<>(new IntComparator(),
+                                                                         new UnitWeigher<Integer>(),
+                                                                         new MessageCache.Limits(10, 14, 20),
+                                                                         NOOP_METRICS, 3);
+    // Capacity is rounded up to power of two
+    Assert.assertEquals(4, cache.getCapacity());
+
+    // Adding more entries than the capacity should evict the oldest entries
+    cache.addAll(Arrays.asList(1, 2, 3, 4, 5, 6).iterator());
+    Assert.assertEquals(4, cache.getCurrentWeight());
+
+    MessageFilter<Integer> filter = MessageFilter.alwaysAccept();
+    try (MessageCache.Scanner<Integer> scanner = cache.scan(0, true, 10, filter)) {
+      Assert.assertEquals(Integer.valueOf(3), scanner.getFirstInCache());
+      Assert.assertEquals(Arrays.asList(3, 4, 5, 6), Lists.newArrayList(scanner));
+    }
+
+    // Wrap around the ring buffer multiple times
+    for (int i = 0; i < 5; i++) {
+      int start = 7 + i * 3;
+      cache.addAll(Arrays.asList(start, start + 1, start + 2).iterator());
+      try (MessageCache.Scanner<Integer> scanner = cache.scan(start - 1, false, 10, filter)) {
+        Assert.assertEquals(Integer.valueOf(start - 1), scanner.getFirstInCache());
+        Assert.assertEquals(Arrays.asList(start, start + 1, start + 2), Lists.newArrayList(scanner));
+      }
+    }
+
+    cache.clear();
+    Assert.assertEquals(0, cache.getCurrentWeight());
+    try (MessageCache.Scanner<Integer> scanner = cache.scan(0, true, 10, filter)) {
+      Assert.assertNull(scanner.getFirstInCache());
+      Assert.assertFalse(scanner.hasNext());
+    }
+  }
+
+  @Test
+  public void testConcurrentScan() throws Exception {
+    // A small ring buffer so that the writer keeps recycling slots while fetchers are scanning
+    final RingBufferMessageCache<Integer> cache = new RingBufferMessageCache<>(new IntComparator(),
+                                                                               new UnitWeigher<Integer>(),
+                                                                               new MessageCache.Limits(40, 50, 64),
+                                                                               NOOP_METRICS, 64);
+    final int total = 200000;
+    final AtomicBoolean writerDone = new AtomicBoolean();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      futures.add(executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < total; i += 10) {
+            cache.addAll(ContiguousSet.create(Range.closedOpen(i, i + 10), DiscreteDomain.integers()).iterator());
+          }
+          writerDone.set(true);
+        }
+      }));
+
+      for (int i = 0; i < 3; i++) {
+        futures.add(executor.submit(new Runnable() {
+          @Override
+          public void run() {
+            MessageFilter<Integer> filter = MessageFilter.alwaysAccept();
+            int start = 0;
+            while (!writerDone.get()) {
+              try (MessageCache.Scanner<Integer> scanner = cache.scan(start, false, 16, filter)) {
+                Integer first = scanner.getFirstInCache();
+                int expected = start + 1;
+                if (first != null && first > expected) {
+                  // Fell behind the cache, continue from the first entry
+                  expected = first;
+                }
+                // Entries must be contiguous
+                while (scanner.hasNext()) {
+                  int value = scanner.next();
+                  Assert.assertEquals(expected, value);
+                  start = value;
+                  expected++;
+                }
+              }
+            }
+          }
+        }));
+      }
+
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertTrue(cache.getCurrentWeight() <= 64);
+  }
+}
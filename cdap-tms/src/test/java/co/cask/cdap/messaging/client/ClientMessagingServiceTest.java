@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.client;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
+import co.cask.cdap.messaging.Schemas;
+import co.cask.cdap.messaging.data.MessageFrames;
+import co.cask.cdap.messaging.data.RawMessage;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unit tests for decoding fetch responses in {@link ClientMessagingService}.
+ */
+public class ClientMessagingServiceTest {
+
+  @Test
+  public void testDecodeFrames() throws IOException {
+    List<RawMessage> messages = createMessages();
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(os);
+    for (RawMessage message : messages) {
+      output.writeInt(message.getId().length);
+      output.write(message.getId());
+      output.writeInt(message.getPayload().length);
+      output.write(message.getPayload());
+    }
+    output.writeInt(MessageFrames.END_OF_FRAMES);
+
+    assertDecode(MessageFrames.CONTENT_TYPE, os.toByteArray(), messages);
+  }
+
+  @Test
+  public void testDecodeAvroFallback() throws IOException {
+    // Servers that don't support the framed encoding respond with an avro array of messages
+    List<RawMessage> messages = createMessages();
+    List<GenericRecord> records = new ArrayList<>();
+    for (RawMessage message : messages) {
+      GenericRecord record = new GenericData.Record(Schemas.V1.ConsumeResponse.SCHEMA.getElementType());
+      record.put("id", ByteBuffer.wrap(message.getId()));
+      record.put("payload", ByteBuffer.wrap(message.getPayload()));
+      records.add(record);
+    }
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    Encoder encoder = EncoderFactory.get().directBinaryEncoder(os, null);
+    new GenericDatumWriter<List<GenericRecord>>(Schemas.V1.ConsumeResponse.SCHEMA).write(records, encoder);
+
+    assertDecode("avro/binary", os.toByteArray(), messages);
+  }
+
+  @Test
+  public void testDecodeEmpty() throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new DataOutputStream(os).writeInt(MessageFrames.END_OF_FRAMES);
+    assertDecode(MessageFrames.CONTENT_TYPE, os.toByteArray(), new ArrayList<>());
+
+    os.reset();
+    Encoder encoder = EncoderFactory.get().directBinaryEncoder(os, null);
+    new GenericDatumWriter<List<GenericRecord>>(Schemas.V1.ConsumeResponse.SCHEMA).write(new ArrayList<>(), encoder);
+    assertDecode("avro/binary", os.toByteArray(), new ArrayList<>());
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testMalformedFrame() throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new DataOutputStream(os).writeInt(-2);
+    try (CloseableIterator<RawMessage> iterator =
+           ClientMessagingService.createMessagesIterator(MessageFrames.CONTENT_TYPE,
+                                                         new ByteArrayInputStream(os.toByteArray()), () -> { })) {
+      iterator.hasNext();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedContentType() throws IOException {
+    ClientMessagingService.createMessagesIterator("text/plain", new ByteArrayInputStream(new byte[0]), () -> { });
+  }
+
+  private List<RawMessage> createMessages() {
+    List<RawMessage> messages = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      messages.add(new RawMessage(Bytes.toBytes(i), ("payload" + i).getBytes(StandardCharsets.UTF_8)));
+    }
+    // Message with empty payload
+    messages.add(new RawMessage(Bytes.toBytes(20), new byte[0]));
+    return messages;
+  }
+
+  private void assertDecode(String contentType, byte[] body, List<RawMessage> expected) throws IOException {
+    AtomicBoolean closed = new AtomicBoolean();
+    List<RawMessage> actual = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator =
+           ClientMessagingService.createMessagesIterator(contentType, new ByteArrayInputStream(body),
+                                                         () -> closed.set(true))) {
+      while (iterator.hasNext()) {
+        actual.add(iterator.next());
+      }
+    }
+    Assert.assertTrue(closed.get());
+
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertArrayEquals(expected.get(i).getId(), actual.get(i).getId());
+      Assert.assertArrayEquals(expected.get(i).getPayload(), actual.get(i).getPayload());
+    }
+  }
+}
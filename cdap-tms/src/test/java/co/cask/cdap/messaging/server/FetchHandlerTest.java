@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.server;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.lib.AbstractCloseableIterator;
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
+import co.cask.cdap.messaging.Schemas;
+import co.cask.cdap.messaging.data.MessageFrames;
+import co.cask.cdap.messaging.data.RawMessage;
+import co.cask.http.BodyProducer;
+import com.google.common.base.Strings;
+import io.netty.buffer.ByteBuf;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Unit tests for the response body producers of {@link FetchHandler}.
+ */
+public class FetchHandlerTest {
+
+  @Test
+  public void testFramedMessages() throws Exception {
+    // Use a small chunk size so that the response spans multiple chunks
+    for (List<RawMessage> messages : createMessageLists()) {
+      byte[] body = produce(new FetchHandler.FramedMessagesBodyProducer(createIterator(messages), 100));
+
+      List<RawMessage> decoded = new ArrayList<>();
+      DataInputStream input = new DataInputStream(new ByteArrayInputStream(body));
+      RawMessage message = MessageFrames.read(input);
+      while (message != null) {
+        decoded.add(message);
+        message = MessageFrames.read(input);
+      }
+      // Nothing should be left after the end of frames
+      Assert.assertEquals(-1, input.read());
+      assertMessages(messages, decoded);
+    }
+  }
+
+  @Test
+  public void testAvroMessages() throws Exception {
+    for (List<RawMessage> messages : createMessageLists()) {
+      byte[] body = produce(new FetchHandler.MessagesBodyProducer(createIterator(messages), 100));
+
+      GenericDatumReader<Collection<GenericRecord>> reader =
+        new GenericDatumReader<>(Schemas.V1.ConsumeResponse.SCHEMA);
+      List<RawMessage> decoded = new ArrayList<>();
+      for (GenericRecord record : reader.read(null, DecoderFactory.get().binaryDecoder(body, null))) {
+        decoded.add(new RawMessage(Bytes.toBytes((ByteBuffer) record.get("id")),
+                                   Bytes.toBytes((ByteBuffer) record.get("payload"))));
+      }
+      assertMessages(messages, decoded);
+    }
+  }
+
+  /**
+   * Returns lists of messages with empty, small and large payloads, including payloads larger than the size
+   * that are copied into the frame buffer.
+   */
+  private List<List<RawMessage>> createMessageLists() {
+    List<List<RawMessage>> result = new ArrayList<>();
+    result.add(new ArrayList<>());
+
+    List<RawMessage> messages = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      String payload = i % 10 == 0 ? "" : Strings.repeat("payload" + i, i * 5);
+      messages.add(new RawMessage(Bytes.toBytes(i), payload.getBytes(StandardCharsets.UTF_8)));
+    }
+    result.add(messages);
+    return result;
+  }
+
+  private CloseableIterator<RawMessage> createIterator(List<RawMessage> messages) {
+    final Iterator<RawMessage> iterator = messages.iterator();
+    return new AbstractCloseableIterator<RawMessage>() {
+      @Override
+      protected RawMessage computeNext() {
+        return iterator.hasNext() ? iterator.next() : endOfData();
+      }
+
+      @Override
+      public void close() {
+        // no-op
+      }
+    };
+  }
+
+  /**
+   * Collects all chunks produced by the given {@link BodyProducer} until it signals the end with an empty chunk.
+   */
+  private byte[] produce(BodyProducer producer) throws Exception {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    try {
+      ByteBuf chunk = producer.nextChunk();
+      while (chunk.isReadable()) {
+        try {
+          chunk.readBytes(os, chunk.readableBytes());
+        } finally {
+          chunk.release();
+        }
+        chunk = producer.nextChunk();
+      }
+    } finally {
+      producer.finished();
+    }
+    return os.toByteArray();
+  }
+
+  private void assertMessages(List<RawMessage> expected, List<RawMessage> actual) {
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertArrayEquals(expected.get(i).getId(), actual.get(i).getId());
+      Assert.assertArrayEquals(expected.get(i).getPayload(), actual.get(i).getPayload());
+    }
+  }
+}
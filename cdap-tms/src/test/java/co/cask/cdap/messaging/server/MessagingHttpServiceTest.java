@@ -55,9 +55,14 @@ import org.junit.rules.TemporaryFolder;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -410,6 +415,62 @@ public class MessagingHttpServiceTest {
     client.deleteTopic(topicId);
   }
 
+  @Test
+  public void testLongPoll() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testLongPoll");
+
+    client.createTopic(new TopicMetadata(topicId));
+
+    // Poll on an empty topic should wait until the timeout and get no message
+    long startTime = System.currentTimeMillis();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).setPollTimeout(500L).fetch()) {
+      Assert.assertFalse(iterator.hasNext());
+    }
+    Assert.assertTrue(System.currentTimeMillis() - startTime >= 500L);
+
+    // Publish while a poll is waiting. The poll should return the published message before the timeout
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<List<RawMessage>> future = executor.submit(() -> {
+        List<RawMessage> messages = new ArrayList<>();
+        try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).setPollTimeout(30000L).fetch()) {
+          Iterators.addAll(messages, iterator);
+        }
+        return messages;
+      });
+
+      TimeUnit.MILLISECONDS.sleep(200);
+      client.publish(StoreRequestBuilder.of(topicId).addPayload("m1").build());
+
+      List<RawMessage> messages = future.get(10, TimeUnit.SECONDS);
+      Assert.assertEquals(Collections.singletonList("m1"),
+                          messages.stream()
+                            .map(RawMessage::getPayload)
+                            .map(Bytes::toString).collect(Collectors.toList()));
+
+      // Publish a message transactionally. A poll with a transaction that doesn't have the publishing transaction
+      // visible should return without waiting, as the message can only be visible to a new transaction
+      RollbackDetail rollbackDetail = client.publish(StoreRequestBuilder.of(topicId)
+                                                       .addPayload("m2").setTransaction(5L).build());
+      Transaction transaction = new Transaction(6L, 6L, new long[0], new long[]{5L}, 5L);
+      startTime = System.currentTimeMillis();
+      try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+                                                          .setStartMessage(messages.get(0).getId(), false)
+                                                          .setTransaction(transaction)
+                                                          .setPollTimeout(30000L)
+                                                          .fetch()) {
+        Assert.assertFalse(iterator.hasNext());
+      }
+      Assert.assertTrue(System.currentTimeMillis() - startTime < 10000L);
+
+      client.rollback(topicId, rollbackDetail);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    client.deleteTopic(topicId);
+  }
+
   @Test
   public void testChunkConsume() throws Exception {
     // This test is to verify the message fetching body producer works correctly
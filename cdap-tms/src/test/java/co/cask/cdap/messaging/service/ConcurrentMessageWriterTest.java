@@ -18,6 +18,7 @@ package co.cask.cdap.messaging.service;
 
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.metrics.MetricsCollector;
+import co.cask.cdap.api.metrics.NoopMetricsContext;
 import co.cask.cdap.common.utils.TimeProvider;
 import co.cask.cdap.messaging.StoreRequest;
 import co.cask.cdap.messaging.TopicMetadata;
@@ -37,15 +38,16 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 
 /**
@@ -206,17 +208,98 @@ public class ConcurrentMessageWriterTest {
   }
 
   @Test
-  public void testConcurrentWrites() throws InterruptedException, BrokenBarrierException {
+  public void testConcurrentWrites() throws Exception {
+    long writeLatencyMillis = 50L;
+    TestStoreRequestWriter testWriter = new TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider(),
+                                                                   writeLatencyMillis);
+    testConcurrentWrites(testWriter, new ConcurrentMessageWriter(testWriter));
+  }
+
+  @Test
+  public void testGroupCommitConcurrentWrites() throws Exception {
+    long writeLatencyMillis = 50L;
+    TestStoreRequestWriter testWriter = new TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider(),
+                                                                   writeLatencyMillis);
+    final AtomicInteger maxBatchSize = new AtomicInteger();
+    ConcurrentMessageWriter writer = new ConcurrentMessageWriter(testWriter, new MetricsCollector() {
+      @Override
+      public void increment(String metricName, long value) {
+        // no-op
+      }
+
+      @Override
+      public void gauge(String metricName, long value) {
+        // no-op
+      }
+
+      @Override
+      public void distribution(String metricName, long value) {
+        if ("persist.batch.size".equals(metricName)) {
+          maxBatchSize.accumulateAndGet((int) value, Math::max);
+        }
+      }
+    }, "test", 5, 1000L);
+
+    testConcurrentWrites(testWriter, writer);
+
+    // Requests should be batched, but never more than the max batch size
+    Assert.assertTrue(maxBatchSize.get() > 1);
+    Assert.assertTrue(maxBatchSize.get() <= 5);
+
+    // Persist after close should fail
+    writer.close();
+    try {
+      writer.persist(new TestStoreRequest(NamespaceId.DEFAULT.topic("t"), Collections.singletonList("1")),
+                     new TopicMetadata(NamespaceId.DEFAULT.topic("t"), new HashMap<String, String>(), 1));
+      Assert.fail("Expected failure for persist after close");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testGroupCommitFailure() throws Exception {
+    TopicId topicId = NamespaceId.DEFAULT.topic("t");
+    TopicMetadata metadata = new TopicMetadata(topicId, new HashMap<String, String>(), 1);
+    StoreRequestWriter<TestEntry> failureWriter = new StoreRequestWriter<TestEntry>(TimeProvider.SYSTEM_TIME, false) {
+      @Override
+      TestEntry getEntry(TopicMetadata metadata, boolean transactional, long transactionWritePointer,
+                         long writeTimestamp, short sequenceId, @Nullable byte[] payload) {
+        return new TestEntry(metadata.getTopicId(), transactional, transactionWritePointer, writeTimestamp,
+                             sequenceId, payload);
+      }
+
+      @Override
+      protected void doWrite(Iterator<TestEntry> entries) throws IOException {
+        throw new IOException("Write failure");
+      }
+
+      @Override
+      public void close() throws IOException {
+        // No-op
+      }
+    };
+
+    ConcurrentMessageWriter writer = new ConcurrentMessageWriter(failureWriter, new NoopMetricsContext(),
+                                                                 "test", 10, 0L);
+    try {
+      writer.persist(new TestStoreRequest(topicId, Arrays.asList("1", "2")), metadata);
+      Assert.fail("Expected failure for persist");
+    } catch (IOException e) {
+      Assert.assertEquals("Write failure", e.getMessage());
+    } finally {
+      writer.close();
+    }
+  }
+
+  private void testConcurrentWrites(TestStoreRequestWriter testWriter,
+                                    final ConcurrentMessageWriter writer) throws Exception {
     int payloadsPerRequest = 200;
     int threadCount = 20;
     final int requestPerThread = 20;
-    long writeLatencyMillis = 50L;
 
     final TopicId topicId = NamespaceId.DEFAULT.topic("t");
     final TopicMetadata metadata = new TopicMetadata(topicId, new HashMap<String, String>(), 1);
-    TestStoreRequestWriter testWriter = new TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider(),
-                                                                   writeLatencyMillis);
-    final ConcurrentMessageWriter writer = new ConcurrentMessageWriter(testWriter);
 
     final List<String> payload = new ArrayList<>(payloadsPerRequest);
     for (int i = 0; i < payloadsPerRequest; i++) {
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.service;
+
+import co.cask.cdap.proto.id.NamespaceId;
+import co.cask.cdap.proto.id.TopicId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link PublishNotifier}.
+ */
+public class PublishNotifierTest {
+
+  @Test
+  public void testAwait() throws Exception {
+    PublishNotifier notifier = new PublishNotifier(TimeUnit.HOURS.toMillis(1));
+    TopicId topicId = NamespaceId.DEFAULT.topic("testAwait");
+
+    // No publish, await should timeout
+    long publishCount = notifier.getPublishCount(topicId);
+    Assert.assertFalse(notifier.await(topicId, publishCount, 100, TimeUnit.MILLISECONDS));
+
+    // Publish before await should be seen immediately
+    notifier.published(topicId, false);
+    Assert.assertTrue(notifier.await(topicId, publishCount, 0, TimeUnit.MILLISECONDS));
+
+    // Publish to other topic shouldn't affect the count
+    publishCount = notifier.getPublishCount(topicId);
+    notifier.published(NamespaceId.DEFAULT.topic("other"), false);
+    Assert.assertEquals(publishCount, notifier.getPublishCount(topicId));
+
+    // Publish while waiting should wake up the waiting thread
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      long count = publishCount;
+      Future<Boolean> future = executor.submit(() -> notifier.await(topicId, count, 30, TimeUnit.SECONDS));
+      TimeUnit.MILLISECONDS.sleep(100);
+      notifier.published(topicId, true);
+      Assert.assertTrue(future.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testPendingTransaction() {
+    TopicId topicId = NamespaceId.DEFAULT.topic("testPendingTransaction");
+
+    PublishNotifier notifier = new PublishNotifier(TimeUnit.HOURS.toMillis(1));
+    Assert.assertFalse(notifier.hasPendingTransaction(topicId));
+    notifier.published(topicId, false);
+    Assert.assertFalse(notifier.hasPendingTransaction(topicId));
+    notifier.published(topicId, true);
+    Assert.assertTrue(notifier.hasPendingTransaction(topicId));
+
+    // Transactional publish older than the transaction max lifetime is not pending anymore
+    notifier = new PublishNotifier(-1L);
+    notifier.published(topicId, true);
+    Assert.assertFalse(notifier.hasPendingTransaction(topicId));
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package co.cask.cdap.api.metrics;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Carries the histogram of values recorded for a {@link MetricType#DISTRIBUTION} metric. Values are counted in
+ * buckets with fixed boundaries, with {@link #SUB_BUCKETS} buckets for each power of two. Since the bucket
+ * boundaries never change, two distributions are merged by adding up the counts of the same bucket, which allows
+ * distributions to be aggregated over time and across tags the same way as counters.
+ *
+ * Only non-empty buckets are carried, with the bucket indices in ascending order.
+ */
+public final class Distribution {
+
+  private static final int SUB_BUCKET_BITS = 2;
+  private static final int MAX_EXPONENT = 37;
+
+  /**
+   * Number of buckets for each power of two. It gives a relative error of at most 25% for a percentile estimate.
+   */
+  public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Total number of buckets. Values smaller than {@link #SUB_BUCKETS} have a bucket of their own and values
+   * larger than or equal to 7 * 2^34 are all counted in the last bucket.
+   */
+  public static final int NUM_BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  int[] buckets;
+  long[] counts;
+  long sum;
+
+  /**
+   * Creates a distribution.
+   *
+   * @param buckets indices of the non-empty buckets in ascending order
+   * @param counts number of values in each of the buckets
+   * @param sum sum of all the values
+   */
+  public Distribution(int[] buckets, long[] counts, long sum) {
+    Preconditions.checkArgument(buckets.length == counts.length,
+                                "Number of buckets %s and number of counts %s are different",
+                                buckets.length, counts.length);
+    this.buckets = buckets;
+    this.counts = counts;
+    this.sum = sum;
+  }
+
+  /**
+   * Returns the bucket index that the given value is counted in.
+   */
+  public static int getBucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return value < 0 ? 0 : (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent >= MAX_EXPONENT) {
+      return NUM_BUCKETS - 1;
+    }
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Returns the smallest value that is counted in the given bucket.
+   */
+  public static long getBucketLowerBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+    int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+    return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+  }
+
+  /**
+   * Returns the indices of the non-empty buckets in ascending order.
+   */
+  public int[] getBuckets() {
+    return buckets;
+  }
+
+  /**
+   * Returns the number of values in each of the buckets returned by {@link #getBuckets()}.
+   */
+  public long[] getCounts() {
+    return counts;
+  }
+
+  /**
+   * Returns the sum of all the values.
+   */
+  public long getSum() {
+    return sum;
+  }
+
+  /**
+   * Returns the number of values.
+   */
+  public long getCount() {
+    long count = 0;
+    for (long c : counts) {
+      count += c;
+    }
+    return count;
+  }
+
+  /**
+   * Returns an estimate of the given percentile. The estimate is interpolated linearly within the bucket that
+   * contains the percentile.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the estimated value or {@code 0} if the distribution is empty
+   */
+  public long getPercentile(double percentile) {
+    Preconditions.checkArgument(percentile >= 0 && percentile <= 100,
+                                "Percentile must be between 0 and 100: %s", percentile);
+    double rank = percentile / 100 * getCount();
+    long seen = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      if (counts[i] <= 0) {
+        continue;
+      }
+      if (seen + counts[i] >= rank) {
+        long lowerBound = getBucketLowerBound(buckets[i]);
+        long width = getBucketLowerBound(buckets[i] + 1) - lowerBound;
+        double fraction = (rank - seen) / counts[i];
+        return lowerBound + Math.min(width - 1, (long) (fraction * width));
+      }
+      seen += counts[i];
+    }
+    return 0L;
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+      .add("buckets", Arrays.toString(buckets))
+      .add("counts", Arrays.toString(counts))
+      .add("sum", sum)
+      .toString();
+  }
+}
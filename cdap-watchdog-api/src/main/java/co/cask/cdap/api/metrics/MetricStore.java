@@ -61,6 +61,12 @@ public interface MetricStore {
    */
   void deleteTTLExpired();
 
+  /**
+   * Rolls up metrics that are only written to the finest resolution to the coarser resolutions, if rollup is enabled.
+   * @throws Exception if failed to roll up
+   */
+  void rollup() throws Exception;
+
   /**
    * Deletes all metric data specified by the {@link MetricDeleteQuery}
    * @param query specifies what to delete
@@ -72,6 +78,14 @@ public interface MetricStore {
    */
   void deleteAll();
 
+  /**
+   * Returns the time in milliseconds of the last deletion of metrics data through {@link #delete(MetricDeleteQuery)}
+   * or {@link #deleteAll()}, or {@code 0} if no metrics data has been deleted. Deletion based on the TTL policy is
+   * not included.
+   * @throws Exception if failed to read the time
+   */
+  long getLastDeleteTime() throws Exception;
+
   /**
    * Given a list of tags in the {@link MetricSearchQuery}, returns the list of next available tags
    * @param query specifies where to search
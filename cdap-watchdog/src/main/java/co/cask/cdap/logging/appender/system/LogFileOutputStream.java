@@ -18,9 +18,11 @@ package co.cask.cdap.logging.appender.system;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import co.cask.cdap.common.io.ByteBuffers;
+import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.io.Syncable;
 import co.cask.cdap.logging.serialize.LoggingEvent;
 import co.cask.cdap.logging.serialize.LoggingEventSerializer;
+import co.cask.cdap.logging.write.LogTimeIndex;
 import com.google.common.io.Closeables;
 import org.apache.avro.Schema;
 import org.apache.avro.file.DataFileWriter;
@@ -30,7 +32,9 @@ import org.apache.twill.filesystem.Location;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
+import java.io.DataOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -41,6 +45,9 @@ import java.nio.ByteBuffer;
  *
  * Since there is no way to check the state of the underlying file on an exception,
  * all methods of this class assume that the file state is bad on any exception and close the file.
+ *
+ * It also writes a {@link LogTimeIndex} sidecar file for the log file, with one entry at each flush. Failure in
+ * writing the index only stops the indexing, as readers fall back to scanning the log file.
  */
 
 class LogFileOutputStream implements Closeable, Flushable, Syncable {
@@ -54,6 +61,9 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   private OutputStream outputStream;
   private DataFileWriter<GenericRecord> dataFileWriter;
   private long fileSize;
+  private DataOutputStream indexOutput;
+  private long maxTimestamp = Long.MIN_VALUE;
+  private long indexedPosition;
 
   LogFileOutputStream(Location location, String filePermissions,
                       int syncIntervalBytes, long createTime, Closeable closeable) throws IOException {
@@ -75,6 +85,7 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
       Closeables.closeQuietly(dataFileWriter);
       throw e;
     }
+    this.indexOutput = createIndexOutput(location, filePermissions);
   }
 
   Location getLocation() {
@@ -82,6 +93,8 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   }
 
   void append(ILoggingEvent event) throws IOException {
+    maxTimestamp = Math.max(maxTimestamp, event.getTimeStamp());
+
     // If the event is already a LoggingEvent, we don't need to re-encode.
     if (event instanceof LoggingEvent) {
       ByteBuffer encoded = ((LoggingEvent) event).getEncoded();
@@ -115,6 +128,7 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   @Override
   public void flush() throws IOException {
     fileSize = dataFileWriter.sync();
+    writeIndex(fileSize);
   }
 
   @Override
@@ -125,6 +139,7 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
     } else {
       outputStream.flush();
     }
+    syncIndex();
   }
 
   @Override
@@ -133,7 +148,66 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
     try {
       dataFileWriter.close();
     } finally {
+      Closeables.closeQuietly(indexOutput);
       closeable.close();
     }
   }
+
+  /**
+   * Creates the output for writing the {@link LogTimeIndex}. Returns {@code null} if failed to create one.
+   */
+  private static DataOutputStream createIndexOutput(Location location, String filePermissions) {
+    Location indexLocation = null;
+    try {
+      indexLocation = LogTimeIndex.getIndexLocation(location);
+      OutputStream os = filePermissions.isEmpty()
+        ? indexLocation.getOutputStream() : indexLocation.getOutputStream(filePermissions);
+      DataOutputStream output = new DataOutputStream(new BufferedOutputStream(os));
+      LogTimeIndex.writeHeader(output);
+      return output;
+    } catch (IOException e) {
+      LOG.warn("Failed to create time index for log file {}. Log file will not be indexed.", location, e);
+      if (indexLocation != null) {
+        Locations.deleteQuietly(indexLocation);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Writes an index entry for the given sync position if there are events written since the last entry.
+   */
+  private void writeIndex(long position) {
+    if (indexOutput == null || position <= indexedPosition || maxTimestamp == Long.MIN_VALUE) {
+      return;
+    }
+    try {
+      LogTimeIndex.writeEntry(indexOutput, position, maxTimestamp);
+      indexedPosition = position;
+    } catch (IOException e) {
+      stopIndex(e);
+    }
+  }
+
+  /**
+   * Flushes the index to the file system. It is called after the log file is synced, so that the index never
+   * points beyond the visible content of the log file.
+   */
+  private void syncIndex() {
+    if (indexOutput == null) {
+      return;
+    }
+    try {
+      indexOutput.flush();
+    } catch (IOException e) {
+      stopIndex(e);
+    }
+  }
+
+  private void stopIndex(IOException e) {
+    // The entries already written are still valid, hence just stop writing to the index
+    LOG.warn("Failed to write time index for log file {}. Stop indexing.", location, e);
+    Closeables.closeQuietly(indexOutput);
+    indexOutput = null;
+  }
 }
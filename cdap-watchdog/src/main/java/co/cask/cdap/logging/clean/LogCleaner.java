@@ -17,6 +17,8 @@
 package co.cask.cdap.logging.clean;
 
 import co.cask.cdap.common.io.Locations;
+import co.cask.cdap.logging.write.LogTimeIndex;
+import org.apache.twill.filesystem.Location;
 import org.apache.twill.filesystem.LocationFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,7 +57,10 @@ public class LogCleaner implements Runnable {
     int failureCount = 0;
     for (FileMetadataCleaner.DeletedEntry deletedEntry : deleteEntries) {
       try {
-        boolean status = Locations.getLocationFromAbsolutePath(locationFactory, deletedEntry.getPath()).delete();
+        Location location = Locations.getLocationFromAbsolutePath(locationFactory, deletedEntry.getPath());
+        boolean status = location.delete();
+        // Delete the time index of the log file. Old log files don't have it.
+        Locations.deleteQuietly(LogTimeIndex.getIndexLocation(location));
         if (!status) {
           failureCount++;
           LOG.warn("File {} delete failed", deletedEntry.getPath());
@@ -50,9 +50,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
+import javax.annotation.Nullable;
 
 /**
  * LogLocation representing a log file and methods to read the file's contents.
+ * If the log file has a {@link LogTimeIndex}, reads seek directly to the position for the requested time.
+ * Otherwise, the position is located by scanning the log file.
  */
 public class LogLocation {
   private static final Logger LOG = LoggerFactory.getLogger(LogLocation.class);
@@ -159,8 +162,13 @@ public class LogLocation {
           return ImmutableList.of();
         }
 
-        // Calculate skipLen based on fileLength
         long length = location.length();
+        LogTimeIndex index = loadIndex(length);
+        if (index != null) {
+          return readLogPrev(dataFileReader, index, logFilter, fromTimeMs, maxEvents);
+        }
+
+        // Calculate skipLen based on fileLength
         LOG.trace("File length {} {}", location, length);
         long skipLen = length / 10;
         if (skipLen > DEFAULT_SKIP_LEN || skipLen <= 0) {
@@ -206,6 +214,42 @@ public class LogLocation {
     return Lists.newArrayList(Iterables.skip(Iterables.concat(logSegments), skip));
   }
 
+  /**
+   * Reads the previous log events by going backward through the sync positions in the given {@link LogTimeIndex}.
+   */
+  private Collection<LogEvent> readLogPrev(DataFileReader<GenericRecord> dataFileReader, LogTimeIndex index,
+                                           Filter logFilter, long fromTimeMs, int maxEvents) throws IOException {
+    Deque<Collection<LogEvent>> logSegments = new LinkedList<>();
+    int count = 0;
+
+    // Events after the end index all have timestamp larger than fromTimeMs. Read up to the actual EOF if the
+    // end is not covered by the index.
+    int endIdx = index.findEndIndex(fromTimeMs);
+    long endPosition = endIdx < index.size() ? index.getPosition(endIdx) : -1;
+
+    for (int i = endIdx - 1; i >= -1 && count < maxEvents; i--) {
+      long startPosition;
+      if (i < 0) {
+        startPosition = 0L;
+        dataFileReader.sync(startPosition);
+      } else {
+        startPosition = index.getPosition(i);
+        dataFileReader.seek(startPosition);
+      }
+
+      List<LogEvent> logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, endPosition);
+      if (!logSegment.isEmpty()) {
+        logSegments.addFirst(logSegment);
+        count = count + logSegment.size();
+      }
+      LOG.trace("Read log events {} from indexed position {} to endPosition {}", count, startPosition, endPosition);
+      endPosition = startPosition;
+    }
+
+    int skip = count >= maxEvents ? count - maxEvents : 0;
+    return Lists.newArrayList(Iterables.skip(Iterables.concat(logSegments), skip));
+  }
+
   /**
    *  Read current block in Avro file from current block sync marker to next block sync marker
    */
@@ -276,13 +320,22 @@ public class LogLocation {
 
       try {
         dataFileReader = createReader();
+
+        // Seek directly to the indexed position, which all events before it have timestamp smaller than fromTimeMs
+        LogTimeIndex index = loadIndex(location.length());
+        long startPosition = index == null ? -1L : index.findStartPosition(fromTimeMs);
+        if (startPosition > 0) {
+          LOG.trace("Seek to indexed pos {}", startPosition);
+          dataFileReader.seek(startPosition);
+        }
+
         if (dataFileReader.hasNext()) {
           datum = dataFileReader.next();
           loggingEvent = new LoggingEvent(datum);
           loggingEvent.prepareForDeferredProcessing();
 
-          long prevPrevSyncPos = 0;
-          long prevSyncPos = 0;
+          long prevPrevSyncPos = Math.max(0L, startPosition);
+          long prevSyncPos = prevPrevSyncPos;
           // Seek to time fromTimeMs
           while (loggingEvent.getTimeStamp() < fromTimeMs && dataFileReader.hasNext()) {
             // Seek to the next sync point
@@ -297,8 +350,13 @@ public class LogLocation {
             }
           }
 
-          // We're now likely past the record with fromTimeMs, rewind to the previous sync point
-          dataFileReader.sync(prevPrevSyncPos);
+          // We're now likely past the record with fromTimeMs, rewind to the previous sync point.
+          // The indexed position is a known sync point, hence can be seek to directly.
+          if (startPosition > 0 && prevPrevSyncPos == startPosition) {
+            dataFileReader.seek(prevPrevSyncPos);
+          } else {
+            dataFileReader.sync(prevPrevSyncPos);
+          }
           LOG.trace("Final sync pos {}", prevPrevSyncPos);
         }
 
@@ -371,6 +429,25 @@ public class LogLocation {
     }
   }
 
+  /**
+   * Loads the {@link LogTimeIndex} of this log file.
+   *
+   * @return the {@link LogTimeIndex} or {@code null} if there is no usable index
+   */
+  @Nullable
+  private LogTimeIndex loadIndex(long length) {
+    // Only log files written by the new log saver have index
+    if (!VERSION_1.equals(frameworkVersion)) {
+      return null;
+    }
+    try {
+      return LogTimeIndex.load(location, length);
+    } catch (IOException e) {
+      READ_FAILURE_LOG.warn("Failed to load time index for log file {}. Scanning the log file instead.", location, e);
+      return null;
+    }
+  }
+
   private DataFileReader<GenericRecord> createReader() throws IOException {
     boolean shouldImpersonate = this.getFrameworkVersion().equals(VERSION_0);
     return new DataFileReader<>(new LocationSeekableInput(location, namespaceId, impersonator, shouldImpersonate),
@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.write;
+
+import co.cask.cdap.common.io.Locations;
+import org.apache.twill.filesystem.Location;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * A sparse time index of a log file, stored as a sidecar file next to the log file. The index contains a sequence
+ * of entries of
+ *
+ * <pre>
+ *   [sync position][max event timestamp]
+ * </pre>
+ *
+ * where the sync position is a position in the log file returned by the Avro {@code DataFileWriter.sync()} and
+ * the max event timestamp is the maximum timestamp of all events written before that position.
+ * Both are written as 8 bytes big-endian longs, after a 4 bytes header {@link #MAGIC}.
+ *
+ * Entries are only appended, hence an index of a log file that is still being written is always valid,
+ * it just doesn't cover the tail of the log file.
+ */
+public final class LogTimeIndex {
+
+  /**
+   * Suffix of the index file name, appended to the log file name.
+   */
+  public static final String SUFFIX = ".idx";
+
+  static final int MAGIC = 0x4c544931;  // "LTI1"
+  static final int ENTRY_SIZE = Long.BYTES * 2;
+
+  private final long[] positions;
+  private final long[] maxTimestamps;
+
+  /**
+   * Returns the {@link Location} of the index file for the given log file.
+   */
+  public static Location getIndexLocation(Location logLocation) throws IOException {
+    Location parent = Locations.getParent(logLocation);
+    if (parent == null) {
+      throw new IOException("Cannot determine index location for log file " + logLocation);
+    }
+    return parent.append(logLocation.getName() + SUFFIX);
+  }
+
+  /**
+   * Writes the header of an index file.
+   */
+  public static void writeHeader(DataOutput output) throws IOException {
+    output.writeInt(MAGIC);
+  }
+
+  /**
+   * Writes an index entry.
+   *
+   * @param output the {@link DataOutput} to write to
+   * @param position the sync position in the log file
+   * @param maxTimestamp the max timestamp of all events written before the sync position
+   */
+  public static void writeEntry(DataOutput output, long position, long maxTimestamp) throws IOException {
+    output.writeLong(position);
+    output.writeLong(maxTimestamp);
+  }
+
+  /**
+   * Loads the index of the given log file.
+   *
+   * @param logLocation location of the log file
+   * @param logLength length of the log file. Entries with position beyond it are ignored
+   * @return the {@link LogTimeIndex} or {@code null} if the index doesn't exist or is invalid
+   */
+  @Nullable
+  static LogTimeIndex load(Location logLocation, long logLength) throws IOException {
+    Location indexLocation = getIndexLocation(logLocation);
+    if (!indexLocation.exists()) {
+      return null;
+    }
+
+    // The index is written after the log file is synced, hence it can be partially visible.
+    // Only use the complete entries.
+    long length = indexLocation.length();
+    if (length < Integer.BYTES) {
+      return null;
+    }
+    int size = (int) Math.min((length - Integer.BYTES) / ENTRY_SIZE, Integer.MAX_VALUE);
+    long[] positions = new long[size];
+    long[] maxTimestamps = new long[size];
+
+    try (DataInputStream is = new DataInputStream(indexLocation.getInputStream())) {
+      if (is.readInt() != MAGIC) {
+        return null;
+      }
+      int count = 0;
+      long lastPosition = 0L;
+      long lastTimestamp = Long.MIN_VALUE;
+      while (count < size) {
+        long position = is.readLong();
+        long maxTimestamp = is.readLong();
+        // Positions and timestamps must be non-decreasing. Ignore the rest if it is not.
+        if (position > logLength || position < lastPosition || maxTimestamp < lastTimestamp) {
+          break;
+        }
+        positions[count] = lastPosition = position;
+        maxTimestamps[count] = lastTimestamp = maxTimestamp;
+        count++;
+      }
+      return new LogTimeIndex(Arrays.copyOf(positions, count), Arrays.copyOf(maxTimestamps, count));
+    } catch (EOFException e) {
+      // Shouldn't happen since the size is computed from the file length. Treat it as no index.
+      return null;
+    }
+  }
+
+  private LogTimeIndex(long[] positions, long[] maxTimestamps) {
+    this.positions = positions;
+    this.maxTimestamps = maxTimestamps;
+  }
+
+  /**
+   * Returns number of entries in this index.
+   */
+  int size() {
+    return positions.length;
+  }
+
+  /**
+   * Returns the sync position of the given entry.
+   */
+  long getPosition(int idx) {
+    return positions[idx];
+  }
+
+  /**
+   * Returns the sync position for reading events with timestamp greater than or equal to the given timestamp.
+   * All events before the returned position have timestamp smaller than the given timestamp.
+   *
+   * @return the sync position or {@code -1} if the reading has to start from the beginning of the log file
+   */
+  long findStartPosition(long timestamp) {
+    if (timestamp == Long.MIN_VALUE) {
+      return -1L;
+    }
+    // Find the last entry with max timestamp < timestamp
+    int idx = findFirst(timestamp - 1);
+    return idx == 0 ? -1L : positions[idx - 1];
+  }
+
+  /**
+   * Returns the index of the first entry that has events with timestamp larger than the given timestamp before
+   * its sync position, or {@link #size()} if there is no such entry.
+   */
+  int findEndIndex(long timestamp) {
+    return findFirst(timestamp);
+  }
+
+  /**
+   * Binary search for the index of the first entry that has max timestamp larger than the given timestamp.
+   */
+  private int findFirst(long timestamp) {
+    int low = 0;
+    int high = maxTimestamps.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (maxTimestamps[mid] > timestamp) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+}
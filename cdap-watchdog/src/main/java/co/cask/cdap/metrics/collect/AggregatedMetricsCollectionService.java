@@ -190,8 +190,8 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
           List<MetricValue> metricValues = Lists.newArrayListWithCapacity(metricEmitters.size() + 1);
           for (Map.Entry<String, AggregatedMetricsEmitter> emitterEntry : metricEmitters.entrySet()) {
             MetricValue metricValue = emitterEntry.getValue().emit();
-            // skip increment by 0
-            if (metricValue.getType() == MetricType.COUNTER && metricValue.getValue() == 0) {
+            // skip increment by 0 and empty distribution
+            if (metricValue.getType() != MetricType.GAUGE && metricValue.getValue() == 0) {
               continue;
             }
             metricValues.add(metricValue);
@@ -240,6 +240,11 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
       emitters.getUnchecked(tags).getUnchecked(metricName).gauge(value);
     }
 
+    @Override
+    public void distribution(String metricName, long value) {
+      emitters.getUnchecked(tags).getUnchecked(metricName).distribution(value);
+    }
+
     @Override
     public MetricsContext childContext(String tagName, String tagValue) {
       ImmutableMap<String, String> allTags = ImmutableMap.<String, String>builder()
@@ -15,6 +15,7 @@
  */
 package co.cask.cdap.metrics.collect;
 
+import co.cask.cdap.api.metrics.Distribution;
 import co.cask.cdap.api.metrics.MetricType;
 import co.cask.cdap.api.metrics.MetricValue;
 import org.slf4j.Logger;
@@ -22,6 +23,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * {@link MetricsEmitter} that aggregates  values for a metric
@@ -35,6 +37,8 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
   private final AtomicLong value;
   // specifies if the metric type is gauge or counter
   private final AtomicBoolean gaugeUsed;
+  // bucket counts of the distribution, only created if the metric is a distribution
+  private volatile AtomicLongArray distributionBuckets;
 
   AggregatedMetricsEmitter(String name) {
     if (name == null || name.isEmpty()) {
@@ -51,8 +55,28 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
   }
 
 
+  void distribution(long value) {
+    AtomicLongArray buckets = distributionBuckets;
+    if (buckets == null) {
+      synchronized (this) {
+        buckets = distributionBuckets;
+        if (buckets == null) {
+          buckets = distributionBuckets = new AtomicLongArray(Distribution.NUM_BUCKETS);
+        }
+      }
+    }
+    buckets.incrementAndGet(Distribution.getBucket(value));
+    // For distribution, the value is the sum of all values
+    this.value.addAndGet(value);
+  }
+
   @Override
   public MetricValue emit() {
+    AtomicLongArray buckets = distributionBuckets;
+    if (buckets != null) {
+      return emitDistribution(buckets);
+    }
+
     // todo CDAP-2195 - potential race condition , reseting value and type has to be done together
     long value = this.value.getAndSet(0);
     MetricType type = gaugeUsed.getAndSet(false) ? MetricType.GAUGE : MetricType.COUNTER;
@@ -63,4 +87,29 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
     this.value.set(value);
     this.gaugeUsed.set(true);
   }
+
+  private MetricValue emitDistribution(AtomicLongArray buckets) {
+    // Same as counter, there is potential race condition between resetting the buckets and the sum
+    long sum = this.value.getAndSet(0);
+    long[] counts = new long[buckets.length()];
+    int size = 0;
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = buckets.getAndSet(i, 0);
+      if (counts[i] != 0) {
+        size++;
+      }
+    }
+
+    // Only carry the non-empty buckets
+    int[] nonEmptyBuckets = new int[size];
+    long[] nonEmptyCounts = new long[size];
+    int idx = 0;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] != 0) {
+        nonEmptyBuckets[idx] = i;
+        nonEmptyCounts[idx++] = counts[i];
+      }
+    }
+    return new MetricValue(name, new Distribution(nonEmptyBuckets, nonEmptyCounts, sum));
+  }
 }
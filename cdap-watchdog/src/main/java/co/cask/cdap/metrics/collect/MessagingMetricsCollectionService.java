@@ -91,6 +91,7 @@ public class MessagingMetricsCollectionService extends AggregatedMetricsCollecti
       encoderOutputStream.reset();
       MetricValues metricValues = metrics.next();
       // Encode MetricValues into bytes
+      MetricValuesFormat.writeVersion(encoder);
       recordWriter.encode(metricValues, encoder);
       TopicPayload topicPayload = topicPayloads.get(Math.abs(metricValues.getTags().hashCode() % size));
       // Calculate the topic number with the hashcode of MetricValues' tags and store the encoded payload in the
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.collect;
+
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.io.Encoder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes the format of {@link MetricValues} published to TMS.
+ *
+ * Messages published by earlier versions are encoded with the {@link MetricValues} schema without the
+ * {@code distribution} field of {@link co.cask.cdap.api.metrics.MetricValue}. Messages in the current format start
+ * with a negative version marker, followed by the {@link MetricValues} encoded with the current schema. Since the
+ * legacy encoding starts with the non-negative union index of the metrics field, the marker tells the two formats
+ * apart.
+ */
+public final class MetricValuesFormat {
+
+  private static final String DISTRIBUTION_FIELD = "distribution";
+  private static final int CURRENT_VERSION = -1;
+
+  private final Schema schema;
+  private final Schema legacySchema;
+
+  /**
+   * Creates an instance with the given {@link MetricValues} schema of the current version.
+   */
+  public MetricValuesFormat(Schema schema) {
+    this.schema = schema;
+    this.legacySchema = removeDistribution(schema);
+  }
+
+  /**
+   * Writes the version marker of the current format. It must be written before the {@link MetricValues}
+   * encoded with the current schema.
+   */
+  public static void writeVersion(Encoder encoder) throws IOException {
+    encoder.writeInt(CURRENT_VERSION);
+  }
+
+  /**
+   * Returns the schema that the given payload was written with. The version marker, if present, is consumed from
+   * the decoder, which must be reading from the start of the payload.
+   */
+  public Schema getSourceSchema(byte[] payload, Decoder decoder) throws IOException {
+    // A zig-zag encoded negative int has the lowest bit set in the first byte
+    if (payload.length == 0 || (payload[0] & 1) == 0) {
+      return legacySchema;
+    }
+    int version = decoder.readInt();
+    if (version != CURRENT_VERSION) {
+      throw new IOException("Unsupported MetricValues format version " + version);
+    }
+    return schema;
+  }
+
+  /**
+   * Returns a copy of the given schema with the {@code distribution} field removed from all records.
+   */
+  private static Schema removeDistribution(Schema schema) {
+    switch (schema.getType()) {
+      case RECORD:
+        List<Schema.Field> fields = new ArrayList<>();
+        for (Schema.Field field : schema.getFields()) {
+          if (!DISTRIBUTION_FIELD.equals(field.getName())) {
+            fields.add(Schema.Field.of(field.getName(), removeDistribution(field.getSchema())));
+          }
+        }
+        return Schema.recordOf(schema.getRecordName(), fields);
+      case ARRAY:
+        return Schema.arrayOf(removeDistribution(schema.getComponentSchema()));
+      case UNION:
+        List<Schema> schemas = new ArrayList<>();
+        for (Schema unionSchema : schema.getUnionSchemas()) {
+          schemas.add(removeDistribution(unionSchema));
+        }
+        return Schema.unionOf(schemas);
+      default:
+        return schema;
+    }
+  }
+}
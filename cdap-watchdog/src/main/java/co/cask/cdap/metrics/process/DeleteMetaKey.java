@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.process;
+
+import co.cask.cdap.api.common.Bytes;
+
+import java.util.Arrays;
+
+/**
+ * Meta key for the time of the last deletion of metrics data.
+ */
+public final class DeleteMetaKey implements MetricsMetaKey {
+
+  /**
+   * Key of the time in milliseconds of the last deletion of metrics data.
+   */
+  public static final DeleteMetaKey LAST_DELETE_TIME = new DeleteMetaKey("_delete.time");
+
+  private final byte[] key;
+
+  private DeleteMetaKey(String name) {
+    this.key = Bytes.toBytes(name);
+  }
+
+  @Override
+  public byte[] getKey() {
+    return key;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    return Arrays.equals(getKey(), ((DeleteMetaKey) o).getKey());
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(getKey());
+  }
+}
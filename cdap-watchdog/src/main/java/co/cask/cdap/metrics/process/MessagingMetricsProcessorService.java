@@ -38,6 +38,7 @@ import co.cask.cdap.internal.io.SchemaGenerator;
 import co.cask.cdap.messaging.MessageFetcher;
 import co.cask.cdap.messaging.MessagingService;
 import co.cask.cdap.messaging.data.RawMessage;
+import co.cask.cdap.metrics.collect.MetricValuesFormat;
 import co.cask.cdap.metrics.store.MetricDatasetFactory;
 import co.cask.cdap.proto.id.DatasetId;
 import co.cask.cdap.proto.id.NamespaceId;
@@ -85,7 +86,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
   private final List<TopicId> metricsTopics;
   private final MessagingService messagingService;
   private final DatumReader<MetricValues> metricReader;
-  private final Schema metricSchema;
+  private final MetricValuesFormat metricValuesFormat;
   private final MetricStore metricStore;
   private final Map<String, String> metricsContextMap;
   private final int fetcherLimit;
@@ -107,6 +108,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
 
   private MetricsConsumerMetaTable metaTable;
   private ScheduledExecutorService metricsTableDeleterExecutor;
+  private ScheduledExecutorService metricsRollupExecutor;
   private DataMigrator metricsDataMigrator;
 
   private volatile boolean stopping;
@@ -149,8 +151,9 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       .collect(Collectors.toList());
     this.messagingService = messagingService;
     try {
-      this.metricSchema = schemaGenerator.generate(MetricValues.class);
+      Schema metricSchema = schemaGenerator.generate(MetricValues.class);
       this.metricReader = readerFactory.create(TypeToken.of(MetricValues.class), metricSchema);
+      this.metricValuesFormat = new MetricValuesFormat(metricSchema);
     } catch (UnsupportedTypeException e) {
       // This should never happen
       throw Throwables.propagate(e);
@@ -254,6 +257,20 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       } else {
         LOG.info("Skipping Metrics Data Migration");
       }
+
+      if (cConfiguration.getBoolean(Constants.Metrics.ROLLUP_ENABLED, false)) {
+        // Only one instance rolls up metrics to the coarser resolutions
+        long rollupInterval = cConfiguration.getLong(Constants.Metrics.ROLLUP_INTERVAL_SECONDS);
+        metricsRollupExecutor =
+          Executors.newSingleThreadScheduledExecutor(Threads.createDaemonThreadFactory("metrics-rollup"));
+        metricsRollupExecutor.scheduleWithFixedDelay(() -> {
+          try {
+            metricStore.rollup();
+          } catch (Exception e) {
+            LOG.warn("Failed to roll up metrics. Will be retried in {} seconds.", rollupInterval, e);
+          }
+        }, rollupInterval, rollupInterval, TimeUnit.SECONDS);
+      }
     }
 
     for (ProcessMetricsThread thread : processMetricsThreads) {
@@ -294,6 +311,10 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       metricsTableDeleterExecutor.shutdownNow();
       metricsTableDeleterExecutor = null;
     }
+    if (metricsRollupExecutor != null) {
+      metricsRollupExecutor.shutdownNow();
+      metricsRollupExecutor = null;
+    }
     if (metricsDataMigrator != null) {
       metricsDataMigrator.requestStop();
       metricsDataMigrator.interrupt();
@@ -446,7 +467,8 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
             RawMessage input = iterator.next();
             try {
               payloadInput.reset(input.getPayload());
-              MetricValues metricValues = metricReader.read(decoder, metricSchema);
+              MetricValues metricValues =
+                metricReader.read(decoder, metricValuesFormat.getSourceSchema(input.getPayload(), decoder));
               if (!metricsFromAllTopics.offer(metricValues)) {
                 break;
               }
@@ -17,9 +17,14 @@
 package co.cask.cdap.metrics.process;
 
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.table.Row;
+import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.data2.dataset2.lib.table.MetricsTable;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import javax.annotation.Nullable;
@@ -86,6 +91,51 @@ public class MetricsConsumerMetaTable {
     return Bytes.toLong(result);
   }
 
+  /**
+   * Adds names as columns to the row of the given key.
+   *
+   * @param metaKey Object form of the key of the row.
+   * @param names the names to add
+   * @throws Exception If there is an error when saving.
+   */
+  public synchronized <T extends MetricsMetaKey> void addNames(T metaKey, Collection<String> names) throws Exception {
+    if (names.isEmpty()) {
+      return;
+    }
+    SortedMap<byte[], Long> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (String name : names) {
+      columns.put(Bytes.toBytes(name), 1L);
+    }
+    SortedMap<byte[], SortedMap<byte[], Long>> updates = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    updates.put(metaKey.getKey(), columns);
+    metaTable.put(updates);
+  }
+
+  /**
+   * Gets all names added to the row of the given key through {@link #addNames(MetricsMetaKey, Collection)}.
+   *
+   * @param metaKey Object form of the key of the row.
+   * @return The set of names, which is empty if the row is not found.
+   * @throws Exception If there is an error when fetching.
+   */
+  public synchronized <T extends MetricsMetaKey> Set<String> getNames(T metaKey) throws Exception {
+    byte[] rowKey = metaKey.getKey();
+    Set<String> names = new HashSet<>();
+    // The smallest row key that is larger than the given row key
+    Scanner scanner = metaTable.scan(rowKey, Bytes.add(rowKey, new byte[1]), null);
+    try {
+      Row row;
+      while ((row = scanner.next()) != null) {
+        for (byte[] column : row.getColumns().keySet()) {
+          names.add(Bytes.toString(column));
+        }
+      }
+    } finally {
+      scanner.close();
+    }
+    return names;
+  }
+
   private synchronized long getLong(byte[] rowKey, byte[] column) {
     byte[] result = metaTable.get(rowKey, column);
     if (result == null) {
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.process;
+
+import co.cask.cdap.api.common.Bytes;
+
+import java.util.Arrays;
+
+/**
+ * Meta key for the states of the metrics rollup.
+ */
+public final class RollupMetaKey implements MetricsMetaKey {
+
+  /**
+   * Key of the names of all counter metrics, which are the metrics to roll up.
+   */
+  public static final RollupMetaKey COUNTERS = new RollupMetaKey("counters");
+
+  // Prefixed with "_" to avoid conflict with the topic meta keys
+  private static final String KEY_PREFIX = "_rollup.";
+
+  private final byte[] key;
+
+  private RollupMetaKey(String name) {
+    this.key = Bytes.toBytes(KEY_PREFIX + name);
+  }
+
+  /**
+   * Returns the key of the checkpoint time in seconds of the given resolution, before which time buckets
+   * have been rolled up.
+   */
+  public static RollupMetaKey checkpoint(int resolution) {
+    return new RollupMetaKey("checkpoint." + resolution);
+  }
+
+  /**
+   * Returns the key of the start time in seconds of the time buckets of the given resolution, which are to be
+   * rolled up again in the next rollup.
+   */
+  public static RollupMetaKey rerollStart(int resolution) {
+    return new RollupMetaKey("reroll." + resolution);
+  }
+
+  @Override
+  public byte[] getKey() {
+    return key;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    return Arrays.equals(getKey(), ((RollupMetaKey) o).getKey());
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(getKey());
+  }
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.query;
+
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
+import co.cask.cdap.api.dataset.lib.cube.Interpolator;
+import co.cask.cdap.api.dataset.lib.cube.TimeValue;
+import co.cask.cdap.api.metrics.MetricDataQuery;
+import co.cask.cdap.api.metrics.MetricStore;
+import co.cask.cdap.api.metrics.MetricTimeSeries;
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.utils.TimeProvider;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Executes {@link MetricDataQuery} against a {@link MetricStore} with caching of results.
+ *
+ * Time series queries cache the values of the closed time buckets, which are the buckets that end before
+ * the current time minus a configurable delay. The cache key is the query without the time range, so that
+ * polling queries with a moving time range share the same entry, and only the open tail is queried from the store.
+ * Concurrent identical queries to the store are coalesced into one.
+ *
+ * A cached entry is used until a fixed time after it was first created, even if its closed buckets are extended,
+ * such that metrics arriving late for closed buckets eventually show up. Entries created before the last deletion of
+ * metrics data in the {@link MetricStore} are not used.
+ */
+final class MetricsQueryCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MetricsQueryCache.class);
+
+  private final MetricStore metricStore;
+  private final TimeProvider timeProvider;
+  private final long closedDelaySecs;
+  private final long expirationMillis;
+  private final ConcurrentMap<QueryKey, CompletableFuture<Collection<MetricTimeSeries>>> inflightQueries;
+  @Nullable
+  private final Cache<QueryKey, CachedResult> cache;
+  private volatile MetricsContext metricsContext;
+
+  MetricsQueryCache(MetricStore metricStore, CConfiguration cConf) {
+    this(metricStore, cConf, TimeProvider.SYSTEM_TIME);
+  }
+
+  @VisibleForTesting
+  MetricsQueryCache(MetricStore metricStore, CConfiguration cConf, TimeProvider timeProvider) {
+    this.metricStore = metricStore;
+    this.timeProvider = timeProvider;
+    this.closedDelaySecs = cConf.getLong(Constants.Metrics.QUERY_CACHE_CLOSED_DELAY_SECONDS);
+    this.expirationMillis = TimeUnit.SECONDS.toMillis(cConf.getLong(Constants.Metrics.QUERY_CACHE_EXPIRATION_SECONDS));
+    this.inflightQueries = new ConcurrentHashMap<>();
+
+    long maxWeight = cConf.getLong(Constants.Metrics.QUERY_CACHE_MAX_WEIGHT);
+    this.cache = maxWeight <= 0 ? null : CacheBuilder.newBuilder()
+      .maximumWeight(maxWeight)
+      .weigher(new Weigher<QueryKey, CachedResult>() {
+        @Override
+        public int weigh(QueryKey key, CachedResult value) {
+          return value.getWeight();
+        }
+      })
+      .expireAfterWrite(expirationMillis, TimeUnit.MILLISECONDS)
+      .build();
+  }
+
+  /**
+   * Sets the {@link MetricsContext} for emitting the cache hit and miss metrics.
+   */
+  void setMetricsContext(MetricsContext metricsContext) {
+    this.metricsContext = metricsContext;
+  }
+
+  /**
+   * Executes the given query.
+   */
+  Collection<MetricTimeSeries> query(MetricDataQuery query) {
+    if (cache == null || !isCacheable(query)) {
+      return execute(query);
+    }
+
+    // Read the deletion time before querying the store, such that a deletion during the query invalidates the result
+    long deleteTime;
+    try {
+      deleteTime = metricStore.getLastDeleteTime();
+    } catch (Exception e) {
+      LOG.warn("Failed to get the last metrics deletion time. Executing the query without the cache.", e);
+      return execute(query);
+    }
+
+    int resolution = query.getResolution();
+    long startTs = getBucketTime(query.getStartTs(), resolution);
+    long endTs = query.getEndTs();
+    long currentTimeMillis = timeProvider.currentTimeMillis();
+    long now = TimeUnit.MILLISECONDS.toSeconds(currentTimeMillis);
+    // All buckets before this time are closed
+    long closedTs = Math.min(getBucketTime(now - closedDelaySecs, resolution),
+                             getBucketTime(endTs, resolution) + resolution);
+
+    QueryKey cacheKey = new QueryKey(query, false);
+    CachedResult cached = cache.getIfPresent(cacheKey);
+    if (cached == null || !cached.covers(startTs) || cached.getDeleteTime() != deleteTime
+      || currentTimeMillis - cached.getCreateTime() >= expirationMillis) {
+      incrementMetric("metrics.query.cache.miss", 1);
+      Collection<MetricTimeSeries> result = execute(query);
+      if (closedTs > startTs) {
+        cache.put(cacheKey, new CachedResult(startTs, closedTs, deleteTime, currentTimeMillis, result));
+      }
+      return result;
+    }
+
+    incrementMetric("metrics.query.cache.hit", 1);
+    long tailStartTs = cached.getClosedTs();
+    Collection<MetricTimeSeries> tail = Collections.emptyList();
+    if (tailStartTs <= endTs) {
+      tail = execute(new MetricDataQuery(tailStartTs, endTs, resolution, query.getLimit(), query.getMetrics(),
+                                         query.getSliceByTags(), query.getGroupByTags(), null));
+    }
+
+    Collection<MetricTimeSeries> result = cached.merge(startTs, endTs, tail);
+    if (closedTs > cached.getClosedTs()) {
+      // Extend the cached closed buckets with the tail and drop the buckets before the query time range.
+      // The creation time is kept, such that extending doesn't keep the entry alive.
+      cache.put(cacheKey, new CachedResult(startTs, closedTs, deleteTime, cached.getCreateTime(), result));
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether the closed buckets of the given query result can be cached.
+   */
+  private boolean isCacheable(MetricDataQuery query) {
+    int resolution = query.getResolution();
+    // Interpolation depends on the neighbouring values, which can be in the open tail.
+    // The totals resolution has a single bucket that is never closed.
+    if (query.getInterpolator() != null || resolution == Integer.MAX_VALUE || query.getStartTs() > query.getEndTs()) {
+      return false;
+    }
+    // The result must not be truncated by the limit
+    long buckets = getBucketTime(query.getEndTs(), resolution) / resolution
+      - getBucketTime(query.getStartTs(), resolution) / resolution + 1;
+    return query.getLimit() >= buckets;
+  }
+
+  /**
+   * Executes the given query on the {@link MetricStore}. If the same query is being executed by another thread,
+   * waits for and returns the result of that execution instead.
+   */
+  private Collection<MetricTimeSeries> execute(MetricDataQuery query) {
+    QueryKey key = new QueryKey(query, true);
+    CompletableFuture<Collection<MetricTimeSeries>> future = new CompletableFuture<>();
+    CompletableFuture<Collection<MetricTimeSeries>> existing = inflightQueries.putIfAbsent(key, future);
+    if (existing != null) {
+      incrementMetric("metrics.query.coalesced", 1);
+      try {
+        return existing.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+        throw Throwables.propagate(e.getCause());
+      }
+    }
+
+    try {
+      Collection<MetricTimeSeries> result = Collections.unmodifiableCollection(metricStore.query(query));
+      future.complete(result);
+      return result;
+    } catch (Throwable t) {
+      future.completeExceptionally(t);
+      throw t;
+    } finally {
+      inflightQueries.remove(key, future);
+    }
+  }
+
+  private void incrementMetric(String metricName, long value) {
+    MetricsContext context = metricsContext;
+    if (context != null) {
+      context.increment(metricName, value);
+    }
+  }
+
+  private static long getBucketTime(long timestamp, int resolution) {
+    return (timestamp / resolution) * resolution;
+  }
+
+  /**
+   * Cached values of closed time buckets of a query.
+   */
+  private static final class CachedResult {
+    private final long startTs;
+    private final long closedTs;
+    private final long deleteTime;
+    private final long createTime;
+    private final Map<Map.Entry<String, Map<String, String>>, NavigableMap<Long, Long>> series;
+    private final int weight;
+
+    /**
+     * Creates an instance with the values in the given query result that are in the range of [startTs, closedTs).
+     *
+     * @param deleteTime the last deletion time of the {@link MetricStore} read before the query
+     * @param createTime the time in milliseconds when the cached values were first queried
+     */
+    CachedResult(long startTs, long closedTs, long deleteTime, long createTime, Collection<MetricTimeSeries> result) {
+      this.startTs = startTs;
+      this.closedTs = closedTs;
+      this.deleteTime = deleteTime;
+      this.createTime = createTime;
+      this.series = new LinkedHashMap<>();
+      int weight = 1;
+      for (MetricTimeSeries timeSeries : result) {
+        NavigableMap<Long, Long> values = new TreeMap<>();
+        for (TimeValue timeValue : timeSeries.getTimeValues()) {
+          if (timeValue.getTimestamp() >= startTs && timeValue.getTimestamp() < closedTs) {
+            values.put(timeValue.getTimestamp(), timeValue.getValue());
+          }
+        }
+        series.put(Maps.immutableEntry(timeSeries.getMetricName(), timeSeries.getTagValues()), values);
+        weight += values.size() + 1;
+      }
+      this.weight = weight;
+    }
+
+    long getClosedTs() {
+      return closedTs;
+    }
+
+    long getDeleteTime() {
+      return deleteTime;
+    }
+
+    long getCreateTime() {
+      return createTime;
+    }
+
+    int getWeight() {
+      return weight;
+    }
+
+    /**
+     * Returns {@code true} if this result has the closed buckets needed for a query starting at the given time.
+     */
+    boolean covers(long queryStartTs) {
+      return queryStartTs >= startTs && queryStartTs < closedTs;
+    }
+
+    /**
+     * Merges the cached values in the given time range with the given tail result, which contains values
+     * starting from the closed time of this cached result.
+     */
+    Collection<MetricTimeSeries> merge(long fromTs, long toTs, Collection<MetricTimeSeries> tail) {
+      Map<Map.Entry<String, Map<String, String>>, List<TimeValue>> merged = new LinkedHashMap<>();
+      for (Map.Entry<Map.Entry<String, Map<String, String>>, NavigableMap<Long, Long>> entry : series.entrySet()) {
+        List<TimeValue> timeValues = new ArrayList<>();
+        for (Map.Entry<Long, Long> value : entry.getValue().subMap(fromTs, true, toTs, true).entrySet()) {
+          timeValues.add(new TimeValue(value.getKey(), value.getValue()));
+        }
+        merged.put(entry.getKey(), timeValues);
+      }
+      for (MetricTimeSeries timeSeries : tail) {
+        merged.computeIfAbsent(Maps.immutableEntry(timeSeries.getMetricName(), timeSeries.getTagValues()),
+                               k -> new ArrayList<>()).addAll(timeSeries.getTimeValues());
+      }
+
+      List<MetricTimeSeries> result = new ArrayList<>(merged.size());
+      for (Map.Entry<Map.Entry<String, Map<String, String>>, List<TimeValue>> entry : merged.entrySet()) {
+        // Series that have no value in the time range are not part of the result
+        if (!entry.getValue().isEmpty()) {
+          result.add(new MetricTimeSeries(entry.getKey().getKey(), entry.getKey().getValue(), entry.getValue()));
+        }
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Normalized key of a {@link MetricDataQuery}.
+   */
+  private static final class QueryKey {
+    private final long startTs;
+    private final long endTs;
+    private final int resolution;
+    private final int limit;
+    private final Map<String, AggregationFunction> metrics;
+    private final Map<String, String> sliceByTags;
+    private final List<String> groupByTags;
+    private final String interpolator;
+    private final int hashCode;
+
+    /**
+     * Creates a key for the given query.
+     *
+     * @param query the query
+     * @param withTimeRange whether the time range and limit of the query are part of the key
+     */
+    QueryKey(MetricDataQuery query, boolean withTimeRange) {
+      this.startTs = withTimeRange ? query.getStartTs() : 0L;
+      this.endTs = withTimeRange ? query.getEndTs() : 0L;
+      this.limit = withTimeRange ? query.getLimit() : 0;
+      this.resolution = query.getResolution();
+      this.metrics = new HashMap<>(query.getMetrics());
+      this.sliceByTags = new HashMap<>(query.getSliceByTags());
+      this.groupByTags = new ArrayList<>(query.getGroupByTags());
+      Interpolator interpolator = query.getInterpolator();
+      this.interpolator = interpolator == null
+        ? null : interpolator.getClass().getName() + ":" + interpolator.getMaxAllowedGap();
+      this.hashCode = Objects.hash(startTs, endTs, resolution, limit, metrics, sliceByTags, groupByTags,
+                                   this.interpolator);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      QueryKey other = (QueryKey) o;
+      return startTs == other.startTs && endTs == other.endTs && resolution == other.resolution
+        && limit == other.limit && metrics.equals(other.metrics) && sliceByTags.equals(other.sliceByTags)
+        && groupByTags.equals(other.groupByTags) && Objects.equals(interpolator, other.interpolator);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
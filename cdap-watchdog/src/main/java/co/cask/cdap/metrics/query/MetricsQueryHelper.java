@@ -24,12 +24,15 @@ import co.cask.cdap.api.metrics.MetricDataQuery;
 import co.cask.cdap.api.metrics.MetricSearchQuery;
 import co.cask.cdap.api.metrics.MetricStore;
 import co.cask.cdap.api.metrics.MetricTimeSeries;
+import co.cask.cdap.api.metrics.MetricsCollectionService;
 import co.cask.cdap.api.metrics.TagValue;
+import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.utils.TimeMathParser;
 import co.cask.cdap.proto.MetricQueryRequest;
 import co.cask.cdap.proto.MetricQueryResult;
 import co.cask.cdap.proto.MetricTagValue;
+import co.cask.cdap.proto.id.NamespaceId;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicates;
@@ -72,6 +75,7 @@ public class MetricsQueryHelper {
   private static final String ANY_TAG_VALUE = "*";
 
   private final MetricStore metricStore;
+  private final MetricsQueryCache queryCache;
 
   private static final Map<String, String> tagNameToHuman;
   private static final Map<String, String> humanToTagName;
@@ -125,8 +129,17 @@ public class MetricsQueryHelper {
   }
 
   @Inject
-  public MetricsQueryHelper(MetricStore metricStore) {
+  public MetricsQueryHelper(MetricStore metricStore, CConfiguration cConf) {
     this.metricStore = metricStore;
+    this.queryCache = new MetricsQueryCache(metricStore, cConf);
+  }
+
+  @SuppressWarnings("unused")
+  @Inject(optional = true)
+  public void setMetricsCollectionService(MetricsCollectionService metricsCollectionService) {
+    queryCache.setMetricsContext(metricsCollectionService.getContext(
+      ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+                      Constants.Metrics.Tag.COMPONENT, Constants.Service.METRICS)));
   }
 
   public List<MetricTagValue> searchTags(List<String> tags) {
@@ -326,7 +339,7 @@ public class MetricsQueryHelper {
                                                 timeRange.getCount(), toMetrics(queryRequest.getMetrics()),
                                                 tagsSliceBy, transformGroupByTags(queryRequest.getGroupBy()),
                                                 timeRange.getInterpolate());
-    Collection<MetricTimeSeries> queryResult = metricStore.query(query);
+    Collection<MetricTimeSeries> queryResult = queryCache.query(query);
 
     long endTime = timeRange.getEnd();
     if (timeRange.getResolutionInSeconds() == Integer.MAX_VALUE && endTime == 0) {
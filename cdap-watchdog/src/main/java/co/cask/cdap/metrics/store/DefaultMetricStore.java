@@ -16,7 +16,7 @@
 
 package co.cask.cdap.metrics.store;
 
-import co.cask.cdap.api.dataset.lib.cube.Cube;
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
 import co.cask.cdap.api.dataset.lib.cube.CubeDeleteQuery;
 import co.cask.cdap.api.dataset.lib.cube.CubeExploreQuery;
 import co.cask.cdap.api.dataset.lib.cube.CubeFact;
@@ -25,6 +25,8 @@ import co.cask.cdap.api.dataset.lib.cube.DimensionValue;
 import co.cask.cdap.api.dataset.lib.cube.MeasureType;
 import co.cask.cdap.api.dataset.lib.cube.Measurement;
 import co.cask.cdap.api.dataset.lib.cube.TimeSeries;
+import co.cask.cdap.api.dataset.lib.cube.TimeValue;
+import co.cask.cdap.api.metrics.Distribution;
 import co.cask.cdap.api.metrics.MetricDataQuery;
 import co.cask.cdap.api.metrics.MetricDeleteQuery;
 import co.cask.cdap.api.metrics.MetricSearchQuery;
@@ -39,6 +41,7 @@ import co.cask.cdap.api.metrics.MetricsProcessorStatus;
 import co.cask.cdap.api.metrics.TagValue;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.utils.TimeProvider;
 import co.cask.cdap.data2.dataset2.lib.cube.Aggregation;
 import co.cask.cdap.data2.dataset2.lib.cube.AggregationAlias;
 import co.cask.cdap.data2.dataset2.lib.cube.DefaultAggregation;
@@ -47,37 +50,59 @@ import co.cask.cdap.data2.dataset2.lib.cube.FactTableSupplier;
 import co.cask.cdap.data2.dataset2.lib.timeseries.FactTable;
 import co.cask.cdap.messaging.data.MessageId;
 import co.cask.cdap.metrics.process.MetricsConsumerMetaTable;
+import co.cask.cdap.metrics.process.DeleteMetaKey;
+import co.cask.cdap.metrics.process.RollupMetaKey;
 import co.cask.cdap.metrics.process.TopicIdMetaKey;
 import co.cask.cdap.metrics.process.TopicProcessMeta;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.proto.id.TopicId;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 
 /**
  * Default implementation of {@link MetricStore}.
  */
 public class DefaultMetricStore implements MetricStore {
+  private static final Logger LOG = LoggerFactory.getLogger(DefaultMetricStore.class);
+
   static final Map<String, Aggregation> AGGREGATIONS;
 
   private static final int TOTALS_RESOLUTION = Integer.MAX_VALUE;
+  // max number of seconds to roll up in one rollup call
+  private static final long MAX_ROLLUP_WINDOW_SECONDS = 3600L;
+  private static final String DISTRIBUTION_SUM_SUFFIX = ".sum";
+  private static final String DISTRIBUTION_BUCKET_INFIX = ".bucket.";
+  private static final Pattern PERCENTILE_PATTERN = Pattern.compile("(.+)\\.p(\\d+)");
+  private static final Pattern BUCKET_PATTERN = Pattern.compile(".+\\.bucket\\.\\d+");
   private static final String BY_NAMESPACE = "namespace";
   private static final String BY_APP = "app";
   private static final String BY_FLOW = "flow";
@@ -96,11 +121,24 @@ public class DefaultMetricStore implements MetricStore {
                     new AggregationAlias(ImmutableMap.of(Constants.Metrics.Tag.RUN_ID,
                                                          Constants.Metrics.Tag.WORKFLOW_RUN_ID)));
 
-  private final Supplier<Cube> cube;
+  private final Supplier<DefaultCube> cube;
   private final Supplier<MetricsConsumerMetaTable> metaTableSupplier;
   private MetricsContext metricsContext;
   private final List<TopicId> metricsTopics;
   private final Map<Integer, Long> resolutionTTLMap;
+  private final TimeProvider timeProvider;
+  private final int finestResolution;
+  private final boolean rollupEnabled;
+  private final long rollupDelaySecs;
+  // Resolutions that counters are rolled up to
+  private final Set<Integer> rollupResolutions;
+  // Counter names that are known to be in the meta table
+  private final Set<String> registeredCounters;
+  // Milliseconds after which the rollup checkpoints used by writers are read from the meta table again
+  private final long checkpointRefreshMillis;
+  // Rollup checkpoints used by writers, which is null if they need to be read from the meta table
+  private Map<Integer, Long> directCounterTimes;
+  private long directCounterTimesReadTime;
 
 
   static {
@@ -227,11 +265,17 @@ public class DefaultMetricStore implements MetricStore {
 
   @Inject
   DefaultMetricStore(MetricDatasetFactory dsFactory, CConfiguration cConf) {
-    this(dsFactory, new int[] {1, 60, 3600, TOTALS_RESOLUTION}, cConf);
+    this(dsFactory, cConf, TimeProvider.SYSTEM_TIME);
+  }
+
+  @VisibleForTesting
+  DefaultMetricStore(MetricDatasetFactory dsFactory, CConfiguration cConf, TimeProvider timeProvider) {
+    this(dsFactory, new int[] {1, 60, 3600, TOTALS_RESOLUTION}, cConf, timeProvider);
   }
 
   // NOTE: should never be used apart from data migration during cdap upgrade
-  private DefaultMetricStore(MetricDatasetFactory dsFactory, int resolutions[], CConfiguration cConf) {
+  private DefaultMetricStore(MetricDatasetFactory dsFactory, int resolutions[], CConfiguration cConf,
+                             TimeProvider timeProvider) {
     long secRetentionSecs = cConf.getLong(Constants.Metrics.RETENTION_SECONDS + Constants.Metrics.SECOND_RESOLUTION +
                                             Constants.Metrics.RETENTION_SECONDS_SUFFIX);
     long minRetentionSecs = cConf.getLong(Constants.Metrics.RETENTION_SECONDS + Constants.Metrics.MINUTE_RESOLUTION +
@@ -246,10 +290,30 @@ public class DefaultMetricStore implements MetricStore {
         return dsFactory.getOrCreateFactTable(resolution);
       }
     };
-    this.cube = Suppliers.memoize(new Supplier<Cube>() {
+    this.timeProvider = timeProvider;
+    this.finestResolution = resolutions[0];
+    this.rollupEnabled = cConf.getBoolean(Constants.Metrics.ROLLUP_ENABLED, false);
+    this.rollupDelaySecs = cConf.getLong(Constants.Metrics.ROLLUP_DELAY_SECONDS);
+    this.registeredCounters = ConcurrentHashMap.newKeySet();
+    this.checkpointRefreshMillis =
+      TimeUnit.SECONDS.toMillis(cConf.getLong(Constants.Metrics.ROLLUP_INTERVAL_SECONDS));
+
+    // With rollup, counters are only written to the finest resolution and then rolled up to the other resolutions,
+    // except for the totals resolution, which cannot be computed from the finest resolution due to the retention
+    Set<Integer> rollupResolutions = new TreeSet<>();
+    if (rollupEnabled) {
+      for (int i = 1; i < resolutions.length; i++) {
+        if (resolutions[i] != TOTALS_RESOLUTION) {
+          rollupResolutions.add(resolutions[i]);
+        }
+      }
+    }
+    this.rollupResolutions = Collections.unmodifiableSet(rollupResolutions);
+    this.cube = Suppliers.memoize(new Supplier<DefaultCube>() {
       @Override
-      public Cube get() {
-        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS);
+      public DefaultCube get() {
+        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS,
+                                           AGGREGATIONS_ALIAS_DIMENSIONS, rollupResolutions);
         cube.setMetricsCollector(metricsContext);
         return cube;
       }
@@ -277,36 +341,404 @@ public class DefaultMetricStore implements MetricStore {
   @Override
   public void add(Collection<? extends MetricValues> metricValues) {
     List<CubeFact> facts = Lists.newArrayListWithCapacity(metricValues.size());
+    Set<String> counters = rollupEnabled ? new HashSet<>() : null;
     for (MetricValues metricValue : metricValues) {
       String scope = metricValue.getTags().get(Constants.Metrics.Tag.SCOPE);
       List<Measurement> metrics = Lists.newArrayList();
       // todo improve this logic?
       for (MetricValue metric : metricValue.getMetrics()) {
         String measureName = (scope == null ? "system." : scope + ".") + metric.getName();
+        if (metric.getType() == MetricType.DISTRIBUTION) {
+          addDistribution(metrics, measureName, metric);
+          continue;
+        }
         MeasureType type = metric.getType() == MetricType.COUNTER ? MeasureType.COUNTER : MeasureType.GAUGE;
         metrics.add(new Measurement(measureName, type, metric.getValue()));
       }
 
+      if (counters != null) {
+        for (Measurement measurement : metrics) {
+          if (measurement.getType() == MeasureType.COUNTER) {
+            counters.add(measurement.getName());
+          }
+        }
+      }
+
       CubeFact fact = new CubeFact(metricValue.getTimestamp())
         .addDimensionValues(metricValue.getTags())
         .addMeasurements(metrics);
       facts.add(fact);
     }
-    cube.get().add(facts);
+
+    if (!rollupEnabled) {
+      cube.get().add(facts);
+      return;
+    }
+
+    // Counter names need to be persisted before writing, so that the rollup knows what to roll up
+    registerCounters(counters);
+    cube.get().add(facts, getDirectCounterTimes());
+  }
+
+  /**
+   * Rolls up the counter metrics from the finest resolution to the coarser resolutions. For each resolution,
+   * the complete time buckets from the last checkpoint to the rollup delay before the current time are rolled up.
+   * The time buckets rolled up in the previous call are rolled up again, so that counters written to the finest
+   * resolution concurrently with the previous call are included. Since rollup sets the counters of the time buckets
+   * to the sums of the finest resolution, rolling up again is idempotent, which also makes a failure before the
+   * checkpoint is saved recovered by the next call.
+   */
+  @Override
+  public void rollup() throws Exception {
+    if (!rollupEnabled) {
+      return;
+    }
+    MetricsConsumerMetaTable metaTable = metaTableSupplier.get();
+    long now = TimeUnit.MILLISECONDS.toSeconds(timeProvider.currentTimeMillis());
+    Set<String> counters = null;
+    for (int resolution : rollupResolutions) {
+      RollupMetaKey checkpointKey = RollupMetaKey.checkpoint(resolution);
+      RollupMetaKey rerollKey = RollupMetaKey.rerollStart(resolution);
+      long checkpoint = metaTable.get(checkpointKey);
+      if (checkpoint < 0) {
+        // Counters are written directly to the resolution until the writers see the checkpoint. Start the rollup
+        // from the next time bucket, whose counters will be set from the finest resolution.
+        checkpoint = getBucketTime(now, resolution) + resolution;
+        metaTable.save(ImmutableMap.of(checkpointKey, checkpoint, rerollKey, checkpoint));
+        updateDirectCounterTime(resolution, checkpoint);
+        LOG.info("Initialized metrics rollup checkpoint of resolution {} to {}", resolution, checkpoint);
+        continue;
+      }
+
+      long rerollStart = metaTable.get(rerollKey);
+      if (rerollStart < 0 || rerollStart > checkpoint) {
+        rerollStart = checkpoint;
+      }
+      long maxWindow = Math.max(resolution, getBucketTime(MAX_ROLLUP_WINDOW_SECONDS, resolution));
+      long endTs = Math.min(getBucketTime(now - rollupDelaySecs, resolution), checkpoint + maxWindow);
+      endTs = Math.max(endTs, checkpoint);
+      if (endTs == rerollStart) {
+        continue;
+      }
+
+      if (counters == null) {
+        counters = metaTable.getNames(RollupMetaKey.COUNTERS);
+      }
+      long count = cube.get().rollup(finestResolution, resolution, rerollStart, endTs - 1, counters::contains);
+      // The time buckets rolled up for the first time will be rolled up again in the next call
+      metaTable.save(ImmutableMap.of(checkpointKey, endTs, rerollKey, checkpoint));
+      updateDirectCounterTime(resolution, endTs);
+      LOG.debug("Rolled up {} metrics values of resolution {} in time range [{}, {})",
+                count, resolution, rerollStart, endTs);
+    }
+  }
+
+  /**
+   * Persists the counter names that are not known to be in the meta table.
+   */
+  private void registerCounters(Set<String> counters) {
+    counters.removeAll(registeredCounters);
+    if (counters.isEmpty()) {
+      return;
+    }
+    try {
+      metaTableSupplier.get().addNames(RollupMetaKey.COUNTERS, counters);
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+    registeredCounters.addAll(counters);
+  }
+
+  /**
+   * Returns the time for each rollup resolution, before which counters need to be written to the resolution directly.
+   * It is the rollup checkpoint, since time buckets before it won't be rolled up for the first time anymore, or
+   * {@link Long#MAX_VALUE} if the rollup hasn't started. The checkpoints are kept in memory and updated by the rollup
+   * in this process. They are read from the meta table when they are first needed, after a failed read, after a
+   * delete, and once every rollup interval, so that writers in other processes pick up the checkpoints before the
+   * time buckets rolled up with them are rolled up again.
+   */
+  private synchronized Map<Integer, Long> getDirectCounterTimes() {
+    long now = timeProvider.currentTimeMillis();
+    if (directCounterTimes != null && now - directCounterTimesReadTime < checkpointRefreshMillis) {
+      return directCounterTimes;
+    }
+
+    Map<Integer, Long> times = new HashMap<>();
+    try {
+      MetricsConsumerMetaTable metaTable = metaTableSupplier.get();
+      for (int resolution : rollupResolutions) {
+        long checkpoint = metaTable.get(RollupMetaKey.checkpoint(resolution));
+        Long cached = directCounterTimes == null ? null : directCounterTimes.get(resolution);
+        times.put(resolution, getLaterCheckpoint(cached, checkpoint < 0 ? Long.MAX_VALUE : checkpoint));
+      }
+    } catch (Exception e) {
+      directCounterTimes = null;
+      throw Throwables.propagate(e);
+    }
+    directCounterTimes = Collections.unmodifiableMap(times);
+    directCounterTimesReadTime = now;
+    return directCounterTimes;
+  }
+
+  /**
+   * Updates the checkpoint used by writers after the rollup advanced it for the given resolution.
+   */
+  private synchronized void updateDirectCounterTime(int resolution, long checkpoint) {
+    if (directCounterTimes == null) {
+      // The checkpoints will be read from the meta table, which already has the new checkpoint
+      return;
+    }
+    Map<Integer, Long> times = new HashMap<>(directCounterTimes);
+    times.put(resolution, getLaterCheckpoint(times.get(resolution), checkpoint));
+    directCounterTimes = Collections.unmodifiableMap(times);
+  }
+
+  /**
+   * Makes writers read the rollup checkpoints from the meta table again.
+   */
+  private synchronized void invalidateDirectCounterTimes() {
+    directCounterTimes = null;
+  }
+
+  /**
+   * Returns the later of two checkpoints, where {@link Long#MAX_VALUE} means the rollup hasn't started yet. Since a
+   * read from the meta table can race with a rollup, this keeps a checkpoint from going backward.
+   */
+  private static long getLaterCheckpoint(@Nullable Long checkpoint1, long checkpoint2) {
+    if (checkpoint1 == null || checkpoint1 == Long.MAX_VALUE) {
+      return checkpoint2;
+    }
+    return checkpoint2 == Long.MAX_VALUE ? checkpoint1 : Math.max(checkpoint1, checkpoint2);
+  }
+
+  /**
+   * Queries the cube. If the query is on a rollup resolution, counters in the time buckets that are not yet
+   * rolled up are computed from the finest resolution and replace the values in the result.
+   */
+  private Collection<TimeSeries> queryCube(CubeQuery query) {
+    int resolution = query.getResolution();
+    if (!rollupEnabled || !rollupResolutions.contains(resolution)) {
+      return cube.get().query(query);
+    }
+
+    // Read the checkpoint before querying. If a rollup happens in between, the time buckets rolled up by it are
+    // after the checkpoint, hence are computed from the finest resolution instead of being counted twice.
+    long checkpoint;
+    Set<String> counters;
+    try {
+      MetricsConsumerMetaTable metaTable = metaTableSupplier.get();
+      checkpoint = metaTable.get(RollupMetaKey.checkpoint(resolution));
+      counters = metaTable.getNames(RollupMetaKey.COUNTERS);
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+    Collection<TimeSeries> result = cube.get().query(query);
+
+    // The last bucket of the query contains values up to the end of the bucket
+    long endTs = getBucketTime(query.getEndTs(), resolution);
+    endTs = endTs > Long.MAX_VALUE - resolution ? Long.MAX_VALUE : endTs + resolution - 1;
+    if (checkpoint < 0 || endTs < checkpoint) {
+      return result;
+    }
+
+    // Only counters aggregated with SUM can be merged
+    Map<String, AggregationFunction> measurements = new HashMap<>();
+    for (Map.Entry<String, AggregationFunction> entry : query.getMeasurements().entrySet()) {
+      if (entry.getValue() == AggregationFunction.SUM && counters.contains(entry.getKey())) {
+        measurements.put(entry.getKey(), entry.getValue());
+      }
+    }
+    if (measurements.isEmpty()) {
+      return result;
+    }
+
+    CubeQuery tailQuery = new CubeQuery(query.getAggregation(), Math.max(query.getStartTs(), checkpoint), endTs,
+                                        finestResolution, Integer.MAX_VALUE, measurements,
+                                        query.getDimensionValues(), query.getGroupByDimensions(), null);
+    Collection<TimeSeries> tail = cube.get().query(tailQuery);
+
+    // Merge the tail into the result, keyed by measure name and dimension values. Counters in the time buckets after
+    // the checkpoint are only taken from the tail, since the finest resolution has all counters of those buckets.
+    Map<Map.Entry<String, Map<String, String>>, NavigableMap<Long, Long>> merged = new LinkedHashMap<>();
+    for (TimeSeries timeSeries : result) {
+      NavigableMap<Long, Long> values = merged.computeIfAbsent(
+        Maps.immutableEntry(timeSeries.getMeasureName(), timeSeries.getDimensionValues()), k -> new TreeMap<>());
+      boolean fromTail = measurements.containsKey(timeSeries.getMeasureName());
+      for (TimeValue timeValue : timeSeries.getTimeValues()) {
+        if (!fromTail || timeValue.getTimestamp() < checkpoint) {
+          values.put(timeValue.getTimestamp(), timeValue.getValue());
+        }
+      }
+    }
+    for (TimeSeries timeSeries : tail) {
+      NavigableMap<Long, Long> values = merged.computeIfAbsent(
+        Maps.immutableEntry(timeSeries.getMeasureName(), timeSeries.getDimensionValues()), k -> new TreeMap<>());
+      for (TimeValue timeValue : timeSeries.getTimeValues()) {
+        long bucketTime = getBucketTime(timeValue.getTimestamp(), resolution);
+        if (bucketTime >= query.getStartTs()) {
+          values.merge(bucketTime, timeValue.getValue(), Long::sum);
+        }
+      }
+    }
+
+    List<TimeSeries> mergedResult = new ArrayList<>(merged.size());
+    for (Map.Entry<Map.Entry<String, Map<String, String>>, NavigableMap<Long, Long>> entry : merged.entrySet()) {
+      if (entry.getValue().isEmpty()) {
+        continue;
+      }
+      List<TimeValue> timeValues = new ArrayList<>();
+      for (Map.Entry<Long, Long> value : entry.getValue().entrySet()) {
+        if (timeValues.size() >= query.getLimit()) {
+          break;
+        }
+        timeValues.add(new TimeValue(value.getKey(), value.getValue()));
+      }
+      mergedResult.add(new TimeSeries(entry.getKey().getKey(), entry.getKey().getValue(), timeValues));
+    }
+    return mergedResult;
+  }
+
+  private static long getBucketTime(long timestamp, int resolution) {
+    return (timestamp / resolution) * resolution;
+  }
+
+  /**
+   * Adds the measurements of a distribution metric. A distribution is stored as counters, one for the number of
+   * values, one for the sum of the values and one for each non-empty bucket. Counters are aggregated across
+   * resolutions and tags by the cube, which makes the percentiles computed from the bucket counts accurate
+   * for any query.
+   */
+  private void addDistribution(List<Measurement> metrics, String measureName, MetricValue metric) {
+    Distribution distribution = metric.getDistribution();
+    metrics.add(new Measurement(measureName, MeasureType.COUNTER, metric.getValue()));
+    if (distribution == null) {
+      return;
+    }
+    metrics.add(new Measurement(measureName + DISTRIBUTION_SUM_SUFFIX, MeasureType.COUNTER, distribution.getSum()));
+    int[] buckets = distribution.getBuckets();
+    long[] counts = distribution.getCounts();
+    for (int i = 0; i < buckets.length; i++) {
+      metrics.add(new Measurement(getBucketMeasureName(measureName, buckets[i]), MeasureType.COUNTER, counts[i]));
+    }
   }
 
   @Override
   public Collection<MetricTimeSeries> query(MetricDataQuery query) {
-    Collection<TimeSeries> cubeResult = cube.get().query(buildCubeQuery(query));
+    Collection<TimeSeries> cubeResult = queryCube(buildCubeQuery(query));
     List<MetricTimeSeries> result = Lists.newArrayList();
+    Set<String> foundMetrics = new HashSet<>();
     for (TimeSeries timeSeries : cubeResult) {
       result.add(new MetricTimeSeries(timeSeries.getMeasureName(),
                                       timeSeries.getDimensionValues(),
                                       timeSeries.getTimeValues()));
+      foundMetrics.add(timeSeries.getMeasureName());
+    }
+
+    // For metric names that are in the form of "[metric].p[digits]" and have no data stored under the same name,
+    // compute the percentile from the distribution of the metric.
+    for (String metricName : query.getMetrics().keySet()) {
+      Matcher matcher = PERCENTILE_PATTERN.matcher(metricName);
+      if (foundMetrics.contains(metricName) || !matcher.matches()) {
+        continue;
+      }
+      Double percentile = parsePercentile(matcher.group(2));
+      if (percentile != null) {
+        result.addAll(queryPercentile(query, metricName, matcher.group(1), percentile));
+      }
     }
     return result;
   }
 
+  /**
+   * Parses the digits of a percentile metric name suffix. Two digits from "01" to "99" are the percentile itself,
+   * "100" is the maximum, and more digits starting with "99" are fractional percentiles, e.g. "999" is 99.9 and
+   * "9999" is 99.99.
+   *
+   * @return the percentile between 1 and 100 or {@code null} if the digits are not a valid percentile
+   */
+  @VisibleForTesting
+  @Nullable
+  static Double parsePercentile(String digits) {
+    if (digits.length() == 2) {
+      int percentile = Integer.parseInt(digits);
+      return percentile == 0 ? null : (double) percentile;
+    }
+    if (digits.equals("100")) {
+      return 100d;
+    }
+    if (digits.length() > 2 && digits.startsWith("99")) {
+      return Double.parseDouble("99." + digits.substring(2));
+    }
+    return null;
+  }
+
+  /**
+   * Queries the bucket counts of a distribution metric and computes the given percentile for each time value.
+   */
+  private Collection<MetricTimeSeries> queryPercentile(MetricDataQuery query, String metricName,
+                                                       String distributionName, double percentile) {
+    Map<String, AggregationFunction> bucketMetrics = new HashMap<>();
+    Map<String, Integer> bucketIndices = new HashMap<>();
+    for (int i = 0; i < Distribution.NUM_BUCKETS; i++) {
+      String bucketMeasureName = getBucketMeasureName(distributionName, i);
+      bucketMetrics.put(bucketMeasureName, AggregationFunction.SUM);
+      bucketIndices.put(bucketMeasureName, i);
+    }
+
+    // Interpolation of bucket counts doesn't give meaningful percentiles, hence not used.
+    MetricDataQuery bucketQuery = new MetricDataQuery(query.getStartTs(), query.getEndTs(), query.getResolution(),
+                                                      query.getLimit(), bucketMetrics, query.getSliceByTags(),
+                                                      query.getGroupByTags(), null);
+
+    // Groups bucket counts by the tags and then by timestamp
+    Map<Map<String, String>, NavigableMap<Long, long[]>> bucketCounts = new HashMap<>();
+    for (TimeSeries timeSeries : queryCube(buildCubeQuery(bucketQuery))) {
+      int bucket = bucketIndices.get(timeSeries.getMeasureName());
+      NavigableMap<Long, long[]> countsByTime =
+        bucketCounts.computeIfAbsent(timeSeries.getDimensionValues(), k -> new TreeMap<>());
+      for (TimeValue timeValue : timeSeries.getTimeValues()) {
+        countsByTime.computeIfAbsent(timeValue.getTimestamp(),
+                                     k -> new long[Distribution.NUM_BUCKETS])[bucket] += timeValue.getValue();
+      }
+    }
+
+    List<MetricTimeSeries> result = new ArrayList<>();
+    for (Map.Entry<Map<String, String>, NavigableMap<Long, long[]>> entry : bucketCounts.entrySet()) {
+      List<TimeValue> timeValues = new ArrayList<>();
+      for (Map.Entry<Long, long[]> counts : entry.getValue().entrySet()) {
+        timeValues.add(new TimeValue(counts.getKey(), toDistribution(counts.getValue()).getPercentile(percentile)));
+      }
+      result.add(new MetricTimeSeries(metricName, entry.getKey(), timeValues));
+    }
+    return result;
+  }
+
+  /**
+   * Creates a {@link Distribution} from the counts of all buckets. The sum is not needed for computing percentiles.
+   */
+  private static Distribution toDistribution(long[] bucketCounts) {
+    int size = 0;
+    for (long count : bucketCounts) {
+      if (count > 0) {
+        size++;
+      }
+    }
+    int[] buckets = new int[size];
+    long[] counts = new long[size];
+    int idx = 0;
+    for (int i = 0; i < bucketCounts.length; i++) {
+      if (bucketCounts[i] > 0) {
+        buckets[idx] = i;
+        counts[idx++] = bucketCounts[i];
+      }
+    }
+    return new Distribution(buckets, counts, 0L);
+  }
+
+  private static String getBucketMeasureName(String measureName, int bucket) {
+    return measureName + DISTRIBUTION_BUCKET_INFIX + bucket;
+  }
+
   private CubeQuery buildCubeQuery(MetricDataQuery query) {
     String aggregation = getAggregation(query);
     return new CubeQuery(aggregation, query.getStartTs(), query.getEndTs(),
@@ -350,6 +782,19 @@ public class DefaultMetricStore implements MetricStore {
   @Override
   public void delete(MetricDeleteQuery query) {
     cube.get().delete(buildCubeDeleteQuery(query));
+    try {
+      // Let the metrics query caches, which can be in other processes, know about the deletion.
+      // The time always increases, such that deletions in the same millisecond are distinguishable.
+      MetricsConsumerMetaTable metaTable = metaTableSupplier.get();
+      long lastDeleteTime = metaTable.get(DeleteMetaKey.LAST_DELETE_TIME);
+      metaTable.save(Collections.singletonMap(DeleteMetaKey.LAST_DELETE_TIME,
+                                              Math.max(System.currentTimeMillis(), lastDeleteTime + 1)));
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+    if (rollupEnabled) {
+      invalidateDirectCounterTimes();
+    }
   }
 
   @Override
@@ -361,6 +806,12 @@ public class DefaultMetricStore implements MetricStore {
     deleteBefore(System.currentTimeMillis() / 1000);
   }
 
+  @Override
+  public long getLastDeleteTime() throws Exception {
+    // The meta table returns -1 if the time was never saved
+    return Math.max(0L, metaTableSupplier.get().get(DeleteMetaKey.LAST_DELETE_TIME));
+  }
+
   private CubeDeleteQuery buildCubeDeleteQuery(MetricDeleteQuery query) {
     // note: delete query currently usually executed synchronously,
     //       so we only attempt to delete totals, to avoid timeout
@@ -385,7 +836,15 @@ public class DefaultMetricStore implements MetricStore {
 
   @Override
   public Collection<String> findMetricNames(MetricSearchQuery query) {
-    return cube.get().findMeasureNames(buildCubeSearchQuery(query));
+    Collection<String> measureNames = cube.get().findMeasureNames(buildCubeSearchQuery(query));
+    // Bucket counts of distributions are internal and only queried through percentiles
+    List<String> result = new ArrayList<>(measureNames.size());
+    for (String measureName : measureNames) {
+      if (!BUCKET_PATTERN.matcher(measureName).matches()) {
+        result.add(measureName);
+      }
+    }
+    return result;
   }
 
   /**
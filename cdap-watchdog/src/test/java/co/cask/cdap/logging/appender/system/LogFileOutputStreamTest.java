@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.appender.system;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
+import co.cask.cdap.logging.filter.Filter;
+import co.cask.cdap.logging.read.LogEvent;
+import co.cask.cdap.logging.write.LogLocation;
+import co.cask.cdap.logging.write.LogTimeIndex;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Tests for {@link LogFileOutputStream} and reading of the log file it writes, with and without
+ * the {@link LogTimeIndex}.
+ */
+public class LogFileOutputStreamTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static final long BASE_TIME = 1000000L;
+
+  @Test
+  public void testTimeIndex() throws Exception {
+    Location location = new LocalLocationFactory(TMP_FOLDER.newFolder()).create("1234.avro");
+    Logger logger = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+
+    // Write 1000 events, with 10 events sharing the same timestamp and flush for every 50 events
+    Closeable closeable = new Closeable() {
+      @Override
+      public void close() {
+        // no-op
+      }
+    };
+    try (LogFileOutputStream outputStream = new LogFileOutputStream(location, "", 1024,
+                                                                    System.currentTimeMillis(), closeable)) {
+      for (int i = 0; i < 1000; i++) {
+        LoggingEvent event = new LoggingEvent("co.cask.Test", logger, Level.INFO, "Message " + i, null, null);
+        event.setTimeStamp(BASE_TIME + i / 10);
+        outputStream.append(event);
+        if (i % 50 == 49) {
+          outputStream.flush();
+        }
+      }
+    }
+
+    Location indexLocation = LogTimeIndex.getIndexLocation(location);
+    Assert.assertTrue(indexLocation.exists());
+
+    // Read with the index
+    LogLocation logLocation = new LogLocation(LogLocation.VERSION_1, BASE_TIME, BASE_TIME, location,
+                                              "default", null);
+    List<List<String>> indexedResults = readAll(logLocation);
+
+    // Read without the index, which should give the same result
+    Assert.assertTrue(indexLocation.delete());
+    List<List<String>> scanResults = readAll(logLocation);
+    Assert.assertEquals(scanResults, indexedResults);
+
+    // Verify some reads
+    Assert.assertEquals(20, indexedResults.get(0).size());
+    Assert.assertEquals("Message 550", indexedResults.get(0).get(0));
+    Assert.assertEquals(20, indexedResults.get(1).size());
+    Assert.assertEquals("Message 540", indexedResults.get(1).get(0));
+    Assert.assertEquals("Message 559", indexedResults.get(1).get(19));
+  }
+
+  /**
+   * Reads from the given {@link LogLocation} with different parameters and returns the list of messages
+   * read for each of them.
+   */
+  private List<List<String>> readAll(LogLocation logLocation) throws Exception {
+    List<List<String>> results = new ArrayList<>();
+
+    long[] times = { BASE_TIME + 55, BASE_TIME, BASE_TIME + 3, BASE_TIME + 99, BASE_TIME + 100, BASE_TIME - 1 };
+    for (long time : times) {
+      try (CloseableIterator<LogEvent> iterator = logLocation.readLog(Filter.EMPTY_FILTER, time, Long.MAX_VALUE, 20)) {
+        results.add(toMessages(iterator));
+      }
+      results.add(toMessages(logLocation.readLogPrev(Filter.EMPTY_FILTER, time, 20).iterator()));
+    }
+
+    // Read everything backward
+    Collection<LogEvent> events = logLocation.readLogPrev(Filter.EMPTY_FILTER, Long.MAX_VALUE, 2000);
+    Assert.assertEquals(1000, events.size());
+    results.add(toMessages(events.iterator()));
+    return results;
+  }
+
+  private List<String> toMessages(Iterator<LogEvent> iterator) {
+    List<String> messages = new ArrayList<>();
+    while (iterator.hasNext()) {
+      messages.add(iterator.next().getLoggingEvent().getFormattedMessage());
+    }
+    return messages;
+  }
+}
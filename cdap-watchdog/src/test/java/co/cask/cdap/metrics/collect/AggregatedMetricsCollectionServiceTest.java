@@ -15,6 +15,8 @@
  */
 package co.cask.cdap.metrics.collect;
 
+import co.cask.cdap.api.metrics.Distribution;
+import co.cask.cdap.api.metrics.MetricType;
 import co.cask.cdap.api.metrics.MetricValue;
 import co.cask.cdap.api.metrics.MetricValues;
 import co.cask.cdap.api.metrics.MetricsContext;
@@ -51,6 +53,7 @@ public class AggregatedMetricsCollectionServiceTest {
   private static final String INSTANCE = "testInstance";
   private static final String METRIC = "metric";
   private static final String GAUGE_METRIC = "gaugeMetric";
+  private static final String DISTRIBUTION_METRIC = "distributionMetric";
 
   private long getMetricValue(Collection<MetricValue> metrics, String metricName) {
     Iterator<MetricValue> metricsItor = metrics.iterator();
@@ -164,6 +167,83 @@ public class AggregatedMetricsCollectionServiceTest {
     }
   }
 
+  @Test
+  public void testDistribution() throws InterruptedException {
+    final BlockingQueue<MetricValues> published = new LinkedBlockingQueue<>();
+
+    AggregatedMetricsCollectionService service = new AggregatedMetricsCollectionService() {
+      @Override
+      protected void publish(Iterator<MetricValues> metrics) {
+        Iterators.addAll(published, metrics);
+      }
+
+      @Override
+      protected long getInitialDelayMillis() {
+        return 2000L;
+      }
+    };
+
+    service.startAndWait();
+    try {
+      // Record values 1 to 1000
+      MetricsContext context = service.getContext(EMPTY_TAGS);
+      for (int i = 1; i <= 1000; i++) {
+        context.distribution(DISTRIBUTION_METRIC, i);
+      }
+
+      MetricValues record = published.poll(10, TimeUnit.SECONDS);
+      Assert.assertNotNull(record);
+
+      MetricValue metricValue = null;
+      for (MetricValue value : record.getMetrics()) {
+        if (DISTRIBUTION_METRIC.equals(value.getName())) {
+          metricValue = value;
+        }
+      }
+      Assert.assertNotNull(metricValue);
+      Assert.assertEquals(MetricType.DISTRIBUTION, metricValue.getType());
+      Assert.assertEquals(1000L, metricValue.getValue());
+
+      Distribution distribution = metricValue.getDistribution();
+      Assert.assertNotNull(distribution);
+      Assert.assertEquals(1000L, distribution.getCount());
+      Assert.assertEquals(500500L, distribution.getSum());
+
+      // Percentile estimates are within the bucket relative error
+      assertPercentile(500, distribution.getPercentile(50));
+      assertPercentile(900, distribution.getPercentile(90));
+      assertPercentile(990, distribution.getPercentile(99));
+      Assert.assertEquals(1L, distribution.getPercentile(0));
+
+      // No publishing for empty distribution
+      Assert.assertNull(published.poll(3, TimeUnit.SECONDS));
+    } finally {
+      service.stopAndWait();
+    }
+  }
+
+  @Test
+  public void testDistributionBuckets() {
+    // Small values have their own buckets
+    for (int i = 0; i < Distribution.SUB_BUCKETS; i++) {
+      Assert.assertEquals(i, Distribution.getBucket(i));
+      Assert.assertEquals(i, Distribution.getBucketLowerBound(i));
+    }
+    Assert.assertEquals(0, Distribution.getBucket(-10));
+    Assert.assertEquals(Distribution.NUM_BUCKETS - 1, Distribution.getBucket(Long.MAX_VALUE));
+
+    // Each value should be within the bounds of its bucket
+    for (long value = 0; value < 100000; value += 7) {
+      int bucket = Distribution.getBucket(value);
+      Assert.assertTrue(Distribution.getBucketLowerBound(bucket) <= value);
+      Assert.assertTrue(value < Distribution.getBucketLowerBound(bucket + 1));
+    }
+  }
+
+  private void assertPercentile(long expected, long actual) {
+    Assert.assertTrue("Expected " + expected + " but got " + actual, Math.abs(expected - actual) <= expected / 4);
+  }
+
   @Test
   public void testServiceShutdown() throws InterruptedException, TimeoutException, ExecutionException {
     final CountDownLatch latch = new CountDownLatch(1);
@@ -84,14 +84,16 @@ public class MessagingMetricsCollectionServiceTest extends MetricsTestBase {
 
     // Consume from kafka
     final Map<String, MetricValues> metrics = Maps.newHashMap();
+    MetricValuesFormat metricValuesFormat = new MetricValuesFormat(schema);
     ByteBufferInputStream is = new ByteBufferInputStream(null);
     for (int i = 0; i < cConf.getInt(Constants.Metrics.MESSAGING_TOPIC_NUM); i++) {
     TopicId topicId = NamespaceId.SYSTEM.topic(TOPIC_PREFIX + i);
       try (CloseableIterator<RawMessage> iterator = messagingService.prepareFetch(topicId).fetch()) {
         while (iterator.hasNext()) {
           RawMessage message = iterator.next();
+          BinaryDecoder decoder = new BinaryDecoder(is.reset(ByteBuffer.wrap(message.getPayload())));
           MetricValues metricsRecord = (MetricValues) recordReader.read(
-            new BinaryDecoder(is.reset(ByteBuffer.wrap(message.getPayload()))), schema);
+            decoder, metricValuesFormat.getSourceSchema(message.getPayload(), decoder));
           StringBuilder flattenContext = new StringBuilder();
           // for verifying expected results, sorting tags
           Map<String, String> tags = Maps.newTreeMap();
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.collect;
+
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.metrics.Distribution;
+import co.cask.cdap.api.metrics.MetricType;
+import co.cask.cdap.api.metrics.MetricValue;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.common.io.Encoder;
+import co.cask.cdap.internal.io.ReflectionDatumReader;
+import co.cask.cdap.internal.io.ReflectionDatumWriter;
+import co.cask.cdap.internal.io.ReflectionSchemaGenerator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.reflect.TypeToken;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link MetricValuesFormat}.
+ */
+public class MetricValuesFormatTest {
+
+  private static final TypeToken<MetricValues> METRIC_VALUES_TYPE = TypeToken.of(MetricValues.class);
+
+  @Test
+  public void testReadLegacyFormat() throws Exception {
+    // Encode MetricValues as written by earlier versions, which have no distribution field in MetricValue
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    Encoder encoder = new BinaryEncoder(os);
+    // Nullable metrics array with one MetricValue of fields name, type and value. Union index 0 is the non-null value
+    encoder.writeInt(0).writeInt(1);
+    encoder.writeInt(0);
+    encoder.writeInt(0).writeString("processed");
+    encoder.writeInt(0).writeInt(MetricType.COUNTER.ordinal());
+    encoder.writeLong(5L);
+    encoder.writeInt(0);
+    // Nullable tags map
+    encoder.writeInt(0).writeInt(1);
+    encoder.writeString("ns");
+    encoder.writeInt(0).writeString("default");
+    encoder.writeInt(0);
+    // timestamp
+    encoder.writeLong(1234L);
+
+    MetricValues metricValues = read(os.toByteArray());
+    Assert.assertEquals(ImmutableMap.of("ns", "default"), metricValues.getTags());
+    Assert.assertEquals(1234L, metricValues.getTimestamp());
+    MetricValue metricValue = Iterables.getOnlyElement(metricValues.getMetrics());
+    Assert.assertEquals("processed", metricValue.getName());
+    Assert.assertEquals(MetricType.COUNTER, metricValue.getType());
+    Assert.assertEquals(5L, metricValue.getValue());
+    Assert.assertNull(metricValue.getDistribution());
+  }
+
+  @Test
+  public void testCurrentFormat() throws Exception {
+    Schema schema = new ReflectionSchemaGenerator().generate(METRIC_VALUES_TYPE.getType());
+    Distribution distribution = new Distribution(new int[] { 3, 10 }, new long[] { 2L, 1L }, 20L);
+    MetricValues metricValues = new MetricValues(ImmutableMap.of("ns", "system"), 5678L,
+                                                 ImmutableList.of(new MetricValue("latency", distribution),
+                                                                  new MetricValue("size", MetricType.GAUGE, 7L)));
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    Encoder encoder = new BinaryEncoder(os);
+    MetricValuesFormat.writeVersion(encoder);
+    new ReflectionDatumWriter<MetricValues>(schema).encode(metricValues, encoder);
+
+    MetricValues result = read(os.toByteArray());
+    Assert.assertEquals(metricValues.getTags(), result.getTags());
+    Assert.assertEquals(metricValues.getTimestamp(), result.getTimestamp());
+    MetricValue latency = Iterables.get(result.getMetrics(), 0);
+    Assert.assertEquals(MetricType.DISTRIBUTION, latency.getType());
+    Assert.assertEquals(3L, latency.getValue());
+    Assert.assertArrayEquals(distribution.getBuckets(), latency.getDistribution().getBuckets());
+    Assert.assertTrue(Arrays.equals(distribution.getCounts(), latency.getDistribution().getCounts()));
+    Assert.assertEquals(20L, latency.getDistribution().getSum());
+    MetricValue size = Iterables.get(result.getMetrics(), 1);
+    Assert.assertEquals(MetricType.GAUGE, size.getType());
+    Assert.assertEquals(7L, size.getValue());
+    Assert.assertNull(size.getDistribution());
+  }
+
+  private MetricValues read(byte[] payload) throws Exception {
+    Schema schema = new ReflectionSchemaGenerator().generate(METRIC_VALUES_TYPE.getType());
+    MetricValuesFormat format = new MetricValuesFormat(schema);
+    BinaryDecoder decoder = new BinaryDecoder(new ByteArrayInputStream(payload));
+    return new ReflectionDatumReader<>(schema, METRIC_VALUES_TYPE).read(decoder, format.getSourceSchema(payload,
+                                                                                                        decoder));
+  }
+}
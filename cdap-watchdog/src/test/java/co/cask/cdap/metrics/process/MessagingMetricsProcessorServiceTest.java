@@ -209,6 +209,11 @@ public class MessagingMetricsProcessorServiceTest extends MetricsProcessorServic
       // no-op
     }
 
+    @Override
+    public void rollup() {
+      // no-op
+    }
+
     @Override
     public void delete(MetricDeleteQuery query) {
       // no-op
@@ -230,6 +235,11 @@ public class MessagingMetricsProcessorServiceTest extends MetricsProcessorServic
       return null;
     }
 
+    @Override
+    public long getLastDeleteTime() {
+      return 0L;
+    }
+
     @Override
     public Map<String, MetricsProcessorStatus> getMetricsProcessorStats() {
       return Collections.EMPTY_MAP;
@@ -32,6 +32,7 @@ import co.cask.cdap.data.runtime.DataSetsModules;
 import co.cask.cdap.explore.guice.ExploreClientModule;
 import co.cask.cdap.messaging.client.StoreRequestBuilder;
 import co.cask.cdap.metrics.MetricsTestBase;
+import co.cask.cdap.metrics.collect.MetricValuesFormat;
 import co.cask.cdap.metrics.store.DefaultMetricStore;
 import co.cask.cdap.metrics.store.LocalMetricsDatasetFactory;
 import co.cask.cdap.metrics.store.MetricDatasetFactory;
@@ -123,6 +124,7 @@ abstract class MetricsProcessorServiceTestBase extends MetricsTestBase {
       }
     }
 
+    MetricValuesFormat.writeVersion(encoder);
     recordWriter.encode(metric, encoder);
     return metric;
   }
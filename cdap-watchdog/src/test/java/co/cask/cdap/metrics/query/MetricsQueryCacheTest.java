@@ -0,0 +1,283 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.query;
+
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
+import co.cask.cdap.api.dataset.lib.cube.TimeValue;
+import co.cask.cdap.api.metrics.MetricDataQuery;
+import co.cask.cdap.api.metrics.MetricDeleteQuery;
+import co.cask.cdap.api.metrics.MetricSearchQuery;
+import co.cask.cdap.api.metrics.MetricStore;
+import co.cask.cdap.api.metrics.MetricTimeSeries;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.api.metrics.MetricsProcessorStatus;
+import co.cask.cdap.api.metrics.TagValue;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit test for {@link MetricsQueryCache}.
+ */
+public class MetricsQueryCacheTest {
+
+  private static final int RESOLUTION = 60;
+  // With the default closed delay of 180 seconds, buckets before 9780 are closed at this time
+  private static final long NOW = 10000L;
+
+  @Test
+  public void testMerge() {
+    TestMetricStore store = new TestMetricStore();
+    AtomicLong currentTime = new AtomicLong(TimeUnit.SECONDS.toMillis(NOW));
+    MetricsQueryCache cache = new MetricsQueryCache(store, createCConf(1000), currentTime::get);
+    for (long ts = 8400L; ts < 11000L; ts += RESOLUTION) {
+      store.put(ts, ts / RESOLUTION);
+    }
+
+    // The first query is a miss and queries the whole time range
+    Assert.assertEquals(store.query(9000L, NOW), query(cache, 9000L, NOW));
+    Assert.assertEquals(Collections.singletonList(Arrays.asList(9000L, NOW)), store.getQueries());
+
+    // Moving the time range forward only queries the open tail, and the result matches the store
+    store.clearQueries();
+    currentTime.addAndGet(TimeUnit.SECONDS.toMillis(120));
+    Assert.assertEquals(store.query(9120L, NOW + 120), query(cache, 9120L, NOW + 120));
+    Assert.assertEquals(Collections.singletonList(Arrays.asList(9780L, NOW + 120)), store.getQueries());
+
+    // The entry is trimmed to the last query time range, so an earlier start time is a miss
+    store.clearQueries();
+    Assert.assertEquals(store.query(9060L, NOW + 120), query(cache, 9060L, NOW + 120));
+    Assert.assertEquals(Collections.singletonList(Arrays.asList(9060L, NOW + 120)), store.getQueries());
+
+    // Series without value in the time range are not in the result
+    Assert.assertTrue(query(cache, 12000L, 12060L).isEmpty());
+  }
+
+  @Test
+  public void testClosedBoundary() {
+    TestMetricStore store = new TestMetricStore();
+    AtomicLong currentTime = new AtomicLong(TimeUnit.SECONDS.toMillis(NOW));
+    MetricsQueryCache cache = new MetricsQueryCache(store, createCConf(1000), currentTime::get);
+    for (long ts = 9000L; ts <= NOW; ts += RESOLUTION) {
+      store.put(ts, 1L);
+    }
+    query(cache, 9000L, NOW);
+
+    // Late values in the last closed bucket are not seen, while the ones in the first open bucket are
+    store.put(9720L, 2L);
+    store.put(9780L, 2L);
+    Map<Long, Long> result = query(cache, 9000L, NOW);
+    Assert.assertEquals(1L, (long) result.get(9720L));
+    Assert.assertEquals(2L, (long) result.get(9780L));
+
+    // The late value is seen once the entry expires, even though the entry was extended in between
+    currentTime.addAndGet(TimeUnit.SECONDS.toMillis(300));
+    Assert.assertEquals(1L, (long) query(cache, 9000L, NOW + 300).get(9720L));
+    currentTime.addAndGet(TimeUnit.SECONDS.toMillis(300));
+    Assert.assertEquals(2L, (long) query(cache, 9000L, NOW + 600).get(9720L));
+  }
+
+  @Test
+  public void testDelete() {
+    TestMetricStore store = new TestMetricStore();
+    AtomicLong currentTime = new AtomicLong(TimeUnit.SECONDS.toMillis(NOW));
+    MetricsQueryCache cache = new MetricsQueryCache(store, createCConf(1000), currentTime::get);
+    for (long ts = 9000L; ts <= NOW; ts += RESOLUTION) {
+      store.put(ts, 1L);
+    }
+    Assert.assertFalse(query(cache, 9000L, NOW).isEmpty());
+
+    // Deleting metrics makes the cached entry unusable
+    store.deleteAll();
+    Assert.assertTrue(query(cache, 9000L, NOW).isEmpty());
+  }
+
+  @Test
+  public void testEviction() {
+    TestMetricStore store = new TestMetricStore();
+    AtomicLong currentTime = new AtomicLong(TimeUnit.SECONDS.toMillis(NOW));
+    // The weight of an entry is the number of values plus 2
+    MetricsQueryCache cache = new MetricsQueryCache(store, createCConf(12), currentTime::get);
+    for (long ts = 8400L; ts <= NOW; ts += RESOLUTION) {
+      store.put(ts, 1L);
+    }
+
+    // An entry of 13 closed buckets is heavier than the maximum weight and is not kept
+    query(cache, 9000L, NOW);
+    store.clearQueries();
+    query(cache, 9000L, NOW);
+    Assert.assertEquals(Collections.singletonList(Arrays.asList(9000L, NOW)), store.getQueries());
+
+    // An entry of 5 closed buckets is kept
+    query(cache, 9480L, NOW);
+    store.clearQueries();
+    query(cache, 9480L, NOW);
+    Assert.assertEquals(Collections.singletonList(Arrays.asList(9780L, NOW)), store.getQueries());
+
+    // The cache is disabled by default
+    cache = new MetricsQueryCache(store, CConfiguration.create(), currentTime::get);
+    query(cache, 9480L, NOW);
+    store.clearQueries();
+    query(cache, 9480L, NOW);
+    Assert.assertEquals(Collections.singletonList(Arrays.asList(9480L, NOW)), store.getQueries());
+  }
+
+  private CConfiguration createCConf(long maxWeight) {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setLong(Constants.Metrics.QUERY_CACHE_MAX_WEIGHT, maxWeight);
+    cConf.setLong(Constants.Metrics.QUERY_CACHE_CLOSED_DELAY_SECONDS, 180L);
+    cConf.setLong(Constants.Metrics.QUERY_CACHE_EXPIRATION_SECONDS, 600L);
+    return cConf;
+  }
+
+  private Map<Long, Long> query(MetricsQueryCache cache, long startTs, long endTs) {
+    return toMap(cache.query(createQuery(startTs, endTs)));
+  }
+
+  private static MetricDataQuery createQuery(long startTs, long endTs) {
+    return new MetricDataQuery(startTs, endTs, RESOLUTION, Integer.MAX_VALUE,
+                               ImmutableMap.of("system.count", AggregationFunction.SUM),
+                               ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, "ns"),
+                               ImmutableList.<String>of(), null);
+  }
+
+  private static Map<Long, Long> toMap(Collection<MetricTimeSeries> result) {
+    Map<Long, Long> values = new HashMap<>();
+    for (MetricTimeSeries timeSeries : result) {
+      for (TimeValue timeValue : timeSeries.getTimeValues()) {
+        Assert.assertNull(values.put(timeValue.getTimestamp(), timeValue.getValue()));
+      }
+    }
+    return values;
+  }
+
+  /**
+   * A {@link MetricStore} with a single time series that records the time ranges of the queries.
+   */
+  private static final class TestMetricStore implements MetricStore {
+
+    private final NavigableMap<Long, Long> values = new TreeMap<>();
+    private final List<List<Long>> queries = new ArrayList<>();
+    private long lastDeleteTime;
+
+    void put(long timestamp, long value) {
+      values.put(timestamp, value);
+    }
+
+    Map<Long, Long> query(long startTs, long endTs) {
+      return new HashMap<>(values.subMap(startTs, true, endTs, true));
+    }
+
+    List<List<Long>> getQueries() {
+      return queries;
+    }
+
+    void clearQueries() {
+      queries.clear();
+    }
+
+    @Override
+    public void setMetricsContext(MetricsContext metricsContext) {
+      // no-op
+    }
+
+    @Override
+    public void add(MetricValues metricValues) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void add(Collection<? extends MetricValues> metricValues) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<MetricTimeSeries> query(MetricDataQuery query) {
+      queries.add(Arrays.asList(query.getStartTs(), query.getEndTs()));
+      List<TimeValue> timeValues = new ArrayList<>();
+      for (Map.Entry<Long, Long> entry : values.subMap(query.getStartTs(), true, query.getEndTs(), true).entrySet()) {
+        timeValues.add(new TimeValue(entry.getKey(), entry.getValue()));
+      }
+      if (timeValues.isEmpty()) {
+        return Collections.emptyList();
+      }
+      return Collections.singletonList(new MetricTimeSeries("system.count", query.getSliceByTags(), timeValues));
+    }
+
+    @Override
+    public void deleteBefore(long timestamp) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteTTLExpired() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void rollup() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delete(MetricDeleteQuery query) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteAll() {
+      values.clear();
+      lastDeleteTime++;
+    }
+
+    @Override
+    public long getLastDeleteTime() {
+      return lastDeleteTime;
+    }
+
+    @Override
+    public Collection<TagValue> findNextAvailableTags(MetricSearchQuery query) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<String> findMetricNames(MetricSearchQuery query) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<String, MetricsProcessorStatus> getMetricsProcessorStats() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
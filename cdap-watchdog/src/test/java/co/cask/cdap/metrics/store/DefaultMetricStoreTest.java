@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.store;
+
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
+import co.cask.cdap.api.dataset.lib.cube.TimeValue;
+import co.cask.cdap.api.metrics.MetricDataQuery;
+import co.cask.cdap.api.metrics.MetricTimeSeries;
+import co.cask.cdap.api.metrics.MetricType;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
+import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import co.cask.cdap.data2.dataset2.lib.timeseries.EntityTable;
+import co.cask.cdap.data2.dataset2.lib.timeseries.FactTable;
+import co.cask.cdap.metrics.process.MetricsConsumerMetaTable;
+import co.cask.cdap.metrics.process.MetricsMetaKey;
+import co.cask.cdap.metrics.process.RollupMetaKey;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for {@link DefaultMetricStore}.
+ */
+public class DefaultMetricStoreTest {
+
+  @Test
+  public void testParsePercentile() {
+    Assert.assertEquals(50d, DefaultMetricStore.parsePercentile("50"), 0d);
+    Assert.assertEquals(5d, DefaultMetricStore.parsePercentile("05"), 0d);
+    Assert.assertEquals(99d, DefaultMetricStore.parsePercentile("99"), 0d);
+    Assert.assertEquals(100d, DefaultMetricStore.parsePercentile("100"), 0d);
+    Assert.assertEquals(99.9d, DefaultMetricStore.parsePercentile("999"), 0d);
+    Assert.assertEquals(99.99d, DefaultMetricStore.parsePercentile("9999"), 0d);
+
+    // Out of range or ambiguous digits are not percentiles
+    Assert.assertNull(DefaultMetricStore.parsePercentile("0"));
+    Assert.assertNull(DefaultMetricStore.parsePercentile("5"));
+    Assert.assertNull(DefaultMetricStore.parsePercentile("00"));
+    Assert.assertNull(DefaultMetricStore.parsePercentile("101"));
+    Assert.assertNull(DefaultMetricStore.parsePercentile("500"));
+    Assert.assertNull(DefaultMetricStore.parsePercentile("1000"));
+  }
+
+  @Test
+  public void testRollup() throws Exception {
+    // Start at a time aligned to the hour
+    long base = 360000L;
+    AtomicLong currentTime = new AtomicLong(TimeUnit.SECONDS.toMillis(base + 30));
+    MetricDatasetFactory dsFactory = createDatasetFactory("testRollup");
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setBoolean(Constants.Metrics.ROLLUP_ENABLED, true);
+    cConf.setLong(Constants.Metrics.ROLLUP_DELAY_SECONDS, 120L);
+    DefaultMetricStore store = new DefaultMetricStore(dsFactory, cConf, currentTime::get);
+
+    // Before the rollup is started, counters are written to all resolutions
+    store.add(createCounter(base + 10, 1));
+    Assert.assertEquals(ImmutableMap.of(base, 1L), query(store, 60));
+    Assert.assertEquals(ImmutableMap.of(base, 1L), query(store, 3600));
+
+    // The first rollup initializes the checkpoints to the next time buckets
+    store.rollup();
+    MetricsConsumerMetaTable metaTable = dsFactory.createConsumerMeta();
+    Assert.assertEquals(base + 60, metaTable.get(RollupMetaKey.checkpoint(60)));
+    Assert.assertEquals(base + 3600, metaTable.get(RollupMetaKey.checkpoint(3600)));
+
+    // Counters after the checkpoint are only written to the 1 second resolution, and merged in by queries
+    store.add(createCounter(base + 70, 1));
+    Assert.assertEquals(ImmutableMap.of(base, 1L, base + 60, 1L), query(store, 60));
+    Assert.assertEquals(ImmutableMap.of(base, 2L), query(store, 3600));
+
+    // Rollup the complete minutes that are older than the rollup delay
+    currentTime.set(TimeUnit.SECONDS.toMillis(base + 240));
+    store.rollup();
+    Assert.assertEquals(base + 120, metaTable.get(RollupMetaKey.checkpoint(60)));
+    Assert.assertEquals(ImmutableMap.of(base, 1L, base + 60, 1L), query(store, 60));
+
+    // Rolling up again, as if the checkpoint failed to be saved, doesn't double count
+    metaTable.save(ImmutableMap.of(RollupMetaKey.checkpoint(60), base + 60, RollupMetaKey.rerollStart(60), base + 60));
+    store.rollup();
+    store.rollup();
+    Assert.assertEquals(base + 120, metaTable.get(RollupMetaKey.checkpoint(60)));
+    Assert.assertEquals(ImmutableMap.of(base, 1L, base + 60, 1L), query(store, 60));
+
+    // Late counters before the checkpoint are written to the rolled up resolutions directly
+    store.add(createCounter(base + 61, 5));
+    Assert.assertEquals(ImmutableMap.of(base, 1L, base + 60, 6L), query(store, 60));
+    Assert.assertEquals(ImmutableMap.of(base, 7L), query(store, 3600));
+
+    // Counters in the next hour are merged in from the 1 second resolution until the hour is rolled up
+    store.add(createCounter(base + 130, 2));
+    store.add(createCounter(base + 3610, 3));
+    Assert.assertEquals(ImmutableMap.of(base, 1L, base + 60, 6L, base + 120, 2L, base + 3600, 3L), query(store, 60));
+    Assert.assertEquals(ImmutableMap.of(base, 9L, base + 3600, 3L), query(store, 3600));
+
+    currentTime.set(TimeUnit.SECONDS.toMillis(base + 7200 + 120));
+    store.rollup();
+    Assert.assertEquals(base + 7200, metaTable.get(RollupMetaKey.checkpoint(3600)));
+    Assert.assertEquals(ImmutableMap.of(base, 9L, base + 3600, 3L), query(store, 3600));
+    store.rollup();
+    Assert.assertEquals(ImmutableMap.of(base, 1L, base + 60, 6L, base + 120, 2L, base + 3600, 3L), query(store, 60));
+    Assert.assertEquals(ImmutableMap.of(base, 9L, base + 3600, 3L), query(store, 3600));
+  }
+
+  @Test
+  public void testCheckpointCache() throws Exception {
+    long base = 360000L;
+    AtomicLong currentTime = new AtomicLong(TimeUnit.SECONDS.toMillis(base + 30));
+    AtomicInteger checkpointReads = new AtomicInteger();
+    MetricDatasetFactory dsFactory = createDatasetFactory("testCheckpointCache", checkpointReads);
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setBoolean(Constants.Metrics.ROLLUP_ENABLED, true);
+    cConf.setLong(Constants.Metrics.ROLLUP_DELAY_SECONDS, 120L);
+    cConf.setLong(Constants.Metrics.ROLLUP_INTERVAL_SECONDS, 60L);
+    DefaultMetricStore store = new DefaultMetricStore(dsFactory, cConf, currentTime::get);
+    // A store of another process, which doesn't roll up
+    DefaultMetricStore otherStore = new DefaultMetricStore(dsFactory, cConf, currentTime::get);
+
+    // Writers read the checkpoints once and then keep them in memory
+    store.add(createCounter(base + 10, 1));
+    store.add(createCounter(base + 11, 1));
+    otherStore.add(createCounter(base + 12, 1));
+    Assert.assertEquals(2, checkpointReads.get());
+
+    // The rollup updates the checkpoints kept in memory by its own process
+    store.rollup();
+    checkpointReads.set(0);
+    store.add(createCounter(base + 70, 1));
+    otherStore.add(createCounter(base + 71, 1));
+    Assert.assertEquals(0, checkpointReads.get());
+    Assert.assertEquals(ImmutableMap.of(base, 3L, base + 60, 2L), query(store, 60));
+    // Queries always read the checkpoint, so that a concurrent rollup is not counted twice
+    checkpointReads.set(0);
+
+    // Other processes read the checkpoints again after the rollup interval
+    currentTime.set(TimeUnit.SECONDS.toMillis(base + 90));
+    otherStore.add(createCounter(base + 72, 1));
+    Assert.assertEquals(1, checkpointReads.get());
+
+    // Deletion makes the checkpoints to be read again
+    store.deleteAll();
+    store.add(createCounter(base + 73, 1));
+    Assert.assertEquals(2, checkpointReads.get());
+  }
+
+  private MetricValues createCounter(long timestamp, long value) {
+    return new MetricValues(ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, "ns"), "count",
+                            timestamp, value, MetricType.COUNTER);
+  }
+
+  private Map<Long, Long> query(DefaultMetricStore store, int resolution) {
+    MetricDataQuery query = new MetricDataQuery(0L, 1000000L, resolution, Integer.MAX_VALUE,
+                                                ImmutableMap.of("system.count", AggregationFunction.SUM),
+                                                ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, "ns"),
+                                                ImmutableList.<String>of(), null);
+    Map<Long, Long> result = new HashMap<>();
+    for (MetricTimeSeries timeSeries : store.query(query)) {
+      for (TimeValue timeValue : timeSeries.getTimeValues()) {
+        result.merge(timeValue.getTimestamp(), timeValue.getValue(), Long::sum);
+      }
+    }
+    return result;
+  }
+
+  private MetricDatasetFactory createDatasetFactory(String name) {
+    return createDatasetFactory(name, new AtomicInteger());
+  }
+
+  /**
+   * Creates a {@link MetricDatasetFactory} that counts the reads of the rollup checkpoint of the minute resolution.
+   */
+  private MetricDatasetFactory createDatasetFactory(String name, AtomicInteger checkpointReads) {
+    String entityTableName = "EntityTable-" + name;
+    String metaTableName = "MetaTable-" + name;
+    InMemoryTableService.create(entityTableName);
+    InMemoryTableService.create(metaTableName);
+    return new MetricDatasetFactory() {
+      @Override
+      public FactTable getOrCreateFactTable(int resolution) {
+        String dataTableName = "DataTable-" + name + "-" + resolution;
+        InMemoryTableService.create(dataTableName);
+        return new FactTable(new InMemoryMetricsTable(dataTableName),
+                             new EntityTable(new InMemoryMetricsTable(entityTableName)),
+                             resolution, Constants.Metrics.DEFAULT_TIME_SERIES_TABLE_ROLL_TIME);
+      }
+
+      @Override
+      public MetricsConsumerMetaTable createConsumerMeta() {
+        return new MetricsConsumerMetaTable(new InMemoryMetricsTable(metaTableName)) {
+          @Override
+          public synchronized <T extends MetricsMetaKey> long get(T metaKey) throws Exception {
+            if (RollupMetaKey.checkpoint(60).equals(metaKey)) {
+              checkpointReads.incrementAndGet();
+            }
+            return super.get(metaKey);
+          }
+        };
+      }
+    };
+  }
+}